@@ -0,0 +1,4 @@
+#!/bin/bash
+# Allows streaming replication connections to the primary database, used by
+# docker-compose.replica.yml. Only runs when the database is initialized.
+echo "host replication all all md5" >> "$PGDATA/pg_hba.conf"
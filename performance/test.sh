@@ -3,6 +3,11 @@
 # optional first argument is a base URL for the endpoints to be tested
 # remember to quote the URL, so for example:
 # ./test.sh 'http://localhost'
+#
+# optional second argument is a test profile; the "large" profile additionally runs large.yml
+# against a service loaded with the performance-data Spring profile, using samples.csv from
+# PERFORMANCE_DATA_DIRECTORY (../build/performance-data by default), for example:
+# ./test.sh 'http://localhost' large
 
 # determine base uri from first argument or use default
 URL='https://test.openlmis.org'
@@ -10,13 +15,22 @@ if [ ! -z ${1+x} ]; then
   URL=$1
 fi
 
+PROFILE_VOLUMES=''
+PROFILE_CONFIGS=''
+if [ "$2" = "large" ]; then
+  PROFILE_VOLUMES="-v ${PERFORMANCE_DATA_DIRECTORY:-$(pwd)/../build/performance-data}:/tmp/large-data"
+  PROFILE_CONFIGS='large.yml'
+fi
+
 echo "Running performance tests against: $URL"
 export BASE_URL="${URL}"
 docker run --rm -e BASE_URL -v $(pwd):/bzt-configs \
   -v $(pwd)/../build/performance-artifacts:/tmp/artifacts \
   -v $(pwd)/resources:/tmp/resources \
+  ${PROFILE_VOLUMES} \
   blazemeter/taurus:1.10.3 \
   -o modules.jmeter.properties.base-uri="${BASE_URL}" \
   -o reporting.2.dump-xml=/tmp/artifacts/stats.xml \
   config.yml \
-  tests/*.yml
+  tests/*.yml \
+  ${PROFILE_CONFIGS}
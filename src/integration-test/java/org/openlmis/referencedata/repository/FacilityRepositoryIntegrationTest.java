@@ -16,6 +16,7 @@
 package org.openlmis.referencedata.repository;
 
 import static java.util.Collections.singleton;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
@@ -54,6 +55,7 @@ import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.SupportedProgram;
 import org.openlmis.referencedata.domain.SupportedProgramPrimaryKey;
+import org.openlmis.referencedata.dto.MinimalFacilityDto;
 import org.openlmis.referencedata.repository.custom.FacilityRepositoryCustom;
 import org.openlmis.referencedata.testbuilder.ExtraDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
@@ -61,6 +63,8 @@ import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.util.SparseFieldset;
+import org.openlmis.referencedata.utils.SqlStatementBudget;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -331,6 +335,37 @@ public class FacilityRepositoryIntegrationTest extends BaseCrudRepositoryIntegra
     assertThat(foundFacilties, hasItem(facility));
   }
 
+  @Test
+  public void shouldCountFacilitiesFoundUsingExtraDataIfPageIsFull()
+      throws JsonProcessingException {
+    // given
+    Map<String, Object> extraDataRural = new ExtraDataBuilder().add("type", "rural").build();
+    facility.setExtraData(extraDataRural);
+    facility1.setExtraData(extraDataRural);
+    repository.save(facility);
+    repository.save(facility1);
+
+    FacilityRepositoryCustom.SearchParams searchParams =
+        new TestSearchParams(null, null, null, Sets.newHashSet());
+    String extraDataJson = mapper.writeValueAsString(extraDataRural);
+
+    // when
+    Page<Facility> firstPage = repository
+        .search(searchParams, null, extraDataJson, PageRequest.of(0, 1));
+    Page<Facility> secondPage = repository
+        .search(searchParams, null, extraDataJson, PageRequest.of(1, 1));
+    Page<Facility> emptyPage = repository
+        .search(searchParams, null, extraDataJson, PageRequest.of(5, 1));
+
+    // then
+    assertThat(firstPage.getContent(), hasSize(1));
+    assertEquals(2, firstPage.getTotalElements());
+    assertThat(secondPage.getContent(), hasSize(1));
+    assertEquals(2, secondPage.getTotalElements());
+    assertThat(emptyPage.getContent(), hasSize(0));
+    assertEquals(2, emptyPage.getTotalElements());
+  }
+
   @Test
   public void shouldFindFacilitiesByAllParams() throws JsonProcessingException {
     // given
@@ -413,6 +448,42 @@ public class FacilityRepositoryIntegrationTest extends BaseCrudRepositoryIntegra
     assertEquals(facilities.getContent().size(), 1);
   }
 
+  @Test
+  public void shouldFindMinimalFacilities() {
+    Facility inactive = getFacilityDataBuilder()
+        .nonActive()
+        .buildAsNew();
+    repository.save(inactive);
+
+    Page<MinimalFacilityDto> all = repository.findAllMinimal(pageable);
+    Page<MinimalFacilityDto> inactiveOnly = repository.findMinimalByActive(false, pageable);
+
+    assertThat(all.getContent(), hasSize(3));
+    assertThat(inactiveOnly.getContent(), hasSize(1));
+    assertEquals(new MinimalFacilityDto(inactive.getId(), inactive.getCode(), inactive.getName()),
+        inactiveOnly.getContent().get(0));
+  }
+
+  @Test
+  public void shouldSearchOnlyRequestedFieldsWithSingleStatement() {
+    SparseFieldset fields = SparseFieldset.parse("id,code,type.code,geographicZone.name",
+        SparseFieldset.availableFields("id", "code", "type.code", "geographicZone.name"));
+    FacilityRepositoryCustom.SearchParams searchParams =
+        new TestSearchParams(facility.getCode(), null, null, null);
+
+    Page<Map<String, Object>> page = SqlStatementBudget.assertMaxStatements(1, () ->
+        repository.search(searchParams, Collections.emptySet(), null, fields, pageable));
+
+    assertThat(page.getContent(), hasSize(1));
+    Map<String, Object> found = page.getContent().get(0);
+    assertThat(found.keySet(), contains("id", "code", "type", "geographicZone"));
+    assertEquals(facility.getId(), found.get("id"));
+    assertEquals(facility.getCode(), found.get("code"));
+    assertEquals(Collections.singletonMap("code", facilityType.getCode()), found.get("type"));
+    assertEquals(Collections.singletonMap("name", geographicZone.getName()),
+        found.get("geographicZone"));
+  }
+
   @Test
   public void shouldFindAllByIds() {
     // given a facility I don't want
@@ -68,6 +68,7 @@ import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.testbuilder.OrderableDisplayCategoryDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramOrderableDataBuilder;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
@@ -559,6 +560,28 @@ public class OrderableRepositoryIntegrationTest {
     checkSingleResultOrderableVersion(actual.getContent(), orderable.getVersionNumber());
   }
 
+  @Test
+  public void searchShouldReturnOnlyRequestedFieldsOfLatestVersions() {
+    // given
+    Orderable orderable = saveAndGetOrderable(Code.code(SOME_CODE));
+    SparseFieldset fields = SparseFieldset.parse("id,productCode,meta.versionNumber",
+        SparseFieldset.availableFields("id=identity.id", "productCode=productCode.code",
+            "meta.versionNumber=identity.versionNumber"));
+
+    // when
+    Page<Map<String, Object>> actual = repository
+        .search(new TestSearchParams(SOME_CODE, null, null, null), fields, pageable);
+
+    // then
+    assertThat(actual.getContent(), hasSize(1));
+    Map<String, Object> found = actual.getContent().get(0);
+    assertEquals(orderable.getId(), found.get("id"));
+    assertEquals(SOME_CODE, found.get("productCode"));
+    assertEquals(Collections.singletonMap("versionNumber", orderable.getVersionNumber()),
+        found.get("meta"));
+    assertFalse(found.containsKey("fullProductName"));
+  }
+
   @Test
   public void shouldFindResourcesByIdVersionNumberPairs() {
     Orderable orderable1 = saveAndGetOrderable();
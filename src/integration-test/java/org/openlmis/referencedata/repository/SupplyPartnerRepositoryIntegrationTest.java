@@ -25,6 +25,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.IntStream;
 import lombok.Getter;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.referencedata.domain.Facility;
@@ -36,6 +37,7 @@ import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.SupplyPartner;
 import org.openlmis.referencedata.domain.SupplyPartnerAssociation;
+import org.openlmis.referencedata.dto.SupplyPartnerAssociationDto;
 import org.openlmis.referencedata.repository.custom.SupplyPartnerRepositoryCustom;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
@@ -46,6 +48,7 @@ import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupplyPartnerAssociationDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupplyPartnerDataBuilder;
+import org.openlmis.referencedata.utils.SqlStatementBudget;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -262,6 +265,66 @@ public class SupplyPartnerRepositoryIntegrationTest
     supplyPartnerRepository.saveAndFlush(supplyPartner);
   }
 
+  @Test
+  public void shouldFindFacilityOrderablePairsUsedByOtherSupplyPartners() {
+    SupplyPartnerAssociationDto association = exportFirstAssociation(supplyPartners[0]);
+    UUID facilityId = association.getFacilityIds().iterator().next();
+    UUID orderableId = association.getOrderableIds().iterator().next();
+
+    Set<Pair<UUID, UUID>> pairs = supplyPartnerRepository.findAssociatedFacilityOrderablePairs(
+        association.getProgramId(), association.getSupervisoryNodeId(),
+        Sets.newHashSet(facilityId, UUID.randomUUID()),
+        Sets.newHashSet(orderableId, UUID.randomUUID()),
+        supplyPartners[1].getId());
+
+    assertThat(pairs).containsOnly(Pair.of(facilityId, orderableId));
+  }
+
+  @Test
+  public void shouldFindFacilityOrderablePairsWithSingleStatement() {
+    supplyPartnerRepository.flush();
+    SupplyPartnerAssociationDto association = exportFirstAssociation(supplyPartners[0]);
+
+    Set<Pair<UUID, UUID>> pairs = SqlStatementBudget.assertMaxStatements(1, () ->
+        supplyPartnerRepository.findAssociatedFacilityOrderablePairs(
+            association.getProgramId(), association.getSupervisoryNodeId(),
+            association.getFacilityIds(), association.getOrderableIds(), null));
+
+    assertThat(pairs).hasSize(1);
+  }
+
+  @Test
+  public void shouldNotFindFacilityOrderablePairsOfExcludedSupplyPartner() {
+    SupplyPartnerAssociationDto association = exportFirstAssociation(supplyPartners[0]);
+
+    Set<Pair<UUID, UUID>> pairs = supplyPartnerRepository.findAssociatedFacilityOrderablePairs(
+        association.getProgramId(), association.getSupervisoryNodeId(),
+        association.getFacilityIds(), association.getOrderableIds(),
+        supplyPartners[0].getId());
+
+    assertThat(pairs).isEmpty();
+  }
+
+  @Test
+  public void shouldNotFindFacilityOrderablePairsForOtherSupervisoryNode() {
+    SupplyPartnerAssociationDto association = exportFirstAssociation(supplyPartners[0]);
+
+    Set<Pair<UUID, UUID>> pairs = supplyPartnerRepository.findAssociatedFacilityOrderablePairs(
+        association.getProgramId(),
+        supplyPartners[1].getAssociations().get(0).getSupervisoryNode().getId(),
+        association.getFacilityIds(), association.getOrderableIds(),
+        null);
+
+    assertThat(pairs).isEmpty();
+  }
+
+  private SupplyPartnerAssociationDto exportFirstAssociation(SupplyPartner supplyPartner) {
+    SupplyPartnerAssociationDto association = new SupplyPartnerAssociationDto();
+    supplyPartner.getAssociations().get(0).export(association);
+
+    return association;
+  }
+
   @Getter
   private static final class TestSearchParams
       implements SupplyPartnerRepositoryCustom.SearchParams {
@@ -30,7 +30,6 @@ import static org.powermock.api.mockito.PowerMockito.when;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -198,8 +197,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
   @Test
   public void testSearchUsersShouldReturnAllUsersListIfEmptyListIsPassed() {
     Page<User> receivedUsers = repository
-        .searchUsers(new UserSearchParamsDataBuilder().asEmpty().build(), Collections.emptyList(),
-            pageable);
+        .searchUsers(new UserSearchParamsDataBuilder().asEmpty().build(), "", pageable);
 
     assertEquals(TOTAL_USERS, receivedUsers.getContent().size());
   }
@@ -247,7 +245,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
 
     // given a user I don't want
     User user2 = repository.save(generateInstance());
-    User user3 = repository.save(generateInstance());
+    repository.save(generateInstance());
 
     // when
     UserSearchParams searchParams = new UserSearchParamsDataBuilder()
@@ -255,7 +253,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
         .withId(Sets.newHashSet(user1.getId().toString(), user2.getId().toString()))
         .withHomeFacilityId(user1.getHomeFacilityId())
         .build();
-    Page<User> found = repository.searchUsers(searchParams, ImmutableList.of(user3), pageable);
+    Page<User> found = repository.searchUsers(searchParams, null, pageable);
 
     // then
     assertEquals(1, found.getContent().size());
@@ -269,47 +267,42 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
         .asEmpty()
         .withUsername("test")
         .build();
-    Page<User> found = repository.searchUsers(searchParams,Collections.emptyList(), pageable);
+    Page<User> found = repository.searchUsers(searchParams, null, pageable);
 
     // then
     assertEquals(0, found.getContent().size());
   }
 
   @Test
-  public void findByExtraDataShouldFindDataWhenParametersMatch() throws JsonProcessingException {
-    //given
+  public void shouldFindUsersByExtraData() throws JsonProcessingException {
     Map<String, Object> extraData = Collections.singletonMap(EXTRA_DATA_KEY, EXTRA_DATA_VALUE);
-    String extraDataJson = mapper.writeValueAsString(extraData);
     User expectedUser = repository.findOneByUsernameIgnoreCase(users.get(0).getUsername());
     expectedUser.setExtraData(extraData);
     repository.save(expectedUser);
 
-    //when
-    List<User> extraDataUsers = repository.findByExtraData(extraDataJson);
+    Page<User> found = repository.searchUsers(new UserSearchParamsDataBuilder().asEmpty().build(),
+        mapper.writeValueAsString(extraData), pageable);
 
-    //then
-    assertEquals(1, extraDataUsers.size());
-
-    User user = extraDataUsers.get(0);
-    assertEquals(expectedUser.getUsername(), user.getUsername());
-    assertEquals(expectedUser.getFirstName(), user.getFirstName());
-    assertEquals(expectedUser.getLastName(), user.getLastName());
-    assertEquals(expectedUser.getTimezone(), user.getTimezone());
-    assertEquals(expectedUser.getHomeFacilityId(), user.getHomeFacilityId());
-    assertEquals(expectedUser.isActive(), user.isActive());
-    assertEquals(expectedUser.getExtraData(), user.getExtraData());
+    assertEquals(1, found.getContent().size());
+    assertEquals(1, found.getTotalElements());
+    assertThat(found.getContent(), hasItem(expectedUser));
   }
 
   @Test
-  public void findByExtraDataShouldNotFindDataWhenParametersDoNotMatch() {
-    //given
-    String otherExtraDataJson = "{\"" + EXTRA_DATA_KEY + "\":\"blue\"}";
+  public void shouldFindUsersByExtraDataAndOtherParameters() throws JsonProcessingException {
+    Map<String, Object> extraData = Collections.singletonMap(EXTRA_DATA_KEY, EXTRA_DATA_VALUE);
+    User user = repository.findOneByUsernameIgnoreCase(users.get(0).getUsername());
+    user.setExtraData(extraData);
+    repository.save(user);
 
-    //when
-    List<User> extraDataUsers = repository.findByExtraData(otherExtraDataJson);
+    UserSearchParams searchParams = new UserSearchParamsDataBuilder()
+        .asEmpty()
+        .withId(Sets.newHashSet(users.get(1).getId().toString()))
+        .build();
+    Page<User> found = repository.searchUsers(searchParams,
+        mapper.writeValueAsString(extraData), pageable);
 
-    //then
-    assertEquals(0, extraDataUsers.size());
+    assertEquals(0, found.getContent().size());
   }
 
   @Test
@@ -0,0 +1,188 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.transaction.Transactional;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.referencedata.Application;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.dto.SearchResultDto;
+import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.repository.GeographicLevelRepository;
+import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
+import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Runs the search against 50 000 facilities and 30 000 orderables, checks that the trigram
+ * indexes are used and logs the timings. All data is rolled back after each test.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = Application.class)
+@ActiveProfiles("test")
+@Transactional
+public class SearchServiceIntegrationTest {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(
+      SearchServiceIntegrationTest.class);
+
+  private static final int FACILITIES = 50_000;
+  private static final int ORDERABLES = 30_000;
+  private static final int LIMIT = 20;
+
+  @Autowired
+  private SearchService searchService;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  private GeographicLevelRepository geographicLevelRepository;
+
+  @Autowired
+  private GeographicZoneRepository geographicZoneRepository;
+
+  @Autowired
+  private FacilityTypeRepository facilityTypeRepository;
+
+  @Before
+  public void setUp() {
+    GeographicLevel level = geographicLevelRepository
+        .save(new GeographicLevelDataBuilder().buildAsNew());
+    GeographicZone zone = geographicZoneRepository
+        .save(new GeographicZoneDataBuilder().withLevel(level).buildAsNew());
+    FacilityType type = facilityTypeRepository
+        .saveAndFlush(new FacilityTypeDataBuilder().buildAsNew());
+
+    long start = System.currentTimeMillis();
+    jdbcTemplate.update("INSERT INTO referencedata.facilities"
+        + " (id, active, code, enabled, name, geographiczoneid, typeid)"
+        + " SELECT md5(random()::text || i)::uuid, TRUE, 'FAC' || lpad(i::text, 6, '0'), TRUE,"
+        + " 'Health Centre ' || md5(i::text), ?, ?"
+        + " FROM generate_series(1, ?) AS i", zone.getId(), type.getId(), FACILITIES);
+
+    UUID dispensableId = UUID.randomUUID();
+    jdbcTemplate.update("INSERT INTO referencedata.dispensables (id, type) VALUES (?, 'default')",
+        dispensableId);
+    jdbcTemplate.update("INSERT INTO referencedata.orderables"
+        + " (id, code, dispensableid, fullproductname, netcontent, packroundingthreshold,"
+        + " roundtozero, versionnumber, lastupdated)"
+        + " SELECT md5(random()::text || i)::uuid, 'ORD' || lpad(i::text, 6, '0'), ?,"
+        + " 'Product ' || md5(i::text), 1, 0, FALSE, 1, NOW()"
+        + " FROM generate_series(1, ?) AS i", dispensableId, ORDERABLES);
+
+    jdbcTemplate.execute("ANALYZE referencedata.facilities");
+    jdbcTemplate.execute("ANALYZE referencedata.orderables");
+    LOGGER.info("Inserted {} facilities and {} orderables in {} ms",
+        FACILITIES, ORDERABLES, System.currentTimeMillis() - start);
+  }
+
+  @Test
+  public void shouldFindFacilityByExactCodeFirst() {
+    List<SearchResultDto> results = search("FAC012345", SearchResourceType.FACILITY);
+
+    assertThat(results).isNotEmpty().hasSizeLessThanOrEqualTo(LIMIT);
+    assertThat(results.get(0).getCode()).isEqualTo("FAC012345");
+  }
+
+  @Test
+  public void shouldFindOrderableByCodeWithTypo() {
+    List<SearchResultDto> results = search("ord01234S", SearchResourceType.ORDERABLE);
+
+    assertThat(results)
+        .extracting(SearchResultDto::getType)
+        .containsOnly(SearchResourceType.ORDERABLE);
+    assertThat(results)
+        .extracting(SearchResultDto::getCode)
+        .contains("ORD012345");
+  }
+
+  @Test
+  public void shouldSearchAllTypesAtOnce() {
+    List<SearchResultDto> results = search("00123", SearchResourceType.FACILITY,
+        SearchResourceType.ORDERABLE, SearchResourceType.GEOGRAPHIC_ZONE);
+
+    assertThat(results).hasSize(LIMIT);
+    assertThat(results)
+        .extracting(SearchResultDto::getType)
+        .contains(SearchResourceType.FACILITY, SearchResourceType.ORDERABLE);
+  }
+
+  @Test
+  public void shouldUseTrigramIndexes() {
+    assertThat(explain(SearchResourceType.FACILITY, "FAC012345"))
+        .contains("facilities_code_trgm_idx");
+    assertThat(explain(SearchResourceType.ORDERABLE, "ord012345"))
+        .contains("orderables_code_trgm_idx");
+  }
+
+  private List<SearchResultDto> search(String query, SearchResourceType... types) {
+    EnumSet<SearchResourceType> typeSet = EnumSet.noneOf(SearchResourceType.class);
+    typeSet.addAll(Arrays.asList(types));
+
+    long start = System.nanoTime();
+    List<SearchResultDto> results = searchService.search(query, typeSet, LIMIT);
+    LOGGER.info("Search for '{}' in {} returned {} results in {} ms", query, typeSet,
+        results.size(), (System.nanoTime() - start) / 1_000_000);
+
+    return results;
+  }
+
+  private String explain(SearchResourceType type, String query) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("upperQuery", query);
+    params.put("upperPrefix", query + '%');
+    params.put("upperContains", '%' + query + '%');
+    params.put("lowerQuery", query);
+    params.put("lowerPrefix", query + '%');
+    params.put("lowerContains", '%' + query + '%');
+    params.put(SearchService.LIMIT, LIMIT);
+
+    StringBuilder plan = new StringBuilder();
+    namedParameterJdbcTemplate
+        .queryForList("EXPLAIN " + SearchService.QUERIES.get(type), params, String.class)
+        .forEach(line -> plan.append(line).append('\n'));
+    LOGGER.info("Search plan for {}:\n{}", type, plan);
+
+    return plan.toString();
+  }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.utils;
+
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.util.Map;
+import java.util.function.Supplier;
+import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Matcher;
+import org.openlmis.referencedata.interceptor.SqlStatistics;
+import org.openlmis.referencedata.interceptor.SqlStatisticsFilter;
+
+/**
+ * Helps to keep the number of SQL statements executed by endpoints and services in check.
+ */
+public final class SqlStatementBudget {
+
+  private SqlStatementBudget() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Matches the {@link SqlStatisticsFilter#STATEMENTS_HEADER} header value that is not greater
+   * than the given number, for example:
+   * <pre>
+   *   restAssured.given()...get(RESOURCE_URL)
+   *       .then()
+   *       .header(SqlStatisticsFilter.STATEMENTS_HEADER, SqlStatementBudget.atMost(3));
+   * </pre>
+   */
+  public static Matcher<String> atMost(int maxStatements) {
+    return new FeatureMatcher<String, Integer>(lessThanOrEqualTo(maxStatements),
+        "number of SQL statements", "statements") {
+
+      @Override
+      protected Integer featureValueOf(String actual) {
+        return Integer.valueOf(actual);
+      }
+    };
+  }
+
+  /**
+   * Runs the given action on the current thread and fails if it executed more SQL statements
+   * than the given number.
+   */
+  public static void assertMaxStatements(int maxStatements, Runnable action) {
+    assertMaxStatements(maxStatements, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Runs the given action on the current thread and fails if it executed more SQL statements
+   * than the given number.
+   *
+   * @return the result of the action
+   */
+  public static <T> T assertMaxStatements(int maxStatements, Supplier<T> action) {
+    SqlStatistics statistics = SqlStatistics.start();
+    T result;
+
+    try {
+      result = action.get();
+    } finally {
+      SqlStatistics.clear();
+    }
+
+    if (statistics.getStatementCount() > maxStatements) {
+      Map<String, Integer> repeated = statistics.getRepeatedStatements(2);
+      throw new AssertionError(String.format(
+          "Expected at most %d SQL statements but %d were executed. Repeated statements: %s",
+          maxStatements, statistics.getStatementCount(), repeated));
+    }
+
+    return result;
+  }
+
+}
@@ -99,11 +99,16 @@ import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.service.OrderableService;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.service.RequisitionGroupService;
+import org.openlmis.referencedata.service.ResourceVersionService;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.RoleUserCountService;
+import org.openlmis.referencedata.service.SearchService;
 import org.openlmis.referencedata.service.SupplyPartnerBuilder;
+import org.openlmis.referencedata.service.UserImportService;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.service.export.DataExportService;
 import org.openlmis.referencedata.service.export.DataImportService;
+import org.openlmis.referencedata.service.job.JobService;
 import org.openlmis.referencedata.testbuilder.UserDataBuilder;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.SystemMessageKeys;
@@ -123,7 +128,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 
 @RunWith(SpringRunner.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "sqlStatistics.headers.enabled=true")
 @ActiveProfiles("test")
 @SuppressWarnings({"PMD.TooManyMethods"})
 public abstract class BaseWebIntegrationTest {
@@ -332,6 +338,21 @@ public abstract class BaseWebIntegrationTest {
   @MockBean
   protected DataImportService dataImportService;
 
+  @MockBean
+  protected ResourceVersionService resourceVersionService;
+
+  @MockBean
+  protected RoleUserCountService roleUserCountService;
+
+  @MockBean
+  protected SearchService searchService;
+
+  @MockBean
+  protected UserImportService userImportService;
+
+  @MockBean
+  protected JobService jobService;
+
   /**
    * Constructor for test.
    */
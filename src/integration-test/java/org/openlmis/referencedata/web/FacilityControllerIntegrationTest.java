@@ -17,6 +17,9 @@ package org.openlmis.referencedata.web;
 
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
@@ -70,7 +73,9 @@ import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupplyLineDataBuilder;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.SparseFieldsetMessageKeys;
 import org.openlmis.referencedata.utils.AuditLogHelper;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -426,6 +431,44 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     verifyZeroInteractions(rightService);
   }
 
+  @Test
+  public void shouldReturnOnlyRequestedFields() {
+    SparseFieldset fields = SparseFieldset.parse("code,geographicZone.name",
+        SparseFieldset.availableFields("code", "geographicZone.name"));
+    given(facilityService.searchFacilities(new FacilitySearchParams(new LinkedMultiValueMap<>()),
+        fields, pageable)).willReturn(Pagination.getPage(
+            Lists.newArrayList(fields.toMap(new Object[]{facility.getCode(), "zone"})),
+            PageRequest.of(0, 10)));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(SparseFieldset.FIELDS, "code,geographicZone.name")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("content", hasSize(1))
+        .body("content[0].code", is(facility.getCode()))
+        .body("content[0].geographicZone.name", is("zone"))
+        .body("content[0]", not(hasKey("name")));
+
+    verifyZeroInteractions(facilityRepository, rightService);
+  }
+
+  @Test
+  public void shouldRejectUnknownFields() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(SparseFieldset.FIELDS, "code,supportedPrograms")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(400)
+        .body(MESSAGE_KEY, is(SparseFieldsetMessageKeys.ERROR_INVALID));
+  }
+
   @Test
   public void shouldSearchWithParamsWhenParamsProvided() {
     List<Facility> storedFacilities = asList(facility, new FacilityDataBuilder()
@@ -460,8 +503,9 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
   public void shouldReturnInactiveFacilitiesWithMinimalRepresentation() {
     facility = new FacilityDataBuilder()
         .withSupportedProgram(program).nonActive().build();
-    given(facilityRepository.findByActive(eq(false), any(Pageable.class))).willReturn(
-        Pagination.getPage(Lists.newArrayList(facility), PageRequest.of(0, 10)));
+    given(facilityRepository.findMinimalByActive(eq(false), any(Pageable.class))).willReturn(
+        Pagination.getPage(Lists.newArrayList(MinimalFacilityDto.newInstance(facility)),
+            PageRequest.of(0, 10)));
 
     PageDto response = restAssured
         .given()
@@ -481,8 +525,9 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
 
   @Test
   public void shouldReturnActiveFacilitiesWithMinimalRepresentation() {
-    given(facilityRepository.findByActive(eq(true), any(Pageable.class))).willReturn(
-        Pagination.getPage(Lists.newArrayList(facility), PageRequest.of(0, 10)));
+    given(facilityRepository.findMinimalByActive(eq(true), any(Pageable.class))).willReturn(
+        Pagination.getPage(Lists.newArrayList(MinimalFacilityDto.newInstance(facility)),
+            PageRequest.of(0, 10)));
 
     PageDto response = restAssured
         .given()
@@ -502,9 +547,10 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
 
   @Test
   public void getAllShouldGetAllFacilitiesWithMinimalRepresentation() {
-    List<Facility> storedFacilities = asList(facility, new FacilityDataBuilder()
-        .withSupportedProgram(program).build());
-    given(facilityRepository.findAll(any(Pageable.class))).willReturn(
+    List<MinimalFacilityDto> storedFacilities = asList(MinimalFacilityDto.newInstance(facility),
+        MinimalFacilityDto.newInstance(new FacilityDataBuilder()
+            .withSupportedProgram(program).build()));
+    given(facilityRepository.findAllMinimal(any(Pageable.class))).willReturn(
         Pagination.getPage(storedFacilities, PageRequest.of(0, 10)));
 
     Page<MinimalFacilityDto> response = restAssured
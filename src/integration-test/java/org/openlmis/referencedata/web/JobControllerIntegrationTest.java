@@ -0,0 +1,196 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.exception.NotFoundException;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.JobMessageKeys;
+import org.springframework.http.HttpHeaders;
+
+public class JobControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String RESOURCE_URL = "/api/jobs";
+  private static final String ID_URL = RESOURCE_URL + "/{id}";
+  private static final String CANCEL_URL = ID_URL + "/cancel";
+  private static final String RESULT_URL = ID_URL + "/result";
+  private static final String CSV = "code\nABC\n";
+
+  private JobDto job;
+
+  @Before
+  @Override
+  public void setUp() {
+    super.setUp();
+
+    job = new JobDto();
+    job.setId(UUID.randomUUID());
+    job.setType(JobType.DATA_EXPORT);
+    job.setStatus(JobDto.Status.RUNNING);
+    job.setCreatedDate(ZonedDateTime.now());
+    job.setStartedDate(ZonedDateTime.now());
+    job.setTotal(4L);
+    job.setProcessed(1);
+    job.setProgress(25.0);
+
+    when(jobService.getJob(job.getId())).thenReturn(job);
+    mockUserHasRight(RightName.DATA_EXPORT);
+  }
+
+  @Test
+  public void shouldReturnJob() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(200)
+        .body("status", is("RUNNING"))
+        .body("total", is(4))
+        .body("processed", is(1));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundForUnknownJob() {
+    UUID id = UUID.randomUUID();
+    when(jobService.getJob(id)).thenThrow(
+        new NotFoundException(new Message(JobMessageKeys.ERROR_NOT_FOUND, id)));
+
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", id)
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(404)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, is(equalTo(JobMessageKeys.ERROR_NOT_FOUND)));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldRejectJobIfUserHasNoRightForItsType() {
+    mockUserHasNoRight(RightName.DATA_EXPORT);
+
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(403)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, is(equalTo(MESSAGEKEY_ERROR_UNAUTHORIZED)));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldCancelJob() {
+    JobDto cancelled = new JobDto();
+    cancelled.setId(job.getId());
+    cancelled.setType(job.getType());
+    cancelled.setStatus(JobDto.Status.RUNNING);
+    cancelled.setCreatedDate(job.getCreatedDate());
+    cancelled.setCancelRequested(true);
+    when(jobService.cancel(job.getId())).thenReturn(cancelled);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .post(CANCEL_URL)
+        .then()
+        .statusCode(200)
+        .body("cancelRequested", is(true));
+
+    verify(jobService).cancel(job.getId());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnJobResult() throws Exception {
+    byte[] content = CSV.getBytes(StandardCharsets.UTF_8);
+    job.setStatus(JobDto.Status.COMPLETED);
+    job.setResult(new JobDto.Result("codes.csv", "text/csv", content.length));
+    doAnswer(invocation -> {
+      ((OutputStream) invocation.getArguments()[1]).write(content);
+      return null;
+    }).when(jobService).writeResult(eq(job.getId()), any(OutputStream.class));
+
+    String body = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(RESULT_URL)
+        .then()
+        .statusCode(200)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=codes.csv")
+        .extract()
+        .asString();
+
+    assertThat(body, is(CSV));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundIfJobHasNoResult() {
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(RESULT_URL)
+        .then()
+        .statusCode(404)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, is(equalTo(JobMessageKeys.ERROR_RESULT_NOT_FOUND)));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+}
@@ -19,13 +19,16 @@ import static java.util.Collections.emptyList;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.jayway.restassured.response.ValidatableResponse;
@@ -37,8 +40,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
 import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
 import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.http.HttpHeaders;
@@ -48,6 +53,9 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
   private static final String CAN_BE_FULFILLED_BY_ME = ".canBeFulfilledByMe";
   private static final String CAN_FULFILL_FOR_ME_FIELD_NAME = ".canFulfillForMe";
 
+  @Autowired
+  private OrderableFulfillIndex orderableFulfillIndex;
+
   private Orderable orderable = new OrderableDataBuilder().build();
   private UUID facilityId = UUID.randomUUID();
   private UUID programId = UUID.randomUUID();
@@ -60,14 +68,15 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
   public void setUp() {
     super.setUp();
     given(orderableRepository.findAllLatest(any())).willReturn(getPage(orderable));
+    given(factory.createFor(any(), any(), any())).willReturn(ImmutableMap.of(
+        tradeItemOrderableId, OrderableFulfill.ofTradeItem(commodityTypeOrderableId),
+        commodityTypeOrderableId, OrderableFulfill.ofCommodityType(tradeItemOrderableId)));
+
+    orderableFulfillIndex.invalidate(new OrderableFulfillIndexListener.SourceChangedEvent(this));
   }
 
   @Test
   public void shouldCreateResourceForTradeItem() {
-    orderable.setId(tradeItemOrderableId);
-    given(factory.createFor(eq(orderable), any(), any()))
-        .willReturn(OrderableFulfill.ofTradeItem(commodityTypeOrderableId));
-
     String canFulfillForMeField = tradeItemOrderableId + CAN_FULFILL_FOR_ME_FIELD_NAME;
     String canBeFulfilledByMeField = tradeItemOrderableId + CAN_BE_FULFILLED_BY_ME;
 
@@ -79,10 +88,6 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
 
   @Test
   public void shouldCreateResourceForCommodityType() {
-    orderable.setId(commodityTypeOrderableId);
-    given(factory.createFor(eq(orderable), any(), any()))
-        .willReturn(OrderableFulfill.ofCommodityType(tradeItemOrderableId));
-
     String canBeFulfilledByMeField = commodityTypeOrderableId + CAN_BE_FULFILLED_BY_ME;
     String canFulfillForMeField = commodityTypeOrderableId + CAN_FULFILL_FOR_ME_FIELD_NAME;
 
@@ -95,19 +100,13 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
   @Test
   public void shouldReturnEmptyListIfThereAreNoOrderables() {
     given(orderableRepository.findAllLatest(any())).willReturn(new PageImpl<>(emptyList()));
+    given(factory.createFor(any(), any(), any())).willReturn(Collections.emptyMap());
 
     doRequest(null).body("isEmpty()", is(true));
-    verifyZeroInteractions(factory);
   }
 
   @Test
   public void shouldCreateResourceBasingOnIds() {
-    orderable.setId(commodityTypeOrderableId);
-
-    given(orderableRepository.findAllLatestByIds(any(), any())).willReturn(getPage(orderable));
-    given(factory.createFor(eq(orderable), any(), any()))
-        .willReturn(OrderableFulfill.ofCommodityType(tradeItemOrderableId));
-
     String canFulfillForMeField = commodityTypeOrderableId + CAN_FULFILL_FOR_ME_FIELD_NAME;
 
     HashMap<String, Object> params = Maps.newHashMap();
@@ -115,22 +114,17 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
 
     ValidatableResponse response = doRequest(params);
     response.body(canFulfillForMeField, hasItem(tradeItemOrderableId.toString()));
-
-    verify(orderableRepository, times(0)).findAllLatest(any());
+    response.body(tradeItemOrderableId.toString(), is(nullValue()));
   }
 
   @Test
   public void shouldCreateResourceBasingOnFacilityIdAndProgramIdParams() {
-    orderable.setId(commodityTypeOrderableId);
     FacilityTypeApprovedProduct ftap = new FacilityTypeApprovedProductsDataBuilder()
         .withOrderableId(commodityTypeOrderableId).build();
 
     given(facilityTypeApprovedProductRepository
         .searchProducts(eq(facilityId), eq(programId), any(), any(), eq(true), any(), any(),any()))
         .willReturn(getPage(ftap));
-    given(orderableRepository.findAllLatestByIds(any(), any())).willReturn(getPage(orderable));
-    given(factory.createFor(eq(orderable), any(), any()))
-        .willReturn(OrderableFulfill.ofCommodityType(tradeItemOrderableId));
 
     String canFulfillForMeField = commodityTypeOrderableId + CAN_FULFILL_FOR_ME_FIELD_NAME;
 
@@ -140,12 +134,59 @@ public class OrderableFulfillControllerIntegrationTest extends BaseWebIntegratio
 
     ValidatableResponse response = doRequest(params);
     response.body(canFulfillForMeField, hasItem(tradeItemOrderableId.toString()));
+    response.body(tradeItemOrderableId.toString(), is(nullValue()));
+    response.header(HttpHeaders.ETAG, is(nullValue()));
 
-    verify(orderableRepository, times(0)).findAllLatest(any());
     verify(facilityTypeApprovedProductRepository)
         .searchProducts(eq(facilityId), eq(programId), any(), any(), eq(true), any(), any(), any());
   }
 
+  @Test
+  public void shouldBuildIndexOnlyOnce() {
+    doRequest(null);
+    doRequest(null);
+
+    verify(factory, times(1)).createFor(any(), any(), any());
+    verify(orderableRepository, times(1)).findAllLatest(any());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfIndexHasNotChanged() {
+    String etag = doRequest(null)
+        .header(HttpHeaders.ETAG, is(notNullValue()))
+        .extract()
+        .header(HttpHeaders.ETAG);
+
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .when()
+        .get("/api/orderableFulfills")
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, etag);
+  }
+
+  @Test
+  public void shouldReturnNewVersionIfIndexHasChanged() {
+    String etag = doRequest(null)
+        .extract()
+        .header(HttpHeaders.ETAG);
+
+    given(factory.createFor(any(), any(), any())).willReturn(ImmutableMap.of(
+        tradeItemOrderableId, OrderableFulfill.ofTradeItem()));
+    orderableFulfillIndex.invalidate(new OrderableFulfillIndexListener.SourceChangedEvent(this));
+
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .when()
+        .get("/api/orderableFulfills")
+        .then()
+        .statusCode(200)
+        .header(HttpHeaders.ETAG, not(etag));
+  }
+
   @SafeVarargs
   private final <T> Page<T> getPage(T... instance) {
     return new PageImpl<>(Lists.newArrayList(instance));
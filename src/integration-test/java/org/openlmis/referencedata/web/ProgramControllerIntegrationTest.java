@@ -25,7 +25,10 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import guru.nidi.ramltester.junit.RamlMatchers;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -37,7 +40,9 @@ import org.openlmis.referencedata.AvailableFeatures;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.ProgramDto;
+import org.openlmis.referencedata.interceptor.SqlStatisticsFilter;
 import org.openlmis.referencedata.utils.AuditLogHelper;
+import org.openlmis.referencedata.utils.SqlStatementBudget;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -56,6 +61,8 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String FIND_BY_NAME_URL = RESOURCE_URL + "/search";
   private static final String NAME = "name";
   private static final String DESCRIPTION = "OpenLMIS";
+  private static final String ETAG = "\"1.2\"";
+  private static final String SMILE_MEDIA_TYPE = "application/x-jackson-smile";
 
   private Program program;
   private ProgramDto programDto = new ProgramDto();
@@ -305,6 +312,45 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnETagWithPrograms() {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+    given(programRepository.findAll()).willReturn(asList(program, new Program("P2")));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "\"1.1\"")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .header(HttpHeaders.ETAG, ETAG);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfProgramsWereNotChanged() {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, ETAG)
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, ETAG)
+        .header(SqlStatisticsFilter.STATEMENTS_HEADER, SqlStatementBudget.atMost(0));
+
+    verifyZeroInteractions(programRepository);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldFilterProgramsByIdsAndName() {
     String name = "some-name";
@@ -424,6 +470,28 @@ public class ProgramControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldGetProgramAsSmile() throws IOException {
+    given(programRepository.existsById(programId)).willReturn(true);
+    given(programRepository.findById(programId)).willReturn(Optional.of(program));
+
+    byte[] response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .accept(SMILE_MEDIA_TYPE)
+        .pathParam("id", programId)
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(200)
+        .contentType(SMILE_MEDIA_TYPE)
+        .extract().asByteArray();
+
+    Program result = new ObjectMapper(new SmileFactory()).readValue(response, Program.class);
+
+    assertEquals(program, result);
+  }
+
   @Test
   public void shouldGetProgramFromCache() {
 
@@ -33,6 +33,7 @@ import org.openlmis.referencedata.domain.Right;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.RightType;
 import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
 import org.openlmis.referencedata.dto.RoleDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.util.Message;
@@ -76,8 +77,11 @@ public class RoleControllerIntegrationTest extends BaseWebIntegrationTest {
   @Test
   public void shouldGetAllRoles() {
 
-    List<Role> storedRoles = Arrays.asList(role, Role.newRole("role2", right1));
-    given(roleRepository.search(any())).willReturn(storedRoles);
+    List<Role> storedRoles = Arrays.asList(role, Role.newRole("role2", right1),
+        Role.newRole("role3", Right.newRight("right3", RightType.GENERAL_ADMIN)));
+    given(roleRepository.findAll()).willReturn(storedRoles);
+    given(resourceVersionService.getETag(Role.class, RoleAssignment.class))
+        .willReturn("\"" + UUID.randomUUID() + "\"");
 
     RoleDto[] response = restAssured
         .given()
@@ -0,0 +1,139 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_QUERY_REQUIRED;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.UUID;
+import org.hamcrest.Matchers;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.dto.SearchResultDto;
+import org.springframework.http.HttpHeaders;
+
+public class SearchControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String RESOURCE_URL = "/api/search";
+  private static final String QUERY = "query";
+  private static final String TYPE = "type";
+  private static final String LIMIT = "limit";
+
+  @Test
+  public void shouldSearchDefaultTypes() {
+    SearchResultDto facility = new SearchResultDto(SearchResourceType.FACILITY,
+        UUID.randomUUID(), "HC01", "Comfort Health Clinic", 1.5);
+    given(searchService.search("comfort", EnumSet.of(SearchResourceType.FACILITY,
+        SearchResourceType.ORDERABLE, SearchResourceType.GEOGRAPHIC_ZONE), 20))
+        .willReturn(Collections.singletonList(facility));
+
+    SearchResultDto[] response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(QUERY, "comfort")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .extract()
+        .as(SearchResultDto[].class);
+
+    assertEquals(1, response.length);
+    assertEquals(facility, response[0]);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldSearchUsersIfUserHasRight() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(QUERY, "admin")
+        .queryParam(TYPE, "user")
+        .queryParam(LIMIT, 5)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200);
+
+    verify(searchService).search("admin", EnumSet.of(SearchResourceType.USER), 5);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldRejectSearchForUsersIfUserHasNoRight() {
+    mockUserHasNoRight(RightName.USERS_MANAGE_RIGHT);
+
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(QUERY, "admin")
+        .queryParam(TYPE, "user")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(403)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, Matchers.is(equalTo(MESSAGEKEY_ERROR_UNAUTHORIZED)));
+    verifyZeroInteractions(searchService);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnBadRequestIfQueryIsBlank() {
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam(QUERY, " ")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(400)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, Matchers.is(equalTo(ERROR_QUERY_REQUIRED)));
+    verifyZeroInteractions(searchService);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldRejectUnauthorizedRequest() {
+    restAssured
+        .given()
+        .queryParam(QUERY, "comfort")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(401);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+}
@@ -31,6 +31,7 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -74,6 +75,7 @@ import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.dto.ObjectReferenceDto;
 import org.openlmis.referencedata.dto.SupervisoryNodeDto;
 import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.dto.UserObjectReferenceDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.service.PageDto;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
@@ -103,6 +105,8 @@ public class SupervisoryNodeControllerIntegrationTest extends BaseWebIntegration
   private static final String RESOURCE_URL = "/api/supervisoryNodes";
   private static final String ID_URL = RESOURCE_URL + "/{id}";
   private static final String SUPERVISING_USERS_URL = ID_URL + "/supervisingUsers";
+  private static final String SUPERVISING_USER_REFERENCES_URL = SUPERVISING_USERS_URL
+      + "/references";
   private static final String SUPERVISING_FACILITIES_URL = ID_URL + "/facilities";
   private static final String RIGHT_ID_PARAM = "rightId";
   private static final String DESCRIPTION = "OpenLMIS";
@@ -926,6 +930,59 @@ public class SupervisoryNodeControllerIntegrationTest extends BaseWebIntegration
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void findSupervisingUserReferencesShouldGetReferencesToSupervisingUsers() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    UUID supervisingUserId = UUID.randomUUID();
+
+    given(supervisoryNodeRepository.existsById(supervisoryNodeId)).willReturn(true);
+    given(rightRepository.existsById(rightId)).willReturn(true);
+    given(programRepository.existsById(programId)).willReturn(true);
+    given(userRepository.findSupervisingUserIds(rightId, supervisoryNodeId, programId))
+        .willReturn(Collections.singletonList(supervisingUserId));
+
+    UserObjectReferenceDto[] response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", supervisoryNodeId)
+        .queryParam(RIGHT_ID_PARAM, rightId)
+        .queryParam(PROGRAM_ID, programId)
+        .when()
+        .get(SUPERVISING_USER_REFERENCES_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(UserObjectReferenceDto[].class);
+
+    assertThat(response.length, is(1));
+    assertEquals(supervisingUserId, response[0].getId());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+    verify(userRepository, never()).findUsersBySupervisionRight(rightId, supervisoryNodeId,
+        programId);
+  }
+
+  @Test
+  public void findSupervisingUserReferencesShouldReturnNotFoundIfSupervisoryNodeNotFound() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    given(supervisoryNodeRepository.existsById(supervisoryNodeId)).willReturn(false);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", supervisoryNodeId)
+        .queryParam(RIGHT_ID_PARAM, rightId)
+        .queryParam(PROGRAM_ID, programId)
+        .when()
+        .get(SUPERVISING_USER_REFERENCES_URL)
+        .then()
+        .statusCode(404);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void findSupervisingUsersShouldReturnBadRequestIfRightNotFound() {
     mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
@@ -0,0 +1,149 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.UserDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+public class UserImportControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String RESOURCE_URL = "/api/users/import";
+  private static final String ASYNC = "async";
+
+  private UserDto userDto;
+  private JobDto job;
+
+  @Before
+  @Override
+  public void setUp() {
+    super.setUp();
+
+    userDto = new UserDto();
+    userDto.setId(UUID.randomUUID());
+    userDto.setUsername("jdoe");
+    userDto.setFirstName("John");
+    userDto.setLastName("Doe");
+
+    job = new JobDto();
+    job.setId(UUID.randomUUID());
+    job.setType(JobType.USER_IMPORT);
+    job.setStatus(JobDto.Status.QUEUED);
+    job.setCreatedDate(ZonedDateTime.now());
+
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+  }
+
+  @Test
+  public void shouldImportUsers() {
+    when(userImportService.importUsers(anyList()))
+        .thenReturn(Collections.singletonList(BatchItemResultDto.created(0, userDto)));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .body(Collections.singletonList(userDto))
+        .when()
+        .post(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("[0].status", is("CREATED"))
+        .body("[0].resource.username", is("jdoe"));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldQueueImportJob() {
+    when(userImportService.submit(anyList())).thenReturn(job);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .queryParam(ASYNC, true)
+        .body(Collections.singletonList(userDto))
+        .when()
+        .post(RESOURCE_URL)
+        .then()
+        .statusCode(202)
+        .body("id", is(job.getId().toString()))
+        .body("status", is("QUEUED"));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldImportUsersFromCsvFile() {
+    when(userImportService.importUsers(any(InputStream.class)))
+        .thenReturn(Collections.singletonList(BatchItemResultDto.created(0, userDto)));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.MULTIPART_FORM_DATA_VALUE)
+        .multiPart("file", "users.csv",
+            "username,firstName,lastName\njdoe,John,Doe\n".getBytes(StandardCharsets.UTF_8))
+        .when()
+        .post(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("[0].status", is("CREATED"));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.responseChecks());
+  }
+
+  @Test
+  public void shouldRejectImportIfUserHasNoRight() {
+    mockUserHasNoRight(RightName.USERS_MANAGE_RIGHT);
+
+    String messageKey = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .body(Collections.singletonList(userDto))
+        .when()
+        .post(RESOURCE_URL)
+        .then()
+        .statusCode(403)
+        .extract()
+        .path(MESSAGE_KEY);
+
+    assertThat(messageKey, is(equalTo(MESSAGEKEY_ERROR_UNAUTHORIZED)));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.Lists;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDisplayCategoryDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramOrderableDataBuilder;
+import org.openlmis.referencedata.util.Pagination;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class DtoExportBenchmark {
+
+  @Param({"1000", "10000"})
+  private int size;
+
+  private List<Orderable> orderables;
+  private List<Facility> facilities;
+  private Page<OrderableDto> orderablePage;
+
+  // mirrors the spring.jackson.* settings from application.properties
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+      .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .build();
+
+  /**
+   * Creates orderables with a program orderable each and facilities with a supported program.
+   */
+  @Setup
+  public void setUp() {
+    Program program = new ProgramDataBuilder().build();
+    OrderableDisplayCategory category = new OrderableDisplayCategoryDataBuilder().build();
+
+    orderables = new ArrayList<>(size);
+    facilities = new ArrayList<>(size);
+
+    for (int i = 0; i < size; ++i) {
+      orderables.add(new OrderableDataBuilder()
+          .withProgramOrderables(Lists.newArrayList(new ProgramOrderableDataBuilder()
+              .withProgram(program)
+              .withOrderabeDisplayCategory(category)
+              .build()))
+          .build());
+      facilities.add(new FacilityDataBuilder()
+          .withSupportedProgram(program)
+          .build());
+    }
+
+    orderablePage = Pagination.getPage(OrderableDto.newInstance(orderables),
+        PageRequest.of(0, size));
+  }
+
+  @Benchmark
+  public List<OrderableDto> exportOrderables() {
+    return OrderableDto.newInstance(orderables);
+  }
+
+  @Benchmark
+  public List<FacilityDto> exportFacilities() {
+    List<FacilityDto> dtos = new ArrayList<>(facilities.size());
+    for (Facility facility : facilities) {
+      dtos.add(FacilityDto.newInstance(facility));
+    }
+    return dtos;
+  }
+
+  @Benchmark
+  public byte[] serializeOrderablePage() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(orderablePage);
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.dto;
+
+import com.bedatadriven.jackson.datatype.jts.JtsModule;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import com.google.common.collect.Lists;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDisplayCategoryDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramOrderableDataBuilder;
+import org.openlmis.referencedata.util.Pagination;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Compares response encodings of the largest reference data pages: serialization time on the
+ * server and decode time on the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ResponseEncodingBenchmark {
+
+  private static final int PAGE_SIZE = 2000;
+
+  @Param({"orderables", "facilities", "approvedProducts"})
+  private String payload;
+
+  @Param({"json-indent", "json", "smile", "cbor"})
+  private String encoding;
+
+  @Param({"false", "true"})
+  private boolean afterburner;
+
+  private Object page;
+  private ObjectMapper objectMapper;
+  private byte[] encoded;
+
+  /**
+   * Creates the page and the object mapper and encodes the page once for the decode benchmark.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    page = Pagination.getPage(createContent(), PageRequest.of(0, PAGE_SIZE));
+
+    Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder
+        .json()
+        .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .modulesToInstall(new JtsModule());
+
+    if ("json-indent".equals(encoding)) {
+      builder.featuresToEnable(SerializationFeature.INDENT_OUTPUT);
+    } else if (!"json".equals(encoding)) {
+      builder.factory(createFactory());
+    }
+
+    if (afterburner) {
+      builder.modulesToInstall(new JtsModule(), new AfterburnerModule());
+    }
+
+    objectMapper = builder.build();
+    encoded = objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public byte[] serialize() throws IOException {
+    return objectMapper.writeValueAsBytes(page);
+  }
+
+  @Benchmark
+  public JsonNode decode() throws IOException {
+    return objectMapper.readTree(encoded);
+  }
+
+  private JsonFactory createFactory() {
+    return "smile".equals(encoding) ? new SmileFactory() : new CBORFactory();
+  }
+
+  private List<?> createContent() {
+    Program program = new ProgramDataBuilder().build();
+    OrderableDisplayCategory category = new OrderableDisplayCategoryDataBuilder().build();
+    FacilityType facilityType = new FacilityTypeDataBuilder().build();
+
+    List<Object> content = new ArrayList<>(PAGE_SIZE);
+
+    for (int i = 0; i < PAGE_SIZE; ++i) {
+      if ("facilities".equals(payload)) {
+        content.add(FacilityDto.newInstance(new FacilityDataBuilder()
+            .withSupportedProgram(program)
+            .build()));
+        continue;
+      }
+
+      Orderable orderable = new OrderableDataBuilder()
+          .withProgramOrderables(Lists.newArrayList(new ProgramOrderableDataBuilder()
+              .withProgram(program)
+              .withOrderabeDisplayCategory(category)
+              .build()))
+          .build();
+
+      if ("orderables".equals(payload)) {
+        content.add(OrderableDto.newInstance(orderable));
+      } else {
+        FacilityTypeApprovedProduct ftap = new FacilityTypeApprovedProductsDataBuilder()
+            .withOrderableId(orderable.getId())
+            .withProgram(program)
+            .withFacilityType(facilityType)
+            .build();
+
+        ApprovedProductDto dto = new ApprovedProductDto();
+        ftap.export(dto);
+        dto.setOrderable(orderable);
+        content.add(dto);
+      }
+    }
+
+    return content;
+  }
+}
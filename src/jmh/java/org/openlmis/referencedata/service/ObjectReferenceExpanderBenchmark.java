@@ -0,0 +1,73 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.collect.Sets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.referencedata.domain.SupplyLine;
+import org.openlmis.referencedata.dto.SupplyLineObjectReferenceDto;
+import org.openlmis.referencedata.testbuilder.RequisitionGroupDataBuilder;
+import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
+import org.openlmis.referencedata.testbuilder.SupplyLineDataBuilder;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class ObjectReferenceExpanderBenchmark {
+
+  private final ObjectReferenceExpander expander = new ObjectReferenceExpander();
+  private final Set<String> expands = Sets.newHashSet(
+      "supervisoryNode", "supervisoryNode.requisitionGroup.memberFacilities");
+
+  private SupplyLine supplyLine;
+
+  /**
+   * Creates the supply line that will be expanded.
+   */
+  @Setup
+  public void setUp() {
+    supplyLine = new SupplyLineDataBuilder()
+        .withSupervisoryNode(new SupervisoryNodeDataBuilder()
+            .withRequisitionGroup(new RequisitionGroupDataBuilder().build())
+            .build())
+        .build();
+  }
+
+  /**
+   * Exports the supply line and expands nested references, as the supply line search does.
+   */
+  @Benchmark
+  public SupplyLineObjectReferenceDto expandDto() {
+    SupplyLineObjectReferenceDto dto = new SupplyLineObjectReferenceDto();
+    supplyLine.export(dto);
+    expander.expandDto(dto, supplyLine, expands);
+    return dto;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Measures the in-memory part of right assignment regeneration. The supervised facilities query
+ * is answered by a stub so that only the expansion into the insert set is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class RightAssignmentServiceBenchmark {
+
+  @Param({"1000", "10000"})
+  private int assignments;
+
+  @Param({"50"})
+  private int supervisedFacilities;
+
+  private final RightAssignmentService rightAssignmentService = new RightAssignmentService();
+  private final Resource supervisedFacilitiesResource =
+      new ByteArrayResource("SELECT facilityid FROM supervised".getBytes());
+
+  private List<RightAssignmentDto> rightAssignments;
+
+  /**
+   * Creates right assignments where every other one is supervisory node based.
+   */
+  @Setup
+  public void setUp() {
+    List<UUID> facilityIds = IntStream.range(0, supervisedFacilities)
+        .mapToObj(i -> UUID.randomUUID())
+        .collect(Collectors.toList());
+    ReflectionTestUtils.setField(rightAssignmentService, "template",
+        new FixedResultJdbcTemplate(facilityIds));
+
+    UUID programId = UUID.randomUUID();
+    rightAssignments = new ArrayList<>(assignments);
+    for (int i = 0; i < assignments; ++i) {
+      RightAssignmentDto dto = new RightAssignmentDto(UUID.randomUUID(), "REQUISITION_CREATE",
+          i % 2 == 0 ? UUID.randomUUID() : null, programId);
+      if (i % 2 != 0) {
+        dto.setSupervisoryNodeId(UUID.randomUUID());
+      }
+      rightAssignments.add(dto);
+    }
+  }
+
+  @Benchmark
+  public Set<RightAssignmentDto> convertForInsert() throws IOException {
+    return rightAssignmentService.convertForInsert(rightAssignments, supervisedFacilitiesResource);
+  }
+
+  private static final class FixedResultJdbcTemplate extends JdbcTemplate {
+    private final List<UUID> result;
+
+    FixedResultJdbcTemplate(List<UUID> result) {
+      this.result = result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+      return (List<T>) result;
+    }
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class PaginationBenchmark {
+
+  @Param({"1000", "100000"})
+  private int size;
+
+  private List<Integer> list;
+  private Collection<Integer> collection;
+  private Pageable middlePage;
+  private Pageable lastPage;
+
+  /**
+   * Creates the list to page through.
+   */
+  @Setup
+  public void setUp() {
+    list = IntStream.range(0, size).boxed().collect(Collectors.toList());
+    collection = new LinkedHashSet<>(list);
+    middlePage = PageRequest.of(size / 20 / 2, 20);
+    lastPage = PageRequest.of(size / 20 - 1, 20);
+  }
+
+  @Benchmark
+  public Page<Integer> getMiddlePage() {
+    return Pagination.getPage(list, middlePage);
+  }
+
+  @Benchmark
+  public Page<Integer> getLastPage() {
+    return Pagination.getPage(list, lastPage);
+  }
+
+  @Benchmark
+  public Page<Integer> getMiddlePageFromCollection() {
+    return Pagination.getPage(collection, middlePage);
+  }
+
+  /**
+   * The previous way of paging DTOs: all elements are copied and converted before slicing.
+   */
+  @Benchmark
+  public Page<String> convertAllAndGetMiddlePageFromCollection() {
+    List<String> converted = Lists.newArrayList(collection)
+        .stream()
+        .map(String::valueOf)
+        .collect(Collectors.toList());
+
+    return Pagination.getPage(converted, middlePage);
+  }
+
+  @Benchmark
+  public Page<String> convertAndGetMiddlePageFromCollection() {
+    return Pagination.getPage(collection, middlePage, String::valueOf);
+  }
+
+  @Benchmark
+  public Page<String> convertAndGetMiddlePageFromList() {
+    return Pagination.getPage(list, middlePage, String::valueOf);
+  }
+
+  @Benchmark
+  public Slice<String> convertAndGetMiddleSliceFromStream() {
+    return Pagination.getSlice(list.stream(), middlePage, String::valueOf);
+  }
+}
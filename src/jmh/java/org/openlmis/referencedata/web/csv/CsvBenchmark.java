@@ -0,0 +1,115 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web.csv;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
+import org.openlmis.referencedata.validate.CsvHeaderValidator;
+import org.openlmis.referencedata.web.csv.format.CsvFormatter;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.parser.CsvParser;
+import org.openlmis.referencedata.web.csv.processor.FormatCommodityType;
+import org.openlmis.referencedata.web.csv.processor.FormatProcessingPeriod;
+import org.openlmis.referencedata.web.csv.processor.ParseCommodityType;
+import org.openlmis.referencedata.web.csv.processor.ParseProcessingPeriod;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class CsvBenchmark {
+
+  private static final String HEADER =
+      "Facility Code, Commodity Type, Period, Ideal Stock Amount\n";
+
+  @Param({"1000", "50000"})
+  private int rows;
+
+  private final ModelClass<IdealStockAmountCsvModel> modelClass =
+      new ModelClass<>(IdealStockAmountCsvModel.class);
+  private final CsvParser csvParser = new CsvParser();
+  private final CsvFormatter csvFormatter = new CsvFormatter();
+  private final CsvHeaderValidator headerValidator = new CsvHeaderValidator();
+
+  private byte[] csv;
+  private List<IdealStockAmountCsvModel> models;
+
+  /**
+   * Generates the CSV file and parses it once to have models for the export benchmark.
+   */
+  @Setup
+  public void setUp() throws IOException {
+    FormatCommodityType.SEPARATOR = "|";
+    FormatProcessingPeriod.SEPARATOR = "|";
+    ParseCommodityType.SEPARATOR = "|";
+    ParseProcessingPeriod.SEPARATOR = "|";
+    ReflectionTestUtils.setField(csvParser, "chunkSize", 200);
+
+    StringBuilder builder = new StringBuilder(HEADER);
+    for (int i = 0; i < rows; ++i) {
+      builder
+          .append("facility-").append(i % 100)
+          .append(", system|commodity-").append(i)
+          .append(", schedule|period-").append(i % 12)
+          .append(", ").append(i + 1)
+          .append('\n');
+    }
+    csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+
+    models = new ArrayList<>(rows);
+    csvParser.parse(new ByteArrayInputStream(csv), modelClass, headerValidator,
+        chunk -> {
+          models.addAll(chunk);
+          return Collections.<IdealStockAmount>emptyList();
+        },
+        entities -> { });
+  }
+
+  @Benchmark
+  public int parse() throws IOException {
+    return csvParser.parse(new ByteArrayInputStream(csv), modelClass, headerValidator,
+        chunk -> Collections.<IdealStockAmount>emptyList(), entities -> { });
+  }
+
+  @Benchmark
+  public byte[] format() throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(csv.length);
+    csvFormatter.process(outputStream, modelClass, models);
+    return outputStream.toByteArray();
+  }
+}
@@ -26,6 +26,7 @@ import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.domain.Versionable;
 import org.openlmis.referencedata.repository.BaseAuditableRepository;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.MessageKeys;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -66,7 +67,7 @@ public class AuditLogInitializer implements CommandLineRunner {
    */
   public void run(String... args) {
     LOGGER.entry();
-    Profiler profiler = new Profiler("RUN_AUDIT_LOG_INIT");
+    Profiler profiler = new MeteredProfiler("RUN_AUDIT_LOG_INIT");
     profiler.setLogger(LOGGER);
 
     profiler.start("GET_AUDITABLE_REPOSITORIES");
@@ -0,0 +1,52 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import org.openlmis.referencedata.service.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Subscribes {@link CacheInvalidationBus} to the Redis channel on which all instances of the
+ * service publish their entity changes.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cacheInvalidation.enabled", havingValue = "true")
+public class CacheInvalidationConfig {
+
+  /**
+   * Creates the listener container of the cache invalidation channel. Messages are dispatched
+   * on the subscription thread, so they are handled one by one in the order they were sent.
+   */
+  @Bean
+  RedisMessageListenerContainer cacheInvalidationListenerContainer(
+      RedisConnectionFactory connectionFactory, CacheInvalidationBus cacheInvalidationBus,
+      @Value("${cacheInvalidation.channel}") String channel) {
+    RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+    container.setConnectionFactory(connectionFactory);
+    container.setTaskExecutor(new SyncTaskExecutor());
+    container.addMessageListener(cacheInvalidationBus, new ChannelTopic(channel));
+
+    return container;
+  }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.EhCache2Metrics;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import net.sf.ehcache.CacheManager;
+import org.hibernate.cache.ehcache.internal.EhcacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Exposes hit, miss, put and eviction counts and sizes of all second-level and query cache
+ * regions as cache metrics tagged with the region name.
+ */
+@Configuration
+public class CacheMetricsConfig {
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Binds metrics of each Ehcache region used by Hibernate.
+   */
+  @PostConstruct
+  public void bindCacheMetrics() {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    RegionFactory regionFactory = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getCache()
+        .getRegionFactory();
+
+    if (null == registry || !(regionFactory instanceof EhcacheRegionFactory)) {
+      return;
+    }
+
+    CacheManager cacheManager = ((EhcacheRegionFactory) regionFactory).getCacheManager();
+
+    for (String cacheName : cacheManager.getCacheNames()) {
+      EhCache2Metrics.monitor(registry, cacheManager.getEhcache(cacheName),
+          "cacheManager", "hibernate");
+    }
+  }
+}
@@ -16,7 +16,9 @@
 package org.openlmis.referencedata;
 
 import java.util.List;
+import org.openlmis.referencedata.interceptor.ETagInterceptor;
 import org.openlmis.referencedata.interceptor.MvcInterceptor;
+import org.openlmis.referencedata.interceptor.ReplicaRoutingInterceptor;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -38,6 +40,12 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
   @Autowired
   private MvcInterceptor mvcInterceptor;
 
+  @Autowired
+  private ETagInterceptor eTagInterceptor;
+
+  @Autowired
+  private ReplicaRoutingInterceptor replicaRoutingInterceptor;
+
   @Override
   public void addViewControllers(ViewControllerRegistry registry) {
     registry.addViewController("/referencedata/docs")
@@ -65,5 +73,10 @@ public class CustomWebMvcConfigurerAdapter implements WebMvcConfigurer {
   @Override
   public void addInterceptors(InterceptorRegistry registry) {
     registry.addInterceptor(mvcInterceptor);
+    // after the interceptor opening the entity manager of the request (order 0), so the
+    // routing can set its cache mode, and before the ETag interceptor, so versions are read
+    // from the same database as the data
+    registry.addInterceptor(replicaRoutingInterceptor).order(1);
+    registry.addInterceptor(eTagInterceptor).order(1);
   }
 }
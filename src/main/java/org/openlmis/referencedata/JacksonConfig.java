@@ -16,8 +16,15 @@
 package org.openlmis.referencedata;
 
 import com.bedatadriven.jackson.datatype.jts.JtsModule;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.afterburner.AfterburnerModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 
 @Configuration
 public class JacksonConfig {
@@ -26,4 +33,36 @@ public class JacksonConfig {
   JtsModule jtsModule() {
     return new JtsModule();
   }
-}
\ No newline at end of file
+
+  /**
+   * Makes Jackson use generated bytecode instead of reflection to access properties of
+   * serialized classes.
+   */
+  @Bean
+  @ConditionalOnProperty(name = "jackson.afterburner.enabled", havingValue = "true")
+  AfterburnerModule afterburnerModule() {
+    return new AfterburnerModule();
+  }
+
+  /**
+   * Serves the application/x-jackson-smile representation of resources. The object mapper is
+   * configured in the same way as the one used for JSON.
+   */
+  @Bean
+  MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(
+        builder.factory(new SmileFactory()).build());
+  }
+
+  /**
+   * Serves the application/cbor representation of resources. The object mapper is configured in
+   * the same way as the one used for JSON.
+   */
+  @Bean
+  MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+      Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(
+        builder.factory(new CBORFactory()).build());
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import org.openlmis.referencedata.util.PerformanceDataGenerator;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * PerformanceDataInitializer loads the large, synthetic data set made by
+ * {@link PerformanceDataGenerator} with the PostgreSQL COPY command. If the data directory does
+ * not contain the CSV files yet, they are generated first from the configured seed and scale.
+ * This component only runs when the "performance-data" Spring profile is set. Use it together
+ * with the "refresh-db" profile to regenerate right assignments for the loaded users.
+ */
+@Component
+@Profile("performance-data")
+@Order(5)
+public class PerformanceDataInitializer implements CommandLineRunner {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      PerformanceDataInitializer.class);
+
+  @Value("${performanceData.directory}")
+  private String directory;
+
+  @Value("${performanceData.seed}")
+  private long seed;
+
+  @Value("${performanceData.scale}")
+  private double scale;
+
+  @Autowired
+  private JdbcTemplate template;
+
+  /**
+   * Generates the performance data, if needed, and loads it.
+   * @param args command line arguments
+   */
+  public void run(String... args) throws IOException {
+    XLOGGER.entry();
+    Path path = Paths.get(directory);
+
+    if (!PerformanceDataGenerator.exists(path)) {
+      XLOGGER.info("Generating performance data into {}", path);
+      new PerformanceDataGenerator(seed, scale).generate(path);
+    }
+
+    for (String table : PerformanceDataGenerator.TABLES) {
+      long rows = copy("referencedata." + table, PerformanceDataGenerator.getFile(path, table));
+      XLOGGER.info("Loaded {} rows into {}", rows, table);
+    }
+
+    XLOGGER.exit();
+  }
+
+  private long copy(String table, Path file) throws IOException {
+    String columns;
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      columns = reader.readLine();
+    }
+
+    String sql = "COPY " + table + " (" + columns + ") FROM STDIN WITH (FORMAT csv, HEADER true)";
+
+    return template.execute((ConnectionCallback<Long>) connection -> {
+      CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+
+      try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+        return copyManager.copyIn(sql, reader);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+  }
+}
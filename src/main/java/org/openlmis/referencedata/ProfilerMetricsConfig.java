@@ -0,0 +1,56 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.util.ProfilerMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Connects profilers with the Micrometer registry so that each profiler stage is exposed on the
+ * prometheus actuator endpoint.
+ */
+@Configuration
+public class ProfilerMetricsConfig {
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Value("${profiler.metrics.enabled}")
+  private boolean enabled;
+
+  @Value("${profiler.metrics.sampleRate}")
+  private double sampleRate;
+
+  @Value("${profiler.metrics.histogram}")
+  private boolean histogram;
+
+  @Value("${profiler.log.enabled}")
+  private boolean logEnabled;
+
+  /**
+   * Configures profiler metrics.
+   */
+  @PostConstruct
+  public void configureProfilerMetrics() {
+    MeterRegistry registry = enabled ? meterRegistry.getIfAvailable() : null;
+    ProfilerMetrics.configure(registry, sampleRate, histogram, logEnabled);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.util.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the data source with one routing reads of GET endpoints annotated with
+ * {@link org.openlmis.referencedata.web.ReadFromReplica} to streaming replicas of the primary
+ * database. Only active when replica URLs are configured.
+ */
+@Configuration
+@ConditionalOnExpression("!'${replica.urls}'.trim().isEmpty()")
+public class ReplicaDataSourceConfig {
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Value("${replica.urls}")
+  private String[] urls;
+
+  @Value("${replica.maxLag}")
+  private long maxLag;
+
+  @Value("${replica.lagCheckInterval}")
+  private long lagCheckInterval;
+
+  /**
+   * Creates pools of the primary database and of each replica. Replicas use the credentials
+   * and URL parameters of the primary.
+   */
+  @Bean
+  public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties) {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+    String parameters = properties.getUrl().contains("?")
+        ? "?" + StringUtils.substringAfter(properties.getUrl(), "?")
+        : "";
+
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+
+    for (int i = 0; i < urls.length; ++i) {
+      String name = "replica-" + (i + 1);
+      HikariDataSource replica = createPool(properties, name, registry);
+      replica.setJdbcUrl(urls[i].trim() + parameters);
+      replica.setReadOnly(true);
+      replicas.put(name, replica);
+    }
+
+    HikariDataSource primary = createPool(properties, ReplicaRoutingDataSource.PRIMARY, registry);
+    ReplicaRoutingDataSource dataSource = new ReplicaRoutingDataSource(primary, replicas,
+        maxLag, lagCheckInterval);
+
+    if (null != registry) {
+      dataSource.bindMetrics(registry);
+    }
+
+    return dataSource;
+  }
+
+  /**
+   * The data source used by JPA, JDBC templates and Flyway.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+    return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+  }
+
+  private HikariDataSource createPool(DataSourceProperties properties, String name,
+      MeterRegistry registry) {
+    HikariDataSource pool = properties
+        .initializeDataSourceBuilder()
+        .type(HikariDataSource.class)
+        .build();
+    pool.setPoolName(name);
+
+    if (null != registry) {
+      pool.setMetricRegistry(registry);
+    }
+
+    return pool;
+  }
+}
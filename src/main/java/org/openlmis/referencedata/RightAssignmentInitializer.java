@@ -15,8 +15,7 @@
 
 package org.openlmis.referencedata;
 
-import java.util.concurrent.Future;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,24 +38,17 @@ public class RightAssignmentInitializer implements CommandLineRunner {
       RightAssignmentInitializer.class);
   
   @Autowired
-  RightAssignmentService rightAssignmentService;
+  RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
   
   /**
    * Re-generates right assignments.
    * @param args command line arguments
    */
-  public void run(String... args) throws InterruptedException {
+  public void run(String... args) {
     XLOGGER.entry();
     
-    Future<Void> result = rightAssignmentService.regenerateRightAssignments();
-
     // Wait until it finishes
-    while (true) {
-      if (result.isDone()) {
-        break;
-      }
-      Thread.sleep(1000);
-    }
+    rightAssignmentRegenerationScheduler.requestRegeneration().exceptionally(ex -> null).join();
 
     XLOGGER.debug("Finished regenerating right assignments");
     
@@ -18,8 +18,10 @@ package org.openlmis.referencedata.domain;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -29,10 +31,13 @@ import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.dto.CommodityTypeDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.CommodityTypeMessageKeys;
 
@@ -42,11 +47,14 @@ import org.openlmis.referencedata.util.messagekeys.CommodityTypeMessageKeys;
  * refined categorization of products that may typically be ordered / exchanged for one another.
  */
 @Entity
+@EntityListeners(OrderableFulfillIndexListener.class)
 @Table(name = "commodity_types", schema = "referencedata")
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "name", callSuper = false)
 @TypeName("CommodityType")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public final class CommodityType extends BaseEntity {
 
   @Column(nullable = false)
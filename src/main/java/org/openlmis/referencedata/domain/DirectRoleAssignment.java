@@ -15,7 +15,8 @@
 
 package org.openlmis.referencedata.domain;
 
-import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Set;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -28,6 +29,9 @@ import org.javers.core.metamodel.annotation.TypeName;
 @TypeName("DirectRoleAssignment")
 public class DirectRoleAssignment extends RoleAssignment {
 
+  public static final Set<RightType> ACCEPTABLE_RIGHT_TYPES =
+      Collections.unmodifiableSet(EnumSet.of(RightType.GENERAL_ADMIN, RightType.REPORTS));
+
   /**
    * Default constructor. Must always have a role and a user.
    *
@@ -36,14 +40,12 @@ public class DirectRoleAssignment extends RoleAssignment {
    */
   public DirectRoleAssignment(Role role, User user) {
     super(role, user);
-    for (Right right : role.getRights()) {
-      user.addRightAssignment(right.getName());
-    }
+    addRightAssignments();
   }
 
   @Override
   protected Set<RightType> getAcceptableRightTypes() {
-    return Sets.newHashSet(RightType.GENERAL_ADMIN, RightType.REPORTS);
+    return ACCEPTABLE_RIGHT_TYPES;
   }
 
   @Override
@@ -51,6 +53,13 @@ public class DirectRoleAssignment extends RoleAssignment {
     return role.contains(rightQuery.getRight());
   }
 
+  @Override
+  void addRightAssignments() {
+    for (Right right : role.getRights()) {
+      user.addRightAssignment(right.getName());
+    }
+  }
+
   /**
    * Export this object to the specified exporter (DTO).
    *
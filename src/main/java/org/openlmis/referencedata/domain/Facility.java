@@ -26,12 +26,14 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.ColumnResult;
 import javax.persistence.ConstructorResult;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -44,14 +46,18 @@ import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 import org.hibernate.spatial.JTSGeometryJavaTypeDescriptor;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.domain.ExtraDataEntity.ExtraDataExporter;
 import org.openlmis.referencedata.dto.NamedResource;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @NoArgsConstructor
 @TypeName("Facility")
 @Table(name = "facilities", schema = "referencedata")
@@ -80,6 +86,8 @@ import org.openlmis.referencedata.dto.NamedResource;
         }
     )
     })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Facility extends BaseEntity implements FhirLocation {
 
   public static final String TEXT = "text";
@@ -18,14 +18,17 @@ package org.openlmis.referencedata.domain;
 import java.util.Objects;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "facility_operators", schema = "referencedata")
 @NoArgsConstructor
 @AllArgsConstructor
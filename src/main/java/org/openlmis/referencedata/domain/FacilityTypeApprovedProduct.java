@@ -22,6 +22,7 @@ import java.util.UUID;
 import javax.persistence.Column;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.PrePersist;
@@ -39,8 +40,10 @@ import org.openlmis.referencedata.domain.BaseEntity.BaseExporter;
 import org.openlmis.referencedata.domain.BaseEntity.BaseImporter;
 import org.openlmis.referencedata.domain.VersionIdentity.VersionExporter;
 import org.openlmis.referencedata.domain.VersionIdentity.VersionImporter;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "facility_type_approved_products", schema = "referencedata",
     uniqueConstraints = @UniqueConstraint(name = "unq_ftap",
         columnNames = {"orderableId", "programId", "facilityTypeId"}))
@@ -33,6 +33,9 @@ import org.javers.core.metamodel.annotation.TypeName;
 @TypeName("FulfillmentRoleAssignment")
 public class FulfillmentRoleAssignment extends RoleAssignment {
 
+  public static final Set<RightType> ACCEPTABLE_RIGHT_TYPES =
+      singleton(RightType.ORDER_FULFILLMENT);
+
   @ManyToOne
   @JoinColumn(name = "warehouseid")
   @Getter
@@ -53,15 +56,12 @@ public class FulfillmentRoleAssignment extends RoleAssignment {
     this(role, user);
 
     this.warehouse = warehouse;
-
-    for (Right right : role.getRights()) {
-      user.addRightAssignment(right.getName(), warehouse.getId());
-    }
+    addRightAssignments();
   }
 
   @Override
   protected Set<RightType> getAcceptableRightTypes() {
-    return singleton(RightType.ORDER_FULFILLMENT);
+    return ACCEPTABLE_RIGHT_TYPES;
   }
 
   /**
@@ -76,6 +76,13 @@ public class FulfillmentRoleAssignment extends RoleAssignment {
     return roleMatches && warehouseMatches;
   }
 
+  @Override
+  void addRightAssignments() {
+    for (Right right : role.getRights()) {
+      user.addRightAssignment(right.getName(), warehouse.getId());
+    }
+  }
+
   /**
    * Export this object to the specified exporter (DTO).
    *
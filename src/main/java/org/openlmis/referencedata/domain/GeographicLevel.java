@@ -16,20 +16,28 @@
 package org.openlmis.referencedata.domain;
 
 import java.util.Objects;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "geographic_levels", schema = "referencedata")
 @NoArgsConstructor
 @AllArgsConstructor
 @TypeName("GeographicLevel")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class GeographicLevel extends BaseEntity {
 
   @Column(nullable = false, unique = true, columnDefinition = "text")
@@ -0,0 +1,37 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Kinds of long-running operations run as jobs. The right is needed to see a job of the type and
+ * its result.
+ */
+@AllArgsConstructor
+@Getter
+public enum JobType {
+  DATA_IMPORT(RightName.DATA_IMPORT),
+  DATA_EXPORT(RightName.DATA_EXPORT),
+  IDEAL_STOCK_AMOUNT_UPLOAD(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE),
+  IDEAL_STOCK_AMOUNT_DOWNLOAD(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE),
+  USER_IMPORT(RightName.USERS_MANAGE_RIGHT),
+  RIGHT_ASSIGNMENT_REGENERATION(RightName.RIGHTS_VIEW);
+
+  private final String rightName;
+}
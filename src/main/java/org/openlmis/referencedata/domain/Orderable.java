@@ -41,6 +41,7 @@ import javax.persistence.ElementCollection;
 import javax.persistence.Embedded;
 import javax.persistence.EmbeddedId;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.MapKeyColumn;
@@ -77,6 +78,8 @@ import org.openlmis.referencedata.dto.OrderableChildDto;
 import org.openlmis.referencedata.dto.OrderableDto;
 import org.openlmis.referencedata.dto.OrderableIdentifierCsvModel;
 import org.openlmis.referencedata.dto.ProgramOrderableDto;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 import org.openlmis.referencedata.web.csv.model.ImportField;
 
 /**
@@ -84,6 +87,7 @@ import org.openlmis.referencedata.web.csv.model.ImportField;
  * be ordered/requisitioned, typically by a {@link Program}.
  */
 @Entity
+@EntityListeners({OrderableFulfillIndexListener.class, ResourceVersionListener.class})
 @TypeName("Orderable")
 @Table(name = "orderables", schema = "referencedata",
         uniqueConstraints = @UniqueConstraint(name = "unq_productcode_versionid",
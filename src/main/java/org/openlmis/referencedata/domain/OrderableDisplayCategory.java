@@ -19,18 +19,26 @@ import static org.apache.commons.lang3.BooleanUtils.isFalse;
 
 import java.util.Objects;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Table;
 import lombok.Getter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 /**
  * Informative category a Product is in when assigned to a {@link Program}.
  */
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "orderable_display_categories", schema = "referencedata")
 @TypeName("OrderableDisplayCategory")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class OrderableDisplayCategory extends BaseEntity {
 
   @Embedded
@@ -28,6 +28,7 @@ import java.util.Objects;
 import java.util.UUID;
 import javax.persistence.CascadeType;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinColumns;
@@ -44,9 +45,11 @@ import org.javers.core.metamodel.annotation.TypeName;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.openlmis.referencedata.dto.PriceChangeDto;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 import org.openlmis.referencedata.web.csv.model.ImportField;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "program_orderables", schema = "referencedata",
         uniqueConstraints = @UniqueConstraint(
                 name = "unq_programid_orderableid_orderableversionnumber",
@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
@@ -39,12 +40,14 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 /**
  * RequisitionGroup represents a group of facilities which follow a particular schedule for a
  * program. It also defines the contract for creation/upload of RequisitionGroup.
  */
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "requisition_groups", schema = "referencedata")
 @NoArgsConstructor
 @AllArgsConstructor
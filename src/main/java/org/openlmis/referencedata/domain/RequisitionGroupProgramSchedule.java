@@ -19,6 +19,7 @@ import java.util.Objects;
 import java.util.UUID;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToOne;
@@ -28,12 +29,14 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 
 /**
  * RequisitionGroupProgramSchedule represents the schedule to be mapped for a given program and
  * requisition group.
  */
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "requisition_group_program_schedules",
     uniqueConstraints = @UniqueConstraint(
         name = "requisition_group_program_schedule_unique_program_requisitionGroup",
@@ -19,6 +19,7 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -30,6 +31,8 @@ import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 
@@ -38,6 +41,8 @@ import org.javers.core.metamodel.annotation.TypeName;
 @NoArgsConstructor
 @TypeName("Right")
 @SuppressWarnings({"PMD.UnusedPrivateField"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Right extends BaseEntity {
   private static final String TEXT = "text";
 
@@ -62,6 +67,7 @@ public class Right extends BaseEntity {
       inverseJoinColumns = @JoinColumn(name = "attachmentid", nullable = false))
   @Getter
   @DiffIgnore
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   private Set<Right> attachments = new HashSet<>();
 
   @ManyToMany(mappedBy = "rights")
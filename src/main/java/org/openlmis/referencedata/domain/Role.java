@@ -26,8 +26,10 @@ import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
@@ -36,16 +38,22 @@ import javax.persistence.Table;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 import org.openlmis.referencedata.util.Message;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "roles", schema = "referencedata")
 @NoArgsConstructor
 @TypeName("Role")
 @SuppressWarnings({"PMD.TooManyMethods"})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Role extends BaseEntity {
   private static final String TEXT = "text";
 
@@ -66,6 +74,7 @@ public class Role extends BaseEntity {
       inverseJoinColumns = @JoinColumn(name = "rightid", nullable = false))
   @Getter
   @DiffIgnore
+  @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
   private Set<Right> rights;
 
   private Role(String name, Right... rights) {
@@ -26,6 +26,7 @@ import javax.persistence.DiscriminatorColumn;
 import javax.persistence.DiscriminatorType;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.JoinColumn;
@@ -40,9 +41,11 @@ import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.dto.RoleAssignmentDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.CountResource;
+import org.openlmis.referencedata.service.ResourceVersionListener;
 import org.openlmis.referencedata.util.Message;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "role_assignments", schema = "referencedata")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.STRING)
@@ -127,6 +130,11 @@ public abstract class RoleAssignment extends BaseEntity {
 
   public abstract boolean hasRight(RightQuery rightQuery);
 
+  /**
+   * Adds to the user right assignments granted by this role assignment.
+   */
+  abstract void addRightAssignments();
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -29,6 +29,7 @@ import javax.persistence.ManyToOne;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -39,6 +40,8 @@ import org.slf4j.profiler.Profiler;
 @TypeName("SupervisionRoleAssignment")
 public class SupervisionRoleAssignment extends RoleAssignment {
 
+  public static final Set<RightType> ACCEPTABLE_RIGHT_TYPES = singleton(SUPERVISION);
+
   private static final Logger LOGGER = LoggerFactory.getLogger(SupervisionRoleAssignment.class);
 
   @ManyToOne
@@ -91,7 +94,7 @@ public class SupervisionRoleAssignment extends RoleAssignment {
 
   @Override
   protected Set<RightType> getAcceptableRightTypes() {
-    return singleton(SUPERVISION);
+    return ACCEPTABLE_RIGHT_TYPES;
   }
 
   /**
@@ -101,7 +104,7 @@ public class SupervisionRoleAssignment extends RoleAssignment {
    */
   @Override
   public boolean hasRight(RightQuery rightQuery) {
-    Profiler profiler = new Profiler("HAS_RIGHT_FOR_RIGHT_QUERY");
+    Profiler profiler = new MeteredProfiler("HAS_RIGHT_FOR_RIGHT_QUERY");
     profiler.setLogger(LOGGER);
 
     profiler.start("SUPERVISES");
@@ -127,7 +130,8 @@ public class SupervisionRoleAssignment extends RoleAssignment {
     return roleContainsRight && programMatches && facilityFound;
   }
 
-  private void addRightAssignments() {
+  @Override
+  void addRightAssignments() {
     if (null != supervisoryNode) {
       Set<Facility> supervisedFacilities = supervisoryNode.getAllSupervisedFacilities(program);
       for (Right right : role.getRights()) {
@@ -150,7 +154,7 @@ public class SupervisionRoleAssignment extends RoleAssignment {
    * @return set of supervised facilities
    */
   public Set<Facility> getSupervisedFacilities(Right right, Program program) {
-    Profiler profiler = new Profiler("GET_SUPERVISED_FACILITIES_FOR_RIGHT_AND_PROGRAM");
+    Profiler profiler = new MeteredProfiler("GET_SUPERVISED_FACILITIES_FOR_RIGHT_AND_PROGRAM");
     profiler.setLogger(LOGGER);
 
     Set<Facility> possibleFacilities = new HashSet<>();
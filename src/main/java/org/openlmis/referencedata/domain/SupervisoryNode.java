@@ -26,6 +26,7 @@ import java.util.stream.Collectors;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
@@ -40,11 +41,14 @@ import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.domain.ExtraDataEntity.ExtraDataExporter;
 import org.openlmis.referencedata.domain.ExtraDataEntity.ExtraDataImporter;
+import org.openlmis.referencedata.service.ResourceVersionListener;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.profiler.Profiler;
 
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @Table(name = "supervisory_nodes", schema = "referencedata")
 @NoArgsConstructor
 @AllArgsConstructor
@@ -239,7 +243,7 @@ public class SupervisoryNode extends BaseEntity {
    * @return all supervised facilities
    */
   public Set<Facility> getAllSupervisedFacilities(Program program) {
-    Profiler profiler = new Profiler("SUPERVISORY_NODE_GET_FACILITIES_FOR_PROGRAM");
+    Profiler profiler = new MeteredProfiler("SUPERVISORY_NODE_GET_FACILITIES_FOR_PROGRAM");
     profiler.setLogger(LOGGER);
 
     Set<Facility> supervisedFacilities = new HashSet<>();
@@ -18,26 +18,30 @@ package org.openlmis.referencedata.domain;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.ColumnResult;
 import javax.persistence.ConstructorResult;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.NamedNativeQueries;
 import javax.persistence.NamedNativeQuery;
 import javax.persistence.OneToMany;
 import javax.persistence.SqlResultSetMapping;
 import javax.persistence.SqlResultSetMappings;
 import javax.persistence.Table;
-
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.dto.TradeItemClassificationDto;
 import org.openlmis.referencedata.dto.TradeItemCsvModel;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
 
 /**
  * TradeItems represent branded/produced/physical products.  A TradeItem is used for Product's that
@@ -77,9 +81,12 @@ import org.openlmis.referencedata.dto.TradeItemCsvModel;
         )
 )
 @Entity
+@EntityListeners(OrderableFulfillIndexListener.class)
 @Table(name = "trade_items", schema = "referencedata")
 @NoArgsConstructor
 @TypeName("TradeItem")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public final class TradeItem extends BaseEntity {
 
   @Getter
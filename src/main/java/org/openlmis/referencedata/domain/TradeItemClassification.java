@@ -16,6 +16,7 @@
 package org.openlmis.referencedata.domain;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 import javax.persistence.UniqueConstraint;
@@ -25,11 +26,13 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
 
 /**
  * Represents a trade item identification using a classification system.
  */
 @Entity
+@EntityListeners(OrderableFulfillIndexListener.class)
 @Table(name = "trade_item_classifications", schema = "referencedata",
     uniqueConstraints = @UniqueConstraint(
         name = "unq_trade_item_classifications_system",
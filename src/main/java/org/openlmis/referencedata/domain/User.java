@@ -17,6 +17,7 @@ package org.openlmis.referencedata.domain;
 
 import com.fasterxml.jackson.annotation.JsonView;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
@@ -26,6 +27,7 @@ import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -36,6 +38,8 @@ import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.domain.ExtraDataEntity.ExtraDataExporter;
 import org.openlmis.referencedata.domain.ExtraDataEntity.ExtraDataImporter;
+import org.openlmis.referencedata.service.ResourceVersionListener;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.util.View;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -43,6 +47,7 @@ import org.slf4j.profiler.Profiler;
 
 @SuppressWarnings({"PMD.UnusedPrivateField", "PMD.TooManyMethods"})
 @Entity
+@EntityListeners(ResourceVersionListener.class)
 @TypeName("User")
 @Table(name = "users", schema = "referencedata")
 @NoArgsConstructor
@@ -139,7 +144,7 @@ public class User extends BaseEntity {
    * @return set of supervised facilities
    */
   public Set<Facility> getSupervisedFacilities(Right right, Program program) {
-    Profiler profiler = new Profiler("GET_SUPERVISED_FACILITIES_FOR_USER");
+    Profiler profiler = new MeteredProfiler("GET_SUPERVISED_FACILITIES_FOR_USER");
     profiler.setLogger(LOGGER);
 
     Set<Facility> supervisedFacilities = new HashSet<>();
@@ -177,7 +182,7 @@ public class User extends BaseEntity {
    * @return set of facilities
    */
   public Set<Facility> getFulfillmentFacilities(Right right) {
-    Profiler profiler = new Profiler("GET_USER_FULFILLMENT_FACILITIES_BY_RIGHT");
+    Profiler profiler = new MeteredProfiler("GET_USER_FULFILLMENT_FACILITIES_BY_RIGHT");
     profiler.setLogger(LOGGER);
 
     Set<Facility> fulfillmentFacilities = new HashSet<>();
@@ -203,6 +208,36 @@ public class User extends BaseEntity {
     return fulfillmentFacilities;
   }
 
+  /**
+   * Removes the given role assignments from this user. Right assignments are not changed, call
+   * {@link #recalculateRightAssignments()} afterwards.
+   *
+   * @param removed role assignments to remove
+   */
+  public void removeRoleAssignments(Collection<RoleAssignment> removed) {
+    roleAssignments.removeAll(removed);
+  }
+
+  /**
+   * Recalculates right assignments from the current role assignments. Right assignments that are
+   * still granted are kept as they are, so only the difference is inserted or deleted.
+   */
+  public void recalculateRightAssignments() {
+    Set<RightAssignment> existing = new HashSet<>(rightAssignments);
+
+    rightAssignments.clear();
+    roleAssignments.forEach(RoleAssignment::addRightAssignments);
+
+    Set<RightAssignment> granted = new HashSet<>(rightAssignments);
+    rightAssignments.clear();
+
+    existing.retainAll(granted);
+    granted.removeAll(existing);
+
+    rightAssignments.addAll(existing);
+    rightAssignments.addAll(granted);
+  }
+
   /**
    * Clears role and right assignments.
    */
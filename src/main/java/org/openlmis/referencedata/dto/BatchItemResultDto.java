@@ -0,0 +1,56 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.openlmis.referencedata.util.LocalizedMessage;
+
+/**
+ * Result of a single item of a batch operation. The index points to the position of the item
+ * in the request body, so clients can match results to the data they have sent.
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@NoArgsConstructor
+@Getter
+public class BatchItemResultDto<T> {
+
+  private int index;
+
+  private Status status;
+
+  private T resource;
+
+  private LocalizedMessage error;
+
+  public static <T> BatchItemResultDto<T> created(int index, T resource) {
+    return new BatchItemResultDto<>(index, Status.CREATED, resource, null);
+  }
+
+  public static <T> BatchItemResultDto<T> updated(int index, T resource) {
+    return new BatchItemResultDto<>(index, Status.UPDATED, resource, null);
+  }
+
+  public static <T> BatchItemResultDto<T> failed(int index, LocalizedMessage error) {
+    return new BatchItemResultDto<>(index, Status.FAILED, null, error);
+  }
+
+  public enum Status {
+    CREATED, UPDATED, FAILED
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.dto;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Single entry of the change log. Clients apply entries in the order they were returned: an
+ * UPSERT means the resource should be (re)fetched, a DELETE that it should be dropped.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class ChangeLogEntryDto {
+
+  private String type;
+
+  private UUID id;
+
+  private Long versionNumber;
+
+  private Operation operation;
+
+  private ZonedDateTime occurredDate;
+
+  public enum Operation {
+    UPSERT, DELETE
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.dto;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.openlmis.referencedata.domain.JobType;
+
+/**
+ * State of a job. While the job is running, the processed and total amounts show its progress;
+ * the total is unknown for some jobs, e.g. until a file has been read. The result is present
+ * once a job which produces one has finished.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobDto {
+
+  private UUID id;
+
+  private JobType type;
+
+  private Status status;
+
+  private UUID createdById;
+
+  private ZonedDateTime createdDate;
+
+  private ZonedDateTime startedDate;
+
+  private ZonedDateTime finishedDate;
+
+  private Long total;
+
+  private long processed;
+
+  private Double progress;
+
+  private ZonedDateTime estimatedFinishDate;
+
+  private boolean cancelRequested;
+
+  private Error error;
+
+  private Result result;
+
+  public enum Status {
+    QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static final class Error {
+    private String messageKey;
+    private String message;
+  }
+
+  @Getter
+  @Setter
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static final class Result {
+    private String name;
+    private String contentType;
+    private long size;
+  }
+}
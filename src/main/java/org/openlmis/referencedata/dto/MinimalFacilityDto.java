@@ -19,6 +19,7 @@ import com.vividsolutions.jts.geom.Point;
 import java.time.LocalDate;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -43,6 +44,16 @@ public class MinimalFacilityDto extends BaseDto implements Facility.Exporter {
   @Setter
   private String name;
 
+  /**
+   * Creates new instance of {@link MinimalFacilityDto} with the given values. Used by queries
+   * that select the values without loading the facility.
+   */
+  public MinimalFacilityDto(UUID id, String code, String name) {
+    super(id);
+    this.code = code;
+    this.name = name;
+  }
+
   /**
    * Creates new instance of {@link MinimalFacilityDto} based on passed facility.
    */
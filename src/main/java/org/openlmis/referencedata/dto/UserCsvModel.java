@@ -0,0 +1,71 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.dto;
+
+import static org.openlmis.referencedata.web.csv.processor.CsvCellProcessors.BOOLEAN_TYPE;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.openlmis.referencedata.web.csv.model.ImportField;
+
+/**
+ * A row of the bulk user import file. Rows with the same username describe one user: user fields
+ * are taken from the first of them and every row can add one role assignment, so a user with
+ * many roles is written as many rows. Referenced resources are given by their codes and the role
+ * by its name.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = false)
+public class UserCsvModel extends BaseDto {
+
+  @ImportField(name = "username", mandatory = true)
+  private String username;
+
+  @ImportField(name = "firstName")
+  private String firstName;
+
+  @ImportField(name = "lastName")
+  private String lastName;
+
+  @ImportField(name = "jobTitle")
+  private String jobTitle;
+
+  @ImportField(name = "timezone")
+  private String timezone;
+
+  @ImportField(name = "homeFacilityCode")
+  private String homeFacilityCode;
+
+  @ImportField(name = "active", type = BOOLEAN_TYPE)
+  private Boolean active;
+
+  @ImportField(name = "role")
+  private String role;
+
+  @ImportField(name = "programCode")
+  private String programCode;
+
+  @ImportField(name = "supervisoryNodeCode")
+  private String supervisoryNodeCode;
+
+  @ImportField(name = "warehouseCode")
+  private String warehouseCode;
+
+}
@@ -0,0 +1,126 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openlmis.referencedata.service.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Passes inserted, updated and deleted entities, and owners of changed collections, to
+ * {@link CacheInvalidationBus}.
+ */
+@Component
+public class CacheInvalidationEventListener implements PostInsertEventListener,
+    PostUpdateEventListener, PostDeleteEventListener, PostCollectionRecreateEventListener,
+    PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+  private static final long serialVersionUID = -6407625436402986361L;
+
+  @Autowired
+  private transient EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  private transient CacheInvalidationBus cacheInvalidationBus;
+
+  /**
+   * Appends this listener to the Hibernate entity and collection change events.
+   */
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    cacheInvalidationBus.markChanged(event.getPersister().getEntityName(), event.getId());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    cacheInvalidationBus.markChanged(event.getPersister().getEntityName(), event.getId());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    cacheInvalidationBus.markChanged(event.getPersister().getEntityName(), event.getId());
+  }
+
+  @Override
+  public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  /**
+   * Replaced by {@link #requiresPostCommitHandling(EntityPersister)}, but still abstract in the
+   * used Hibernate version.
+   */
+  @Deprecated
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return requiresPostCommitHandling(persister);
+  }
+
+  private void onCollectionChange(AbstractCollectionEvent event) {
+    cacheInvalidationBus.markChanged(event.getAffectedOwnerEntityName(),
+        event.getAffectedOwnerIdOrNull());
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import com.google.common.collect.ImmutableMap;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Identifiable;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.ProgramOrderable;
+import org.openlmis.referencedata.domain.SupportedProgram;
+import org.openlmis.referencedata.domain.Versionable;
+import org.openlmis.referencedata.dto.ChangeLogEntryDto.Operation;
+import org.openlmis.referencedata.service.ChangeLogService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Appends an entry to the change log for every inserted, updated or deleted resource tracked
+ * by {@link ChangeLogService}. Changes of dependent entities (program orderables, supported
+ * programs) and of collections are recorded as changes of their owner. Entries are written
+ * within the changing transaction, after its last flush, so the log never contains changes that
+ * were rolled back and a committed change is never missing from it.
+ */
+@Component
+public class ChangeLogEventListener implements PostInsertEventListener,
+    PostUpdateEventListener, PostDeleteEventListener, PostCollectionRecreateEventListener,
+    PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+  private static final long serialVersionUID = 3342894410253623466L;
+
+  static final String INSERT_SQL = "INSERT INTO referencedata.change_log"
+      + " (resourcetype, resourceid, versionnumber, operation) VALUES (?, ?, ?, ?)";
+
+  private static final Map<Class<?>, String> RESOURCE_TYPES = ImmutableMap.of(
+      Orderable.class, ChangeLogService.ORDERABLES,
+      Facility.class, ChangeLogService.FACILITIES,
+      FacilityTypeApprovedProduct.class, ChangeLogService.APPROVED_PRODUCTS,
+      Program.class, ChangeLogService.PROGRAMS);
+
+  @Autowired
+  private transient EntityManagerFactory entityManagerFactory;
+
+  private final transient Map<SessionImplementor, Map<String, Entry>> pendingEntries =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Appends this listener to the Hibernate entity and collection change events.
+   */
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_RECREATE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_UPDATE, this);
+    registry.appendListeners(EventType.POST_COLLECTION_REMOVE, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    onChange(event.getSession(), event.getEntity(), false);
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    onChange(event.getSession(), event.getEntity(), false);
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    onChange(event.getSession(), event.getEntity(), true);
+  }
+
+  @Override
+  public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+    onCollectionChange(event);
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  /**
+   * Hibernate 5.4 still declares this misspelled variant abstract, so it only delegates.
+   */
+  @Deprecated
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return requiresPostCommitHandling(persister);
+  }
+
+  private void onCollectionChange(AbstractCollectionEvent event) {
+    if (null != event.getAffectedOwnerOrNull()) {
+      onChange(event.getSession(), event.getAffectedOwnerOrNull(), false);
+    }
+  }
+
+  void onChange(EventSource session, Object entity, boolean deleted) {
+    Entry entry = toEntry(entity, deleted);
+
+    if (null == entry) {
+      return;
+    }
+
+    pendingEntries
+        .computeIfAbsent(session, key -> {
+          key.getActionQueue().registerProcess(this::write);
+          key.getActionQueue().registerProcess((success, completed) ->
+              pendingEntries.remove(completed));
+          return new LinkedHashMap<>();
+        })
+        .put(entry.resourceType + '/' + entry.resourceId, entry);
+  }
+
+  static Entry toEntry(Object changed, boolean deleted) {
+    Object entity = changed;
+    boolean removed = deleted;
+
+    if (entity instanceof ProgramOrderable) {
+      entity = ((ProgramOrderable) entity).getProduct();
+      removed = false;
+    } else if (entity instanceof SupportedProgram) {
+      entity = ((SupportedProgram) entity).getFacilityProgram().getFacility();
+      removed = false;
+    }
+
+    String resourceType = null == entity ? null : RESOURCE_TYPES.get(Hibernate.getClass(entity));
+
+    if (null == resourceType) {
+      return null;
+    }
+
+    if (entity instanceof FacilityTypeApprovedProduct) {
+      // inactive approved products are no longer returned by the API
+      removed |= !Boolean.TRUE.equals(((FacilityTypeApprovedProduct) entity).getActive());
+    }
+
+    Long versionNumber = entity instanceof Versionable
+        ? ((Versionable) entity).getVersionNumber()
+        : null;
+
+    return new Entry(resourceType, ((Identifiable) entity).getId(), versionNumber,
+        removed ? Operation.DELETE : Operation.UPSERT);
+  }
+
+  private void write(SessionImplementor session) {
+    Map<String, Entry> entries = pendingEntries.remove(session);
+
+    if (null == entries || entries.isEmpty()) {
+      return;
+    }
+
+    session.doWork(connection -> {
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+        for (Entry entry : entries.values()) {
+          statement.setString(1, entry.resourceType);
+          statement.setObject(2, entry.resourceId);
+
+          if (null == entry.versionNumber) {
+            statement.setNull(3, Types.BIGINT);
+          } else {
+            statement.setLong(3, entry.versionNumber);
+          }
+
+          statement.setString(4, entry.operation.name());
+          statement.addBatch();
+        }
+
+        statement.executeBatch();
+      }
+    });
+  }
+
+  @AllArgsConstructor
+  static final class Entry {
+    final String resourceType;
+    final UUID resourceId;
+    final Long versionNumber;
+    final Operation operation;
+  }
+
+}
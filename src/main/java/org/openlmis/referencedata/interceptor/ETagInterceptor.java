@@ -0,0 +1,122 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.web.VersionedResource;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationStrategy;
+import org.springframework.web.accept.HeaderContentNegotiationStrategy;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Adds ETag to responses of endpoints annotated with {@link VersionedResource} and returns 304
+ * without calling the handler if the If-None-Match request header matches it. JSON, Smile and
+ * CBOR representations of a resource get different ETags, which are varied by the Accept header.
+ */
+@Service
+public class ETagInterceptor extends HandlerInterceptorAdapter {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ETagInterceptor.class);
+
+  // suffixes of the ETag by media type, in the order the message converters are registered in
+  private static final Map<MediaType, String> REPRESENTATIONS = ImmutableMap.of(
+      MediaType.APPLICATION_JSON, "",
+      new MediaType("application", "x-jackson-smile"), "-smile",
+      MediaType.APPLICATION_CBOR, "-cbor");
+
+  private static final ContentNegotiationStrategy NEGOTIATION_STRATEGY =
+      new HeaderContentNegotiationStrategy();
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
+
+  @Autowired
+  private RightService rightService;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (!(handler instanceof HandlerMethod) || !HttpMethod.GET.matches(request.getMethod())) {
+      return true;
+    }
+
+    VersionedResource versionedResource = ((HandlerMethod) handler)
+        .getMethodAnnotation(VersionedResource.class);
+
+    if (null == versionedResource) {
+      return true;
+    }
+
+    if (StringUtils.isNotBlank(versionedResource.adminRight())) {
+      rightService.checkAdminRight(versionedResource.adminRight());
+    }
+
+    String eTag = resourceVersionService.getETag(versionedResource.value());
+
+    if (null == eTag) {
+      return true;
+    }
+
+    ServletWebRequest webRequest = new ServletWebRequest(request, response);
+    response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+
+    return !webRequest.checkNotModified(withRepresentation(eTag, webRequest));
+  }
+
+  private String withRepresentation(String eTag, NativeWebRequest request) {
+    List<MediaType> acceptedTypes;
+
+    try {
+      acceptedTypes = new ArrayList<>(NEGOTIATION_STRATEGY.resolveMediaTypes(request));
+    } catch (HttpMediaTypeNotAcceptableException ex) {
+      XLOGGER.debug("Could not resolve accepted media types: {}", ex.getMessage());
+      return eTag;
+    }
+
+    MediaType.sortBySpecificityAndQuality(acceptedTypes);
+
+    for (MediaType acceptedType : acceptedTypes) {
+      for (Map.Entry<MediaType, String> representation : REPRESENTATIONS.entrySet()) {
+        if (acceptedType.isCompatibleWith(representation.getKey())) {
+          // the ETag is a quoted string, so the suffix goes before the closing quote
+          return eTag.substring(0, eTag.length() - 1) + representation.getValue() + "\"";
+        }
+      }
+    }
+
+    return eTag;
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.openlmis.referencedata.util.ReplicaRoutingDataSource;
+import org.openlmis.referencedata.web.ReadFromReplica;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+/**
+ * Routes database work of GET endpoints annotated with {@link ReadFromReplica} to a replica and
+ * of all other requests to the primary database. Clients that made a non-GET request within
+ * the read-your-writes window are always routed to the primary. Recent writers are kept in Redis,
+ * so the window applies on all instances of the service, and in a local cache, so it applies on
+ * this instance even if Redis can't be reached.
+ *
+ * <p>Requests routed to a replica only read the second-level and query caches. A lagging replica
+ * could otherwise put rows that were just evicted back into the caches shared with requests
+ * served by the primary.
+ */
+@Service
+public class ReplicaRoutingInterceptor extends HandlerInterceptorAdapter {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      ReplicaRoutingInterceptor.class);
+
+  static final String RECENT_WRITER_KEY = "referencedata.replica.recentWriter:";
+
+  @Autowired
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  @Value("${replica.urls}")
+  private String replicaUrls;
+
+  @Value("${replica.readYourWritesWindow}")
+  private long readYourWritesWindow;
+
+  private Cache<String, Boolean> recentWriters;
+
+  @PostConstruct
+  public void init() {
+    recentWriters = CacheBuilder
+        .newBuilder()
+        .expireAfterWrite(readYourWritesWindow, TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+      Object handler) {
+    if (!HttpMethod.GET.matches(request.getMethod())) {
+      markWriter(getClient());
+    }
+
+    if (canUseReplica(request, handler) && readCachesOnly()) {
+      ReplicaRoutingDataSource.routeToReplica();
+    } else {
+      ReplicaRoutingDataSource.routeToPrimary();
+    }
+
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+      Object handler, Exception ex) {
+    if (!HttpMethod.GET.matches(request.getMethod())) {
+      // the window starts again once the changes are committed
+      markWriter(getClient());
+    }
+
+    ReplicaRoutingDataSource.clearRoute();
+  }
+
+  @Override
+  public void afterConcurrentHandlingStarted(HttpServletRequest request,
+      HttpServletResponse response, Object handler) {
+    ReplicaRoutingDataSource.clearRoute();
+  }
+
+  boolean canUseReplica(HttpServletRequest request, Object handler) {
+    if (StringUtils.isBlank(replicaUrls)
+        || !HttpMethod.GET.matches(request.getMethod())
+        || !(handler instanceof HandlerMethod)
+        || !((HandlerMethod) handler).hasMethodAnnotation(ReadFromReplica.class)) {
+      return false;
+    }
+
+    String client = getClient();
+    return null == client || !isRecentWriter(client);
+  }
+
+  private boolean readCachesOnly() {
+    EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager
+        .getResource(entityManagerFactory);
+
+    if (null == holder) {
+      // work of the request would use sessions that could fill the caches from the replica
+      XLOGGER.debug("No entity manager is bound to the request, using the primary");
+      return false;
+    }
+
+    holder.getEntityManager().unwrap(Session.class).setCacheMode(CacheMode.GET);
+    return true;
+  }
+
+  private boolean isRecentWriter(String client) {
+    if (null != recentWriters.getIfPresent(client)) {
+      return true;
+    }
+
+    try {
+      return Boolean.TRUE.equals(redisTemplate.hasKey(RECENT_WRITER_KEY + client));
+    } catch (RuntimeException ex) {
+      // the client could have written on another instance, so only the primary is safe
+      XLOGGER.debug("Could not check recent writes of {}: {}", client, ex.getMessage());
+      return true;
+    }
+  }
+
+  private void markWriter(String client) {
+    // without replicas everything is read from the primary anyway
+    if (null == client || StringUtils.isBlank(replicaUrls)) {
+      return;
+    }
+
+    recentWriters.put(client, Boolean.TRUE);
+
+    try {
+      redisTemplate.opsForValue().set(RECENT_WRITER_KEY + client, Boolean.TRUE,
+          readYourWritesWindow, TimeUnit.MILLISECONDS);
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not share recent writes of {}: {}", client, ex.getMessage());
+    }
+  }
+
+  private String getClient() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return null == authentication ? null : authentication.getName();
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts entity loads and collection fetches for {@link SqlStatistics} of the current request.
+ */
+@Component
+public class SqlLoadEventListener
+    implements PostLoadEventListener, InitializeCollectionEventListener {
+
+  private static final long serialVersionUID = 3893150357224187725L;
+
+  @Autowired
+  private transient EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Appends this listener to the Hibernate post load and collection initialization events.
+   */
+  @PostConstruct
+  public void register() {
+    EventListenerRegistry registry = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class);
+
+    registry.appendListeners(EventType.POST_LOAD, this);
+    registry.appendListeners(EventType.INIT_COLLECTION, this);
+  }
+
+  @Override
+  public void onPostLoad(PostLoadEvent event) {
+    SqlStatistics statistics = SqlStatistics.current();
+
+    if (null != statistics) {
+      statistics.entityLoaded();
+    }
+  }
+
+  @Override
+  public void onInitializeCollection(InitializeCollectionEvent event) {
+    SqlStatistics statistics = SqlStatistics.current();
+
+    if (null != statistics) {
+      statistics.collectionFetched();
+    }
+  }
+
+}
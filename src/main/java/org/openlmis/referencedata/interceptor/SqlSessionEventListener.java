@@ -0,0 +1,59 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import org.hibernate.BaseSessionEventListener;
+
+/**
+ * Measures time spent executing JDBC statements and batches for {@link SqlStatistics} of the
+ * current request. Registered with the hibernate.session.events.auto property, so Hibernate
+ * creates a new instance for each session.
+ */
+public class SqlSessionEventListener extends BaseSessionEventListener {
+
+  private static final long serialVersionUID = -2563416733620893618L;
+
+  private long executionStart;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    executionStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    recordExecution();
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    executionStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    recordExecution();
+  }
+
+  private void recordExecution() {
+    SqlStatistics statistics = SqlStatistics.current();
+
+    if (null != statistics) {
+      statistics.jdbcExecuted(System.nanoTime() - executionStart);
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * Counts SQL statements, entity loads, collection fetches and JDBC time of the current request.
+ * Statistics are collected only on threads that called {@link #start()}; on other threads (or
+ * when they are disabled) all Hibernate hooks are no-ops.
+ */
+public final class SqlStatistics {
+
+  private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+  private static final Pattern PARAMETER_LIST = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  @Getter
+  private int statementCount;
+
+  @Getter
+  private int entityLoadCount;
+
+  @Getter
+  private int collectionFetchCount;
+
+  @Getter
+  private long jdbcTimeNanos;
+
+  private final Map<String, Integer> statementShapes = new HashMap<>();
+
+  private SqlStatistics() {
+  }
+
+  /**
+   * Starts collecting statistics on the current thread, replacing any previous ones.
+   */
+  public static SqlStatistics start() {
+    SqlStatistics statistics = new SqlStatistics();
+    CURRENT.set(statistics);
+    return statistics;
+  }
+
+  /**
+   * Returns statistics collected on the current thread or null if they were not started.
+   */
+  public static SqlStatistics current() {
+    return CURRENT.get();
+  }
+
+  /**
+   * Stops collecting statistics on the current thread.
+   */
+  public static void clear() {
+    CURRENT.remove();
+  }
+
+  /**
+   * Returns shapes of statements (SQL with literals and parameter lists collapsed) that were
+   * executed at least the given number of times, with the number of executions.
+   */
+  public Map<String, Integer> getRepeatedStatements(int threshold) {
+    return statementShapes
+        .entrySet()
+        .stream()
+        .filter(entry -> entry.getValue() >= threshold)
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  void statementPrepared(String sql) {
+    statementCount++;
+    statementShapes.merge(toShape(sql), 1, Integer::sum);
+  }
+
+  void entityLoaded() {
+    entityLoadCount++;
+  }
+
+  void collectionFetched() {
+    collectionFetchCount++;
+  }
+
+  void jdbcExecuted(long nanos) {
+    jdbcTimeNanos += nanos;
+  }
+
+  static String toShape(String sql) {
+    String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+    shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+    shape = PARAMETER_LIST.matcher(shape).replaceAll("?");
+    return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+  }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Collects {@link SqlStatistics} for each request. The statistics are recorded as metrics tagged
+ * with the request method and URI pattern, statement shapes executed at least
+ * sqlStatistics.repeatedStatementThreshold times are logged as likely N+1 queries and, in debug
+ * mode, the statistics are returned in the X-SQL-* response headers. The headers are added only
+ * to responses that are written before the request thread leaves the filter; asynchronous and
+ * event stream responses are passed through without buffering and get no headers.
+ */
+@Component
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+  public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+  public static final String ENTITY_LOADS_HEADER = "X-SQL-Entity-Loads";
+  public static final String COLLECTION_FETCHES_HEADER = "X-SQL-Collection-Fetches";
+  public static final String JDBC_TIME_HEADER = "X-SQL-JDBC-Time";
+  public static final String REPEATED_STATEMENTS_HEADER = "X-SQL-Repeated-Statements";
+
+  static final String STATEMENTS_METRIC = "openlmis.sql.statements";
+  static final String ENTITY_LOADS_METRIC = "openlmis.sql.entity.loads";
+  static final String COLLECTION_FETCHES_METRIC = "openlmis.sql.collection.fetches";
+  static final String JDBC_TIME_METRIC = "openlmis.sql.jdbc";
+  static final String REPEATED_STATEMENTS_METRIC = "openlmis.sql.repeated.statements";
+
+  private static final String UNKNOWN_URI = "UNKNOWN";
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Value("${sqlStatistics.enabled}")
+  private boolean enabled;
+
+  @Value("${sqlStatistics.headers.enabled}")
+  private boolean headersEnabled;
+
+  @Value("${sqlStatistics.repeatedStatementThreshold}")
+  private int repeatedStatementThreshold;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !enabled;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    StatisticsResponseWrapper wrapper = headersEnabled
+        ? new StatisticsResponseWrapper(request, response)
+        : null;
+    SqlStatistics statistics = SqlStatistics.start();
+
+    try {
+      filterChain.doFilter(request, null == wrapper ? response : wrapper);
+    } finally {
+      SqlStatistics.clear();
+
+      Map<String, Integer> repeated = statistics
+          .getRepeatedStatements(repeatedStatementThreshold);
+      String uri = getUri(request);
+
+      repeated.forEach((sql, count) -> LOGGER.warn(
+          "Statement executed {} times during {} {}: {}", count, request.getMethod(), uri, sql));
+      record(request.getMethod(), uri, statistics, repeated.size());
+
+      if (null != wrapper && wrapper.isBuffering()) {
+        addHeaders(response, statistics, repeated.size());
+        wrapper.copyBodyToResponse();
+      } else if (null != wrapper) {
+        wrapper.stopBuffering();
+      }
+    }
+  }
+
+  private void record(String method, String uri, SqlStatistics statistics, int repeated) {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+
+    if (null == registry) {
+      return;
+    }
+
+    Tags tags = Tags.of("method", method, "uri", uri);
+
+    DistributionSummary
+        .builder(STATEMENTS_METRIC)
+        .tags(tags)
+        .register(registry)
+        .record(statistics.getStatementCount());
+    DistributionSummary
+        .builder(ENTITY_LOADS_METRIC)
+        .tags(tags)
+        .register(registry)
+        .record(statistics.getEntityLoadCount());
+    DistributionSummary
+        .builder(COLLECTION_FETCHES_METRIC)
+        .tags(tags)
+        .register(registry)
+        .record(statistics.getCollectionFetchCount());
+    registry
+        .timer(JDBC_TIME_METRIC, tags)
+        .record(statistics.getJdbcTimeNanos(), TimeUnit.NANOSECONDS);
+
+    if (repeated > 0) {
+      registry.counter(REPEATED_STATEMENTS_METRIC, tags).increment(repeated);
+    }
+  }
+
+  private void addHeaders(HttpServletResponse response, SqlStatistics statistics, int repeated) {
+    response.setIntHeader(STATEMENTS_HEADER, statistics.getStatementCount());
+    response.setIntHeader(ENTITY_LOADS_HEADER, statistics.getEntityLoadCount());
+    response.setIntHeader(COLLECTION_FETCHES_HEADER, statistics.getCollectionFetchCount());
+    response.setHeader(JDBC_TIME_HEADER,
+        String.valueOf(TimeUnit.NANOSECONDS.toMillis(statistics.getJdbcTimeNanos())));
+    response.setIntHeader(REPEATED_STATEMENTS_HEADER, repeated);
+  }
+
+  private String getUri(HttpServletRequest request) {
+    Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+    return null == pattern ? UNKNOWN_URI : pattern.toString();
+  }
+
+  /**
+   * Buffers the response body, so the headers can be added after the handler has finished. The
+   * body is written directly to the response once the request has been put into asynchronous
+   * mode or if it is an event stream, because such a response would never be copied from the
+   * buffer.
+   */
+  private static final class StatisticsResponseWrapper extends ContentCachingResponseWrapper {
+    private final HttpServletRequest request;
+    private boolean buffering = true;
+
+    StatisticsResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+      super(response);
+      this.request = request;
+    }
+
+    boolean isBuffering() {
+      return buffering && !request.isAsyncStarted()
+          && !StringUtils.startsWith(getContentType(), MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    void stopBuffering() throws IOException {
+      buffering = false;
+      copyBodyToResponse(false);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+      if (isBuffering()) {
+        return super.getOutputStream();
+      }
+
+      stopBuffering();
+      return getResponse().getOutputStream();
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+      if (isBuffering()) {
+        return super.getWriter();
+      }
+
+      stopBuffering();
+      return getResponse().getWriter();
+    }
+
+    @Override
+    public void setContentLength(int len) {
+      if (isBuffering()) {
+        super.setContentLength(len);
+      } else {
+        getResponse().setContentLength(len);
+      }
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+      if (isBuffering()) {
+        super.setContentLengthLong(len);
+      } else {
+        getResponse().setContentLengthLong(len);
+      }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+      if (isBuffering()) {
+        super.flushBuffer();
+        return;
+      }
+
+      stopBuffering();
+      getResponse().flushBuffer();
+    }
+  }
+
+}
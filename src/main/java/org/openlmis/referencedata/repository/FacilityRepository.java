@@ -16,11 +16,13 @@
 package org.openlmis.referencedata.repository;
 
 import com.vividsolutions.jts.geom.Polygon;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.dto.MinimalFacilityDto;
 import org.openlmis.referencedata.dto.NamedResource;
 import org.openlmis.referencedata.repository.custom.FacilityRepositoryCustom;
 import org.springframework.data.domain.Page;
@@ -42,16 +44,39 @@ public interface FacilityRepository
 
   Facility findFirstByCode(String code);
 
+  @Override
+  @CacheableQuery
+  @Query("SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END"
+      + " FROM Facility f WHERE f.id = :id")
+  boolean existsById(@Param("id") UUID id);
+
+  @CacheableQuery
   Optional<Facility> findByCode(String code);
 
+  List<Facility> findAllByCodeIn(Collection<String> codes);
+
   @Query(name = "Facility.findSupervisionFacilitiesByUser",
       nativeQuery = true)
   Set<NamedResource> findSupervisionFacilitiesByUser(@Param("userId") UUID userId);
 
+  @CacheableQuery
   boolean existsByCode(String code);
 
   Page<Facility> findByActive(Boolean active, Pageable pageable);
 
+  @Query(value = "SELECT new org.openlmis.referencedata.dto.MinimalFacilityDto("
+      + "f.id, f.code, f.name)"
+      + " FROM Facility AS f",
+      countQuery = "SELECT COUNT(f) FROM Facility AS f")
+  Page<MinimalFacilityDto> findAllMinimal(Pageable pageable);
+
+  @Query(value = "SELECT new org.openlmis.referencedata.dto.MinimalFacilityDto("
+      + "f.id, f.code, f.name)"
+      + " FROM Facility AS f"
+      + " WHERE f.active = :active",
+      countQuery = "SELECT COUNT(f) FROM Facility AS f WHERE f.active = :active")
+  Page<MinimalFacilityDto> findMinimalByActive(@Param("active") Boolean active, Pageable pageable);
+
   @Query(value = "SELECT\n"
       + "    f.*\n"
       + "FROM\n"
@@ -15,13 +15,16 @@
 
 package org.openlmis.referencedata.repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import javax.persistence.LockModeType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.repository.custom.FacilityTypeApprovedProductRepositoryCustom;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -40,6 +43,26 @@ public interface FacilityTypeApprovedProductRepository extends
   @Modifying(flushAutomatically = true, clearAutomatically = true)
   void deactivatePreviousVersions(@Param("id") UUID id);
 
+  @Query("UPDATE FacilityTypeApprovedProduct SET active = false WHERE identity.id IN :ids")
+  @Modifying(flushAutomatically = true)
+  void deactivatePreviousVersions(@Param("ids") Collection<UUID> ids);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT f FROM FacilityTypeApprovedProduct f"
+      + " WHERE f.identity.id IN :ids"
+      + " ORDER BY f.identity.id, f.identity.versionNumber")
+  List<FacilityTypeApprovedProduct> lockAllVersionsByIds(@Param("ids") Collection<UUID> ids);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT f FROM FacilityTypeApprovedProduct f"
+      + " WHERE f.active = true"
+      + " AND f.orderableId IN :orderableIds"
+      + " AND f.facilityType.id IN :facilityTypeIds"
+      + " ORDER BY f.identity.id")
+  List<FacilityTypeApprovedProduct> lockActiveByOrderableIdsAndFacilityTypeIds(
+      @Param("orderableIds") Collection<UUID> orderableIds,
+      @Param("facilityTypeIds") Collection<UUID> facilityTypeIds);
+
   @Query(value = "SELECT"
       + "   ftap.*"
       + " FROM"
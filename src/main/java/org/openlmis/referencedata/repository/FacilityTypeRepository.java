@@ -30,6 +30,7 @@ public interface FacilityTypeRepository extends JpaRepository<FacilityType, UUID
   @Override
   <S extends FacilityType> S save(S entity);
 
+  @CacheableQuery
   FacilityType findOneByCode(@Param("code") String code);
 
   Page<FacilityType> findByIdIn(Collection<UUID> id, Pageable pageable);
@@ -38,6 +39,7 @@ public interface FacilityTypeRepository extends JpaRepository<FacilityType, UUID
 
   Page<FacilityType> findByActive(Boolean active, Pageable pageable);
 
+  @CacheableQuery
   boolean existsByCode(@Param("code") String code);
 
   @Query(value = "SELECT\n"
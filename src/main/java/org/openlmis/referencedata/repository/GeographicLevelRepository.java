@@ -24,6 +24,7 @@ import org.springframework.data.jpa.repository.Query;
 public interface GeographicLevelRepository
     extends BaseAuditableRepository<GeographicLevel, UUID> {
 
+  @CacheableQuery
   GeographicLevel findByLevelNumber(Integer levelNumber);
 
   @Query(value = "SELECT\n"
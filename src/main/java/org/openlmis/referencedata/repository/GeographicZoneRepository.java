@@ -39,6 +39,13 @@ public interface GeographicZoneRepository extends PagingAndSortingRepository<Geo
 
   List<GeographicZone> findByLevel(GeographicLevel level);
 
+  @Override
+  @CacheableQuery
+  @Query("SELECT CASE WHEN COUNT(gz) > 0 THEN true ELSE false END"
+      + " FROM GeographicZone gz WHERE gz.id = :id")
+  boolean existsById(@Param("id") UUID id);
+
+  @CacheableQuery
   <S extends GeographicZone> S findByCode(String code);
 
   @Query(value = "SELECT gz.*"
@@ -27,6 +27,7 @@ public interface OrderableDisplayCategoryRepository extends
         PagingAndSortingRepository<OrderableDisplayCategory, UUID>,
         BaseAuditableRepository<OrderableDisplayCategory, UUID> {
 
+  @CacheableQuery
   OrderableDisplayCategory findByCode(Code code);
 
   @Query(value = "SELECT\n"
@@ -182,4 +182,26 @@ public interface OrderableRepository extends
   @Query(nativeQuery = true)
   List<OrderableIdentifierCsvModel> findAllOrderableIdentifierCsvModels();
 
+  @Query(
+          value = "SELECT"
+                  + " CAST(o.id AS VARCHAR) AS id,"
+                  + " LOWER(o.code) AS code"
+                  + FROM_REFERENCEDATA_ORDERABLES_CLAUSE
+                  + JOIN_WITH_LATEST_ORDERABLE
+                  + " WHERE LOWER(o.code) IN :codes",
+          nativeQuery = true
+  )
+  List<Map<String, String>> findLatestIdsByProductCodes(@Param("codes") Iterable<String> codes);
+
+  @Query(
+          value = "SELECT CAST(o.id AS VARCHAR)"
+                  + FROM_REFERENCEDATA_ORDERABLES_CLAUSE
+                  + JOIN_WITH_LATEST_ORDERABLE
+                  + " WHERE o.id IN :ids"
+                  + " ORDER BY o.id"
+                  + " FOR UPDATE OF o",
+          nativeQuery = true
+  )
+  List<String> lockLatestByIds(@Param("ids") Iterable<UUID> ids);
+
 }
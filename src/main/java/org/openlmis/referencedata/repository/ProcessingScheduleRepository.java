@@ -23,10 +23,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ProcessingScheduleRepository
       extends JpaRepository<ProcessingSchedule, UUID>,
       BaseAuditableRepository<ProcessingSchedule, UUID> {
+  @Override
+  @CacheableQuery
+  @Query("SELECT CASE WHEN COUNT(ps) > 0 THEN true ELSE false END"
+      + " FROM ProcessingSchedule ps WHERE ps.id = :id")
+  boolean existsById(@Param("id") UUID id);
+
+  @CacheableQuery
   Optional<ProcessingSchedule> findOneByCode(Code code);
 
   @Query(value = "SELECT\n"
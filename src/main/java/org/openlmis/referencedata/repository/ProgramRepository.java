@@ -36,6 +36,13 @@ public interface ProgramRepository
   @Override
   <S extends Program> S save(S entity);
 
+  @Override
+  @CacheableQuery
+  @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END"
+      + " FROM Program p WHERE p.id = :id")
+  boolean existsById(@Param("id") UUID id);
+
+  @CacheableQuery
   <S extends Program> S findByCode(Code code);
 
   @Query(value = "SELECT DISTINCT p.*"
@@ -57,12 +64,19 @@ public interface ProgramRepository
       nativeQuery = true)
   Set<Program> findHomeFacilitySupervisionProgramsByUser(@Param("userId") UUID userId);
 
+  @CacheableQuery
   boolean existsByCode(Code programCode);
 
   List<Program> findByNameIgnoreCaseContaining(String name);
 
   List<Program> findByIdInAndNameIgnoreCaseContaining(Collection<UUID> ids, String name);
 
+  @Query(value = "SELECT p.*"
+      + " FROM referencedata.programs p"
+      + " WHERE LOWER(p.code) IN :codes",
+      nativeQuery = true)
+  List<Program> findAllByLowerCaseCodeIn(@Param("codes") Collection<String> codes);
+
   @Query(value = "SELECT\n"
       + "    p.*\n"
       + "FROM\n"
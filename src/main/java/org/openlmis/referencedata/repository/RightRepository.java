@@ -22,10 +22,19 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 public interface RightRepository extends PagingAndSortingRepository<Right, UUID>,
         RightRepositoryCustom,
         BaseAuditableRepository<Right, UUID> {
+  // RIGHT is an HQL keyword, so the entity is referenced by its qualified name
+  @Override
+  @CacheableQuery
+  @Query("SELECT CASE WHEN COUNT(r) > 0 THEN true ELSE false END"
+      + " FROM org.openlmis.referencedata.domain.Right r WHERE r.id = :id")
+  boolean existsById(@Param("id") UUID id);
+
+  @CacheableQuery
   Right findFirstByName(String name);
 
   @Query(value = "SELECT\n"
@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Role;
 import org.openlmis.referencedata.repository.custom.RoleRepositoryCustom;
@@ -26,8 +28,11 @@ import org.springframework.data.jpa.repository.Query;
 public interface RoleRepository extends JpaRepository<Role, UUID>, RoleRepositoryCustom,
     BaseAuditableRepository<Role, UUID> {
 
+  @CacheableQuery
   Role findFirstByName(String name);
 
+  List<Role> findAllByNameIn(Collection<String> names);
+
   @Query(value = "SELECT\n"
       + "    r.*\n"
       + "FROM\n"
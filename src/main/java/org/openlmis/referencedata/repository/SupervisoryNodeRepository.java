@@ -15,6 +15,8 @@
 
 package org.openlmis.referencedata.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.SupervisoryNode;
@@ -33,6 +35,8 @@ public interface SupervisoryNodeRepository
 
   boolean existsByCode(String code);
 
+  List<SupervisoryNode> findAllByCodeIn(Collection<String> codes);
+
   @Query(value = "SELECT\n"
       + "    sn.*\n"
       + "FROM\n"
@@ -15,7 +15,7 @@
 
 package org.openlmis.referencedata.repository;
 
-import java.util.List;
+import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Facility;
@@ -36,21 +36,15 @@ public interface UserRepository extends
 
   User findOneByUsernameIgnoreCase(@Param("username") String username);
 
-  @Query(value = "SELECT u.*"
-      + " FROM referencedata.users u"
-      + " WHERE u.extradata @> (:extraData)\\:\\:jsonb",
-      nativeQuery = true
-  )
-  List<User> findByExtraData(@Param("extraData") String extraData);
+  @Query("SELECT LOWER(u.username) FROM User u WHERE LOWER(u.username) IN :usernames")
+  Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
 
-  @Query(value = "SELECT DISTINCT u.*"
-      + " FROM referencedata.users u"
-      + "   JOIN referencedata.role_assignments ra ON ra.userid = u.id" 
-      + "   JOIN referencedata.roles r ON r.id = ra.roleid" 
-      + "   JOIN referencedata.role_rights rr ON rr.roleid = r.id"
-      + " WHERE rr.rightid = :rightId"
-      + "   AND ra.supervisorynodeid = :supervisoryNodeId"
-      + "   AND ra.programid = :programId",
+  @Query(value = "SELECT u.*"
+      + " FROM referencedata.supervising_users su"
+      + "   JOIN referencedata.users u ON u.id = su.userid"
+      + " WHERE su.supervisorynodeid = :supervisoryNodeId"
+      + "   AND su.programid = :programId"
+      + "   AND su.rightid = :rightId",
       nativeQuery = true)
   Set<User> findUsersBySupervisionRight(@Param("rightId") UUID rightId,
       @Param("supervisoryNodeId") UUID supervisoryNodeId,
@@ -15,9 +15,11 @@
 
 package org.openlmis.referencedata.repository.custom;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -26,6 +28,9 @@ public interface FacilityRepositoryCustom {
   Page<Facility> search(SearchParams params, Set<UUID> geographicZoneIds, String extraData,
       Pageable pageable);
 
+  Page<Map<String, Object>> search(SearchParams params, Set<UUID> geographicZoneIds,
+      String extraData, SparseFieldset fields, Pageable pageable);
+
   interface SearchParams {
 
     String getCode();
@@ -16,10 +16,13 @@
 package org.openlmis.referencedata.repository.custom;
 
 import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -27,6 +30,9 @@ public interface OrderableRepositoryCustom {
 
   Page<Orderable> search(SearchParams searchParams, Pageable pageable);
 
+  Page<Map<String, Object>> search(SearchParams searchParams, SparseFieldset fields,
+      Pageable pageable);
+
   ZonedDateTime findLatestModifiedDateByParams(SearchParams searchParams);
 
   interface SearchParams {
@@ -41,5 +47,9 @@ public interface OrderableRepositoryCustom {
 
     Set<UUID> getTradeItemId();
 
+    default Set<UUID> getIds() {
+      return Collections.emptySet();
+    }
+
   }
 }
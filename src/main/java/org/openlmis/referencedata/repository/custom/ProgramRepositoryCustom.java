@@ -16,8 +16,14 @@
 package org.openlmis.referencedata.repository.custom;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.util.SparseFieldset;
 
 public interface ProgramRepositoryCustom {
   List<Program> findProgramsByName(String name);
+
+  List<Map<String, Object>> search(Set<UUID> ids, String name, SparseFieldset fields);
 }
@@ -15,11 +15,16 @@
 
 package org.openlmis.referencedata.repository.custom;
 
+import java.util.Map;
 import org.openlmis.referencedata.domain.SupervisoryNode;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.web.SupervisoryNodeSearchParams;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface SupervisoryNodeRepositoryCustom {
   Page<SupervisoryNode> search(SupervisoryNodeSearchParams searchParams, Pageable pageable);
+
+  Page<Map<String, Object>> search(SupervisoryNodeSearchParams searchParams,
+      SparseFieldset fields, Pageable pageable);
 }
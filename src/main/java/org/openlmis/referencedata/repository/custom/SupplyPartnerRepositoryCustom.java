@@ -15,8 +15,10 @@
 
 package org.openlmis.referencedata.repository.custom;
 
+import java.util.Collection;
 import java.util.Set;
 import java.util.UUID;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.SupplyPartner;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -25,6 +27,10 @@ public interface SupplyPartnerRepositoryCustom {
 
   Page<SupplyPartner> search(SearchParams params, Pageable pageable);
 
+  Set<Pair<UUID, UUID>> findAssociatedFacilityOrderablePairs(UUID programId,
+      UUID supervisoryNodeId, Collection<UUID> facilityIds, Collection<UUID> orderableIds,
+      UUID excludedSupplyPartnerId);
+
   interface SearchParams {
 
     Set<UUID> getIds();
@@ -16,13 +16,21 @@
 package org.openlmis.referencedata.repository.custom;
 
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.repository.UserSearchParams;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface UserRepositoryCustom {
 
-  Page<User> searchUsers(UserSearchParams searchParams, List<User> foundUsers, Pageable pageable);
+  Page<User> searchUsers(UserSearchParams searchParams, String extraData, Pageable pageable);
+
+  Page<Map<String, Object>> searchUsers(UserSearchParams searchParams, String extraData,
+      SparseFieldset fields, Pageable pageable);
+
+  List<UUID> findSupervisingUserIds(UUID rightId, UUID supervisoryNodeId, UUID programId);
 
 }
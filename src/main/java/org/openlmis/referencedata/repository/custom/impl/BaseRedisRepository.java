@@ -16,11 +16,14 @@
 package org.openlmis.referencedata.repository.custom.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Set;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
 import lombok.Setter;
 import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.repository.custom.CrudRedisRepository;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.redis.core.HashOperations;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Repository;
@@ -29,14 +32,14 @@ import org.springframework.stereotype.Repository;
 public abstract class BaseRedisRepository<T extends Identifiable>
     implements CrudRedisRepository<T> {
 
-  private RedisTemplate redisTemplate;
-  private HashOperations hashOperations;
+  private RedisTemplate<String, Object> redisTemplate;
+  private HashOperations<String, Object, Object> hashOperations;
   private ObjectMapper mapper = new ObjectMapper();
 
   @Setter
   private Class<T> clazz;
 
-  public BaseRedisRepository(RedisTemplate redisTemplate, Class<T> clazz) {
+  public BaseRedisRepository(RedisTemplate<String, Object> redisTemplate, Class<T> clazz) {
     this.redisTemplate = redisTemplate;
     this.clazz = clazz;
   }
@@ -67,6 +70,27 @@ public abstract class BaseRedisRepository<T extends Identifiable>
     hashOperations.delete(getHashKey(), entity.getId().toString());
   }
 
+  /**
+   * Evicts entries of entities changed by this instance of the service, no matter which code path
+   * changed them. Entries are kept in Redis and shared by all instances, so changes made by other
+   * instances were already evicted by them.
+   */
+  @EventListener
+  public void evict(EntitiesChangedEvent event) {
+    Set<UUID> ids = event.getIds(getEntityType());
+
+    if (!event.isRemote() && !ids.isEmpty()) {
+      hashOperations.delete(getHashKey(), ids.stream().map(UUID::toString).toArray());
+    }
+  }
+
   protected abstract String getHashKey();
 
+  /**
+   * Returns the entity whose changes invalidate the cached entries.
+   */
+  protected Class<?> getEntityType() {
+    return clazz;
+  }
+
 }
@@ -15,45 +15,40 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
-import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
-import org.hibernate.query.NativeQuery;
-import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.repository.custom.FacilityRepositoryCustom;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
 
-  private static final String NATIVE_SELECT_BY_PARAMS = "SELECT DISTINCT f.id AS ID"
-      + " FROM referencedata.facilities AS f"
-      + " INNER JOIN referencedata.geographic_zones AS g ON f.geographiczoneid = g.id"
-      + " INNER JOIN referencedata.facility_types AS t ON f.typeid = t.id";
-
-  private static final String HQL_COUNT = "SELECT DISTINCT COUNT(*)"
-      + " FROM Facility AS f"
+  private static final String HQL_FROM = " FROM Facility AS f"
       + " INNER JOIN f.geographicZone AS g"
       + " INNER JOIN f.type AS t";
 
-  private static final String HQL_SELECT = "SELECT DISTINCT f"
-      + " FROM Facility AS f"
-      + " INNER JOIN f.geographicZone AS g"
-      + " INNER JOIN f.type AS t";
+  private static final String HQL_COUNT = "SELECT DISTINCT COUNT(*)" + HQL_FROM;
+
+  private static final String HQL_SELECT = "SELECT DISTINCT f" + HQL_FROM;
+
+  // the joins are to-one, so the projection can't return duplicates
+  private static final String HQL_SELECT_FIELDS = "SELECT %s" + HQL_FROM;
 
   private static final String WHERE = "WHERE";
   private static final String AND = " AND ";
@@ -65,14 +60,17 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
   private static final String WITH_ZONE = "g.id IN (:zones)";
   private static final String WITH_IDS = "f.id IN (:ids)";
   private static final String WITH_TYPE = "t.code = :typeCode";
-  private static final String WITH_EXTRA_DATA = "f.extradata @> (:extraData)\\:\\:jsonb";
+  private static final String WITH_EXTRA_DATA = SqlFunctionsContributor.JSONB_CONTAINS
+      + "(f.extraData.extraData, :extraData) = true";
 
   @PersistenceContext
   private EntityManager entityManager;
 
   /**
    * This method is supposed to retrieve all facilities with matched parameters.
-   * Method is ignoring case for facility code and name.
+   * Method is ignoring case for facility code and name. The facilities are filtered, sorted and
+   * paged in a single query; the count query is executed only if the total number of facilities
+   * can't be determined from the returned page.
    *
    * @param searchParams      Params to search facilities by.
    * @param geographicZoneIds Geographic zone IDs.
@@ -82,73 +80,55 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
    */
   public Page<Facility> search(SearchParams searchParams,
                                Set<UUID> geographicZoneIds, String extraData, Pageable pageable) {
-    if (null != extraData) {
-      return searchWithExtraData(searchParams, geographicZoneIds, extraData, pageable);
-    }
-    return searchWithoutExtraData(searchParams, geographicZoneIds, pageable);
+    return search(HQL_SELECT, searchParams, geographicZoneIds, extraData, pageable,
+        Facility.class::cast);
   }
 
-  private Page<Facility> searchWithExtraData(SearchParams searchParams,
-                                             Set<UUID> geographicZoneIds,
-                                             String extraData, Pageable pageable) {
+  /**
+   * Retrieves only the requested fields of the facilities matching the parameters. The
+   * facility entities are not loaded.
+   *
+   * @see #search(SearchParams, Set, String, Pageable)
+   */
+  public Page<Map<String, Object>> search(SearchParams searchParams,
+      Set<UUID> geographicZoneIds, String extraData, SparseFieldset fields, Pageable pageable) {
+    return search(String.format(HQL_SELECT_FIELDS, fields.getSelectList("f")), searchParams,
+        geographicZoneIds, extraData, pageable, fields::toMap);
+  }
 
+  private <T> Page<T> search(String select, SearchParams searchParams,
+      Set<UUID> geographicZoneIds, String extraData, Pageable pageable,
+      Function<Object, T> mapper) {
     Map<String, Object> params = Maps.newHashMap();
-    String query =
-        prepareQuery(NATIVE_SELECT_BY_PARAMS, searchParams, geographicZoneIds, extraData, params);
-
-    Query nativeQuery = entityManager.createNativeQuery(query);
-    params.forEach(nativeQuery::setParameter);
-
-    NativeQuery sqlQuery = nativeQuery.unwrap(NativeQuery.class);
-    sqlQuery.addScalar("ID", PostgresUUIDType.INSTANCE);
-
-    // appropriate scalar is added to native query
-    @SuppressWarnings("unchecked")
-    List<UUID> ids = nativeQuery.getResultList();
-
-    if (isEmpty(ids)) {
-      return Pagination.getPage(Collections.emptyList(), pageable, 0);
-    }
-
-    String hqlWithSort = Joiner.on(' ').join(Lists.newArrayList(HQL_SELECT, WHERE, WITH_IDS,
+    String hqlWithSort = Joiner.on(' ').join(Lists.newArrayList(
+        prepareQuery(select, searchParams, geographicZoneIds, extraData, params),
         ORDER_BY, PageableUtil.getOrderPredicate(pageable, "f.", DEFAULT_SORT)));
 
-    List<Facility> facilities =  entityManager
-        .createQuery(hqlWithSort, Facility.class)
-        .setParameter("ids", ids)
+    Query searchQuery = entityManager.createQuery(hqlWithSort);
+    params.forEach(searchQuery::setParameter);
+    List<T> content = ((List<?>) searchQuery
         .setMaxResults(pageable.getPageSize())
         .setFirstResult(Math.toIntExact(pageable.getOffset()))
-        .getResultList();
+        .getResultList())
+        .stream()
+        .map(mapper)
+        .collect(Collectors.toList());
 
-    return Pagination.getPage(facilities, pageable, ids.size());
-  }
+    long offset = pageable.getOffset();
+    boolean lastPage = content.size() < pageable.getPageSize()
+        && (!content.isEmpty() || offset == 0);
 
-  private Page<Facility> searchWithoutExtraData(SearchParams searchParams,
-                                                Set<UUID> geographicZoneIds, Pageable pageable) {
+    if (lastPage) {
+      return Pagination.getPage(content, pageable, offset + content.size());
+    }
 
-    Map<String, Object> params = Maps.newHashMap();
+    params = Maps.newHashMap();
     Query countQuery = entityManager.createQuery(prepareQuery(
-        HQL_COUNT, searchParams, geographicZoneIds, null, params), Long.class);
+        HQL_COUNT, searchParams, geographicZoneIds, extraData, params), Long.class);
     params.forEach(countQuery::setParameter);
     Long count = (Long) countQuery.getSingleResult();
 
-    if (count < 1) {
-      return Pagination.getPage(Collections.emptyList(), pageable, 0);
-    }
-
-    params = Maps.newHashMap();
-    String hqlWithSort = Joiner.on(' ').join(Lists.newArrayList(
-        prepareQuery(HQL_SELECT, searchParams, geographicZoneIds, null, params),
-        ORDER_BY, PageableUtil.getOrderPredicate(pageable, "f.", DEFAULT_SORT)));
-
-    Query searchQuery = entityManager.createQuery(hqlWithSort, Facility.class);
-    params.forEach(searchQuery::setParameter);
-    List<Facility> facilities =  searchQuery
-        .setMaxResults(pageable.getPageSize())
-        .setFirstResult(Math.toIntExact(pageable.getOffset()))
-        .getResultList();
-
-    return Pagination.getPage(facilities, pageable, count);
+    return Pagination.getPage(content, pageable, count);
   }
 
   private String prepareQuery(String baseSql, SearchParams searchParams,
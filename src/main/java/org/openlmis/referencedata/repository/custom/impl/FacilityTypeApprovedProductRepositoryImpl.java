@@ -52,6 +52,7 @@ import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.custom.FacilityTypeApprovedProductRepositoryCustom;
 import org.openlmis.referencedata.repository.custom.FacilityTypeApprovedProductRepositoryCustom.SearchParams;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.slf4j.ext.XLogger;
@@ -130,7 +131,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
       String orderableName,
       Pageable pageable
   ) {
-    Profiler profiler = new Profiler("FTAP_REPOSITORY_SEARCH");
+    Profiler profiler = new MeteredProfiler("FTAP_REPOSITORY_SEARCH");
     profiler.setLogger(XLOGGER);
 
     profiler.start("SEARCH_FACILITY_TYPE_ID");
@@ -165,7 +166,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
   @Override
   public Page<FacilityTypeApprovedProduct> searchProducts(SearchParams searchParams,
       Pageable pageable) {
-    Profiler profiler = new Profiler("FTAP_REPOSITORY_SEARCH_BY_PARAMS");
+    Profiler profiler = new MeteredProfiler("FTAP_REPOSITORY_SEARCH_BY_PARAMS");
     profiler.setLogger(XLOGGER);
 
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -306,13 +307,13 @@ public class FacilityTypeApprovedProductRepositoryImpl
     }
 
     if (isNotBlank(orderableCode)) {
-      orderablesCondition += " AND o.code ILIKE :orderableCode";
-      params.put("orderableCode", '%' + orderableCode + '%');
+      orderablesCondition += " AND LOWER(o.code) LIKE :orderableCode";
+      params.put("orderableCode", '%' + orderableCode.toLowerCase() + '%');
     }
 
     if (isNotBlank(orderableName)) {
-      orderablesCondition += " AND o.fullproductname ILIKE :orderableName";
-      params.put("orderableName", '%' + orderableName + '%');
+      orderablesCondition += " AND LOWER(o.fullproductname) LIKE :orderableName";
+      params.put("orderableName", '%' + orderableName.toLowerCase() + '%');
     }
 
     builder.append(String.format(NATIVE_ORDERABLE_INNER_JOIN_TEMPLATE, orderablesCondition))
@@ -0,0 +1,96 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.repository.custom.impl;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Selection;
+import org.apache.commons.collections4.ListUtils;
+import org.openlmis.referencedata.domain.Identifiable;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Loads a page of entities together with their collection associations in two steps. Paging a
+ * query that fetch joins a collection makes Hibernate read every matching row and cut the page
+ * in memory (HHH000104), so the ids of the page are selected first, letting the database apply
+ * the order, offset and limit, and only then the entity graphs are fetched for those ids.
+ */
+final class IdPageLoader {
+
+  static final String IDS = "ids";
+
+  private IdPageLoader() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns the entities for the requested page of the given id query.
+   *
+   * @param entityManager entity manager used to fetch the entities.
+   * @param idQuery       query selecting ids of all matching entities in the wanted order. The
+   *                      order should end with the id so that pages do not overlap.
+   * @param pageable      the requested page, null for all matching entities.
+   * @param fetchQuery    JPQL query that fetches entities (and the associations they need) with
+   *                      ids from the {@value #IDS} parameter.
+   * @param type          the entity type.
+   * @return entities in the order of the id query.
+   */
+  static <T extends Identifiable> List<T> load(EntityManager entityManager,
+      TypedQuery<UUID> idQuery, Pageable pageable, String fetchQuery, Class<T> type) {
+    if (null != pageable) {
+      idQuery
+          .setFirstResult(Math.toIntExact(pageable.getOffset()))
+          .setMaxResults(pageable.getPageSize());
+    }
+
+    List<UUID> ids = idQuery.getResultList();
+    Map<UUID, T> entities = new HashMap<>();
+
+    for (List<UUID> part : ListUtils.partition(ids,
+        IdentitiesSearchableRepository.MAX_IDENTITIES_SIZE)) {
+      entityManager
+          .createQuery(fetchQuery, type)
+          .setParameter(IDS, part)
+          .getResultList()
+          .forEach(entity -> entities.put(entity.getId(), entity));
+    }
+
+    return ids
+        .stream()
+        .map(entities::get)
+        .filter(Objects::nonNull)
+        .collect(toList());
+  }
+
+  /**
+   * Sets the selection of a criteria query that was created with the result type of that
+   * selection, such as a count or an id query built by a method shared with other queries. The
+   * cast is unchecked, but the query still returns the type it was created for.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> CriteriaQuery<T> select(CriteriaQuery<T> query, Selection<?> selection) {
+    ((CriteriaQuery<Object>) query).select(selection);
+    return query;
+  }
+}
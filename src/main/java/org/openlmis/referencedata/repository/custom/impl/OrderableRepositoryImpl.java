@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -53,7 +54,9 @@ import org.openlmis.referencedata.domain.VersionIdentity;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.repository.custom.OrderableRepositoryCustom;
 import org.openlmis.referencedata.repository.custom.OrderableRepositoryCustom.SearchParams;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -126,7 +129,26 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
    */
   @Override
   public Page<Orderable> search(SearchParams searchParams, Pageable pageable) {
-    Profiler profiler = new Profiler("ORDERABLE_REPOSITORY_SEARCH_BY_PARAMS");
+    return search(searchParams, pageable, "ORDERABLE_REPOSITORY_SEARCH_BY_PARAMS",
+        this::retrieveOrderables);
+  }
+
+  /**
+   * Retrieves only the requested fields of the orderables matching the parameters. The orderable
+   * entities are not loaded.
+   *
+   * @return Page of maps with the requested fields.
+   */
+  @Override
+  public Page<Map<String, Object>> search(SearchParams searchParams, SparseFieldset fields,
+      Pageable pageable) {
+    return search(searchParams, pageable, "ORDERABLE_REPOSITORY_SEARCH_FIELDS",
+        identities -> retrieveFields(identities, fields));
+  }
+
+  private <T> Page<T> search(SearchParams searchParams, Pageable pageable, String profilerName,
+      Function<Collection<VersionIdentity>, List<T>> retrieve) {
+    Profiler profiler = new MeteredProfiler(profilerName);
     profiler.setLogger(XLOGGER);
 
     profiler.start("CALCULATE_FULL_LIST_SIZE");
@@ -154,9 +176,9 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
     List<VersionIdentity> identities = getIdentities(searchParams, identityList, builder, pageable);
 
     profiler.start("RETRIEVE_ORDERABLES");
-    List<Orderable> orderables = new ArrayList<>();
+    List<T> orderables = new ArrayList<>();
     for (List<VersionIdentity> partition : ListUtils.partition(identities, MAX_IDENTITIES_SIZE)) {
-      orderables.addAll(retrieveOrderables(partition));
+      orderables.addAll(retrieve.apply(partition));
     }
 
     profiler.stop().log();
@@ -171,7 +193,7 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
    */
   @Override
   public ZonedDateTime findLatestModifiedDateByParams(SearchParams searchParams) {
-    Profiler profiler = new Profiler("GET_ZONED_DATE_TIME_FROM_PARAMS");
+    Profiler profiler = new MeteredProfiler("GET_ZONED_DATE_TIME_FROM_PARAMS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("CALCULATE_FULL_LIST_SIZE_LAST_UPDATED");
@@ -250,6 +272,10 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
         where = builder.and(where, builder.in(root.get(IDENTITY)).value(identities));
       }
 
+      if (!isEmpty(searchParams.getIds())) {
+        where = builder.and(where, root.get(IDENTITY).get(ID).in(searchParams.getIds()));
+      }
+
       if (isNotBlank(searchParams.getCode())) {
         where = builder.and(where, builder.like(builder.lower(root.get(PRODUCT_CODE).get(CODE)),
             "%" + searchParams.getCode().toLowerCase() + "%"));
@@ -332,6 +358,19 @@ public class OrderableRepositoryImpl extends IdentitiesSearchableRepository<Sear
     return retrieveOrderables(criteriaQuery);
   }
 
+  private List<Map<String, Object>> retrieveFields(Collection<VersionIdentity> identities,
+      SparseFieldset fields) {
+    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> criteriaQuery = criteriaBuilder.createQuery(Object[].class);
+    Root<Orderable> root = criteriaQuery.from(Orderable.class);
+    criteriaQuery
+        .multiselect(fields.getSelections(root))
+        .where(root.get(IDENTITY).in(identities))
+        .orderBy(criteriaBuilder.asc(root.get(FULL_PRODUCT_NAME)));
+
+    return fields.toMaps(entityManager.createQuery(criteriaQuery).getResultList());
+  }
+
   // appropriate class has been passed in the EntityManager.createQuery method
   @SuppressWarnings("unchecked")
   private List<Orderable> retrieveOrderables(CriteriaQuery<Orderable> criteriaQuery) {
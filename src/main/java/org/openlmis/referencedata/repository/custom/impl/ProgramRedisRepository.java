@@ -26,7 +26,7 @@ public class ProgramRedisRepository extends BaseRedisRepository<Program> {
   private static final String HASH_KEY = "PROGRAM";
 
   @Autowired
-  ProgramRedisRepository(RedisTemplate redisTemplate) {
+  ProgramRedisRepository(RedisTemplate<String, Object> redisTemplate) {
     super(redisTemplate, Program.class);
   }
 
@@ -15,7 +15,12 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -24,6 +29,7 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.repository.custom.ProgramRepositoryCustom;
+import org.openlmis.referencedata.util.SparseFieldset;
 
 public class ProgramRepositoryImpl implements ProgramRepositoryCustom {
 
@@ -53,4 +59,34 @@ public class ProgramRepositoryImpl implements ProgramRepositoryCustom {
     query.where(predicate);
     return entityManager.createQuery(query).getResultList();
   }
+
+  /**
+   * Retrieves only the requested fields of the programs with the given ids and name similar to
+   * the name parameter. The program entities are not loaded.
+   *
+   * @param ids    ids of wanted programs, may be empty.
+   * @param name   part of wanted program name, may be null.
+   * @param fields fields that should be returned.
+   * @return List of maps with the requested fields.
+   */
+  public List<Map<String, Object>> search(Set<UUID> ids, String name, SparseFieldset fields) {
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+    Root<Program> root = query.from(Program.class);
+    Predicate predicate = builder.conjunction();
+
+    if (!isEmpty(ids)) {
+      predicate = builder.and(predicate, root.get("id").in(ids));
+    }
+
+    if (name != null) {
+      predicate = builder.and(
+          predicate,
+          builder.like(
+              builder.upper(root.get("name")), "%" + name.toUpperCase() + "%"));
+    }
+
+    query.multiselect(fields.getSelections(root)).where(predicate);
+    return fields.toMaps(entityManager.createQuery(query).getResultList());
+  }
 }
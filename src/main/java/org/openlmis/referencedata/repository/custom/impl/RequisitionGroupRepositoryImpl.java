@@ -17,6 +17,7 @@ package org.openlmis.referencedata.repository.custom.impl;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -42,6 +43,12 @@ public class RequisitionGroupRepositoryImpl implements RequisitionGroupRepositor
   private static final String PROGRAM = "program";
   private static final String PROGRAM_SCHEDULES = "requisitionGroupProgramSchedules";
   private static final String SUPERVISORY_NODE = "supervisoryNode";
+  private static final String ID = "id";
+
+  private static final String SELECT_RG = "SELECT rg FROM RequisitionGroup AS rg"
+      + " LEFT JOIN FETCH rg.supervisoryNode"
+      + " LEFT JOIN FETCH rg.memberFacilities"
+      + " WHERE rg.id IN (:" + IdPageLoader.IDS + ")";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -73,7 +80,7 @@ public class RequisitionGroupRepositoryImpl implements RequisitionGroupRepositor
 
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
-    CriteriaQuery<RequisitionGroup> query = builder.createQuery(RequisitionGroup.class);
+    CriteriaQuery<UUID> query = builder.createQuery(UUID.class);
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
 
     query = prepareQuery(query, code, name, program, supervisoryNodes, false);
@@ -81,10 +88,12 @@ public class RequisitionGroupRepositoryImpl implements RequisitionGroupRepositor
 
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
-    List<RequisitionGroup> result = entityManager.createQuery(query)
-        .setMaxResults(pageable.getPageSize())
-        .setFirstResult(pageable.getPageNumber() * pageable.getPageSize())
-        .getResultList();
+    if (count < 1) {
+      return Pagination.getPage(Collections.emptyList(), pageable, 0);
+    }
+
+    List<RequisitionGroup> result = IdPageLoader.load(entityManager,
+        entityManager.createQuery(query), pageable, SELECT_RG, RequisitionGroup.class);
 
     return Pagination.getPage(result, pageable, count);
   }
@@ -99,8 +108,9 @@ public class RequisitionGroupRepositoryImpl implements RequisitionGroupRepositor
     Root<RequisitionGroup> root = query.from(RequisitionGroup.class);
 
     if (count) {
-      CriteriaQuery<Long> countQuery = (CriteriaQuery<Long>) query;
-      query = (CriteriaQuery<T>) countQuery.select(builder.count(root));
+      query = IdPageLoader.select(query, builder.count(root));
+    } else {
+      query = IdPageLoader.select(query, root.get(ID));
     }
 
     Predicate predicate = builder.conjunction();
@@ -129,7 +139,7 @@ public class RequisitionGroupRepositoryImpl implements RequisitionGroupRepositor
     query.where(predicate);
 
     if (!count) {
-      query.orderBy(builder.asc(root.get(NAME)));
+      query.orderBy(builder.asc(root.get(NAME)), builder.asc(root.get(ID)));
     }
 
     return query;
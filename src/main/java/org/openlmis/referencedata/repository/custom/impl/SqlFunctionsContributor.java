@@ -0,0 +1,41 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.repository.custom.impl;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.BooleanType;
+
+/**
+ * Registers SQL functions that can be used in HQL and criteria queries. It is enabled by the
+ * {@code hibernate.metadata_builder_contributor} property.
+ */
+public class SqlFunctionsContributor implements MetadataBuilderContributor {
+
+  /**
+   * Checks if the jsonb column given as the first argument contains the JSON document given as
+   * the second argument. It is rendered as the {@code @>} operator so the jsonb_path_ops GIN
+   * indexes on extradata columns can be used. Compare the result with {@code true} in HQL.
+   */
+  public static final String JSONB_CONTAINS = "jsonb_contains_json";
+
+  @Override
+  public void contribute(MetadataBuilder metadataBuilder) {
+    metadataBuilder.applySqlFunction(JSONB_CONTAINS,
+        new SQLFunctionTemplate(BooleanType.INSTANCE, "(?1 @> CAST(?2 AS jsonb))"));
+  }
+}
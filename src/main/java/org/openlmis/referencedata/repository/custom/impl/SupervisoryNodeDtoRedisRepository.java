@@ -15,6 +15,7 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
+import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.dto.SupervisoryNodeDto;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -27,7 +28,7 @@ public class SupervisoryNodeDtoRedisRepository
   private static final String HASH_KEY = "SUPERVISORY_NODE_DTO";
 
   @Autowired
-  SupervisoryNodeDtoRedisRepository(RedisTemplate redisTemplate) {
+  SupervisoryNodeDtoRedisRepository(RedisTemplate<String, Object> redisTemplate) {
     super(redisTemplate, SupervisoryNodeDto.class);
   }
 
@@ -35,4 +36,9 @@ public class SupervisoryNodeDtoRedisRepository
   protected String getHashKey() {
     return HASH_KEY;
   }
+
+  @Override
+  protected Class<?> getEntityType() {
+    return SupervisoryNode.class;
+  }
 }
@@ -17,11 +17,16 @@ package org.openlmis.referencedata.repository.custom.impl;
 
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
@@ -38,6 +43,7 @@ import org.openlmis.referencedata.domain.RequisitionGroupProgramSchedule;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.repository.custom.SupervisoryNodeRepositoryCustom;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.web.SupervisoryNodeSearchParams;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -55,6 +61,12 @@ public class SupervisoryNodeRepositoryImpl implements SupervisoryNodeRepositoryC
   private static final String REQUISITION_GROUP_PROGRAM_SCHEDULE =
       "requisitionGroupProgramSchedules";
 
+  private static final String SELECT_SN = "SELECT sn FROM SupervisoryNode AS sn"
+      + " LEFT JOIN FETCH sn.facility"
+      + " LEFT JOIN FETCH sn.requisitionGroup AS rg"
+      + " LEFT JOIN FETCH rg.memberFacilities"
+      + " WHERE sn.id IN (:" + IdPageLoader.IDS + ")";
+
   @PersistenceContext
   private EntityManager entityManager;
 
@@ -67,32 +79,64 @@ public class SupervisoryNodeRepositoryImpl implements SupervisoryNodeRepositoryC
    */
   public Page<SupervisoryNode> search(@NotNull SupervisoryNodeSearchParams searchParams,
       Pageable pageable) {
+    return search(searchParams, null, pageable, UUID.class, query -> IdPageLoader
+        .load(entityManager, query, pageable, SELECT_SN, SupervisoryNode.class));
+  }
+
+  /**
+   * This method is supposed to retrieve only the requested fields of all supervisory nodes with
+   * matched parameters. The supervisory node entities are not loaded.
+   *
+   * @param searchParams Search parameters.
+   * @param fields Fields that should be returned.
+   * @return Page of maps with the requested fields.
+   */
+  public Page<Map<String, Object>> search(@NotNull SupervisoryNodeSearchParams searchParams,
+      SparseFieldset fields, Pageable pageable) {
+    return search(searchParams, fields, pageable, Object[].class, query -> {
+      Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
+
+      return query
+          .setMaxResults(maxAndFirst.getLeft())
+          .setFirstResult(maxAndFirst.getRight())
+          .getResultList()
+          .stream()
+          .map(fields::toMap)
+          .collect(Collectors.toList());
+    });
+  }
+
+  private <R, T> Page<T> search(SupervisoryNodeSearchParams searchParams, SparseFieldset fields,
+      Pageable pageable, Class<R> resultClass, Function<TypedQuery<R>, List<T>> loader) {
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
-    CriteriaQuery<SupervisoryNode> nodeQuery = builder.createQuery(SupervisoryNode.class);
-    nodeQuery = prepareQuery(nodeQuery, searchParams, false, builder);
+    CriteriaQuery<R> nodeQuery = builder.createQuery(resultClass);
+    nodeQuery = prepareQuery(nodeQuery, searchParams, fields, false, builder);
 
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareQuery(countQuery, searchParams, true, builder);
+    countQuery = prepareQuery(countQuery, searchParams, null, true, builder);
 
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
-    Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
+    if (count < 1) {
+      return Pagination.getPage(Collections.emptyList(), pageable, 0);
+    }
 
-    List<SupervisoryNode> supervisoryNodes = entityManager.createQuery(nodeQuery)
-        .setMaxResults(maxAndFirst.getLeft())
-        .setFirstResult(maxAndFirst.getRight())
-        .getResultList();
+    List<T> supervisoryNodes = loader.apply(entityManager.createQuery(nodeQuery));
     return Pagination.getPage(supervisoryNodes, pageable, count);
   }
 
   private <T> CriteriaQuery<T> prepareQuery(CriteriaQuery<T> query,
-      SupervisoryNodeSearchParams searchParams, boolean count, CriteriaBuilder builder) {
+      SupervisoryNodeSearchParams searchParams, SparseFieldset fields, boolean count,
+      CriteriaBuilder builder) {
     Root<SupervisoryNode> root = query.from(SupervisoryNode.class);
 
     if (count) {
-      CriteriaQuery<Long> countQuery = (CriteriaQuery<Long>) query;
-      query = (CriteriaQuery<T>) countQuery.select(builder.count(root));
+      query = IdPageLoader.select(query, builder.count(root));
+    } else if (null != fields) {
+      query.multiselect(fields.getSelections(root));
+    } else {
+      query = IdPageLoader.select(query, root.get(ID));
     }
 
     Predicate predicate = builder.conjunction();
@@ -144,6 +188,12 @@ public class SupervisoryNodeRepositoryImpl implements SupervisoryNodeRepositoryC
     }
 
     query.where(predicate);
+
+    if (!count) {
+      // the id makes the order total, so that pages selected by the database do not overlap
+      query.orderBy(builder.asc(root.get(NAME)), builder.asc(root.get(ID)));
+    }
+
     return query;
   }
 }
@@ -15,7 +15,6 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
-import static java.util.stream.Collectors.toList;
 import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.openlmis.referencedata.repository.custom.impl.SqlConstants.AS;
@@ -46,9 +45,10 @@ import java.util.UUID;
 import java.util.stream.StreamSupport;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 import org.openlmis.referencedata.domain.SupplyLine;
 import org.openlmis.referencedata.repository.custom.SupplyLineRepositoryCustom;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -80,8 +80,11 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
       getField(REQUISITION_GROUP_ALIAS, MEMBER_FACILITIES));
 
   private static final String FROM_SL = join(FROM, "SupplyLine", AS, SUPPLY_LINE_ALIAS);
+  private static final String SELECT_SL_IDS =
+      join(SELECT, getField(SUPPLY_LINE_ALIAS, ID), FROM_SL);
   private static final String SELECT_SL = join(SELECT, SUPPLY_LINE_ALIAS, FROM_SL,
-      SUPERVISORY_NODE_JOIN, REQUISITION_GROUP_JOIN, REQUISITION_GROUP_MEMBERS_JOIN);
+      SUPERVISORY_NODE_JOIN, REQUISITION_GROUP_JOIN, REQUISITION_GROUP_MEMBERS_JOIN,
+      WHERE, getField(SUPPLY_LINE_ALIAS, ID), in(IdPageLoader.IDS));
   private static final String COUNT_SL = join(SELECT_DISTINCT_COUNT, FROM_SL);
 
   private static final String WITH_PROGRAM_ID =
@@ -110,30 +113,33 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
   public Page<SupplyLine> search(UUID programId, UUID supervisoryNodeId,
       Set<UUID> supplyingFacilityIds, Pageable pageable) {
 
-    Profiler profiler = new Profiler("SEARCH_SUPPLY_LINES_WITH_EXPAND_REPOSITORY");
+    Profiler profiler = new MeteredProfiler("SEARCH_SUPPLY_LINES_WITH_EXPAND_REPOSITORY");
     profiler.setLogger(LOGGER);
 
+    profiler.start("COUNT");
     Map<String, Object> params = Maps.newHashMap();
     String whereStatement =
         prepareWhereStatement(programId, supervisoryNodeId, supplyingFacilityIds, params);
 
-    Query countQuery = entityManager.createQuery(join(COUNT_SL, whereStatement), Long.class);
+    TypedQuery<Long> countQuery =
+        entityManager.createQuery(join(COUNT_SL, whereStatement), Long.class);
     params.forEach(countQuery::setParameter);
-    Long count = (Long) countQuery.getSingleResult();
+    Long count = countQuery.getSingleResult();
 
     if (count < 1) {
+      profiler.stop().log();
       return Pagination.getPage(Collections.emptyList(), pageable, 0);
     }
 
-    Query searchQuery = entityManager.createQuery(
-        join(SELECT_SL, whereStatement, getOrderPredicate(pageable)), SupplyLine.class);
-    params.forEach(searchQuery::setParameter);
+    profiler.start("SEARCH_IDS_AND_FETCH");
+    TypedQuery<UUID> idQuery = entityManager.createQuery(
+        join(SELECT_SL_IDS, whereStatement, getOrderPredicate(pageable)), UUID.class);
+    params.forEach(idQuery::setParameter);
 
-    List<SupplyLine> result = searchQuery
-        .setMaxResults(pageable != null ? pageable.getPageSize() : Integer.MAX_VALUE)
-        .setFirstResult(pageable != null ? Math.toIntExact(pageable.getOffset()) : 0)
-        .getResultList();
+    List<SupplyLine> result = IdPageLoader
+        .load(entityManager, idQuery, pageable, SELECT_SL, SupplyLine.class);
 
+    profiler.stop().log();
     return Pagination.getPage(result, pageable, count);
   }
 
@@ -165,19 +171,21 @@ public class SupplyLineRepositoryImpl implements SupplyLineRepositoryCustom {
   }
 
   private String getOrderPredicate(Pageable pageable) {
-    if (null != pageable && pageable.getSort().isSorted()) {
+    List<String> orderPredicate = Lists.newArrayList();
 
-      List<String> orderPredicate = StreamSupport.stream(
+    if (null != pageable && pageable.getSort().isSorted()) {
+      StreamSupport.stream(
           Spliterators.spliteratorUnknownSize(pageable.getSort().iterator(), Spliterator.ORDERED),
           false)
           .map(order -> join(
               getField(SUPPLY_LINE_ALIAS, order.getProperty()),
               order.getDirection().toString()))
-          .collect(toList());
-
-      return join(ORDER_BY, Joiner.on(", ").join(orderPredicate));
+          .forEach(orderPredicate::add);
     }
 
-    return "";
+    // the id makes the order total, so that pages selected by the database do not overlap
+    orderPredicate.add(getField(SUPPLY_LINE_ALIAS, ID));
+
+    return join(ORDER_BY, Joiner.on(", ").join(orderPredicate));
   }
 }
@@ -16,18 +16,23 @@
 package org.openlmis.referencedata.repository.custom.impl;
 
 import com.google.common.base.Preconditions;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.SupplyPartner;
 import org.openlmis.referencedata.domain.SupplyPartnerAssociation;
@@ -40,8 +45,13 @@ public class SupplyPartnerRepositoryImpl implements SupplyPartnerRepositoryCusto
 
   private static final String ID = "id";
 
+  private static final String IDENTITY = "identity";
+
   private static final String ASSOCIATIONS = "associations";
+  private static final String PROGRAM = "program";
   private static final String SUPERVISORY_NODE = "supervisoryNode";
+  private static final String FACILITIES = "facilities";
+  private static final String ORDERABLES = "orderables";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -77,6 +87,52 @@ public class SupplyPartnerRepositoryImpl implements SupplyPartnerRepositoryCusto
     return Pagination.getPage(resultList, pageable, count);
   }
 
+  /**
+   * This method is supposed to retrieve facility and orderable ID pairs (in this order) that are
+   * already used by associations with the given program and supervisory node. Only pairs built
+   * from the given facility and orderable IDs are returned and associations of the excluded
+   * supply partner (if set) are skipped.
+   */
+  public Set<Pair<UUID, UUID>> findAssociatedFacilityOrderablePairs(UUID programId,
+      UUID supervisoryNodeId, Collection<UUID> facilityIds, Collection<UUID> orderableIds,
+      UUID excludedSupplyPartnerId) {
+    Preconditions.checkNotNull(facilityIds);
+    Preconditions.checkNotNull(orderableIds);
+
+    if (facilityIds.isEmpty() || orderableIds.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+
+    Root<SupplyPartner> root = query.from(SupplyPartner.class);
+    Join<SupplyPartner, SupplyPartnerAssociation> associationsJoin = root.join(ASSOCIATIONS);
+    Join<SupplyPartnerAssociation, Facility> facilitiesJoin = associationsJoin.join(FACILITIES);
+    Join<SupplyPartnerAssociation, Orderable> orderablesJoin = associationsJoin.join(ORDERABLES);
+
+    Path<UUID> facilityId = facilitiesJoin.get(ID);
+    Path<UUID> orderableId = orderablesJoin.get(IDENTITY).get(ID);
+
+    Predicate where = builder.and(
+        builder.equal(associationsJoin.get(PROGRAM).get(ID), programId),
+        builder.equal(associationsJoin.get(SUPERVISORY_NODE).get(ID), supervisoryNodeId),
+        facilityId.in(facilityIds),
+        orderableId.in(orderableIds));
+
+    if (null != excludedSupplyPartnerId) {
+      where = builder.and(where, builder.notEqual(root.get(ID), excludedSupplyPartnerId));
+    }
+
+    query.multiselect(facilityId, orderableId).distinct(true).where(where);
+
+    return entityManager.createQuery(query)
+        .getResultList()
+        .stream()
+        .map(row -> Pair.of((UUID) row[0], (UUID) row[1]))
+        .collect(Collectors.toSet());
+  }
+
   private <E> CriteriaQuery<E> prepareQuery(CriteriaBuilder builder, CriteriaQuery<E> query,
       boolean count, SearchParams params) {
 
@@ -15,28 +15,32 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
-import com.google.common.collect.Sets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.repository.UserSearchParams;
 import org.openlmis.referencedata.repository.custom.UserRepositoryCustom;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -49,6 +53,13 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
   protected static final String HOME_FACILITY_ID = "homeFacilityId";
   protected static final String ACTIVE = "active";
   protected static final String ID = "id";
+  protected static final String EXTRA_DATA = "extraData";
+
+  private static final String SELECT_SUPERVISING_USER_IDS = "SELECT su.userid"
+      + " FROM referencedata.supervising_users su"
+      + " WHERE su.supervisorynodeid = :supervisoryNodeId"
+      + "   AND su.programid = :programId"
+      + "   AND su.rightid = :rightId";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -59,39 +70,82 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
    * For firstName, lastName, email: matches values that equal or contain
    * the searched value. Case insensitive.
    * Other fields: entered string value must equal to searched value.
+   * Extra data: users' extra data must contain the given JSON document.
    *
    * @param searchParams    user search params
-   * @param foundUsers      list of already found users
+   * @param extraData       JSON extra data, may be null
    * @param pageable        pagination parameters
    * @return Page of users
    */
-  public Page<User> searchUsers(UserSearchParams searchParams, List<User> foundUsers,
+  public Page<User> searchUsers(UserSearchParams searchParams, String extraData,
       Pageable pageable) {
+    return searchUsers(searchParams, extraData, null, pageable, User.class, Function.identity());
+  }
+
+  /**
+   * Method returns only the requested fields of all matching users. The user entities are not
+   * loaded.
+   *
+   * @see #searchUsers(UserSearchParams, String, Pageable)
+   */
+  public Page<Map<String, Object>> searchUsers(UserSearchParams searchParams, String extraData,
+      SparseFieldset fields, Pageable pageable) {
+    return searchUsers(searchParams, extraData, fields, pageable, Object[].class, fields::toMap);
+  }
+
+  /**
+   * Method returns IDs of users that have the given right for the given supervisory node and
+   * program. Only the supervising users index is read; the user entities are not loaded.
+   *
+   * @param rightId           UUID of the right
+   * @param supervisoryNodeId UUID of the supervisory node
+   * @param programId         UUID of the program
+   * @return list of user IDs
+   */
+  public List<UUID> findSupervisingUserIds(UUID rightId, UUID supervisoryNodeId,
+      UUID programId) {
+    Query query = entityManager.createNativeQuery(SELECT_SUPERVISING_USER_IDS)
+        .setParameter("supervisoryNodeId", supervisoryNodeId)
+        .setParameter("programId", programId)
+        .setParameter("rightId", rightId);
+
+    query.unwrap(NativeQuery.class).addScalar("userid", PostgresUUIDType.INSTANCE);
+
+    @SuppressWarnings("unchecked")
+    List<UUID> userIds = query.getResultList();
+    return userIds;
+  }
+
+  private <R, T> Page<T> searchUsers(UserSearchParams searchParams, String extraData,
+      SparseFieldset fields, Pageable pageable, Class<R> resultClass, Function<R, T> mapper) {
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareQuery(searchParams, foundUsers, countQuery, true, pageable);
+    countQuery = prepareQuery(searchParams, extraData, null, countQuery, true, pageable);
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
     if (count == 0) {
       return Pagination.getPage(Collections.emptyList(), pageable, 0);
     }
 
-    CriteriaQuery<User> query = builder.createQuery(User.class);
-    query = prepareQuery(searchParams, foundUsers, query, false, pageable);
+    CriteriaQuery<R> query = builder.createQuery(resultClass);
+    query = prepareQuery(searchParams, extraData, fields, query, false, pageable);
     Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
 
-    List<User> result = entityManager
+    List<T> result = entityManager
         .createQuery(query)
         .setMaxResults(maxAndFirst.getLeft())
         .setFirstResult(maxAndFirst.getRight())
-        .getResultList();
+        .getResultList()
+        .stream()
+        .map(mapper)
+        .collect(Collectors.toList());
 
-    return Pagination.getPage(result, pageable, count);   
+    return Pagination.getPage(result, pageable, count);
   }
 
-  private <T> CriteriaQuery<T> prepareQuery(UserSearchParams searchParams, List<User> foundUsers,
-      CriteriaQuery<T> query, boolean count, Pageable pageable) {
+  private <T> CriteriaQuery<T> prepareQuery(UserSearchParams searchParams, String extraData,
+      SparseFieldset fields, CriteriaQuery<T> query, boolean count, Pageable pageable) {
 
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
     Root<User> root = query.from(User.class);
@@ -100,6 +154,8 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
     if (count) {
       CriteriaQuery<Long> countQuery = (CriteriaQuery<Long>) query;
       query = (CriteriaQuery<T>) countQuery.select(builder.count(root));
+    } else if (null != fields) {
+      query.multiselect(fields.getSelections(root));
     }
 
     predicate = addLikeFilter(predicate, builder, root, USERNAME, searchParams.getUsername());
@@ -109,14 +165,8 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
         searchParams.getHomeFacilityUuid());
     predicate = addEqualsFilter(predicate, builder, root, ACTIVE, searchParams.getActive());
 
-    Set<UUID> ids = Sets.newHashSet();
-    ids.addAll(searchParams.getIds());
-
-    if (!CollectionUtils.isEmpty(foundUsers)) {
-      ids.addAll(foundUsers.stream().map(User::getId).collect(Collectors.toSet()));
-    }
-
-    predicate = addInFilter(predicate, builder, root, ID, ids);
+    predicate = addInFilter(predicate, builder, root, ID, searchParams.getIds());
+    predicate = addExtraDataFilter(predicate, builder, root, extraData);
 
     query.where(predicate);
 
@@ -169,6 +219,17 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
     }
   }
 
+  private Predicate addExtraDataFilter(Predicate predicate, CriteriaBuilder builder,
+      Root<User> root, String extraData) {
+    if (StringUtils.isBlank(extraData)) {
+      return predicate;
+    }
+
+    return builder.and(predicate, builder.isTrue(builder.function(
+        SqlFunctionsContributor.JSONB_CONTAINS, Boolean.class,
+        root.get(EXTRA_DATA).get(EXTRA_DATA), builder.literal(extraData))));
+  }
+
   private Predicate addInFilter(Predicate predicate, CriteriaBuilder builder, Root<User> root,
       String filterKey, Collection values) {
     if (null == values || values.isEmpty()) {
@@ -94,7 +94,8 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
             "/referencedata/docs/**",
             "/localeSettings",
             "/togglz-console/**",
-            "/actuator/togglz"
+            "/actuator/togglz",
+            "/actuator/prometheus"
         ).permitAll()
         .antMatchers("/**").fullyAuthenticated();
   }
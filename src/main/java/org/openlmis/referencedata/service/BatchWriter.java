@@ -0,0 +1,134 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.List;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.javers.core.Javers;
+import org.javers.spring.auditable.AuthorProvider;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared steps of batch upserts: limiting the size of a batch, locking keys of resources that
+ * do not exist yet and writing many new entities with JDBC batching.
+ */
+@Component
+public class BatchWriter {
+
+  static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(:namespace, hashtext(k.key))"
+      + " FROM (SELECT DISTINCT unnest(ARRAY[:keys]) AS key ORDER BY 1) AS k";
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  @Autowired
+  private Javers javers;
+
+  @Autowired
+  private AuthorProvider authorProvider;
+
+  @Value("${batchUpsert.maxSize}")
+  private int maxSize;
+
+  @Value("${batchUpsert.jdbcBatchSize}")
+  private int jdbcBatchSize;
+
+  /**
+   * Throws {@link ValidationMessageException} if the batch has more items than allowed.
+   */
+  public void checkSize(Collection<?> items) {
+    if (items.size() > maxSize) {
+      throw new ValidationMessageException(new Message(BatchMessageKeys.ERROR_TOO_LARGE, maxSize));
+    }
+  }
+
+  /**
+   * Takes transaction level advisory locks on the given keys. Row locks can't protect resources
+   * which are about to be created, so concurrent batches creating the same resources wait for
+   * each other instead of failing on unique constraints. Keys are locked in a fixed order to
+   * avoid deadlocks between batches.
+   *
+   * @param namespace separates keys of different resource types
+   * @param keys      natural keys of the resources, for example lower case codes
+   */
+  public void lock(int namespace, Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+
+    MapSqlParameterSource params = new MapSqlParameterSource()
+        .addValue("namespace", namespace)
+        .addValue("keys", keys);
+
+    template.execute(LOCK_SQL, params, (PreparedStatementCallback<Boolean>) ps -> ps.execute());
+  }
+
+  /**
+   * Persists the given new entities, sending the inserts to the database in JDBC batches, and
+   * commits their snapshots to JaVers as the auditable repositories do on save. Entities are
+   * persisted rather than merged, so no select is issued to check whether they already exist.
+   */
+  public void persist(List<?> entities) {
+    Session session = entityManager.unwrap(Session.class);
+    Integer sessionBatchSize = session.getJdbcBatchSize();
+    session.setJdbcBatchSize(jdbcBatchSize);
+
+    try {
+      for (int i = 0; i < entities.size(); ++i) {
+        entityManager.persist(entities.get(i));
+
+        if ((i + 1) % jdbcBatchSize == 0) {
+          entityManager.flush();
+        }
+      }
+
+      entityManager.flush();
+    } finally {
+      session.setJdbcBatchSize(sessionBatchSize);
+    }
+
+    String author = authorProvider.provide();
+    entities.forEach(entity -> javers.commit(author, entity));
+  }
+
+  /**
+   * Runs the given insert statement once for every row, sending the rows to the database in JDBC
+   * batches. Meant for rows that are not worth building as entities, like assignments of many new
+   * resources; the caller is responsible for everything entity listeners would do.
+   */
+  public void insert(String sql, List<? extends SqlParameterSource> rows) {
+    for (List<? extends SqlParameterSource> batch : Lists.partition(rows, jdbcBatchSize)) {
+      template.batchUpdate(sql, batch.toArray(new SqlParameterSource[0]));
+    }
+  }
+
+}
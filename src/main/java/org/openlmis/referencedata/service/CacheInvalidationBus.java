@@ -0,0 +1,243 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.openlmis.referencedata.domain.VersionIdentity;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps local caches of all instances of the service coherent. Entity changes are collected per
+ * transaction and, once the transaction commits, announced with a single
+ * {@link EntitiesChangedEvent} on this instance and a single {@link CacheInvalidationMessage}
+ * published on a Redis channel. Other instances receive the message and announce it as a remote
+ * {@link EntitiesChangedEvent}, so their caches can evict the changed entries.
+ *
+ * <p>Messages of each instance are numbered and sent one at a time. If a receiver notices a gap
+ * in the numbers, a message was lost and the event asks for evicting all entries instead.
+ * Messages are handled one by one in the order they were received (see
+ * {@code CacheInvalidationConfig}).
+ */
+@Service
+public class CacheInvalidationBus implements MessageListener {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(CacheInvalidationBus.class);
+
+  @Autowired
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Value("${cacheInvalidation.enabled}")
+  private boolean enabled;
+
+  @Value("${cacheInvalidation.channel}")
+  private String channel;
+
+  private final String node = UUID.randomUUID().toString();
+
+  private long sequence;
+
+  private final Map<String, Long> lastSequences = new ConcurrentHashMap<>();
+
+  /**
+   * Marks the given entity as changed. Inside a transaction the change is announced once the
+   * transaction commits, together with all other changes of the transaction. Without a
+   * transaction the change is announced right away.
+   *
+   * @param entityName name of the changed entity.
+   * @param id         identifier of the changed entity.
+   */
+  public void markChanged(String entityName, Serializable id) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      PendingChanges changes = new PendingChanges();
+      changes.add(entityName, id);
+      publish(changes.changes);
+      return;
+    }
+
+    for (TransactionSynchronization sync : TransactionSynchronizationManager
+        .getSynchronizations()) {
+      if (sync instanceof PendingChanges) {
+        ((PendingChanges) sync).add(entityName, id);
+        return;
+      }
+    }
+
+    PendingChanges pendingChanges = new PendingChanges();
+    pendingChanges.add(entityName, id);
+    TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+  }
+
+  /**
+   * Handles a message published by any instance of the service. Messages sent by this instance
+   * are skipped because local caches were already notified.
+   */
+  @Override
+  public void onMessage(Message message, byte[] pattern) {
+    CacheInvalidationMessage received;
+
+    try {
+      received = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+    } catch (IOException ex) {
+      XLOGGER.warn("Could not read cache invalidation message: {}", ex.getMessage());
+      return;
+    }
+
+    if (node.equals(received.getNode())) {
+      return;
+    }
+
+    Long previous = lastSequences.get(received.getNode());
+    boolean lost = null != previous && received.getSequence() > previous + 1;
+
+    if (null == previous || received.getSequence() > previous) {
+      lastSequences.put(received.getNode(), received.getSequence());
+    }
+
+    if (lost) {
+      XLOGGER.warn("Lost cache invalidation messages {}-{} of {}, evicting all entries",
+          previous + 1, received.getSequence() - 1, received.getNode());
+    }
+
+    eventPublisher.publishEvent(new EntitiesChangedEvent(this, received.getChanges(), true, lost));
+  }
+
+  private void publish(Map<String, Set<UUID>> changes) {
+    eventPublisher.publishEvent(new EntitiesChangedEvent(this, changes, false, false));
+
+    if (!enabled) {
+      return;
+    }
+
+    send(changes);
+  }
+
+  /**
+   * Numbers and sends the message under one lock, so messages of concurrent transactions are
+   * published in the order of their numbers and receivers don't take reordering for a gap.
+   */
+  private synchronized void send(Map<String, Set<UUID>> changes) {
+    CacheInvalidationMessage message = new CacheInvalidationMessage(node, ++sequence, changes);
+
+    try {
+      redisTemplate.convertAndSend(channel, message);
+    } catch (RuntimeException ex) {
+      // receivers notice the gap in the sequence with the next message and evict everything
+      XLOGGER.warn("Could not publish cache invalidation message {}: {}",
+          message.getSequence(), ex.getMessage());
+    }
+  }
+
+  private final class PendingChanges extends TransactionSynchronizationAdapter {
+    private final Map<String, Set<UUID>> changes = new TreeMap<>();
+
+    void add(String entityName, Serializable id) {
+      Set<UUID> ids = changes.computeIfAbsent(entityName, key -> new HashSet<>());
+
+      if (id instanceof UUID) {
+        ids.add((UUID) id);
+      } else if (id instanceof VersionIdentity) {
+        ids.add(((VersionIdentity) id).getId());
+      }
+    }
+
+    @Override
+    public void afterCommit() {
+      publish(changes);
+    }
+  }
+
+  /**
+   * Announces entities changed by a committed transaction of this or another instance of the
+   * service.
+   */
+  public static final class EntitiesChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 4290185307396412270L;
+
+    private final transient Map<String, Set<UUID>> changes;
+    private final boolean remote;
+    private final boolean evictAll;
+
+    EntitiesChangedEvent(Object source, Map<String, Set<UUID>> changes, boolean remote,
+        boolean evictAll) {
+      super(source);
+      this.changes = null == changes ? Collections.emptyMap() : changes;
+      this.remote = remote;
+      this.evictAll = evictAll;
+    }
+
+    /**
+     * Returns true if the changes were made by another instance of the service.
+     */
+    public boolean isRemote() {
+      return remote;
+    }
+
+    /**
+     * Returns true if earlier changes could have been lost, so all cached entries should be
+     * evicted.
+     */
+    public boolean isEvictAll() {
+      return evictAll;
+    }
+
+    public Set<String> getEntityNames() {
+      return changes.keySet();
+    }
+
+    /**
+     * Returns true if entities of the given class were changed or all entries should be evicted.
+     */
+    public boolean affects(Class<?> type) {
+      return evictAll || changes.containsKey(type.getName());
+    }
+
+    /**
+     * Returns UUID identifiers of changed entities of the given class.
+     */
+    public Set<UUID> getIds(Class<?> type) {
+      return changes.getOrDefault(type.getName(), Collections.emptySet());
+    }
+  }
+
+}
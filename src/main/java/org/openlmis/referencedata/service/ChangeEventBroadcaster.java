@@ -0,0 +1,378 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.ChangeEventDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler.RightAssignmentsRegeneratedEvent;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.ChangeEventMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * Pushes change events to subscribers of the server-sent event stream. Events are created from
+ * committed entity changes of all instances of the service (see {@link CacheInvalidationBus}) and
+ * from finished right assignment regenerations of this instance.
+ *
+ * <p>Events are numbered per instance and the last ones are kept in a replay buffer, so a client
+ * that reconnects with the Last-Event-ID header gets the events it missed. If they are no longer
+ * available (or were sent by another instance), the client gets a resync event and should
+ * reload the resources it caches.
+ *
+ * <p>Publishing never blocks: each subscriber has a bounded queue drained by
+ * {@link ChangeEventExecutor}. A subscriber whose queue overflows is disconnected and catches up
+ * from the replay buffer when it reconnects.
+ */
+@Service
+public class ChangeEventBroadcaster {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ChangeEventBroadcaster.class);
+
+  public static final String ORDERABLE_VERSIONED = "orderableVersioned";
+  public static final String APPROVED_PRODUCT_CHANGED = "approvedProductChanged";
+  public static final String FACILITY_UPDATED = "facilityUpdated";
+  public static final String RIGHT_ASSIGNMENTS_REGENERATED = "rightAssignmentsRegenerated";
+
+  /**
+   * Sent regardless of the subscriber's filters when events may have been missed.
+   */
+  public static final String RESYNC = "resync";
+
+  public static final Set<String> EVENT_TYPES = ImmutableSet.of(ORDERABLE_VERSIONED,
+      APPROVED_PRODUCT_CHANGED, FACILITY_UPDATED, RIGHT_ASSIGNMENTS_REGENERATED);
+
+  static final String METRIC_PREFIX = "changeEvents.";
+  static final String HEARTBEAT = "heartbeat";
+
+  private static final String ID_SEPARATOR = "-";
+
+  @Autowired
+  private ThreadPoolTaskScheduler changeEventTaskScheduler;
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Value("${changeEvents.replayBufferSize}")
+  private int replayBufferSize;
+
+  @Value("${changeEvents.subscriberQueueSize}")
+  private int subscriberQueueSize;
+
+  @Value("${changeEvents.heartbeatInterval}")
+  private long heartbeatInterval;
+
+  @Value("${changeEvents.timeout}")
+  private long timeout;
+
+  private final String node = UUID.randomUUID().toString().substring(0, 8);
+
+  private final Deque<BufferedEvent> replayBuffer = new ArrayDeque<>();
+  private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+  private long sequence;
+
+  /**
+   * Registers the number of subscribers as a gauge and schedules heartbeats.
+   */
+  @PostConstruct
+  public void init() {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+
+    if (null != registry) {
+      Gauge
+          .builder(METRIC_PREFIX + "subscribers", subscriptions, Set::size)
+          .description("Number of subscribers of the change event stream")
+          .register(registry);
+    }
+
+    if (heartbeatInterval > 0) {
+      changeEventTaskScheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatInterval);
+    }
+  }
+
+  /**
+   * Subscribes to change events.
+   *
+   * @param types       event types to receive; all types when empty.
+   * @param ids         resource ids to receive events of; all resources when empty.
+   * @param lastEventId id of the last event received before reconnecting, or null.
+   * @return the emitter the events are sent to.
+   */
+  public SseEmitter subscribe(Set<String> types, Set<UUID> ids, String lastEventId) {
+    Set<String> eventTypes = null == types ? Collections.emptySet() : types;
+
+    for (String type : eventTypes) {
+      if (!EVENT_TYPES.contains(type)) {
+        throw new ValidationMessageException(new Message(
+            ChangeEventMessageKeys.ERROR_TYPE_INVALID, type, String.join(", ", EVENT_TYPES)));
+      }
+    }
+
+    SseEmitter emitter = createEmitter();
+    Subscription subscription = new Subscription(emitter, eventTypes,
+        null == ids ? Collections.emptySet() : ids);
+
+    emitter.onCompletion(subscription::remove);
+    emitter.onTimeout(subscription::close);
+    emitter.onError(ex -> subscription.remove());
+
+    synchronized (replayBuffer) {
+      replay(subscription, lastEventId);
+      subscriptions.add(subscription);
+    }
+
+    return emitter;
+  }
+
+  /**
+   * Publishes events about entities changed by this or another instance of the service.
+   */
+  @EventListener
+  public void onEntitiesChanged(EntitiesChangedEvent event) {
+    if (event.isEvictAll()) {
+      synchronized (replayBuffer) {
+        replayBuffer.clear();
+        publish(RESYNC, Collections.emptySet());
+      }
+      return;
+    }
+
+    publish(event, Orderable.class, ORDERABLE_VERSIONED);
+    publish(event, FacilityTypeApprovedProduct.class, APPROVED_PRODUCT_CHANGED);
+    publish(event, Facility.class, FACILITY_UPDATED);
+  }
+
+  @EventListener
+  public void onRightAssignmentsRegenerated(RightAssignmentsRegeneratedEvent event) {
+    publish(RIGHT_ASSIGNMENTS_REGENERATED, Collections.emptySet());
+  }
+
+  SseEmitter createEmitter() {
+    return new SseEmitter(timeout);
+  }
+
+  private void publish(EntitiesChangedEvent event, Class<?> entityType, String type) {
+    if (event.getEntityNames().contains(entityType.getName())) {
+      publish(type, event.getIds(entityType));
+    }
+  }
+
+  private void publish(String type, Set<UUID> ids) {
+    synchronized (replayBuffer) {
+      BufferedEvent event = new BufferedEvent(++sequence, new ChangeEventDto(type, ids));
+      replayBuffer.addLast(event);
+
+      while (replayBuffer.size() > replayBufferSize) {
+        replayBuffer.removeFirst();
+      }
+
+      subscriptions.forEach(subscription -> subscription.deliver(event));
+    }
+  }
+
+  private void replay(Subscription subscription, String lastEventId) {
+    if (null == lastEventId) {
+      return;
+    }
+
+    long last = parseSequence(lastEventId);
+    BufferedEvent oldest = replayBuffer.peekFirst();
+    boolean missed = null == oldest ? last < sequence : last < oldest.sequence - 1;
+
+    if (missed) {
+      subscription.offer(SseEmitter.event()
+          .id(toEventId(sequence))
+          .name(RESYNC)
+          .data(new ChangeEventDto(RESYNC, Collections.emptySet()), MediaType.APPLICATION_JSON));
+      return;
+    }
+
+    replayBuffer
+        .stream()
+        .filter(event -> event.sequence > last)
+        .forEach(subscription::deliver);
+  }
+
+  private void sendHeartbeats() {
+    synchronized (replayBuffer) {
+      // carries the current id, so clients skipping filtered events don't fall behind the buffer
+      String eventId = toEventId(sequence);
+
+      // a builder accumulates its content on each build, so it can't be shared by subscribers
+      subscriptions.forEach(subscription -> subscription
+          .offer(SseEmitter.event().id(eventId).comment(HEARTBEAT)));
+    }
+  }
+
+  private String toEventId(long eventSequence) {
+    return node + ID_SEPARATOR + eventSequence;
+  }
+
+  /**
+   * Returns the sequence number of an event sent by this instance, or a negative number if the
+   * id is unknown, so all buffered events are considered missed.
+   */
+  private long parseSequence(String eventId) {
+    String prefix = node + ID_SEPARATOR;
+
+    if (eventId.startsWith(prefix)) {
+      try {
+        long parsed = Long.parseLong(eventId.substring(prefix.length()));
+
+        if (parsed <= sequence) {
+          return parsed;
+        }
+      } catch (NumberFormatException ex) {
+        XLOGGER.debug("Invalid event id {}", eventId);
+      }
+    }
+
+    return -1;
+  }
+
+  @AllArgsConstructor
+  private static final class BufferedEvent {
+    final long sequence;
+    final ChangeEventDto data;
+  }
+
+  private final class Subscription {
+    private final SseEmitter emitter;
+    private final Set<String> types;
+    private final Set<UUID> ids;
+
+    private final Queue<SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    Subscription(SseEmitter emitter, Set<String> types, Set<UUID> ids) {
+      this.emitter = emitter;
+      this.types = types;
+      this.ids = ids;
+    }
+
+    void deliver(BufferedEvent event) {
+      String type = event.data.getType();
+      Set<UUID> eventIds = event.data.getIds();
+      boolean always = RESYNC.equals(type);
+
+      if (!always && !types.isEmpty() && !types.contains(type)) {
+        return;
+      }
+
+      if (!always && !ids.isEmpty() && !eventIds.isEmpty()) {
+        eventIds = ImmutableSet.copyOf(Sets.intersection(eventIds, ids));
+
+        if (eventIds.isEmpty()) {
+          return;
+        }
+      }
+
+      offer(SseEmitter.event()
+          .id(toEventId(event.sequence))
+          .name(type)
+          .data(new ChangeEventDto(type, eventIds), MediaType.APPLICATION_JSON));
+    }
+
+    void offer(SseEventBuilder event) {
+      if (closed) {
+        return;
+      }
+
+      if (queued.incrementAndGet() > subscriberQueueSize) {
+        XLOGGER.debug("Disconnecting change event subscriber that does not keep up");
+        close();
+        return;
+      }
+
+      queue.add(event);
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+        changeEventTaskScheduler.execute(this::drain);
+      }
+    }
+
+    private void drain() {
+      try {
+        for (SseEventBuilder event = queue.poll(); null != event && !closed;
+            event = queue.poll()) {
+          queued.decrementAndGet();
+          emitter.send(event);
+        }
+      } catch (IOException | IllegalStateException ex) {
+        XLOGGER.debug("Could not send change event: {}", ex.getMessage());
+        close();
+      } finally {
+        draining.set(false);
+      }
+
+      if (!closed) {
+        scheduleDrain();
+      }
+    }
+
+    void remove() {
+      closed = true;
+      subscriptions.remove(this);
+      queue.clear();
+    }
+
+    void close() {
+      remove();
+
+      try {
+        emitter.complete();
+      } catch (IllegalStateException ex) {
+        XLOGGER.debug("Could not complete change event emitter: {}", ex.getMessage());
+      }
+    }
+  }
+
+}
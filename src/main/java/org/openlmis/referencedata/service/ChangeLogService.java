@@ -0,0 +1,318 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.collect.ImmutableSet;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.openlmis.referencedata.dto.ChangeLogEntryDto;
+import org.openlmis.referencedata.dto.ChangeLogEntryDto.Operation;
+import org.openlmis.referencedata.dto.ChangeLogPageDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.ChangeLogMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads and maintains the change log, an append-only list of changes of the resources that
+ * downstream services cache. Entries are written by
+ * {@link org.openlmis.referencedata.interceptor.ChangeLogEventListener}.
+ *
+ * <p>Entries are ordered by the id of the writing transaction and then by their own id. Only
+ * entries of transactions older than the oldest transaction still in progress are returned, so
+ * an entry can never appear behind a cursor that was already handed out, even though
+ * transactions commit in a different order than they start.
+ *
+ * <p>Maintenance removes entries superseded by a later entry of the same resource, and entries
+ * older than the retention period. Cursors pointing before removed old entries are rejected as
+ * expired, because the client may have missed changes.
+ */
+@Service
+public class ChangeLogService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ChangeLogService.class);
+
+  public static final String ORDERABLES = "orderables";
+  public static final String FACILITIES = "facilities";
+  public static final String APPROVED_PRODUCTS = "facilityTypeApprovedProducts";
+  public static final String PROGRAMS = "programs";
+
+  public static final Set<String> RESOURCE_TYPES = ImmutableSet
+      .of(ORDERABLES, FACILITIES, APPROVED_PRODUCTS, PROGRAMS);
+
+  /**
+   * Namespace of the advisory lock that lets only one node run maintenance at a time. Batch
+   * upserts use namespaces 1 and 2.
+   */
+  static final int LOCK_NAMESPACE = 3;
+
+  static final String XMIN_SQL = "SELECT txid_snapshot_xmin(txid_current_snapshot())";
+
+  static final String HORIZON_SQL = "SELECT transactionid, entryid"
+      + " FROM referencedata.change_log_horizon";
+
+  static final String SELECT_SQL = "SELECT id, transactionid, resourcetype, resourceid,"
+      + " versionnumber, operation, occurreddate"
+      + " FROM referencedata.change_log"
+      + " WHERE (transactionid, id) > (:transactionId, :entryId)"
+      + " AND transactionid < :xmin"
+      + " AND resourcetype IN (:types)"
+      + " ORDER BY transactionid, id"
+      + " LIMIT :limit";
+
+  static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(:namespace, 0)";
+
+  static final String COMPACT_SQL = "DELETE FROM referencedata.change_log c"
+      + " WHERE EXISTS (SELECT 1 FROM referencedata.change_log n"
+      + " WHERE n.resourcetype = c.resourcetype AND n.resourceid = c.resourceid"
+      + " AND (n.transactionid, n.id) > (c.transactionid, c.id))";
+
+  static final String EXPIRED_SQL = "SELECT transactionid, id AS entryid"
+      + " FROM referencedata.change_log"
+      + " WHERE occurreddate < :cutoff"
+      + " AND transactionid < txid_snapshot_xmin(txid_current_snapshot())"
+      + " ORDER BY transactionid DESC, id DESC"
+      + " LIMIT 1";
+
+  static final String PURGE_SQL = "DELETE FROM referencedata.change_log"
+      + " WHERE (transactionid, id) <= (:transactionId, :entryId)";
+
+  static final String UPDATE_HORIZON_SQL = "UPDATE referencedata.change_log_horizon"
+      + " SET transactionid = :transactionId, entryid = :entryId"
+      + " WHERE (transactionid, entryid) < (:transactionId, :entryId)";
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private TaskScheduler changeLogTaskScheduler;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${changeLog.maxLimit}")
+  private int maxLimit;
+
+  @Value("${changeLog.retentionDays}")
+  private int retentionDays;
+
+  @Value("${changeLog.maintenanceInterval}")
+  private long maintenanceInterval;
+
+  /**
+   * Schedules periodic maintenance of the change log.
+   */
+  @PostConstruct
+  public void scheduleMaintenance() {
+    if (maintenanceInterval > 0) {
+      changeLogTaskScheduler.scheduleWithFixedDelay(this::maintain,
+          new Date(clock.millis() + maintenanceInterval), maintenanceInterval);
+    }
+  }
+
+  /**
+   * Returns changes made after the given cursor. Without a cursor, no changes are returned but
+   * the current position of the log, which a client should store before it downloads the
+   * complete resources for the first time.
+   *
+   * @param since cursor returned by the previous request, or null.
+   * @param types resource types to return changes of; all types when empty.
+   * @param limit maximum number of changes to return, capped by the configured maximum.
+   * @return the changes and the cursor to pass with the next request.
+   */
+  public ChangeLogPageDto getChanges(String since, Collection<String> types, Integer limit) {
+    Set<String> resourceTypes = getResourceTypes(types);
+    Cursor start = null == since ? null : Cursor.parse(since);
+
+    Long xmin = template.queryForObject(XMIN_SQL, EmptySqlParameterSource.INSTANCE, Long.class);
+    Cursor head = new Cursor(xmin, 0);
+
+    if (null == start) {
+      return new ChangeLogPageDto(new ArrayList<>(), head.toString(), false);
+    }
+
+    Cursor horizon = template.queryForObject(HORIZON_SQL, EmptySqlParameterSource.INSTANCE,
+        (rs, rowNum) -> new Cursor(rs.getLong("transactionid"), rs.getLong("entryid")));
+
+    if (start.compareTo(horizon) < 0) {
+      throw new ValidationMessageException(
+          new Message(ChangeLogMessageKeys.ERROR_CURSOR_EXPIRED, since));
+    }
+
+    int pageSize = null == limit ? maxLimit : Math.max(1, Math.min(limit, maxLimit));
+    List<Cursor> positions = new ArrayList<>();
+    List<ChangeLogEntryDto> changes = template.query(SELECT_SQL, new MapSqlParameterSource()
+            .addValue("transactionId", start.transactionId)
+            .addValue("entryId", start.entryId)
+            .addValue("xmin", xmin)
+            .addValue("types", resourceTypes)
+            .addValue("limit", pageSize + 1),
+        (rs, rowNum) -> {
+          positions.add(new Cursor(rs.getLong("transactionid"), rs.getLong("id")));
+          return toEntry(rs);
+        });
+
+    if (changes.size() > pageSize) {
+      changes = changes.subList(0, pageSize);
+      return new ChangeLogPageDto(changes, positions.get(pageSize - 1).toString(), true);
+    }
+
+    // entries of transactions older than xmin have all been returned, later ones start at head
+    Cursor next = start.compareTo(head) > 0 ? start : head;
+    return new ChangeLogPageDto(changes, next.toString(), false);
+  }
+
+  /**
+   * Removes superseded and expired entries. Does nothing when another node is already
+   * maintaining the log.
+   */
+  public void maintain() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+    try {
+      transaction.execute(status -> {
+        MapSqlParameterSource lockParams = new MapSqlParameterSource("namespace", LOCK_NAMESPACE);
+
+        if (!Boolean.TRUE.equals(template.queryForObject(LOCK_SQL, lockParams, Boolean.class))) {
+          return null;
+        }
+
+        int compacted = template.update(COMPACT_SQL, EmptySqlParameterSource.INSTANCE);
+        int purged = purgeExpired();
+
+        XLOGGER.debug("Removed {} superseded and {} expired change log entries",
+            compacted, purged);
+        return null;
+      });
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not maintain the change log: {}", ex.getMessage());
+    }
+  }
+
+  private int purgeExpired() {
+    if (retentionDays <= 0) {
+      return 0;
+    }
+
+    Timestamp cutoff = Timestamp.from(clock.instant().minus(Duration.ofDays(retentionDays)));
+    List<MapSqlParameterSource> expired = template.query(EXPIRED_SQL,
+        new MapSqlParameterSource("cutoff", cutoff),
+        (rs, rowNum) -> new MapSqlParameterSource()
+            .addValue("transactionId", rs.getLong("transactionid"))
+            .addValue("entryId", rs.getLong("entryid")));
+
+    if (expired.isEmpty()) {
+      return 0;
+    }
+
+    template.update(UPDATE_HORIZON_SQL, expired.get(0));
+    return template.update(PURGE_SQL, expired.get(0));
+  }
+
+  private Set<String> getResourceTypes(Collection<String> types) {
+    if (null == types || types.isEmpty()) {
+      return RESOURCE_TYPES;
+    }
+
+    for (String type : types) {
+      if (!RESOURCE_TYPES.contains(type)) {
+        throw new ValidationMessageException(new Message(
+            ChangeLogMessageKeys.ERROR_TYPE_INVALID, type, String.join(", ", RESOURCE_TYPES)));
+      }
+    }
+
+    return ImmutableSet.copyOf(types);
+  }
+
+  private static ChangeLogEntryDto toEntry(ResultSet rs) throws SQLException {
+    Number versionNumber = (Number) rs.getObject("versionnumber");
+
+    return new ChangeLogEntryDto(
+        rs.getString("resourcetype"),
+        rs.getObject("resourceid", UUID.class),
+        null == versionNumber ? null : versionNumber.longValue(),
+        Operation.valueOf(rs.getString("operation")),
+        ZonedDateTime.ofInstant(rs.getTimestamp("occurreddate").toInstant(), ZoneOffset.UTC));
+  }
+
+  /**
+   * Position in the change log: the transaction that wrote an entry and the id of the entry.
+   * Clients only see the string form and should treat it as opaque.
+   */
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  static final class Cursor implements Comparable<Cursor> {
+    private static final String SEPARATOR = ".";
+
+    final long transactionId;
+    final long entryId;
+
+    static Cursor parse(String value) {
+      int separator = value.indexOf(SEPARATOR);
+
+      try {
+        if (separator > 0) {
+          return new Cursor(Long.parseLong(value.substring(0, separator)),
+              Long.parseLong(value.substring(separator + 1)));
+        }
+      } catch (NumberFormatException ex) {
+        // handled below
+      }
+
+      throw new ValidationMessageException(
+          new Message(ChangeLogMessageKeys.ERROR_CURSOR_INVALID, value));
+    }
+
+    @Override
+    public int compareTo(Cursor other) {
+      int result = Long.compare(transactionId, other.transactionId);
+      return 0 == result ? Long.compare(entryId, other.entryId) : result;
+    }
+
+    @Override
+    public String toString() {
+      return transactionId + SEPARATOR + entryId;
+    }
+  }
+
+}
@@ -17,6 +17,7 @@ package org.openlmis.referencedata.service;
 
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.extension.point.OrderableUpdatePostProcessor;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -31,7 +32,7 @@ public class DefaultOrderableUpdatePostProcessor implements OrderableUpdatePostP
   @Override
   public void process(Orderable orderable) {
     XLOGGER.entry(orderable);
-    Profiler profiler = new Profiler("DEFAULT_ORDERABLE_UPDATE_POST_PROCESSOR");
+    Profiler profiler = new MeteredProfiler("DEFAULT_ORDERABLE_UPDATE_POST_PROCESSOR");
     profiler.setLogger(XLOGGER);
 
     XLOGGER.info("This default processor does nothing, it is just a placeholder");
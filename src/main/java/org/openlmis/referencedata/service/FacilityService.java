@@ -20,13 +20,17 @@ import static org.apache.commons.collections4.MapUtils.isNotEmpty;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.BiFunction;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.FacilityTypeRepository;
 import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.GeographicZoneMessageKeys;
 import org.openlmis.referencedata.web.FacilitySearchParams;
@@ -67,9 +71,39 @@ public class FacilityService {
    * @return Page of facilities. All facilities will be returned when map is null or empty
    */
   public Page<Facility> searchFacilities(FacilitySearchParams params, Pageable pageable) {
-    Profiler profiler = new Profiler("FACILITY_SERVICE_SEARCH");
+    Profiler profiler = new MeteredProfiler("FACILITY_SERVICE_SEARCH");
     profiler.setLogger(LOGGER);
 
+    Page<Facility> facilities = searchFacilities(params, profiler, (zones, extraData) ->
+        facilityRepository.search(params, zones, extraData, pageable));
+
+    profiler.stop().log();
+    return facilities;
+  }
+
+  /**
+   * Method returns the requested fields of all facilities with matched parameters. The facility
+   * entities are not loaded.
+   *
+   * @param params request parameters (code, name, zone, type, recurse) and JSON extraData.
+   * @param fields fields that should be returned.
+   * @param pageable object used to encapsulate the pagination related values: page, size and sort.
+   * @return Page of facility fields.
+   */
+  public Page<Map<String, Object>> searchFacilities(FacilitySearchParams params,
+      SparseFieldset fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("FACILITY_SERVICE_SEARCH_FIELDS");
+    profiler.setLogger(LOGGER);
+
+    Page<Map<String, Object>> facilities = searchFacilities(params, profiler, (zones, extraData) ->
+        facilityRepository.search(params, zones, extraData, fields, pageable));
+
+    profiler.stop().log();
+    return facilities;
+  }
+
+  private <T> T searchFacilities(FacilitySearchParams params, Profiler profiler,
+      BiFunction<Set<UUID>, String, T> search) {
     profiler.start("CHECK_IF_GEO_ZONE_EXISTS");
     if (null != params.getZoneId() && !geographicZoneRepository.existsById(params.getZoneId())) {
       throw new ValidationMessageException(GeographicZoneMessageKeys.ERROR_NOT_FOUND);
@@ -81,15 +115,6 @@ public class FacilityService {
       throw new ValidationMessageException(FacilityTypeMessageKeys.ERROR_NOT_FOUND);
     }
 
-    Page<Facility> facilities = findFacilities(params, pageable, profiler);
-
-    profiler.stop().log();
-    return facilities;
-  }
-
-  private Page<Facility> findFacilities(FacilitySearchParams params, Pageable pageable,
-      Profiler profiler) {
-        
     profiler.start("GET_GEOGRAPHIC_ZONES");
     Set<UUID> zones = Sets.newHashSet();
     if (null != params.getZoneId()) {
@@ -112,7 +137,7 @@ public class FacilityService {
     }
 
     profiler.start("SEARCH_FOR_FACILITIES");
-    return facilityRepository.search(params, zones, extraDataString, pageable);
+    return search.apply(zones, extraDataString);
   }
 
 }
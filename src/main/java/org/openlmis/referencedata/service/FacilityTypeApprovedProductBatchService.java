@@ -0,0 +1,343 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.dto.ApprovedProductDto;
+import org.openlmis.referencedata.dto.BaseDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
+import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.FacilityTypeApprovedProductMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates and updates many facility type approved products in one transaction. The whole batch
+ * is checked with set based queries, approved products being updated are locked and all new
+ * versions are inserted with JDBC batching. Items which can't be saved are reported in the
+ * results and don't stop the rest of the batch.
+ */
+@Service
+public class FacilityTypeApprovedProductBatchService {
+
+  private static final XLogger XLOGGER = XLoggerFactory
+      .getXLogger(FacilityTypeApprovedProductBatchService.class);
+
+  static final int LOCK_NAMESPACE = 2;
+
+  @Autowired
+  private FacilityTypeApprovedProductRepository repository;
+
+  @Autowired
+  private ProgramRepository programRepository;
+
+  @Autowired
+  private FacilityTypeRepository facilityTypeRepository;
+
+  @Autowired
+  private OrderableRepository orderableRepository;
+
+  @Autowired
+  private FacilityTypeApprovedProductBuilder facilityTypeApprovedProductBuilder;
+
+  @Autowired
+  private MessageService messageService;
+
+  @Autowired
+  private BatchWriter batchWriter;
+
+  /**
+   * Creates or updates the given approved products. An item with an id creates a new version of
+   * that approved product. An item without an id creates a new version of the active approved
+   * product of the same orderable, program and facility type, or a new approved product if there
+   * is none. Previous versions of updated approved products are deactivated.
+   *
+   * @param approvedProducts the approved products to save
+   * @return result of every item, in the order of the given approved products
+   */
+  @Transactional
+  public List<BatchItemResultDto<ApprovedProductDto>> upsert(
+      List<ApprovedProductDto> approvedProducts) {
+    Profiler profiler = new MeteredProfiler("FACILITY_TYPE_APPROVED_PRODUCTS_BATCH_UPSERT");
+    profiler.setLogger(XLOGGER);
+
+    batchWriter.checkSize(approvedProducts);
+
+    List<BatchItemResultDto<ApprovedProductDto>> results = newResults(approvedProducts.size());
+
+    profiler.start("VALIDATE_FTAPS");
+    List<Item> items = validate(approvedProducts, results);
+
+    profiler.start("LOCK_NATURAL_KEYS");
+    batchWriter.lock(LOCK_NAMESPACE, items
+        .stream()
+        .map(item -> item.key)
+        .collect(Collectors.toList()));
+
+    profiler.start("LOCK_EXISTING_FTAPS");
+    items = resolveExistingApprovedProducts(items, results);
+
+    profiler.start("FIND_REFERENCED_RESOURCES");
+    Map<UUID, Program> programs = toMap(items, item -> item.programId,
+        ids -> programRepository.findAllById(ids), Program::getId);
+    Map<UUID, FacilityType> facilityTypes = toMap(items, item -> item.facilityTypeId,
+        ids -> facilityTypeRepository.findAllById(ids), FacilityType::getId);
+    Map<UUID, Orderable> orderables = toMap(items, item -> item.orderableId,
+        ids -> orderableRepository.findAllLatestByIds(ids, null), Orderable::getId);
+
+    items = filter(items, item -> {
+      if (!programs.containsKey(item.programId)) {
+        return new Message(ProgramMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (!facilityTypes.containsKey(item.facilityTypeId)) {
+        return new Message(FacilityTypeMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      return orderables.containsKey(item.orderableId)
+          ? null
+          : new Message(OrderableMessageKeys.ERROR_NOT_FOUND);
+    }, results);
+
+    profiler.start("DEACTIVATE_PREVIOUS_FTAP_VERSIONS");
+    Set<UUID> updated = items
+        .stream()
+        .filter(item -> null != item.currentVersion)
+        .map(item -> item.currentVersion.getId())
+        .collect(Collectors.toSet());
+
+    if (!updated.isEmpty()) {
+      repository.deactivatePreviousVersions(updated);
+    }
+
+    profiler.start("BUILD_FTAPS");
+    List<FacilityTypeApprovedProduct> built = new ArrayList<>(items.size());
+    for (Item item : items) {
+      ApprovedProductDto data = new ApprovedProductDto(item.dto);
+
+      if (null != item.currentVersion) {
+        data.setId(item.currentVersion.getId());
+        data.setVersionNumber(item.currentVersion.getVersionNumber() + 1);
+      } else {
+        data.setVersionNumber(1L);
+      }
+
+      item.approvedProduct = facilityTypeApprovedProductBuilder
+          .build(data, programs, facilityTypes);
+      built.add(item.approvedProduct);
+    }
+
+    profiler.start("SAVE_FTAPS");
+    batchWriter.persist(built);
+
+    profiler.start("EXPORT_FTAPS_TO_DTO");
+    for (Item item : items) {
+      ApprovedProductDto dto = new ApprovedProductDto();
+      item.approvedProduct.export(dto);
+      dto.setOrderable(orderables.get(item.orderableId));
+
+      results.set(item.index, null == item.currentVersion
+          ? BatchItemResultDto.created(item.index, dto)
+          : BatchItemResultDto.updated(item.index, dto));
+    }
+
+    profiler.stop().log();
+    return results;
+  }
+
+  private List<Item> validate(List<ApprovedProductDto> approvedProducts,
+      List<BatchItemResultDto<ApprovedProductDto>> results) {
+    List<Item> items = new ArrayList<>(approvedProducts.size());
+
+    for (int index = 0; index < approvedProducts.size(); ++index) {
+      ApprovedProductDto dto = approvedProducts.get(index);
+      Message error = validate(dto);
+
+      if (null == error) {
+        items.add(new Item(index, dto, dto.getOrderableId(), getId(dto.getProgram()),
+            getId(dto.getFacilityType())));
+      } else {
+        results.set(index, failed(index, error));
+      }
+    }
+
+    Set<String> keys = new HashSet<>();
+    Set<UUID> ids = new HashSet<>();
+    return filter(items, item -> {
+      boolean unique = keys.add(item.key)
+          && (null == item.dto.getId() || ids.add(item.dto.getId()));
+      return unique ? null : new Message(BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+    }, results);
+  }
+
+  private Message validate(ApprovedProductDto approvedProduct) {
+    if (null == approvedProduct) {
+      return new Message(FacilityTypeApprovedProductMessageKeys.ERROR_NULL);
+    }
+
+    if (null == getId(approvedProduct.getProgram())) {
+      return new Message(ProgramMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    if (null == getId(approvedProduct.getFacilityType())) {
+      return new Message(FacilityTypeMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    return null == approvedProduct.getOrderableId()
+        ? new Message(OrderableMessageKeys.ERROR_NOT_FOUND)
+        : null;
+  }
+
+  private List<Item> resolveExistingApprovedProducts(List<Item> items,
+      List<BatchItemResultDto<ApprovedProductDto>> results) {
+    Set<UUID> ids = items
+        .stream()
+        .map(item -> item.dto.getId())
+        .filter(id -> null != id)
+        .collect(Collectors.toSet());
+
+    Map<UUID, FacilityTypeApprovedProduct> latest = new HashMap<>();
+    if (!ids.isEmpty()) {
+      // versions are sorted in ascending order, so the latest one is put last
+      repository
+          .lockAllVersionsByIds(ids)
+          .forEach(ftap -> latest.put(ftap.getId(), ftap));
+    }
+
+    Map<String, FacilityTypeApprovedProduct> active = new HashMap<>();
+    if (!items.isEmpty()) {
+      repository
+          .lockActiveByOrderableIdsAndFacilityTypeIds(
+              items.stream().map(item -> item.orderableId).collect(Collectors.toSet()),
+              items.stream().map(item -> item.facilityTypeId).collect(Collectors.toSet()))
+          .forEach(ftap -> active.put(getKey(ftap.getFacilityType().getId(),
+              ftap.getOrderableId(), ftap.getProgram().getId()), ftap));
+    }
+
+    Set<UUID> updated = new HashSet<>();
+    return filter(items, item -> {
+      FacilityTypeApprovedProduct owner = active.get(item.key);
+      UUID id = null == item.dto.getId()
+          ? Optional.ofNullable(owner).map(FacilityTypeApprovedProduct::getId).orElse(null)
+          : item.dto.getId();
+
+      if (null == id) {
+        return null;
+      }
+
+      if (null != owner && !owner.getId().equals(id)) {
+        return new Message(FacilityTypeApprovedProductMessageKeys.ERROR_DUPLICATED);
+      }
+
+      item.currentVersion = Optional.ofNullable(latest.get(id)).orElse(owner);
+      return updated.add(id) ? null : new Message(BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+    }, results);
+  }
+
+  private List<Item> filter(List<Item> items, Function<Item, Message> check,
+      List<BatchItemResultDto<ApprovedProductDto>> results) {
+    List<Item> valid = new ArrayList<>(items.size());
+
+    for (Item item : items) {
+      Message error = check.apply(item);
+
+      if (null == error) {
+        valid.add(item);
+      } else {
+        results.set(item.index, failed(item.index, error));
+      }
+    }
+
+    return valid;
+  }
+
+  private BatchItemResultDto<ApprovedProductDto> failed(int index, Message error) {
+    return BatchItemResultDto.failed(index, messageService.localize(error));
+  }
+
+  private static List<BatchItemResultDto<ApprovedProductDto>> newResults(int size) {
+    // results are set by item index, in whatever order the items fail or get saved
+    return new ArrayList<>(Collections.nCopies(size, null));
+  }
+
+  private static <T> Map<UUID, T> toMap(List<Item> items, Function<Item, UUID> idGetter,
+      Function<Set<UUID>, Iterable<T>> finder, Function<T, UUID> resourceIdGetter) {
+    Set<UUID> ids = items.stream().map(idGetter).collect(Collectors.toSet());
+    Map<UUID, T> map = new HashMap<>();
+
+    if (!ids.isEmpty()) {
+      finder.apply(ids).forEach(resource -> map.put(resourceIdGetter.apply(resource), resource));
+    }
+
+    return map;
+  }
+
+  private static UUID getId(BaseDto dto) {
+    return null == dto ? null : dto.getId();
+  }
+
+  private static String getKey(UUID facilityTypeId, UUID orderableId, UUID programId) {
+    return facilityTypeId + "/" + orderableId + "/" + programId;
+  }
+
+  @RequiredArgsConstructor
+  private static final class Item {
+    private final int index;
+    private final ApprovedProductDto dto;
+    private final UUID orderableId;
+    private final UUID programId;
+    private final UUID facilityTypeId;
+    private final String key;
+    private FacilityTypeApprovedProduct currentVersion;
+    private FacilityTypeApprovedProduct approvedProduct;
+
+    Item(int index, ApprovedProductDto dto, UUID orderableId, UUID programId,
+        UUID facilityTypeId) {
+      this(index, dto, orderableId, programId, facilityTypeId,
+          getKey(facilityTypeId, orderableId, programId));
+    }
+  }
+
+}
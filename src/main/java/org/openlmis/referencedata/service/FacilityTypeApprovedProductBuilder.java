@@ -18,6 +18,10 @@ package org.openlmis.referencedata.service;
 import static org.openlmis.referencedata.domain.FacilityTypeApprovedProduct.Importer;
 import static org.openlmis.referencedata.domain.FacilityTypeApprovedProduct.newFacilityTypeApprovedProduct;
 
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
 import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.Program;
@@ -42,9 +46,25 @@ public class FacilityTypeApprovedProductBuilder
    * Creates new {@link FacilityTypeApprovedProduct} based on data from importer.
    */
   public FacilityTypeApprovedProduct build(Importer importer) {
-    Program program = findResource(programRepository::findById, importer.getProgram(),
+    return build(importer, programRepository::findById, facilityTypeRepository::findById);
+  }
+
+  /**
+   * Creates new {@link FacilityTypeApprovedProduct} based on data from importer. The program and
+   * the facility type are taken from the given maps instead of being retrieved from the database.
+   */
+  public FacilityTypeApprovedProduct build(Importer importer, Map<UUID, Program> programs,
+      Map<UUID, FacilityType> facilityTypes) {
+    return build(importer, id -> Optional.ofNullable(programs.get(id)),
+        id -> Optional.ofNullable(facilityTypes.get(id)));
+  }
+
+  private FacilityTypeApprovedProduct build(Importer importer,
+      Function<UUID, Optional<Program>> programFinder,
+      Function<UUID, Optional<FacilityType>> facilityTypeFinder) {
+    Program program = findResource(programFinder, importer.getProgram(),
         ProgramMessageKeys.ERROR_NOT_FOUND);
-    FacilityType facilityType = findResource(facilityTypeRepository::findById,
+    FacilityType facilityType = findResource(facilityTypeFinder,
         importer.getFacilityType(), FacilityTypeMessageKeys.ERROR_NOT_FOUND);
 
     FacilityTypeApprovedProduct approvedProduct = newFacilityTypeApprovedProduct(importer);
@@ -0,0 +1,392 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.base.Suppliers;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.ObjectReferenceDto;
+import org.openlmis.referencedata.dto.OrderableChildDto;
+import org.openlmis.referencedata.dto.OrderableDto;
+import org.openlmis.referencedata.dto.ProgramOrderableDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.extension.ExtensionManager;
+import org.openlmis.referencedata.extension.point.ExtensionPointId;
+import org.openlmis.referencedata.extension.point.OrderableCreatePostProcessor;
+import org.openlmis.referencedata.extension.point.OrderableUpdatePostProcessor;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.OrderableBuilder;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.openlmis.referencedata.validate.OrderableValidator;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+
+/**
+ * Creates and updates many orderables in one transaction. Instead of validating, looking up and
+ * saving every orderable separately, the whole batch is checked with set based queries, the
+ * orderables being updated are locked and all new versions are inserted with JDBC batching.
+ * Items which can't be saved are reported in the results and don't stop the rest of the batch.
+ */
+@Service
+public class OrderableBatchService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableBatchService.class);
+
+  static final int LOCK_NAMESPACE = 1;
+
+  @Autowired
+  private OrderableRepository orderableRepository;
+
+  @Autowired
+  private ProgramRepository programRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private OrderableValidator validator;
+
+  @Autowired
+  private OrderableBuilder orderableBuilder;
+
+  @Autowired
+  private AuthenticationHelper authenticationHelper;
+
+  @Autowired
+  private ExtensionManager extensionManager;
+
+  @Autowired
+  private MessageService messageService;
+
+  @Autowired
+  private BatchWriter batchWriter;
+
+  /**
+   * Creates or updates the given orderables. An item with an id creates a new version of that
+   * orderable. An item without an id creates a new version of the orderable with the same
+   * product code, or a new orderable if there is none.
+   *
+   * @param orderables the orderables to save
+   * @return result of every item, in the order of the given orderables
+   */
+  @Transactional
+  public List<BatchItemResultDto<OrderableDto>> upsert(List<OrderableDto> orderables) {
+    Profiler profiler = new MeteredProfiler("ORDERABLES_BATCH_UPSERT");
+    profiler.setLogger(XLOGGER);
+
+    batchWriter.checkSize(orderables);
+
+    List<BatchItemResultDto<OrderableDto>> results = newResults(orderables.size());
+
+    profiler.start("VALIDATE_ORDERABLES");
+    List<Item> items = validate(orderables, results);
+
+    profiler.start("LOCK_PRODUCT_CODES");
+    batchWriter.lock(LOCK_NAMESPACE, items
+        .stream()
+        .map(item -> item.code)
+        .collect(Collectors.toList()));
+
+    profiler.start("LOCK_EXISTING_ORDERABLES");
+    items = resolveExistingOrderables(items, results);
+
+    profiler.start("FIND_REFERENCED_RESOURCES");
+    References references = findReferences(items);
+    items = filter(items, item -> references.check(item.dto), results);
+
+    profiler.start("BUILD_ORDERABLES");
+    Supplier<User> currentUser = Suppliers.memoize(authenticationHelper::getCurrentUser)::get;
+    List<Orderable> built = new ArrayList<>(items.size());
+    for (Item item : items) {
+      item.orderable = orderableBuilder.newOrderable(item.dto, item.persisted,
+          references.programs, references.users, references.orderables, currentUser);
+      built.add(item.orderable);
+    }
+
+    profiler.start("SAVE_ORDERABLES");
+    batchWriter.persist(built);
+
+    profiler.start("POST_PROCESS_ORDERABLES");
+    postProcess(items);
+
+    for (Item item : items) {
+      OrderableDto dto = OrderableDto.newInstance(item.orderable);
+      results.set(item.index, null == item.persisted
+          ? BatchItemResultDto.created(item.index, dto)
+          : BatchItemResultDto.updated(item.index, dto));
+    }
+
+    profiler.stop().log();
+    return results;
+  }
+
+  private List<Item> validate(List<OrderableDto> orderables,
+      List<BatchItemResultDto<OrderableDto>> results) {
+    List<Item> items = new ArrayList<>(orderables.size());
+
+    for (int index = 0; index < orderables.size(); ++index) {
+      OrderableDto dto = orderables.get(index);
+      Message error = validate(dto);
+
+      if (null == error) {
+        items.add(new Item(index, dto, dto.getProductCode().toLowerCase()));
+      } else {
+        results.set(index, failed(index, error));
+      }
+    }
+
+    Set<String> codes = new HashSet<>();
+    Set<UUID> ids = new HashSet<>();
+    return filter(items, item -> {
+      boolean unique = codes.add(item.code)
+          && (null == item.dto.getId() || ids.add(item.dto.getId()));
+      return unique ? null : new Message(BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+    }, results);
+  }
+
+  private Message validate(OrderableDto orderable) {
+    if (null == orderable) {
+      return new Message(OrderableMessageKeys.ERROR_NULL);
+    }
+
+    Errors errors = new BeanPropertyBindingResult(orderable, "orderable");
+
+    try {
+      validator.validateFields(orderable, errors);
+    } catch (ValidationMessageException ex) {
+      return ex.asMessage();
+    }
+
+    FieldError error = errors.getFieldError();
+    return null == error ? null : new Message(error.getCode(), error.getArguments());
+  }
+
+  private List<Item> resolveExistingOrderables(List<Item> items,
+      List<BatchItemResultDto<OrderableDto>> results) {
+    Map<String, UUID> codeOwners = items.isEmpty()
+        ? new HashMap<>()
+        : orderableRepository
+            .findLatestIdsByProductCodes(items
+                .stream()
+                .map(item -> item.code)
+                .collect(Collectors.toSet()))
+            .stream()
+            .collect(Collectors.toMap(row -> row.get("code"), row -> UUID.fromString(row.get("id")),
+                (first, second) -> first));
+
+    Set<UUID> identities = items
+        .stream()
+        .map(item -> null == item.dto.getId() ? codeOwners.get(item.code) : item.dto.getId())
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+
+    Map<UUID, Orderable> latest = new HashMap<>();
+
+    if (!identities.isEmpty()) {
+      orderableRepository.lockLatestByIds(identities);
+      orderableRepository
+          .findAllLatestByIds(identities, null)
+          .forEach(orderable -> latest.put(orderable.getId(), orderable));
+    }
+
+    Set<UUID> updated = new HashSet<>();
+    return filter(items, item -> {
+      UUID owner = codeOwners.get(item.code);
+      UUID id = null == item.dto.getId() ? owner : item.dto.getId();
+
+      if (null == id) {
+        return null;
+      }
+
+      item.persisted = latest.get(id);
+
+      if (null == item.persisted) {
+        return new Message(OrderableMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (null != owner && !owner.equals(id)) {
+        return new Message(OrderableMessageKeys.ERROR_PRODUCT_CODE_MUST_BE_UNIQUE);
+      }
+
+      return updated.add(id) ? null : new Message(BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+    }, results);
+  }
+
+  private References findReferences(List<Item> items) {
+    Set<UUID> programIds = new HashSet<>();
+    Set<UUID> userIds = new HashSet<>();
+    Set<UUID> orderableIds = new HashSet<>();
+
+    for (Item item : items) {
+      programIds.addAll(getProgramIds(item.dto));
+      userIds.addAll(getPriceChangeAuthorIds(item.dto));
+      orderableIds.addAll(getChildIds(item.dto));
+    }
+
+    References references = new References();
+    references.programs = toMap(programIds,
+        ids -> programRepository.findAllById(ids), Program::getId);
+    references.users = toMap(userIds, ids -> userRepository.findAllById(ids), User::getId);
+    references.orderables = toMap(orderableIds,
+        ids -> orderableRepository.findAllLatestByIds(ids, null), Orderable::getId);
+
+    return references;
+  }
+
+  private void postProcess(List<Item> items) {
+    OrderableCreatePostProcessor createPostProcessor = extensionManager.getExtension(
+        ExtensionPointId.ORDERABLE_CREATE_POST_POINT_ID, OrderableCreatePostProcessor.class);
+    OrderableUpdatePostProcessor updatePostProcessor = extensionManager.getExtension(
+        ExtensionPointId.ORDERABLE_UPDATE_POST_POINT_ID, OrderableUpdatePostProcessor.class);
+
+    for (Item item : items) {
+      if (null == item.persisted) {
+        createPostProcessor.process(item.orderable);
+      } else {
+        updatePostProcessor.process(item.orderable);
+      }
+    }
+  }
+
+  private List<Item> filter(List<Item> items, Function<Item, Message> check,
+      List<BatchItemResultDto<OrderableDto>> results) {
+    List<Item> valid = new ArrayList<>(items.size());
+
+    for (Item item : items) {
+      Message error = check.apply(item);
+
+      if (null == error) {
+        valid.add(item);
+      } else {
+        results.set(item.index, failed(item.index, error));
+      }
+    }
+
+    return valid;
+  }
+
+  private BatchItemResultDto<OrderableDto> failed(int index, Message error) {
+    return BatchItemResultDto.failed(index, messageService.localize(error));
+  }
+
+  private static List<BatchItemResultDto<OrderableDto>> newResults(int size) {
+    // results are set by item index, in whatever order the items fail or get saved
+    return new ArrayList<>(Collections.nCopies(size, null));
+  }
+
+  private static <T> Map<UUID, T> toMap(Set<UUID> ids,
+      Function<Set<UUID>, Iterable<T>> finder, Function<T, UUID> idGetter) {
+    Map<UUID, T> map = new HashMap<>();
+
+    if (!ids.isEmpty()) {
+      finder.apply(ids).forEach(resource -> map.put(idGetter.apply(resource), resource));
+    }
+
+    return map;
+  }
+
+  private static Collection<UUID> getProgramIds(OrderableDto orderable) {
+    return null == orderable.getPrograms()
+        ? new HashSet<>()
+        : orderable.getPrograms()
+            .stream()
+            .map(ProgramOrderableDto::getProgramId)
+            .collect(Collectors.toSet());
+  }
+
+  private static Collection<UUID> getPriceChangeAuthorIds(OrderableDto orderable) {
+    return null == orderable.getPrograms()
+        ? new HashSet<>()
+        : orderable.getPrograms()
+            .stream()
+            .flatMap(program -> program.getPriceChanges().stream())
+            .map(priceChange -> priceChange.getAuthor().getId())
+            .collect(Collectors.toSet());
+  }
+
+  private static Collection<UUID> getChildIds(OrderableDto orderable) {
+    return null == orderable.getChildren()
+        ? new HashSet<>()
+        : orderable.getChildren()
+            .stream()
+            .map(OrderableChildDto::getOrderable)
+            .map(ObjectReferenceDto::getId)
+            .collect(Collectors.toSet());
+  }
+
+  @RequiredArgsConstructor
+  private static final class Item {
+    private final int index;
+    private final OrderableDto dto;
+    private final String code;
+    private Orderable persisted;
+    private Orderable orderable;
+  }
+
+  private static final class References {
+    private Map<UUID, Program> programs;
+    private Map<UUID, User> users;
+    private Map<UUID, Orderable> orderables;
+
+    Message check(OrderableDto orderable) {
+      if (!programs.keySet().containsAll(getProgramIds(orderable))) {
+        return new Message(ProgramMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (!users.keySet().containsAll(getPriceChangeAuthorIds(orderable))) {
+        return new Message(UserMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (!orderables.keySet().containsAll(getChildIds(orderable))) {
+        return new Message(OrderableMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      return null;
+    }
+  }
+
+}
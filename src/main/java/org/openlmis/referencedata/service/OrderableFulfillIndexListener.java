@@ -0,0 +1,54 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.openlmis.referencedata.web.OrderableFulfillIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Entity listener that notifies {@link OrderableFulfillIndex} about changes of entities used to
+ * build the index.
+ */
+public class OrderableFulfillIndexListener {
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  /**
+   * Publishes {@link SourceChangedEvent} for the given entity.
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void onChange(Object entity) {
+    eventPublisher.publishEvent(new SourceChangedEvent(entity));
+  }
+
+  public static final class SourceChangedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = -2154390227011512465L;
+
+    public SourceChangedEvent(Object source) {
+      super(source);
+    }
+  }
+
+}
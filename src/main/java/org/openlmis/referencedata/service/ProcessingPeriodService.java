@@ -25,6 +25,7 @@ import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
@@ -58,7 +59,7 @@ public class ProcessingPeriodService {
    */
   public Page<ProcessingPeriod> searchPeriods(ProcessingPeriodSearchParams params,
                                               Pageable pageable) {
-    Profiler profiler = new Profiler("SEARCH_PERIODS_BY_PARAMS");
+    Profiler profiler = new MeteredProfiler("SEARCH_PERIODS_BY_PARAMS");
     profiler.setLogger(LOGGER);
 
     params.validate();
@@ -0,0 +1,43 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Marks the resource type of a persisted, updated or removed entity as changed, so that its
+ * version is bumped once the transaction commits. See {@link ResourceVersionService}.
+ */
+public class ResourceVersionListener {
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
+
+  /**
+   * Called by JPA after an entity was inserted, updated or deleted.
+   */
+  @PostPersist
+  @PostUpdate
+  @PostRemove
+  public void onChange(Object entity) {
+    resourceVersionService
+        .markChanged(ResourceVersionService.getResourceType(entity.getClass()));
+  }
+
+}
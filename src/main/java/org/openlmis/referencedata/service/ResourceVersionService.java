@@ -0,0 +1,240 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.util.stream.Collectors.joining;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.persistence.EntityListeners;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps a monotonically increasing version number per resource type. Versions are stored in the
+ * database, so all instances of the service share them, and are bumped once per type after a
+ * transaction that changed at least one entity of that type commits. The versions are used to
+ * build strong ETags for conditional GET requests.
+ */
+@Service
+public class ResourceVersionService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ResourceVersionService.class);
+
+  /**
+   * Bumped on every start of the service, so changes made outside of JPA (migrations, demo data)
+   * never leave clients with a stale representation.
+   */
+  static final String GLOBAL_RESOURCE_TYPE = "*";
+
+  static final String RESOURCE_TYPE = "resourcetype";
+  static final String VERSION = "version";
+
+  static final String SELECT_SQL = "SELECT resourcetype, version"
+      + " FROM referencedata.resource_versions WHERE resourcetype IN (%s)";
+
+  static final String INCREMENT_SQL = "INSERT INTO referencedata.resource_versions"
+      + " (resourcetype, version) VALUES (?, 1)"
+      + " ON CONFLICT (resourcetype) DO UPDATE"
+      + " SET version = referencedata.resource_versions.version + 1";
+
+  private static final Map<Class<?>, String> RESOURCE_TYPES = new ConcurrentHashMap<>();
+
+  private static final Map<Class<?>, Boolean> VERSIONED_TYPES = new ConcurrentHashMap<>();
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  /**
+   * Resource types whose versions could not be bumped after commit. They are bumped again before
+   * the next ETag is built.
+   */
+  private final Set<String> failedResourceTypes = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Returns the name under which versions of the given entity class are tracked. This is the
+   * simple name of the class that registers the {@link ResourceVersionListener}, so changes of
+   * subclasses count towards their annotated parent.
+   */
+  public static String getResourceType(Class<?> type) {
+    return RESOURCE_TYPES.computeIfAbsent(type, ResourceVersionService::resolveResourceType);
+  }
+
+  /**
+   * Checks if the given entity class, or one of its parents, registers the
+   * {@link ResourceVersionListener}.
+   */
+  public static boolean isVersioned(Class<?> type) {
+    return VERSIONED_TYPES.computeIfAbsent(type, key -> null != findVersionedType(key));
+  }
+
+  private static String resolveResourceType(Class<?> type) {
+    Class<?> versionedType = findVersionedType(type);
+    return null == versionedType ? type.getSimpleName() : versionedType.getSimpleName();
+  }
+
+  private static Class<?> findVersionedType(Class<?> type) {
+    for (Class<?> current = type; null != current; current = current.getSuperclass()) {
+      EntityListeners listeners = current.getAnnotation(EntityListeners.class);
+
+      if (null != listeners
+          && ArrayUtils.contains(listeners.value(), ResourceVersionListener.class)) {
+        return current;
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Builds a strong ETag from the current versions of the given entity classes.
+   *
+   * @param types entity classes the representation depends on.
+   * @return quoted ETag value or null if versions that failed to be bumped after a commit still
+   *     can't be bumped, so the current versions may not reflect the latest changes.
+   */
+  public String getETag(Class<?>... types) {
+    if (!retryFailedIncrements()) {
+      return null;
+    }
+
+    List<String> resourceTypes = new ArrayList<>(types.length + 1);
+    resourceTypes.add(GLOBAL_RESOURCE_TYPE);
+
+    for (Class<?> type : types) {
+      resourceTypes.add(getResourceType(type));
+    }
+
+    Map<String, Long> versions = getVersions(resourceTypes);
+
+    return resourceTypes
+        .stream()
+        .map(resourceType -> String.valueOf(versions.getOrDefault(resourceType, 0L)))
+        .collect(joining(".", "\"", "\""));
+  }
+
+  /**
+   * Marks the given resource type as changed. Inside a transaction the version is bumped once
+   * the transaction commits, so readers never get a new version before the new data is visible.
+   * Without a transaction the version is bumped right away.
+   */
+  public void markChanged(String resourceType) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      increment(Collections.singleton(resourceType));
+      return;
+    }
+
+    for (TransactionSynchronization sync : TransactionSynchronizationManager
+        .getSynchronizations()) {
+      if (sync instanceof PendingChanges) {
+        ((PendingChanges) sync).resourceTypes.add(resourceType);
+        return;
+      }
+    }
+
+    PendingChanges pendingChanges = new PendingChanges();
+    pendingChanges.resourceTypes.add(resourceType);
+    TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onApplicationReady() {
+    increment(Collections.singleton(GLOBAL_RESOURCE_TYPE));
+  }
+
+  private Map<String, Long> getVersions(List<String> resourceTypes) {
+    String placeholders = String.join(",", Collections.nCopies(resourceTypes.size(), "?"));
+    Map<String, Long> versions = new HashMap<>();
+
+    for (Map<String, Object> row : template
+        .queryForList(String.format(SELECT_SQL, placeholders), resourceTypes.toArray())) {
+      versions.put((String) row.get(RESOURCE_TYPE), ((Number) row.get(VERSION)).longValue());
+    }
+
+    return versions;
+  }
+
+  private boolean retryFailedIncrements() {
+    if (failedResourceTypes.isEmpty()) {
+      return true;
+    }
+
+    Set<String> resourceTypes = new TreeSet<>(failedResourceTypes);
+
+    try {
+      increment(resourceTypes);
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not increment versions of {}: {}", resourceTypes, ex.getMessage());
+      return false;
+    }
+
+    failedResourceTypes.removeAll(resourceTypes);
+    return true;
+  }
+
+  private void increment(Collection<String> resourceTypes) {
+    // types are sorted so concurrent increments always lock rows in the same order
+    List<Object[]> args = new ArrayList<>();
+    new TreeSet<>(resourceTypes).forEach(resourceType -> args.add(new Object[]{resourceType}));
+
+    template.batchUpdate(INCREMENT_SQL, args);
+  }
+
+  private final class PendingChanges extends TransactionSynchronizationAdapter {
+    private final Set<String> resourceTypes = new TreeSet<>();
+
+    @Override
+    public void afterCommit() {
+      // the original transaction is already committed, so a new one is needed for the update
+      TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+      transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+      try {
+        transaction.execute(status -> {
+          increment(resourceTypes);
+          return null;
+        });
+      } catch (RuntimeException ex) {
+        XLOGGER.warn("Could not increment versions of {}, will retry on the next request: {}",
+            resourceTypes, ex.getMessage());
+        failedResourceTypes.addAll(resourceTypes);
+      }
+    }
+  }
+
+}
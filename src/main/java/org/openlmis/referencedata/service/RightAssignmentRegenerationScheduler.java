@@ -0,0 +1,317 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatus;
+import org.openlmis.referencedata.service.job.JobService;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Coalesces requests for right assignment regeneration. Any number of requests results in at
+ * most one running and one pending regeneration; the pending one starts once no new request has
+ * arrived for the quiet period (but not later than the max delay after the first of them), so a
+ * burst of edits is served by a single rebuild. Rebuilds on different nodes are serialized by
+ * {@link RightAssignmentService}. Each rebuild runs as a job, so it is visible and can be
+ * cancelled through the jobs API. A failed rebuild is retried a limited number of times, with
+ * the delay doubled after each failure.
+ */
+@Service
+public class RightAssignmentRegenerationScheduler {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      RightAssignmentRegenerationScheduler.class);
+
+  static final String METRIC_PREFIX = "rightAssignments.regeneration.";
+
+  @Autowired
+  private RightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private TaskScheduler rightAssignmentTaskScheduler;
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Autowired
+  private ApplicationEventPublisher eventPublisher;
+
+  @Autowired
+  private JobService jobService;
+
+  @Value("${rightAssignments.regeneration.quietPeriod}")
+  private long quietPeriod;
+
+  @Value("${rightAssignments.regeneration.maxDelay}")
+  private long maxDelay;
+
+  @Value("${rightAssignments.regeneration.maxRetries}")
+  private int maxRetries;
+
+  @Value("${rightAssignments.regeneration.retryDelay}")
+  private long retryDelay;
+
+  private Clock clock = Clock.systemUTC();
+
+  private CompletableFuture<Void> pending;
+  private long firstRequestedAt;
+  private long lastRequestedAt;
+  private Long staleSince;
+  private boolean scheduled;
+  private boolean running;
+  private Long lastStartedAt;
+  private Long lastDuration;
+  private boolean lastFailed;
+  private int failures;
+  private long retryAt;
+
+  /**
+   * Registers the pending state, staleness and duration of the last regeneration as gauges.
+   */
+  @PostConstruct
+  public void bindMetrics() {
+    MeterRegistry registry = meterRegistry.getIfAvailable();
+
+    if (null == registry) {
+      return;
+    }
+
+    Gauge
+        .builder(METRIC_PREFIX + "pending", this, scheduler -> scheduler.isPending() ? 1 : 0)
+        .description("Whether a right assignment regeneration is waiting to be run")
+        .register(registry);
+    TimeGauge
+        .builder(METRIC_PREFIX + "staleness", this, TimeUnit.MILLISECONDS,
+            RightAssignmentRegenerationScheduler::getStaleness)
+        .description("Time since the oldest change not yet reflected in right assignments")
+        .register(registry);
+    TimeGauge
+        .builder(METRIC_PREFIX + "lastDuration", this, TimeUnit.MILLISECONDS,
+            RightAssignmentRegenerationScheduler::getLastDuration)
+        .description("Duration of the last right assignment regeneration")
+        .register(registry);
+  }
+
+  /**
+   * Requests right assignment regeneration. Requests made before the pending regeneration has
+   * started share it. When called within a transaction, the request is made once the
+   * transaction has been committed, so the regeneration sees its changes.
+   *
+   * @return future completed when a regeneration started after this request has finished.
+   */
+  public CompletableFuture<Void> requestRegeneration() {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return request();
+    }
+
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            request().whenComplete((none, ex) -> {
+              if (null == ex) {
+                result.complete(none);
+              } else {
+                result.completeExceptionally(ex);
+              }
+            });
+          }
+        });
+
+    return result;
+  }
+
+  private synchronized CompletableFuture<Void> request() {
+    long now = clock.millis();
+    lastRequestedAt = now;
+
+    if (null == pending) {
+      pending = new CompletableFuture<>();
+      firstRequestedAt = now;
+    }
+
+    if (null == staleSince) {
+      staleSince = now;
+    }
+
+    schedule(quietPeriod);
+    return pending;
+  }
+
+  /**
+   * Returns the current state of right assignment regeneration.
+   */
+  public synchronized RightAssignmentRegenerationStatus getStatus() {
+    return new RightAssignmentRegenerationStatus(running, isPending(), toDate(lastStartedAt),
+        lastDuration, lastFailed, getStaleness());
+  }
+
+  void run() {
+    CompletableFuture<Void> current;
+
+    synchronized (this) {
+      scheduled = false;
+      long now = clock.millis();
+      long wait = Math.max(
+          Math.min(lastRequestedAt + quietPeriod, firstRequestedAt + maxDelay), retryAt) - now;
+
+      if (null == pending || running) {
+        return;
+      }
+
+      if (wait > 0) {
+        schedule(wait);
+        return;
+      }
+
+      current = pending;
+      pending = null;
+      running = true;
+      lastStartedAt = now;
+    }
+
+    CompletableFuture<JobDto> job;
+
+    try {
+      job = jobService.run(JobType.RIGHT_ASSIGNMENT_REGENERATION,
+          context -> rightAssignmentService.regenerateRightAssignments());
+    } catch (RuntimeException ex) {
+      job = new CompletableFuture<>();
+      job.completeExceptionally(ex);
+    }
+
+    // the scheduler thread is free while the job runs; the next run is scheduled once it ends
+    job.whenComplete((result, error) -> complete(current, result, error));
+  }
+
+  private void complete(CompletableFuture<Void> current, JobDto job, Throwable error) {
+    boolean succeeded = false;
+
+    try {
+      if (null != error) {
+        throw new IllegalStateException("Right assignment regeneration job failed", error);
+      }
+
+      if (JobDto.Status.COMPLETED != job.getStatus()) {
+        throw new IllegalStateException("Right assignment regeneration job " + job.getId()
+            + " ended with status " + job.getStatus());
+      }
+
+      succeeded = true;
+      eventPublisher.publishEvent(new RightAssignmentsRegeneratedEvent(this));
+      current.complete(null);
+    } catch (RuntimeException ex) {
+      XLOGGER.error("Right assignment regeneration failed", ex);
+      current.completeExceptionally(ex);
+    } finally {
+      finish(succeeded);
+    }
+  }
+
+  private synchronized void finish(boolean succeeded) {
+    running = false;
+    lastDuration = clock.millis() - lastStartedAt;
+    lastFailed = !succeeded;
+
+    if (succeeded) {
+      failures = 0;
+      staleSince = null == pending ? null : firstRequestedAt;
+    } else {
+      failures++;
+    }
+
+    if (null == pending && !succeeded && failures <= maxRetries) {
+      retry();
+    }
+
+    if (null != pending) {
+      schedule(0);
+    }
+  }
+
+  private void retry() {
+    long now = clock.millis();
+    long delay = retryDelay << Math.min(failures - 1, 20);
+
+    XLOGGER.info("Retrying right assignment regeneration in {} ms (attempt {} of {})", delay,
+        failures, maxRetries);
+
+    pending = new CompletableFuture<>();
+    firstRequestedAt = now;
+    lastRequestedAt = now;
+    retryAt = now + delay;
+  }
+
+  private void schedule(long delay) {
+    if (!scheduled && !running) {
+      scheduled = true;
+      rightAssignmentTaskScheduler.schedule(this::run, new Date(clock.millis() + delay));
+    }
+  }
+
+  private synchronized boolean isPending() {
+    return null != pending;
+  }
+
+  private synchronized long getLastDuration() {
+    return null == lastDuration ? 0 : lastDuration;
+  }
+
+  private synchronized long getStaleness() {
+    return null == staleSince ? 0 : clock.millis() - staleSince;
+  }
+
+  private ZonedDateTime toDate(Long millis) {
+    return null == millis ? null : ZonedDateTime.ofInstant(Instant.ofEpochMilli(millis),
+        ZoneOffset.UTC);
+  }
+
+  /**
+   * Announces that a regeneration of right assignments on this instance of the service has
+   * finished successfully.
+   */
+  public static final class RightAssignmentsRegeneratedEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = -1783524395024657201L;
+
+    RightAssignmentsRegeneratedEvent(Object source) {
+      super(source);
+    }
+  }
+}
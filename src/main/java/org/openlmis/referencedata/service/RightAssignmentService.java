@@ -22,14 +22,15 @@ import java.nio.charset.Charset;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Resource2Db;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -38,8 +39,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
@@ -61,15 +62,42 @@ public class RightAssignmentService {
 
   static final String DELETE_SQL = "DELETE FROM referencedata.right_assignments;";
 
+  static final String DELETE_USERS_SQL = "DELETE FROM referencedata.right_assignments"
+      + " WHERE userid IN (:userIds)";
+
+  static final String DELETE_SUPERVISING_USERS_SQL =
+      "DELETE FROM referencedata.supervising_users;";
+
+  // Role assignment triggers may insert the same rows after the rebuild has cleared the table
+  static final String INSERT_SUPERVISING_USERS_SQL = "INSERT INTO referencedata.supervising_users"
+      + " (supervisoryNodeId, programId, rightId, userId)"
+      + " SELECT DISTINCT ra.supervisorynodeid, ra.programid, rr.rightid, ra.userid"
+      + " FROM referencedata.role_assignments ra"
+      + "   JOIN referencedata.role_rights rr ON rr.roleid = ra.roleid"
+      + " WHERE ra.supervisorynodeid IS NOT NULL"
+      + "   AND ra.programid IS NOT NULL"
+      + " ON CONFLICT DO NOTHING;";
+
+  // Arbitrary key shared by all nodes; the lock is released when the transaction ends. The
+  // supervising users triggers take it in shared mode, so they never run during a rebuild.
+  static final long LOCK_KEY = 0x52494748L;
+  static final String LOCK_SQL = "SELECT pg_advisory_xact_lock(" + LOCK_KEY + ");";
+
   @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_right_assignments.sql")
   private Resource rightAssignmentsResource;
 
   @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_all_supervised_facilities_from_node.sql")
   private Resource supervisedFacilitiesResource;
 
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "insert_user_right_assignments.sql")
+  private Resource userRightAssignmentsResource;
+
   @Autowired
   private JdbcTemplate template;
 
+  @Autowired
+  private NamedParameterJdbcTemplate namedTemplate;
+
   /**
    * Re-generates right assignments. This operation needs to be transactional so that dropping 
    * and re-generating is one transaction. The isolation level is specified to READ_COMMITTED, 
@@ -77,18 +105,31 @@ public class RightAssignmentService {
    * do not have to wait for this re-generation to finish, but can use the "old" right 
    * assignments. This is acceptable since the right assignments table is not expected to change 
    * very often, and the re-generation could take several seconds to finish.
+   *
+   * <p>A transaction-level advisory lock is taken first, so when several nodes regenerate at
+   * the same time they do it one after another, each one reading the data committed by then.
+   * Use {@link RightAssignmentRegenerationScheduler} to request a regeneration.
+   *
+   * <p>The supervising users index, which database triggers keep up to date between
+   * regenerations, is rebuilt in the same transaction.
    */
-  @Async("rightAssignmentTaskExecutor")
   @Transactional(isolation = Isolation.READ_COMMITTED)
-  public Future<Void> regenerateRightAssignments() {
-    Profiler profiler = new Profiler("REGENERATE_RIGHT_ASSIGNMENTS");
+  public void regenerateRightAssignments() {
+    Profiler profiler = new MeteredProfiler("REGENERATE_RIGHT_ASSIGNMENTS");
     profiler.setLogger(XLOGGER);
     XLOGGER.entry();
 
+    profiler.start("ACQUIRE_LOCK");
+    template.execute(LOCK_SQL);
+
     // Drop existing rows; we are regenerating from scratch
     profiler.start("DROP_RIGHT_ASSIGNMENTS");
     template.update(DELETE_SQL);
 
+    profiler.start("REBUILD_SUPERVISING_USERS");
+    template.update(DELETE_SUPERVISING_USERS_SQL);
+    template.update(INSERT_SUPERVISING_USERS_SQL);
+
     // Get a right assignment matrix from database
     profiler.start("GET_INTERMEDIATE_RIGHT_ASSIGNMENTS");
     List<RightAssignmentDto> dbRightAssignments = new ArrayList<>();
@@ -115,7 +156,42 @@ public class RightAssignmentService {
 
     XLOGGER.exit();
     profiler.stop().log();
-    return new AsyncResult<>(null);
+  }
+
+  /**
+   * Re-generates right assignments of the given users only, with one statement that expands
+   * their role assignments into right assignments in the database. Used after role assignments
+   * were written without the domain model, e.g. by bulk user import. The same advisory lock as
+   * for the full re-generation is taken, so both never interleave.
+   *
+   * @param userIds IDs of users whose right assignments are re-generated
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  public void regenerateRightAssignments(Collection<UUID> userIds) {
+    if (userIds.isEmpty()) {
+      return;
+    }
+
+    Profiler profiler = new MeteredProfiler("REGENERATE_USER_RIGHT_ASSIGNMENTS");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("ACQUIRE_LOCK");
+    template.execute(LOCK_SQL);
+
+    MapSqlParameterSource params = new MapSqlParameterSource("userIds", userIds);
+
+    profiler.start("DROP_RIGHT_ASSIGNMENTS");
+    namedTemplate.update(DELETE_USERS_SQL, params);
+
+    profiler.start("INSERT_RIGHT_ASSIGNMENTS");
+    try {
+      int inserted = namedTemplate.update(resourceToString(userRightAssignmentsResource), params);
+      XLOGGER.debug("Inserted {} right assignments of {} users", inserted, userIds.size());
+    } catch (IOException ioe) {
+      throw new IllegalStateException("Can't read right assignments query", ioe);
+    }
+
+    profiler.stop().log();
   }
 
   private void insertFromDbRightAssignmentList(Resource2Db resource2Db,
@@ -0,0 +1,150 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.time.Clock;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.EmptySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reads the number of distinct users assigned to each role. The counters are kept in the
+ * role_user_counts table and updated by a database trigger whenever role assignments are saved
+ * or removed, so they don't have to be aggregated from all role assignments on every request.
+ *
+ * <p>Concurrent transactions assigning the same role to the same user can make a counter drift,
+ * so the counters are periodically reconciled with the role assignments.
+ */
+@Service
+public class RoleUserCountService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(RoleUserCountService.class);
+
+  /**
+   * Namespace of the advisory lock that lets only one node reconcile the counters at a time.
+   * Namespaces 1 to 3 are used by batch upserts and change log maintenance.
+   */
+  static final int LOCK_NAMESPACE = 4;
+
+  static final String SELECT_SQL = "SELECT roleid, usercount"
+      + " FROM referencedata.role_user_counts"
+      + " WHERE usercount > 0";
+
+  static final String LOCK_SQL = "SELECT pg_try_advisory_xact_lock(:namespace, 0)";
+
+  static final String RECONCILE_SQL = "INSERT INTO referencedata.role_user_counts"
+      + " (roleid, usercount)"
+      + " SELECT r.id, COUNT(DISTINCT ra.userid)"
+      + " FROM referencedata.roles r"
+      + "   LEFT JOIN referencedata.role_assignments ra ON ra.roleid = r.id"
+      + " GROUP BY r.id"
+      + " ON CONFLICT (roleid) DO UPDATE"
+      + " SET usercount = EXCLUDED.usercount"
+      + " WHERE referencedata.role_user_counts.usercount <> EXCLUDED.usercount";
+
+  static final String DELETE_ORPHANS_SQL = "DELETE FROM referencedata.role_user_counts c"
+      + " WHERE NOT EXISTS (SELECT 1 FROM referencedata.roles r WHERE r.id = c.roleid)";
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private TaskScheduler roleUserCountTaskScheduler;
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${roleUserCounts.reconciliationInterval}")
+  private long reconciliationInterval;
+
+  /**
+   * Schedules periodic reconciliation of the counters.
+   */
+  @PostConstruct
+  public void scheduleReconciliation() {
+    if (reconciliationInterval > 0) {
+      roleUserCountTaskScheduler.scheduleWithFixedDelay(this::reconcile,
+          new Date(clock.millis() + reconciliationInterval), reconciliationInterval);
+    }
+  }
+
+  /**
+   * Returns the number of distinct users assigned to each role. Roles without users are not
+   * included.
+   */
+  public Map<UUID, Long> getUserCounts() {
+    Map<UUID, Long> counts = new HashMap<>();
+
+    template.query(SELECT_SQL, EmptySqlParameterSource.INSTANCE, (RowCallbackHandler) rs ->
+        counts.put(rs.getObject("roleid", UUID.class), rs.getLong("usercount")));
+
+    return counts;
+  }
+
+  /**
+   * Recalculates the counters from role assignments and fixes the ones that drifted. Does
+   * nothing when another node is already reconciling them.
+   */
+  public void reconcile() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+    try {
+      transaction.execute(status -> {
+        MapSqlParameterSource lockParams = new MapSqlParameterSource("namespace", LOCK_NAMESPACE);
+
+        if (!Boolean.TRUE.equals(template.queryForObject(LOCK_SQL, lockParams, Boolean.class))) {
+          return null;
+        }
+
+        int fixed = template.update(RECONCILE_SQL, EmptySqlParameterSource.INSTANCE);
+        int removed = template.update(DELETE_ORPHANS_SQL, EmptySqlParameterSource.INSTANCE);
+
+        if (fixed > 0) {
+          XLOGGER.info("Reconciled user counts of {} roles", fixed);
+          resourceVersionService
+              .markChanged(ResourceVersionService.getResourceType(RoleAssignment.class));
+        }
+
+        XLOGGER.debug("Removed user counts of {} deleted roles", removed);
+        return null;
+      });
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not reconcile role user counts: {}", ex.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.dto.SearchResultDto;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds facilities, orderables, geographic zones and users by code or name. Every resource type
+ * is matched with LIKE and with the pg_trgm similarity operator, so both substring and fuzzy
+ * matches can use the trigram GIN indexes. Results are ranked by similarity, with prefix matches
+ * first, and limited in the database.
+ */
+@Service
+public class SearchService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(SearchService.class);
+
+  private static final String UPPER = "UPPER";
+  private static final String LOWER = "LOWER";
+
+  static final String LIMIT = "limit";
+
+  static final Map<SearchResourceType, String> QUERIES = new EnumMap<>(SearchResourceType.class);
+
+  static {
+    QUERIES.put(SearchResourceType.FACILITY, select(SearchResourceType.FACILITY,
+        "referencedata.facilities AS f", "f.id", "f.code", "f.name", UPPER,
+        null, "f.code", "f.name"));
+    QUERIES.put(SearchResourceType.ORDERABLE, select(SearchResourceType.ORDERABLE,
+        "referencedata.orderables AS o", "o.id", "o.code", "o.fullproductname", LOWER,
+        "o.versionnumber = (SELECT MAX(l.versionnumber)"
+            + " FROM referencedata.orderables AS l WHERE l.id = o.id)",
+        "o.code", "o.fullproductname"));
+    QUERIES.put(SearchResourceType.GEOGRAPHIC_ZONE, select(SearchResourceType.GEOGRAPHIC_ZONE,
+        "referencedata.geographic_zones AS g", "g.id", "g.code", "g.name", UPPER,
+        null, "g.code", "g.name"));
+    QUERIES.put(SearchResourceType.USER, select(SearchResourceType.USER,
+        "referencedata.users AS u", "u.id", "u.username",
+        "CONCAT_WS(' ', u.firstname, u.lastname)", UPPER,
+        null, "u.username", "u.firstname", "u.lastname"));
+  }
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  /**
+   * Returns the best matching resources of the given types.
+   *
+   * @param query part of a code or a name, may contain typos.
+   * @param types resource types to search.
+   * @param limit maximum number of results.
+   * @return results ordered from the best match.
+   */
+  public List<SearchResultDto> search(String query, Set<SearchResourceType> types, int limit) {
+    XLOGGER.entry(query, types, limit);
+    Profiler profiler = new MeteredProfiler("SEARCH_RESOURCES");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("BUILD_QUERY");
+    String sql = EnumSet.copyOf(types)
+        .stream()
+        .map(QUERIES::get)
+        .collect(joining(" UNION ALL ", "SELECT * FROM (",
+            ") AS results ORDER BY score DESC, name LIMIT :" + LIMIT));
+
+    Map<String, Object> params = new HashMap<>();
+    addParams(params, UPPER, query.toUpperCase(Locale.ENGLISH));
+    addParams(params, LOWER, query.toLowerCase(Locale.ENGLISH));
+    params.put(LIMIT, limit);
+
+    profiler.start("EXECUTE_QUERY");
+    List<SearchResultDto> results = template.query(sql, params, (rs, rowNum) ->
+        new SearchResultDto(SearchResourceType.valueOf(rs.getString("type")),
+            (UUID) rs.getObject("id"), rs.getString("code"), rs.getString("name"),
+            rs.getDouble("score")));
+
+    profiler.stop().log();
+    XLOGGER.exit(results.size());
+    return results;
+  }
+
+  static String escapeLike(String value) {
+    return value
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_");
+  }
+
+  private static void addParams(Map<String, Object> params, String function, String query) {
+    String prefix = function.toLowerCase(Locale.ENGLISH);
+    String escaped = escapeLike(query);
+
+    params.put(prefix + "Query", query);
+    params.put(prefix + "Prefix", escaped + '%');
+    params.put(prefix + "Contains", '%' + escaped + '%');
+  }
+
+  private static String select(SearchResourceType type, String from, String id, String code,
+      String name, String function, String condition, String... columns) {
+    String param = ":" + function.toLowerCase(Locale.ENGLISH);
+    List<String> expressions = Arrays.stream(columns)
+        .map(column -> function + '(' + column + ')')
+        .collect(toList());
+
+    String similarity = expressions.stream()
+        .map(expression -> "public.similarity(" + expression + ", " + param + "Query)")
+        .collect(joining(", ", "GREATEST(", ")"));
+    String prefixMatch = expressions.stream()
+        .map(expression -> expression + " LIKE " + param + "Prefix")
+        .collect(joining(" OR "));
+    String match = expressions.stream()
+        .flatMap(expression -> Stream.of(
+            expression + " LIKE " + param + "Contains",
+            expression + " OPERATOR(public.%) " + param + "Query"))
+        .collect(joining(" OR ", "(", ")"));
+
+    return "(SELECT '" + type + "' AS type, " + id + " AS id, " + code + " AS code, "
+        + name + " AS name, " + similarity + " + CASE WHEN " + prefixMatch
+        + " THEN 1 ELSE 0 END AS score"
+        + " FROM " + from
+        + " WHERE " + match + (null == condition ? "" : " AND " + condition)
+        + " ORDER BY score DESC LIMIT :" + LIMIT + ")";
+  }
+
+}
@@ -0,0 +1,123 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.io.Serializable;
+import java.util.HashSet;
+import java.util.Set;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts Hibernate second-level cache regions of entities changed by other instances of the
+ * service and invalidates cached query results which use their tables. Changes made by this
+ * instance are handled by Hibernate itself.
+ */
+@Component
+public class SecondLevelCacheEvictor {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(SecondLevelCacheEvictor.class);
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  /**
+   * Evicts cached data and collections of the changed entity types. Whole regions are evicted,
+   * because cached entities (like orderables) use composite identifiers.
+   */
+  @EventListener
+  public void evict(EntitiesChangedEvent event) {
+    if (!event.isRemote()) {
+      return;
+    }
+
+    SessionFactoryImplementor sessionFactory = entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class);
+    CacheImplementor cache = sessionFactory.getCache();
+
+    if (event.isEvictAll()) {
+      cache.evictAllRegions();
+      return;
+    }
+
+    MetamodelImplementor metamodel = sessionFactory.getMetamodel();
+    Set<String> querySpaces = new HashSet<>();
+
+    for (String entityName : event.getEntityNames()) {
+      EntityPersister entityPersister = metamodel.entityPersisters().get(entityName);
+
+      if (null == entityPersister) {
+        XLOGGER.debug("Unknown entity {} in cache invalidation message", entityName);
+        continue;
+      }
+
+      if (entityPersister.canWriteToCache()) {
+        cache.evictEntityData(entityName);
+      }
+
+      addQuerySpaces(querySpaces, entityPersister.getPropertySpaces());
+
+      for (CollectionPersister collectionPersister : metamodel.collectionPersisters().values()) {
+        if (!entityName.equals(collectionPersister.getOwnerEntityPersister().getEntityName())) {
+          continue;
+        }
+
+        if (collectionPersister.hasCache()) {
+          cache.evictCollectionData(collectionPersister.getRole());
+        }
+
+        addQuerySpaces(querySpaces, collectionPersister.getCollectionSpaces());
+      }
+    }
+
+    invalidateQueries(sessionFactory, querySpaces);
+  }
+
+  private void addQuerySpaces(Set<String> querySpaces, Serializable[] spaces) {
+    for (Serializable space : spaces) {
+      querySpaces.add(String.valueOf(space));
+    }
+  }
+
+  /**
+   * Marks the given tables as updated, so cached query results which use them are not returned
+   * anymore. This is what Hibernate does after a local update.
+   */
+  private void invalidateQueries(SessionFactoryImplementor sessionFactory,
+      Set<String> querySpaces) {
+    if (querySpaces.isEmpty() || !sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+      return;
+    }
+
+    try (Session session = sessionFactory.openSession()) {
+      sessionFactory.getCache().getTimestampsCache().invalidate(
+          querySpaces.toArray(new String[0]), (SharedSessionContractImplementor) session);
+    }
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.List;
+import javax.persistence.Cacheable;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.metamodel.EntityType;
+import org.apache.commons.lang3.ArrayUtils;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Loads all rows of small, slow-changing entities once the service has started, so they are
+ * already in the second-level cache when the first requests arrive.
+ */
+@Component
+public class SecondLevelCacheWarmer {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(SecondLevelCacheWarmer.class);
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${cacheWarmUp.entities}")
+  private String[] entityNames;
+
+  /**
+   * Loads entities listed in the cacheWarmUp.entities property. Entities which are not cached
+   * are skipped.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+
+    for (EntityType<?> entityType : entityManager.getMetamodel().getEntities()) {
+      Class<?> javaType = entityType.getJavaType();
+
+      if (!ArrayUtils.contains(entityNames, entityType.getName())) {
+        continue;
+      }
+
+      if (!javaType.isAnnotationPresent(Cacheable.class)) {
+        XLOGGER.warn("Entity {} is not cached, skipping warm up", entityType.getName());
+        continue;
+      }
+
+      try {
+        int loaded = transaction.execute(status -> loadAll(javaType).size());
+        XLOGGER.info("Loaded {} {} entities into the second-level cache", loaded,
+            entityType.getName());
+      } catch (RuntimeException ex) {
+        XLOGGER.warn("Could not warm up cache of {}: {}", entityType.getName(), ex.getMessage());
+      }
+    }
+  }
+
+  private <T> List<T> loadAll(Class<T> type) {
+    CriteriaQuery<T> query = entityManager.getCriteriaBuilder().createQuery(type);
+    query.select(query.from(type));
+
+    return entityManager.createQuery(query).getResultList();
+  }
+
+}
@@ -22,6 +22,7 @@ import static org.openlmis.referencedata.util.messagekeys.SupplyPartnerMessageKe
 import static org.openlmis.referencedata.util.messagekeys.SupplyPartnerMessageKeys.ERROR_INVALID_ORDERABLE;
 import static org.openlmis.referencedata.util.messagekeys.SupplyPartnerMessageKeys.ERROR_INVALID_SUPERVISORY_NODE;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -30,6 +31,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.Facility;
 import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
@@ -109,13 +111,17 @@ public class SupplyPartnerBuilder
       return;
     }
 
-    associations
-        .stream()
-        .map(this::createAssociation)
-        .forEach(supplyPartner::addAssociation);
+    List<SupplyPartnerAssociation> created = new ArrayList<>(associations.size());
+
+    for (SupplyPartnerAssociationDto dto : associations) {
+      created.add(createAssociation(dto, supplyPartner.getId(), created));
+    }
+
+    created.forEach(supplyPartner::addAssociation);
   }
 
-  private SupplyPartnerAssociation createAssociation(SupplyPartnerAssociationDto dto) {
+  private SupplyPartnerAssociation createAssociation(SupplyPartnerAssociationDto dto,
+      UUID supplyPartnerId, Collection<SupplyPartnerAssociation> created) {
     if (dto.getFacilityIds().isEmpty()) {
       throw new ValidationMessageException(SupplyPartnerMessageKeys.ERROR_MISSING_FACILITIES);
     }
@@ -139,7 +145,8 @@ public class SupplyPartnerBuilder
 
     validateFacilities(program, supervisoryNode, facilities);
     validateOrderables(program, facilities, orderables);
-    validateGlobalAssociationUniqueness(program, supervisoryNode, facilities, orderables);
+    validateGlobalAssociationUniqueness(supplyPartnerId, created, program, supervisoryNode,
+        facilities, orderables);
 
     return new SupplyPartnerAssociation(program, supervisoryNode, facilities, orderables);
   }
@@ -215,39 +222,63 @@ public class SupplyPartnerBuilder
   /**
    * The given supply partner should have only one association for the given
    * program/node/facility/orderable combo, the check should be global. It means that other
-   * supply partner cannot have the same combo.
+   * supply partner cannot have the same combo, and neither can other associations of the given
+   * supply partner.
    */
-  private void validateGlobalAssociationUniqueness(Program program, SupervisoryNode supervisoryNode,
-      Collection<Facility> facilities, Collection<Orderable> orderables) {
-
-    // Builder retrieves all supply partners instead of finding those that match combo
-    // (described in the method javadoc) because of number of operations needed to check.
-    // To do this in the right way we would need to execute X * Y calls to the database
-    // (where X - number of facilities, Y - number of orderables) to verify that there is
-    // exactly one supply partner for the given combo. For now, we assume that number of this
-    // resource will be small so currently, it is easier to simply retrieve all of them with
-    // the single call to the database and validate global unique in the memory.
-    List<SupplyPartnerAssociation> associations = supplyPartnerRepository
-        .findAll()
-        .stream()
-        .map(SupplyPartner::getAssociations)
-        .flatMap(Collection::stream)
-        .collect(Collectors.toList());
-
+  private void validateGlobalAssociationUniqueness(UUID supplyPartnerId,
+      Collection<SupplyPartnerAssociation> created, Program program,
+      SupervisoryNode supervisoryNode, Collection<Facility> facilities,
+      Collection<Orderable> orderables) {
+    // stored associations of the given supply partner are replaced, so the lookup below skips
+    // them and the new ones are checked against each other here
     for (Facility facility : facilities) {
       for (Orderable orderable : orderables) {
-        boolean exists = associations
+        boolean exists = created
             .stream()
             .anyMatch(association -> association
                 .match(program, supervisoryNode, facility, orderable));
 
         if (exists) {
-          throw new ValidationMessageException(
-              new Message(ERROR_GLOBAL_UNIQUE,
-                  program.getName(), supervisoryNode.getCode(),
-                  facility.getName(), orderable.getFullProductName()));
+          throw notUniqueException(program, supervisoryNode, facility, orderable);
         }
       }
     }
+
+    Set<UUID> facilityIds = facilities
+        .stream()
+        .map(Facility::getId)
+        .collect(Collectors.toSet());
+
+    Set<UUID> orderableIds = orderables
+        .stream()
+        .map(Orderable::getId)
+        .collect(Collectors.toSet());
+
+    // The database returns only those facility/orderable pairs of the given program and node
+    // that are already used by other supply partners, so instead of loading all associations
+    // every combo is checked with a single lookup.
+    Set<Pair<UUID, UUID>> usedPairs = supplyPartnerRepository
+        .findAssociatedFacilityOrderablePairs(program.getId(), supervisoryNode.getId(),
+            facilityIds, orderableIds, supplyPartnerId);
+
+    if (usedPairs.isEmpty()) {
+      return;
+    }
+
+    for (Facility facility : facilities) {
+      for (Orderable orderable : orderables) {
+        if (usedPairs.contains(Pair.of(facility.getId(), orderable.getId()))) {
+          throw notUniqueException(program, supervisoryNode, facility, orderable);
+        }
+      }
+    }
+  }
+
+  private ValidationMessageException notUniqueException(Program program,
+      SupervisoryNode supervisoryNode, Facility facility, Orderable orderable) {
+    return new ValidationMessageException(
+        new Message(ERROR_GLOBAL_UNIQUE,
+            program.getName(), supervisoryNode.getCode(),
+            facility.getName(), orderable.getFullProductName()));
   }
 }
@@ -0,0 +1,339 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.service.UserRoleAssignmentService.References;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates many users with their role assignments in one transaction. The batch is validated with
+ * set based queries, users are inserted with JDBC batching, role assignments are inserted
+ * directly and right assignments of all new users are generated once, at the end, instead of
+ * being built from the domain model for every user. Items which can't be saved are reported in
+ * the results and don't stop the rest of the batch.
+ */
+@Service
+public class UserBatchService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(UserBatchService.class);
+
+  static final int LOCK_NAMESPACE = 5;
+
+  static final String INSERT_ROLE_ASSIGNMENT_SQL = "INSERT INTO referencedata.role_assignments"
+      + " (type, id, roleid, userid, warehouseid, programid, supervisorynodeid)"
+      + " VALUES (:type, :id, :roleId, :userId, :warehouseId, :programId, :supervisoryNodeId)";
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private FacilityRepository facilityRepository;
+
+  @Autowired
+  private UserRoleAssignmentService userRoleAssignmentService;
+
+  @Autowired
+  private RightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
+
+  @Autowired
+  private MessageService messageService;
+
+  @Autowired
+  private BatchWriter batchWriter;
+
+  /**
+   * Creates the given users. See {@link #create(Map)}.
+   *
+   * @param users the users to create
+   * @return result of every item, in the order of the given users
+   */
+  @Transactional
+  public List<BatchItemResultDto<UserDto>> create(List<UserDto> users) {
+    batchWriter.checkSize(users);
+
+    Map<Integer, UserDto> indexed = new LinkedHashMap<>();
+    for (int index = 0; index < users.size(); ++index) {
+      indexed.put(index, users.get(index));
+    }
+
+    return create(indexed);
+  }
+
+  /**
+   * Creates the given users with their role assignments. New users always get new IDs, and
+   * usernames must be unique, ignoring case, both in the batch and in the database. The size of
+   * the batch is not limited here, so that large imports can be split into chunks by the caller.
+   *
+   * @param users the users to create by the index reported in their results
+   * @return result of every item, in the iteration order of the given map
+   */
+  @Transactional
+  public List<BatchItemResultDto<UserDto>> create(Map<Integer, UserDto> users) {
+    Profiler profiler = new MeteredProfiler("USERS_BATCH_CREATE");
+    profiler.setLogger(XLOGGER);
+
+    Map<Integer, BatchItemResultDto<UserDto>> results = new LinkedHashMap<>();
+    users.keySet().forEach(index -> results.put(index, null));
+
+    profiler.start("VALIDATE_USERS");
+    List<Item> items = validate(users, results);
+
+    profiler.start("LOCK_USERNAMES");
+    batchWriter.lock(LOCK_NAMESPACE, items
+        .stream()
+        .map(item -> item.username)
+        .collect(Collectors.toList()));
+
+    profiler.start("FIND_EXISTING_USERNAMES");
+    Set<String> existing = items.isEmpty()
+        ? new HashSet<>()
+        : userRepository.findExistingUsernames(items
+            .stream()
+            .map(item -> item.username)
+            .collect(Collectors.toSet()));
+    items = filter(items, item -> existing.contains(item.username)
+        ? new Message(UserMessageKeys.ERROR_USERNAME_DUPLICATED)
+        : null, results);
+
+    profiler.start("FIND_REFERENCED_RESOURCES");
+    items = checkReferences(items, results);
+
+    profiler.start("SAVE_USERS");
+    List<User> built = new ArrayList<>(items.size());
+    for (Item item : items) {
+      item.user = User.newUser(item.dto);
+      built.add(item.user);
+    }
+    batchWriter.persist(built);
+
+    profiler.start("SAVE_ROLE_ASSIGNMENTS");
+    saveRoleAssignments(items);
+
+    profiler.start("GENERATE_RIGHT_ASSIGNMENTS");
+    rightAssignmentService.regenerateRightAssignments(built
+        .stream()
+        .map(User::getId)
+        .collect(Collectors.toList()));
+
+    for (Item item : items) {
+      UserDto dto = new UserDto();
+      item.user.export(dto);
+      dto.setRoleAssignments(item.roleAssignments);
+      results.put(item.index, BatchItemResultDto.created(item.index, dto));
+    }
+
+    XLOGGER.info("Created {} of {} users", items.size(), users.size());
+
+    profiler.stop().log();
+    return new ArrayList<>(results.values());
+  }
+
+  private List<Item> validate(Map<Integer, UserDto> users,
+      Map<Integer, BatchItemResultDto<UserDto>> results) {
+    List<Item> items = new ArrayList<>(users.size());
+
+    for (Map.Entry<Integer, UserDto> entry : users.entrySet()) {
+      int index = entry.getKey();
+      UserDto dto = entry.getValue();
+      Message error = validate(dto);
+
+      if (null == error) {
+        Set<RoleAssignmentDto> roleAssignments = null == dto.getRoleAssignments()
+            ? new HashSet<>()
+            : dto.getRoleAssignments()
+                .stream()
+                .map(UserRoleAssignmentService::normalize)
+                .collect(Collectors.toSet());
+
+        items.add(new Item(index, dto, dto.getUsername().toLowerCase(), roleAssignments));
+      } else {
+        results.put(index, failed(index, error));
+      }
+    }
+
+    Set<String> usernames = new HashSet<>();
+    return filter(items, item -> usernames.add(item.username)
+        ? null
+        : new Message(BatchMessageKeys.ERROR_ITEM_DUPLICATED), results);
+  }
+
+  private Message validate(UserDto user) {
+    if (null == user) {
+      return new Message(UserMessageKeys.ERROR_NULL);
+    }
+
+    if (null != user.getId()) {
+      return new Message(UserMessageKeys.ERROR_IMPORT_ID_NOT_ALLOWED);
+    }
+
+    if (StringUtils.isBlank(user.getUsername())) {
+      return new Message(UserMessageKeys.ERROR_USERNAME_REQUIRED);
+    }
+
+    if (StringUtils.isBlank(user.getFirstName())) {
+      return new Message(UserMessageKeys.ERROR_FIRSTNAME_REQUIRED);
+    }
+
+    if (StringUtils.isBlank(user.getLastName())) {
+      return new Message(UserMessageKeys.ERROR_LASTNAME_REQUIRED);
+    }
+
+    if (!user.getUsername().matches("\\w+")) {
+      return new Message(UserMessageKeys.ERROR_USERNAME_INVALID);
+    }
+
+    if (null != user.getRoleAssignments() && user.getRoleAssignments()
+        .stream()
+        .anyMatch(roleAssignment -> null == roleAssignment.getRoleId())) {
+      return new Message(UserMessageKeys.ERROR_ROLE_ID_NULL);
+    }
+
+    return null;
+  }
+
+  private List<Item> checkReferences(List<Item> items,
+      Map<Integer, BatchItemResultDto<UserDto>> results) {
+    Set<UUID> homeFacilityIds = items
+        .stream()
+        .map(item -> item.dto.getHomeFacilityId())
+        .filter(id -> null != id)
+        .collect(Collectors.toSet());
+    Set<UUID> homeFacilities = homeFacilityIds.isEmpty()
+        ? new HashSet<>()
+        : facilityRepository
+            .findAllById(homeFacilityIds)
+            .stream()
+            .map(Facility::getId)
+            .collect(Collectors.toSet());
+
+    References references = userRoleAssignmentService.findReferences(items
+        .stream()
+        .flatMap(item -> item.roleAssignments.stream())
+        .collect(Collectors.toSet()));
+
+    return filter(items, item -> {
+      UUID homeFacilityId = item.dto.getHomeFacilityId();
+
+      if (null != homeFacilityId && !homeFacilities.contains(homeFacilityId)) {
+        return new Message(UserMessageKeys.ERROR_HOME_FACILITY_NON_EXISTENT);
+      }
+
+      return item.roleAssignments
+          .stream()
+          .map(references::check)
+          .filter(error -> null != error)
+          .findFirst()
+          .orElse(null);
+    }, results);
+  }
+
+  private void saveRoleAssignments(List<Item> items) {
+    List<MapSqlParameterSource> rows = new ArrayList<>();
+
+    for (Item item : items) {
+      for (RoleAssignmentDto roleAssignment : item.roleAssignments) {
+        String type;
+
+        if (null != roleAssignment.getProgramId()) {
+          type = "supervision";
+        } else if (null != roleAssignment.getWarehouseId()) {
+          type = "fulfillment";
+        } else {
+          type = "direct";
+        }
+
+        rows.add(new MapSqlParameterSource()
+            .addValue("type", type)
+            .addValue("id", UUID.randomUUID())
+            .addValue("roleId", roleAssignment.getRoleId())
+            .addValue("userId", item.user.getId())
+            .addValue("warehouseId", roleAssignment.getWarehouseId())
+            .addValue("programId", roleAssignment.getProgramId())
+            .addValue("supervisoryNodeId", roleAssignment.getSupervisoryNodeId()));
+      }
+    }
+
+    if (!rows.isEmpty()) {
+      batchWriter.insert(INSERT_ROLE_ASSIGNMENT_SQL, rows);
+      resourceVersionService.markChanged(ResourceVersionService.getResourceType(
+          RoleAssignment.class));
+    }
+  }
+
+  private List<Item> filter(List<Item> items, Function<Item, Message> check,
+      Map<Integer, BatchItemResultDto<UserDto>> results) {
+    List<Item> valid = new ArrayList<>(items.size());
+
+    for (Item item : items) {
+      Message error = check.apply(item);
+
+      if (null == error) {
+        valid.add(item);
+      } else {
+        results.put(item.index, failed(item.index, error));
+      }
+    }
+
+    return valid;
+  }
+
+  private BatchItemResultDto<UserDto> failed(int index, Message error) {
+    return BatchItemResultDto.failed(index, messageService.localize(error));
+  }
+
+  @RequiredArgsConstructor
+  private static final class Item {
+    private final int index;
+    private final UserDto dto;
+    private final String username;
+    private final Set<RoleAssignmentDto> roleAssignments;
+    private User user;
+  }
+
+}
@@ -0,0 +1,397 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import com.google.common.collect.Iterables;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.SupervisoryNode;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.dto.UserCsvModel;
+import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.MessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.openlmis.referencedata.validate.CsvHeaderValidator;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.parser.CsvParser;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports many users at once, given as a list or as a CSV file (see {@link UserCsvModel}). A
+ * small import is saved synchronously in one transaction by {@link UserBatchService}. A large one
+ * can be submitted as a job (see {@link JobService}), which saves the users in chunks, each in
+ * its own transaction, so the progress can be polled and users of finished chunks are kept even
+ * if a later chunk fails or the job is cancelled. The result of the job is the list of results
+ * of processed users.
+ */
+@Service
+public class UserImportService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(UserImportService.class);
+
+  static final String RESULT_NAME = "user_import_results.json";
+  static final String ROLE = "role";
+  static final String HOME_FACILITY_CODE = "homeFacilityCode";
+  static final String PROGRAM_CODE = "programCode";
+  static final String SUPERVISORY_NODE_CODE = "supervisoryNodeCode";
+  static final String WAREHOUSE_CODE = "warehouseCode";
+
+  @Autowired
+  private UserBatchService userBatchService;
+
+  @Autowired
+  private BatchWriter batchWriter;
+
+  @Autowired
+  private CsvParser csvParser;
+
+  @Autowired
+  private CsvHeaderValidator csvHeaderValidator;
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private FacilityRepository facilityRepository;
+
+  @Autowired
+  private ProgramRepository programRepository;
+
+  @Autowired
+  private SupervisoryNodeRepository supervisoryNodeRepository;
+
+  @Autowired
+  private MessageService messageService;
+
+  @Autowired
+  private JobService jobService;
+
+  @Value("${userImport.maxSize}")
+  private int maxSize;
+
+  @Value("${userImport.chunkSize}")
+  private int chunkSize;
+
+  /**
+   * Creates the given users in one transaction.
+   *
+   * @param users the users to create
+   * @return result of every user, in the order of the given users
+   */
+  public List<BatchItemResultDto<UserDto>> importUsers(List<UserDto> users) {
+    return userBatchService.create(users);
+  }
+
+  /**
+   * Creates users described by the given CSV file in one transaction. There is one result for
+   * each user, with the index of the first row of that user; rows are counted from 0, without
+   * the header.
+   *
+   * @param csv the content of the file
+   * @return result of every user, in the order of their first rows
+   */
+  public List<BatchItemResultDto<UserDto>> importUsers(InputStream csv) {
+    CsvUsers parsed = readCsv(csv);
+    batchWriter.checkSize(parsed.users.keySet());
+
+    List<BatchItemResultDto<UserDto>> results = new ArrayList<>(parsed.failed);
+    if (!parsed.users.isEmpty()) {
+      results.addAll(userBatchService.create(parsed.users));
+    }
+
+    results.sort(Comparator.comparingInt(BatchItemResultDto::getIndex));
+    return results;
+  }
+
+  /**
+   * Submits a job creating the given users. See {@link #importUsers(List)}.
+   *
+   * @param users the users to create
+   * @return the queued job
+   */
+  public JobDto submit(List<UserDto> users) {
+    checkSize(users);
+
+    Map<Integer, UserDto> indexed = new LinkedHashMap<>();
+    for (int index = 0; index < users.size(); ++index) {
+      indexed.put(index, users.get(index));
+    }
+
+    return submit(indexed, new ArrayList<>());
+  }
+
+  /**
+   * Submits a job creating users described by the given CSV file. The file is read and checked
+   * before the job is queued. See {@link #importUsers(InputStream)}.
+   *
+   * @param csv the content of the file
+   * @return the queued job
+   */
+  public JobDto submit(InputStream csv) {
+    CsvUsers parsed = readCsv(csv);
+    checkSize(parsed.users.keySet());
+
+    return submit(parsed.users, parsed.failed);
+  }
+
+  private JobDto submit(Map<Integer, UserDto> users,
+      List<BatchItemResultDto<UserDto>> failed) {
+    return jobService.submit(JobType.USER_IMPORT, context -> run(context, users, failed));
+  }
+
+  private void run(JobContext context, Map<Integer, UserDto> users,
+      List<BatchItemResultDto<UserDto>> results) {
+    Profiler profiler = new MeteredProfiler("RUN_USER_IMPORT_JOB");
+    profiler.setLogger(XLOGGER);
+
+    context.setTotal((long) users.size() + results.size());
+    context.advance(results.size());
+    context.setJsonResult(RESULT_NAME, results);
+
+    try {
+      for (List<Integer> indexes : Iterables.partition(users.keySet(), chunkSize)) {
+        context.checkCancelled();
+
+        profiler.start("CREATE_USERS_CHUNK");
+        Map<Integer, UserDto> chunk = new LinkedHashMap<>();
+        indexes.forEach(index -> chunk.put(index, users.get(index)));
+
+        List<BatchItemResultDto<UserDto>> chunkResults = userBatchService.create(chunk);
+        results.addAll(chunkResults);
+        context.advance(chunkResults.size());
+      }
+    } finally {
+      results.sort(Comparator.comparingInt(BatchItemResultDto::getIndex));
+      profiler.stop().log();
+    }
+  }
+
+  private void checkSize(Collection<?> users) {
+    if (users.size() > maxSize) {
+      throw new ValidationMessageException(new Message(BatchMessageKeys.ERROR_TOO_LARGE, maxSize));
+    }
+  }
+
+  private CsvUsers readCsv(InputStream csv) {
+    Profiler profiler = new MeteredProfiler("READ_USERS_CSV");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("PARSE_CSV");
+    List<UserCsvModel> rows;
+    try {
+      rows = csvParser.read(csv, new ModelClass<>(UserCsvModel.class), csvHeaderValidator);
+    } catch (IOException ex) {
+      throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    }
+
+    profiler.start("FIND_REFERENCED_RESOURCES");
+    CsvReferences references = findReferences(rows);
+
+    profiler.start("BUILD_USERS");
+    Map<String, Integer> firstRows = new HashMap<>();
+    Map<Integer, UserDto> users = new LinkedHashMap<>();
+    Map<Integer, Message> errors = new HashMap<>();
+
+    for (int index = 0; index < rows.size(); ++index) {
+      UserCsvModel row = rows.get(index);
+      Integer first = firstRows.putIfAbsent(row.getUsername().toLowerCase(), index);
+
+      if (null == first) {
+        first = index;
+        UserDto user = new UserDto();
+        user.setUsername(row.getUsername());
+        user.setFirstName(row.getFirstName());
+        user.setLastName(row.getLastName());
+        user.setJobTitle(row.getJobTitle());
+        user.setTimezone(row.getTimezone());
+        user.setActive(Boolean.TRUE.equals(row.getActive()));
+        users.put(index, user);
+
+        if (null != row.getHomeFacilityCode()) {
+          Facility homeFacility = references.facilities.get(row.getHomeFacilityCode());
+
+          if (null == homeFacility) {
+            errors.putIfAbsent(index, new Message(UserMessageKeys.ERROR_IMPORT_REFERENCE_NOT_FOUND,
+                HOME_FACILITY_CODE, row.getHomeFacilityCode()));
+          } else {
+            user.setHomeFacilityId(homeFacility.getId());
+          }
+        }
+      }
+
+      if (!errors.containsKey(first)) {
+        Message error = addRoleAssignment(users.get(first), row, references);
+
+        if (null != error) {
+          errors.put(first, error);
+        }
+      }
+    }
+
+    CsvUsers parsed = new CsvUsers();
+    for (Map.Entry<Integer, Message> error : errors.entrySet()) {
+      users.remove(error.getKey());
+      parsed.failed.add(BatchItemResultDto.failed(error.getKey(),
+          messageService.localize(error.getValue())));
+    }
+    parsed.users = users;
+
+    profiler.stop().log();
+    return parsed;
+  }
+
+  private Message addRoleAssignment(UserDto user, UserCsvModel row, CsvReferences references) {
+    if (null == row.getRole()) {
+      boolean scoped = null != row.getProgramCode() || null != row.getSupervisoryNodeCode()
+          || null != row.getWarehouseCode();
+      return scoped ? new Message(UserMessageKeys.ERROR_ROLE_ID_NULL) : null;
+    }
+
+    RoleAssignmentDto roleAssignment = new RoleAssignmentDto();
+
+    Role role = references.roles.get(row.getRole());
+    if (null == role) {
+      return referenceNotFound(ROLE, row.getRole());
+    }
+    roleAssignment.setRoleId(role.getId());
+
+    if (null != row.getProgramCode()) {
+      Program program = references.programs.get(toProgramKey(row.getProgramCode()));
+      if (null == program) {
+        return referenceNotFound(PROGRAM_CODE, row.getProgramCode());
+      }
+      roleAssignment.setProgramId(program.getId());
+    }
+
+    if (null != row.getSupervisoryNodeCode()) {
+      SupervisoryNode node = references.supervisoryNodes.get(row.getSupervisoryNodeCode());
+      if (null == node) {
+        return referenceNotFound(SUPERVISORY_NODE_CODE, row.getSupervisoryNodeCode());
+      }
+      roleAssignment.setSupervisoryNodeId(node.getId());
+    }
+
+    if (null != row.getWarehouseCode()) {
+      Facility warehouse = references.facilities.get(row.getWarehouseCode());
+      if (null == warehouse) {
+        return referenceNotFound(WAREHOUSE_CODE, row.getWarehouseCode());
+      }
+      roleAssignment.setWarehouseId(warehouse.getId());
+    }
+
+    user.getRoleAssignments().add(roleAssignment);
+    return null;
+  }
+
+  private CsvReferences findReferences(List<UserCsvModel> rows) {
+    Set<String> facilityCodes = collect(rows, UserCsvModel::getHomeFacilityCode);
+    facilityCodes.addAll(collect(rows, UserCsvModel::getWarehouseCode));
+
+    CsvReferences references = new CsvReferences();
+    references.roles = toMap(collect(rows, UserCsvModel::getRole),
+        roleRepository::findAllByNameIn, Role::getName);
+    references.facilities = toMap(facilityCodes,
+        facilityRepository::findAllByCodeIn, Facility::getCode);
+    references.programs = toMap(rows
+            .stream()
+            .map(UserCsvModel::getProgramCode)
+            .filter(Objects::nonNull)
+            .map(UserImportService::toProgramKey)
+            .collect(Collectors.toSet()),
+        programRepository::findAllByLowerCaseCodeIn,
+        program -> toProgramKey(program.getCode().toString()));
+    references.supervisoryNodes = toMap(collect(rows, UserCsvModel::getSupervisoryNodeCode),
+        supervisoryNodeRepository::findAllByCodeIn, SupervisoryNode::getCode);
+
+    return references;
+  }
+
+  private Message referenceNotFound(String column, String value) {
+    return new Message(UserMessageKeys.ERROR_IMPORT_REFERENCE_NOT_FOUND, column, value);
+  }
+
+  private static String toProgramKey(String code) {
+    // program codes are compared ignoring case and whitespace, see Code
+    return StringUtils.deleteWhitespace(code).toLowerCase();
+  }
+
+  private static Set<String> collect(List<UserCsvModel> rows,
+      Function<UserCsvModel, String> getter) {
+    return rows
+        .stream()
+        .map(getter)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+  }
+
+  private static <T> Map<String, T> toMap(Set<String> keys,
+      Function<Set<String>, List<T>> finder, Function<T, String> keyGetter) {
+    Map<String, T> map = new HashMap<>();
+
+    if (!keys.isEmpty()) {
+      finder.apply(keys).forEach(resource -> map.put(keyGetter.apply(resource), resource));
+    }
+
+    return map;
+  }
+
+  private static final class CsvUsers {
+    private Map<Integer, UserDto> users;
+    private List<BatchItemResultDto<UserDto>> failed = new ArrayList<>();
+  }
+
+  private static final class CsvReferences {
+    private Map<String, Role> roles;
+    private Map<String, Facility> facilities;
+    private Map<String, Program> programs;
+    private Map<String, SupervisoryNode> supervisoryNodes;
+  }
+
+}
@@ -0,0 +1,326 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static java.util.stream.Collectors.toSet;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import org.openlmis.referencedata.domain.BaseEntity;
+import org.openlmis.referencedata.domain.DirectRoleAssignment;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FulfillmentRoleAssignment;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.RightType;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.domain.SupervisionRoleAssignment;
+import org.openlmis.referencedata.domain.SupervisoryNode;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.RoleAssignmentMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.RoleMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.SupervisoryNodeMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Updates role assignments of a user by applying only the difference between the requested and
+ * the persisted assignments. Unchanged assignments (and the right assignments granted by them)
+ * are kept, and roles, programs, supervisory nodes and warehouses are loaded in bulk.
+ */
+@Service
+public class UserRoleAssignmentService {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(UserRoleAssignmentService.class);
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private ProgramRepository programRepository;
+
+  @Autowired
+  private SupervisoryNodeRepository supervisoryNodeRepository;
+
+  @Autowired
+  private FacilityRepository facilityRepository;
+
+  /**
+   * Replaces role assignments of the given user with the requested ones. Only added and removed
+   * assignments are changed. Right assignments of the user are recalculated if any role
+   * assignment was removed or if the home facility of the user has changed, because supervision
+   * roles without a supervisory node grant rights at the home facility.
+   *
+   * @param user                 the user to update
+   * @param roleAssignmentDtos   requested role assignments
+   * @param homeFacilityChanged  true if the home facility of the user has changed
+   * @throws ValidationMessageException if a role is missing, does not exist or has no rights
+   */
+  public void updateRoleAssignments(User user, Set<RoleAssignmentDto> roleAssignmentDtos,
+      boolean homeFacilityChanged) {
+    Profiler profiler = new MeteredProfiler("UPDATE_USER_ROLE_ASSIGNMENTS");
+    profiler.setLogger(LOGGER);
+
+    profiler.start("NORMALIZE_REQUESTED_ASSIGNMENTS");
+    Set<RoleAssignmentDto> requested = new HashSet<>();
+    for (RoleAssignmentDto dto : roleAssignmentDtos) {
+      if (null == dto.getRoleId()) {
+        throw new ValidationMessageException(UserMessageKeys.ERROR_ROLE_ID_NULL);
+      }
+
+      requested.add(normalize(dto));
+    }
+
+    profiler.start("FIND_ROLES");
+    Map<UUID, Role> roles = findAll(roleRepository::findAllById,
+        requested.stream().map(RoleAssignmentDto::getRoleId).collect(toSet()));
+
+    for (RoleAssignmentDto dto : requested) {
+      Role role = roles.get(dto.getRoleId());
+
+      if (null == role) {
+        throw new ValidationMessageException(RoleMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (role.getRights().isEmpty()) {
+        throw new ValidationMessageException(new Message(
+            UserMessageKeys.ERROR_ASSIGNED_ROLE_RIGHTS_EMPTY, role.getName()));
+      }
+    }
+
+    profiler.start("DIFF_ASSIGNMENTS");
+    Set<RoleAssignment> removed = new HashSet<>();
+    Set<RoleAssignmentDto> added = new HashSet<>(requested);
+    for (RoleAssignment assignment : user.getRoleAssignments()) {
+      if (!added.remove(export(assignment))) {
+        removed.add(assignment);
+      }
+    }
+
+    LOGGER.debug("Adding {} and removing {} role assignments of user {}",
+        added.size(), removed.size(), user.getId());
+
+    if (!removed.isEmpty()) {
+      profiler.start("REMOVE_ASSIGNMENTS");
+      user.removeRoleAssignments(removed);
+    }
+
+    if (!added.isEmpty()) {
+      profiler.start("ADD_ASSIGNMENTS");
+      addRoleAssignments(user, added, findReferences(roles, added));
+    }
+
+    if (!removed.isEmpty() || homeFacilityChanged) {
+      profiler.start("RECALCULATE_RIGHT_ASSIGNMENTS");
+      user.recalculateRightAssignments();
+    }
+
+    profiler.stop().log();
+  }
+
+  /**
+   * Loads roles, programs, supervisory nodes and warehouses referenced by the given role
+   * assignments, with one query for each type of resource.
+   *
+   * @param roleAssignments role assignments to find references of
+   * @return found resources
+   */
+  public References findReferences(Collection<RoleAssignmentDto> roleAssignments) {
+    Map<UUID, Role> roles = findAll(roleRepository::findAllById,
+        collectIds(roleAssignments, RoleAssignmentDto::getRoleId));
+
+    return findReferences(roles, roleAssignments);
+  }
+
+  /**
+   * Adds the given role assignments to the user. Resources referenced by the assignments are
+   * taken from the given references; see {@link #findReferences(Collection)}.
+   *
+   * @param user            the user to which roles are assigned
+   * @param roleAssignments role assignments to add
+   * @param references      resources referenced by the role assignments
+   */
+  public void addRoleAssignments(User user, Collection<RoleAssignmentDto> roleAssignments,
+      References references) {
+    for (RoleAssignmentDto dto : roleAssignments) {
+      Role role = references.roles.get(dto.getRoleId());
+      RoleAssignment roleAssignment;
+
+      if (null != dto.getProgramId()) {
+        Program program = references.programs.get(dto.getProgramId());
+
+        if (null != dto.getSupervisoryNodeId()) {
+          roleAssignment = new SupervisionRoleAssignment(role, user, program,
+              references.supervisoryNodes.get(dto.getSupervisoryNodeId()));
+        } else {
+          roleAssignment = new SupervisionRoleAssignment(role, user, program);
+        }
+      } else if (null != dto.getWarehouseId()) {
+        roleAssignment = new FulfillmentRoleAssignment(role, user,
+            references.warehouses.get(dto.getWarehouseId()));
+      } else {
+        roleAssignment = new DirectRoleAssignment(role, user);
+      }
+
+      user.assignRoles(roleAssignment);
+    }
+  }
+
+  private References findReferences(Map<UUID, Role> roles,
+      Collection<RoleAssignmentDto> roleAssignments) {
+    References references = new References();
+    references.roles = roles;
+    references.programs = findAll(programRepository::findAllById,
+        collectIds(roleAssignments, RoleAssignmentDto::getProgramId));
+    references.supervisoryNodes = findAll(supervisoryNodeRepository::findAllById,
+        collectIds(roleAssignments, RoleAssignmentDto::getSupervisoryNodeId));
+    references.warehouses = findAll(facilityRepository::findAllById,
+        collectIds(roleAssignments, RoleAssignmentDto::getWarehouseId));
+
+    return references;
+  }
+
+  /**
+   * Drops identifiers that are ignored for the given kind of assignment, so that requested
+   * assignments can be compared with the persisted ones. An assignment with a program is a
+   * supervision one, otherwise an assignment with a warehouse is a fulfillment one and any other
+   * is a direct one.
+   */
+  public static RoleAssignmentDto normalize(RoleAssignmentDto dto) {
+    if (null != dto.getProgramId()) {
+      return new RoleAssignmentDto(dto.getRoleId(), dto.getProgramId(),
+          dto.getSupervisoryNodeId(), null);
+    }
+
+    if (null != dto.getWarehouseId()) {
+      return new RoleAssignmentDto(dto.getRoleId(), null, null, dto.getWarehouseId());
+    }
+
+    return new RoleAssignmentDto(dto.getRoleId(), null, null, null);
+  }
+
+  private RoleAssignmentDto export(RoleAssignment assignment) {
+    RoleAssignmentDto dto = new RoleAssignmentDto();
+
+    if (assignment instanceof SupervisionRoleAssignment) {
+      ((SupervisionRoleAssignment) assignment).export(dto);
+    } else if (assignment instanceof FulfillmentRoleAssignment) {
+      ((FulfillmentRoleAssignment) assignment).export(dto);
+    } else {
+      ((DirectRoleAssignment) assignment).export(dto);
+    }
+
+    return dto;
+  }
+
+  private static Set<UUID> collectIds(Collection<RoleAssignmentDto> dtos,
+      Function<RoleAssignmentDto, UUID> getter) {
+    return dtos.stream().map(getter).filter(Objects::nonNull).collect(toSet());
+  }
+
+  private static <T extends BaseEntity> Map<UUID, T> findAll(
+      Function<Set<UUID>, List<T>> finder, Set<UUID> ids) {
+    Map<UUID, T> resources = new HashMap<>();
+
+    if (!ids.isEmpty()) {
+      finder.apply(ids).forEach(resource -> resources.put(resource.getId(), resource));
+    }
+
+    return resources;
+  }
+
+  /**
+   * Resources referenced by role assignments, found in bulk.
+   */
+  public static final class References {
+    private Map<UUID, Role> roles;
+    private Map<UUID, Program> programs;
+    private Map<UUID, SupervisoryNode> supervisoryNodes;
+    private Map<UUID, Facility> warehouses;
+
+    /**
+     * Checks if the given role assignment can be saved: its role exists, has rights of a type
+     * accepted by this kind of assignment, and the program, supervisory node and warehouse
+     * exist.
+     *
+     * @param dto normalized role assignment, see
+     *            {@link UserRoleAssignmentService#normalize(RoleAssignmentDto)}
+     * @return the reason why the assignment is invalid, or null if it is valid
+     */
+    public Message check(RoleAssignmentDto dto) {
+      Role role = roles.get(dto.getRoleId());
+
+      if (null == role) {
+        return new Message(RoleMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (role.getRights().isEmpty()) {
+        return new Message(UserMessageKeys.ERROR_ASSIGNED_ROLE_RIGHTS_EMPTY, role.getName());
+      }
+
+      Set<RightType> acceptableRightTypes;
+
+      if (null != dto.getProgramId()) {
+        acceptableRightTypes = SupervisionRoleAssignment.ACCEPTABLE_RIGHT_TYPES;
+      } else if (null != dto.getWarehouseId()) {
+        acceptableRightTypes = FulfillmentRoleAssignment.ACCEPTABLE_RIGHT_TYPES;
+      } else {
+        acceptableRightTypes = DirectRoleAssignment.ACCEPTABLE_RIGHT_TYPES;
+      }
+
+      if (!acceptableRightTypes.contains(role.getRightType())) {
+        return new Message(RoleAssignmentMessageKeys.ERROR_TYPE_NOT_ACCEPTABLE,
+            role.getRightType(), acceptableRightTypes);
+      }
+
+      if (null != dto.getProgramId() && !programs.containsKey(dto.getProgramId())) {
+        return new Message(ProgramMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (null != dto.getSupervisoryNodeId()
+          && !supervisoryNodes.containsKey(dto.getSupervisoryNodeId())) {
+        return new Message(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      if (null != dto.getWarehouseId() && !warehouses.containsKey(dto.getWarehouseId())) {
+        return new Message(FacilityMessageKeys.ERROR_NOT_FOUND);
+      }
+
+      return null;
+    }
+  }
+}
@@ -17,7 +17,6 @@ package org.openlmis.referencedata.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -33,7 +32,8 @@ import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.UserSearchParams;
 import org.openlmis.referencedata.util.Message;
-import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
@@ -106,33 +106,60 @@ public class UserService {
    */
   public Page<User> searchUsers(UserSearchParams searchParams, Pageable pageable) {
 
-    Profiler profiler = new Profiler("SERVICE_USER_SEARCH");
+    Profiler profiler = new MeteredProfiler("SERVICE_USER_SEARCH");
     profiler.setLogger(LOGGER);
 
+    String extraDataString = getExtraData(searchParams, profiler);
+
+    profiler.start("SEARCH_IN_DB");
+    Page<User> result = userRepository.searchUsers(searchParams, extraDataString, pageable);
+
+    profiler.stop().log();
+
+    return result;
+  }
+
+  /**
+   * Method returns only the requested fields of all users with matched parameters. The users are
+   * not loaded.
+   *
+   * @param searchParams request parameters (username, firstName, lastName, email, homeFacility,
+   *                 active, verified) and JSON extraData.
+   * @param fields   fields that should be returned
+   * @param pageable pagination parameters
+   * @return Page of maps with the requested fields
+   */
+  public Page<Map<String, Object>> searchUsers(UserSearchParams searchParams,
+      SparseFieldset fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("SERVICE_USER_SEARCH_FIELDS");
+    profiler.setLogger(LOGGER);
+
+    String extraDataString = getExtraData(searchParams, profiler);
+
+    profiler.start("SEARCH_IN_DB");
+    Page<Map<String, Object>> result = userRepository
+        .searchUsers(searchParams, extraDataString, fields, pageable);
+
+    profiler.stop().log();
+
+    return result;
+  }
+
+  private String getExtraData(UserSearchParams searchParams, Profiler profiler) {
     profiler.start("GET_EXTRA_DATA_FROM_PARAMS");
     Map<String, String> extraData = searchParams.getExtraData();
 
-    profiler.start("SEARCHING_BY_EXTRA_DATA");
-    List<User> foundUsers = null;
+    String extraDataString = null;
     if (extraData != null && !extraData.isEmpty()) {
       try {
-        profiler.start("SEARCHING_BY_EXTRA_DATA_IN_REPOSITORY");
-        String extraDataString = mapper.writeValueAsString(extraData);
-        foundUsers = userRepository.findByExtraData(extraDataString);
-        if (foundUsers.isEmpty()) {
-          return Pagination.getPage(foundUsers, pageable, 0);
-        }
+        profiler.start("SERIALIZE_EXTRA_DATA");
+        extraDataString = mapper.writeValueAsString(extraData);
       } catch (JsonProcessingException jpe) {
         LOGGER.error("Cannot serialize extra data query request body into JSON", jpe);
       }
     }
 
-    profiler.start("SEARCH_IN_DB");
-    Page<User> result = userRepository.searchUsers(searchParams, foundUsers, pageable);
-
-    profiler.stop().log();
-
-    return result;
+    return extraDataString;
   }
 
   /**
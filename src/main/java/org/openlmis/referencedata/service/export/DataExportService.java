@@ -25,7 +25,11 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
 import org.openlmis.referencedata.util.messagekeys.MessageKeys;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanFactory;
@@ -41,6 +45,8 @@ public class DataExportService {
   public static final String SERVICE_NAME_SUFFIX = "Service";
   public static final String DATA_EXPORT_MAPPING_PATH = "data-export/mapping/";
   public static final String MAPPING_FILE_SUFFIX = "_mapping";
+  public static final String ZIP_MEDIA_TYPE = "application/zip";
+  public static final String RESULT_NAME = "OLMIS_configuration_data.zip";
 
   @Autowired
   private BeanFactory beanFactory;
@@ -48,6 +54,9 @@ public class DataExportService {
   @Autowired
   private ResourceLoader loader;
 
+  @Autowired
+  private JobService jobService;
+
   /**
    * Return zip archive with files in specific format.
    *
@@ -55,7 +64,25 @@ public class DataExportService {
    * @return byte data in zip format
    */
   public byte[] exportData(ExportParams params) {
-    try (ByteArrayOutputStream outputStream = toZip(params)) {
+    return exportData(params, JobContext.NONE);
+  }
+
+  /**
+   * Submits a job exporting the data. Its result is the zip archive returned by
+   * {@link #exportData(ExportParams)}.
+   *
+   * @param params query parameters.
+   * @return the queued job.
+   */
+  public JobDto submit(ExportParams params) {
+    return jobService.submitInTransaction(JobType.DATA_EXPORT, context -> {
+      byte[] data = exportData(params, context);
+      context.setResult(RESULT_NAME, ZIP_MEDIA_TYPE, output -> output.write(data));
+    });
+  }
+
+  private byte[] exportData(ExportParams params, JobContext context) {
+    try (ByteArrayOutputStream outputStream = toZip(params, context)) {
 
       return outputStream.toByteArray();
     } catch (IOException ex) {
@@ -63,10 +90,12 @@ public class DataExportService {
     }
   }
 
-  private ByteArrayOutputStream toZip(ExportParams params) {
+  private ByteArrayOutputStream toZip(ExportParams params, JobContext context) {
     try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
          ZipOutputStream zip = new ZipOutputStream(baos)) {
-      for (Map.Entry<String, ByteArrayOutputStream> file : generateFiles(params).entrySet()) {
+      Map<String, ByteArrayOutputStream> files = generateFiles(params, context);
+
+      for (Map.Entry<String, ByteArrayOutputStream> file : files.entrySet()) {
         ZipEntry entry = new ZipEntry(file.getKey() + "." + params.getFormat());
         entry.setSize(file.getValue().toByteArray().length);
         zip.putNextEntry(entry);
@@ -80,14 +109,17 @@ public class DataExportService {
     }
   }
 
-  private Map<String, ByteArrayOutputStream> generateFiles(ExportParams params)
-          throws IOException {
+  private Map<String, ByteArrayOutputStream> generateFiles(ExportParams params,
+      JobContext context) throws IOException {
     Map<String, ByteArrayOutputStream> output = new HashMap<>();
     String[] filenames = params.getData().split(",");
+    context.setTotal(filenames.length);
 
     for (String file : filenames) {
+      context.checkCancelled();
       output.put(file, generateFile(params.getFormat(), file));
       output.put(file + MAPPING_FILE_SUFFIX, getMappingFile(params.getFormat(), file));
+      context.advance(1);
     }
 
     return output;
@@ -19,8 +19,12 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import org.openlmis.referencedata.domain.JobType;
 import org.openlmis.referencedata.dto.BaseDto;
+import org.openlmis.referencedata.dto.JobDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
 import org.openlmis.referencedata.util.FileHelper;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys;
@@ -34,12 +38,17 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class DataImportService {
 
+  static final String RESULT_NAME = "imported_data.json";
+
   @Autowired
   private FileHelper fileHelper;
 
   @Autowired
   private BeanFactory beanFactory;
 
+  @Autowired
+  private JobService jobService;
+
   /**
    * Imports the data from a ZIP with CSV files.
    *
@@ -47,11 +56,36 @@ public class DataImportService {
    */
   @Transactional
   public List<BaseDto> importData(MultipartFile zipFile) {
+    return importFiles(readZipFile(zipFile), JobContext.NONE);
+  }
+
+  /**
+   * Submits a job importing the data from a ZIP with CSV files. The archive is checked and read
+   * before the job is queued. The job runs in one transaction, so nothing is imported if it fails
+   * or is cancelled; its result is the list of imported resources.
+   *
+   * @param zipFile ZIP archive being imported.
+   * @return the queued job.
+   */
+  public JobDto submit(MultipartFile zipFile) {
+    Map<String, InputStream> fileMap = readZipFile(zipFile);
+
+    return jobService.submitInTransaction(JobType.DATA_IMPORT,
+        context -> context.setJsonResult(RESULT_NAME, importFiles(fileMap, context)));
+  }
+
+  private Map<String, InputStream> readZipFile(MultipartFile zipFile) {
     fileHelper.validateMultipartFile(zipFile);
-    Map<String, InputStream> fileMap = fileHelper.convertMultipartFileToZipFileMap(zipFile);
+    return fileHelper.convertMultipartFileToZipFileMap(zipFile);
+  }
+
+  private List<BaseDto> importFiles(Map<String, InputStream> fileMap, JobContext context) {
+    context.setTotal(fileMap.size());
 
     List<BaseDto> result = new ArrayList<>();
     for (Map.Entry<String, InputStream> entry: fileMap.entrySet()) {
+      context.checkCancelled();
+
       try {
         fileHelper.validateCsvFile(entry.getKey());
         DataImportPersister<?, ?, ? extends BaseDto> persister =
@@ -61,6 +95,8 @@ public class DataImportService {
         throw new ValidationMessageException(e, new Message(
                 CsvUploadMessageKeys.ERROR_FILE_NAME_INVALID, entry.getKey()));
       }
+
+      context.advance(1);
     }
 
     return result;
@@ -0,0 +1,98 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Lets a running task report its progress and result, and learn that it has been cancelled.
+ * Operations which run both as jobs and synchronously use {@link #NONE} in the latter case.
+ */
+public interface JobContext {
+
+  /**
+   * Context of work not run as a job: progress and result are ignored and it is never cancelled.
+   */
+  JobContext NONE = new JobContext() {
+    @Override
+    public void setTotal(long total) {
+      // nothing to report
+    }
+
+    @Override
+    public void advance(long amount) {
+      // nothing to report
+    }
+
+    @Override
+    public void checkCancelled() {
+      // can't be cancelled
+    }
+
+    @Override
+    public void setResult(String name, String contentType, ResultContent content) {
+      // nothing to store
+    }
+
+    @Override
+    public void setJsonResult(String name, Object value) {
+      // nothing to store
+    }
+  };
+
+  /**
+   * Sets the total amount of work, e.g. the number of records to save.
+   */
+  void setTotal(long total);
+
+  /**
+   * Adds the given amount to the work done.
+   */
+  void advance(long amount);
+
+  /**
+   * Stops the task if the job has been cancelled. Tasks should call it between units of work.
+   *
+   * @throws JobCancelledException if the job has been cancelled
+   */
+  void checkCancelled();
+
+  /**
+   * Sets the result of the job, which is stored when the job finishes. It is stored also when
+   * the job fails or is cancelled afterwards, so a task can set a result it fills as it goes.
+   *
+   * @param name        file name of the result
+   * @param contentType media type of the result
+   * @param content     writer of the result
+   */
+  void setResult(String name, String contentType, ResultContent content);
+
+  /**
+   * Sets the given value, serialized as JSON, as the result of the job. See
+   * {@link #setResult(String, String, ResultContent)}.
+   */
+  void setJsonResult(String name, Object value);
+
+  @FunctionalInterface
+  interface ResultContent {
+
+    void writeTo(OutputStream output) throws IOException;
+
+  }
+
+}
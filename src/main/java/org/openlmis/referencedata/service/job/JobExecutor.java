@@ -0,0 +1,53 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+public class JobExecutor {
+
+  /**
+   * Workers running jobs. {@link JobService} hands a job over only when a worker is free, so
+   * jobs wait in its queue rather than in the one of the executor.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor jobTaskExecutor(@Value("${jobs.workers}") int workers) {
+    ThreadPoolTaskExecutor threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+    threadPoolTaskExecutor.setCorePoolSize(workers);
+    threadPoolTaskExecutor.setMaxPoolSize(workers);
+    threadPoolTaskExecutor.setThreadNamePrefix("job-");
+
+    return threadPoolTaskExecutor;
+  }
+
+  /**
+   * Scheduler of job maintenance, see {@link JobService#maintain()}.
+   */
+  @Bean
+  public ThreadPoolTaskScheduler jobTaskScheduler() {
+    ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
+    threadPoolTaskScheduler.setPoolSize(1);
+    threadPoolTaskScheduler.setThreadNamePrefix("job-maintenance-");
+
+    return threadPoolTaskScheduler;
+  }
+}
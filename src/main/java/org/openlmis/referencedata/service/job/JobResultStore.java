@@ -0,0 +1,152 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.service.job.JobContext.ResultContent;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores results of jobs, either in the job_results table or as files in a directory. The file
+ * storage keeps large results out of the database, but with more instances of the service the
+ * directory must be shared by all of them. A result is read from wherever it was written, even
+ * if the storage has been changed since.
+ */
+@Component
+public class JobResultStore {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(JobResultStore.class);
+
+  static final String INSERT_SQL = "INSERT INTO referencedata.job_results (jobid, content)"
+      + " VALUES (:jobId, :content)";
+
+  static final String SELECT_SQL = "SELECT content FROM referencedata.job_results"
+      + " WHERE jobid = :jobId";
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Value("${jobs.results.storage}")
+  private Storage storage;
+
+  @Value("${jobs.results.directory}")
+  private String directory;
+
+  private TransactionTemplate newTransaction;
+
+  /**
+   * Prepares the template of transactions separate from the one of the task.
+   */
+  @PostConstruct
+  public void init() {
+    newTransaction = new TransactionTemplate(transactionManager);
+    newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Writes the result of the given job.
+   *
+   * @return size of the result in bytes.
+   */
+  public long write(UUID jobId, ResultContent content) throws IOException {
+    if (Storage.FILE == storage) {
+      Path path = getPath(jobId);
+      Files.createDirectories(path.getParent());
+
+      try (OutputStream output = Files.newOutputStream(path)) {
+        content.writeTo(output);
+      }
+
+      return Files.size(path);
+    }
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    content.writeTo(output);
+    byte[] bytes = output.toByteArray();
+
+    newTransaction.execute(status -> template.update(INSERT_SQL, new MapSqlParameterSource()
+        .addValue("jobId", jobId)
+        .addValue("content", bytes)));
+
+    return bytes.length;
+  }
+
+  /**
+   * Copies the result of the given job to the output.
+   *
+   * @return false if there is no result of the job.
+   */
+  public boolean read(UUID jobId, OutputStream output) throws IOException {
+    Path path = getPath(jobId);
+
+    if (Files.exists(path)) {
+      Files.copy(path, output);
+      return true;
+    }
+
+    List<byte[]> contents = template.query(SELECT_SQL, new MapSqlParameterSource("jobId", jobId),
+        (rs, rowNum) -> rs.getBytes("content"));
+
+    if (contents.isEmpty()) {
+      return false;
+    }
+
+    output.write(contents.get(0));
+    return true;
+  }
+
+  /**
+   * Removes the file with the result of the given job, if there is one. Results stored in the
+   * database are removed together with their job.
+   */
+  public void delete(UUID jobId) {
+    try {
+      Files.deleteIfExists(getPath(jobId));
+    } catch (IOException ex) {
+      XLOGGER.warn("Could not remove the result of job {}: {}", jobId, ex.getMessage());
+    }
+  }
+
+  private Path getPath(UUID jobId) {
+    return Paths.get(directory, jobId.toString());
+  }
+
+  public enum Storage {
+    DATABASE, FILE
+  }
+
+}
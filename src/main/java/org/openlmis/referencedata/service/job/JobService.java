@@ -0,0 +1,573 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.JobDto.Status;
+import org.openlmis.referencedata.exception.BaseMessageException;
+import org.openlmis.referencedata.exception.NotFoundException;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.util.LocalizedMessage;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.JobMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs long-running operations as jobs in the background, so that a request only submits the
+ * work and then polls its state, instead of waiting for it and holding a database connection.
+ *
+ * <p>Jobs run on a bounded pool of workers. A job waits in the queue until a worker is free and
+ * fewer jobs of its type than the limit of the type are running, so e.g. two imports never run
+ * at once while exports can still proceed. Jobs are run by the instance they were submitted to,
+ * with the security context of the submitter, but their state is kept in the database, so it can
+ * be read and the job cancelled through any instance.
+ *
+ * <p>Maintenance periodically records that the jobs of this instance are alive, picks up
+ * cancellations requested through other instances, marks jobs of instances which have stopped
+ * as failed, and removes old finished jobs with their results.
+ */
+@Service
+public class JobService {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(JobService.class);
+
+  static final String METRIC_PREFIX = "jobs.";
+  private static final String TYPE_TAG = "type";
+
+  @Autowired
+  private JobStore jobStore;
+
+  @Autowired
+  private JobResultStore jobResultStore;
+
+  @Autowired
+  private TaskExecutor jobTaskExecutor;
+
+  @Autowired
+  private TaskScheduler jobTaskScheduler;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private MessageService messageService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @Autowired
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${jobs.workers}")
+  private int workers;
+
+  @Value("${jobs.queueCapacity}")
+  private int queueCapacity;
+
+  @Value("${jobs.concurrencyLimits}")
+  private String concurrencyLimits;
+
+  @Value("${jobs.progressInterval}")
+  private long progressInterval;
+
+  @Value("${jobs.heartbeatInterval}")
+  private long heartbeatInterval;
+
+  @Value("${jobs.timeout}")
+  private long timeout;
+
+  @Value("${jobs.retention}")
+  private long retention;
+
+  private final Map<JobType, Integer> limits = new EnumMap<>(JobType.class);
+  private final Map<JobType, Integer> running = new EnumMap<>(JobType.class);
+  private final Deque<LocalJob> queue = new ArrayDeque<>();
+  private final Map<UUID, LocalJob> jobs = new HashMap<>();
+  private int runningTotal;
+  private MeterRegistry registry;
+
+  /**
+   * Reads the limits of job types, schedules maintenance and registers queue depth and number
+   * of running jobs of each type as gauges.
+   */
+  @PostConstruct
+  public void init() {
+    Splitter
+        .on(',')
+        .trimResults()
+        .omitEmptyStrings()
+        .withKeyValueSeparator(Splitter.on('=').trimResults())
+        .split(concurrencyLimits)
+        .forEach((type, limit) -> limits.put(JobType.valueOf(type), Integer.valueOf(limit)));
+
+    if (heartbeatInterval > 0) {
+      jobTaskScheduler.scheduleWithFixedDelay(this::maintain,
+          new Date(clock.millis() + heartbeatInterval), heartbeatInterval);
+    }
+
+    registry = meterRegistry.getIfAvailable();
+
+    if (null == registry) {
+      return;
+    }
+
+    for (JobType type : JobType.values()) {
+      Gauge
+          .builder(METRIC_PREFIX + "queued", this, service -> service.countQueued(type))
+          .tag(TYPE_TAG, type.name())
+          .description("Number of jobs waiting for a worker on this instance")
+          .register(registry);
+      Gauge
+          .builder(METRIC_PREFIX + "running", this, service -> service.countRunning(type))
+          .tag(TYPE_TAG, type.name())
+          .description("Number of jobs running on this instance")
+          .register(registry);
+    }
+  }
+
+  /**
+   * Queues a job.
+   *
+   * @param type the type of the job
+   * @param task the work of the job
+   * @return the state of the job
+   * @throws ValidationMessageException if the queue is full
+   */
+  public JobDto submit(JobType type, JobTask task) {
+    return getJob(enqueue(type, task, false).id);
+  }
+
+  /**
+   * Queues a job whose task runs in one transaction, which is rolled back if the job fails or
+   * is cancelled. See {@link #submit(JobType, JobTask)}.
+   */
+  public JobDto submitInTransaction(JobType type, JobTask task) {
+    return getJob(enqueue(type, task, true).id);
+  }
+
+  /**
+   * Queues a job for a caller which waits for it, like a scheduler. See
+   * {@link #submit(JobType, JobTask)}.
+   *
+   * @return future completed with the final state of the job
+   */
+  public CompletableFuture<JobDto> run(JobType type, JobTask task) {
+    return enqueue(type, task, false).completion;
+  }
+
+  /**
+   * Returns the current state of the given job, with its progress in percent and the estimated
+   * finish date when the total amount of work is known.
+   *
+   * @throws NotFoundException if there is no such job, or it has been removed
+   */
+  public JobDto getJob(UUID id) {
+    JobDto job = jobStore
+        .find(id)
+        .orElseThrow(() -> new NotFoundException(new Message(JobMessageKeys.ERROR_NOT_FOUND, id)));
+
+    Long total = job.getTotal();
+    if (null == total || total <= 0) {
+      return job;
+    }
+
+    double done = Math.min(1, (double) job.getProcessed() / total);
+    job.setProgress(100 * done);
+
+    if (Status.RUNNING == job.getStatus() && done > 0 && null != job.getStartedDate()) {
+      long elapsed = clock.millis() - job.getStartedDate().toInstant().toEpochMilli();
+      long remaining = (long) (Math.max(0, elapsed) * (1 - done) / done);
+      job.setEstimatedFinishDate(now().plus(remaining, ChronoUnit.MILLIS));
+    }
+
+    return job;
+  }
+
+  /**
+   * Requests cancellation of the given job. A queued job is cancelled at once; a running one
+   * stops at the next check of its task. A job of another instance is cancelled by that instance
+   * during its next maintenance. A finished job is left as it is.
+   *
+   * @return the state of the job
+   */
+  public JobDto cancel(UUID id) {
+    JobDto job = getJob(id);
+
+    if (null != job.getFinishedDate()) {
+      return job;
+    }
+
+    jobStore.requestCancel(id);
+    cancelLocally(id);
+
+    return getJob(id);
+  }
+
+  /**
+   * Copies the result of the given job to the output.
+   *
+   * @throws NotFoundException if the job has no result
+   */
+  public void writeResult(UUID id, OutputStream output) throws IOException {
+    if (!jobResultStore.read(id, output)) {
+      throw new NotFoundException(new Message(JobMessageKeys.ERROR_RESULT_NOT_FOUND, id));
+    }
+  }
+
+  /**
+   * Sends heartbeats of jobs of this instance and cancels those which have been cancelled
+   * through another instance, marks jobs which have not sent a heartbeat within the timeout as
+   * failed, and removes jobs which have finished before the retention period.
+   */
+  public void maintain() {
+    try {
+      List<UUID> ids;
+      synchronized (this) {
+        ids = new ArrayList<>(jobs.keySet());
+      }
+
+      if (!ids.isEmpty()) {
+        jobStore.heartbeat(ids, now()).forEach(this::cancelLocally);
+      }
+
+      ZonedDateTime now = now();
+      int interrupted = jobStore.interrupt(now.minus(timeout, ChronoUnit.MILLIS),
+          toError(new Message(JobMessageKeys.ERROR_INTERRUPTED)), now);
+
+      if (interrupted > 0) {
+        XLOGGER.warn("Marked {} interrupted jobs as failed", interrupted);
+      }
+
+      if (retention > 0) {
+        jobStore
+            .deleteFinishedBefore(now.minus(retention, ChronoUnit.MILLIS))
+            .forEach(jobResultStore::delete);
+      }
+    } catch (RuntimeException ex) {
+      XLOGGER.warn("Could not maintain jobs: {}", ex.getMessage());
+    }
+  }
+
+  private LocalJob enqueue(JobType type, JobTask task, boolean transactional) {
+    synchronized (this) {
+      if (queue.size() >= queueCapacity) {
+        if (null != registry) {
+          Counter
+              .builder(METRIC_PREFIX + "rejected")
+              .tag(TYPE_TAG, type.name())
+              .description("Number of jobs rejected because the queue was full")
+              .register(registry)
+              .increment();
+        }
+
+        throw new ValidationMessageException(
+            new Message(JobMessageKeys.ERROR_QUEUE_FULL, queueCapacity));
+      }
+    }
+
+    LocalJob job = new LocalJob(UUID.randomUUID(), type);
+    Runnable work = transactional
+        ? () -> new TransactionTemplate(transactionManager).execute(status -> {
+          task.run(job);
+          return null;
+        })
+        : () -> task.run(job);
+    job.work = new DelegatingSecurityContextRunnable(work);
+
+    jobStore.insert(job.id, type, getCurrentUserId(), now());
+
+    synchronized (this) {
+      queue.add(job);
+      jobs.put(job.id, job);
+    }
+
+    XLOGGER.info("Queued {} job {}", type, job.id);
+    dispatch();
+
+    return job;
+  }
+
+  private synchronized void dispatch() {
+    Iterator<LocalJob> iterator = queue.iterator();
+
+    while (runningTotal < workers && iterator.hasNext()) {
+      LocalJob job = iterator.next();
+
+      if (countRunning(job.type) < limits.getOrDefault(job.type, workers)) {
+        iterator.remove();
+        running.merge(job.type, 1, Integer::sum);
+        ++runningTotal;
+        jobTaskExecutor.execute(() -> execute(job));
+      }
+    }
+  }
+
+  private void execute(LocalJob job) {
+    long startedAt = clock.millis();
+    record("wait", job.type, null, startedAt - job.queuedAt);
+
+    Status status = Status.COMPLETED;
+    Message error = null;
+
+    try {
+      if (job.cancelRequested || !jobStore.start(job.id, now())) {
+        throw new JobCancelledException();
+      }
+
+      XLOGGER.info("Started {} job {}", job.type, job.id);
+      job.work.run();
+    } catch (JobCancelledException ex) {
+      status = Status.CANCELLED;
+    } catch (RuntimeException ex) {
+      XLOGGER.error("{} job {} has failed", job.type, job.id, ex);
+      status = Status.FAILED;
+      error = toMessage(ex);
+    }
+
+    finish(job, status, error);
+    record("duration", job.type, status, clock.millis() - startedAt);
+
+    synchronized (this) {
+      jobs.remove(job.id);
+      running.merge(job.type, -1, Integer::sum);
+      --runningTotal;
+    }
+
+    dispatch();
+  }
+
+  private void finish(LocalJob job, Status status, Message error) {
+    JobDto state = new JobDto();
+    state.setId(job.id);
+    state.setStatus(status);
+    state.setTotal(job.total);
+    state.setProcessed(job.processed.get());
+
+    if (null != job.resultContent) {
+      try {
+        long size = jobResultStore.write(job.id, job.resultContent);
+        state.setResult(new JobDto.Result(job.resultName, job.resultContentType, size));
+      } catch (IOException | RuntimeException ex) {
+        XLOGGER.error("Could not store the result of job {}", job.id, ex);
+
+        if (Status.COMPLETED == status) {
+          state.setStatus(Status.FAILED);
+          error = toMessage(ex);
+        }
+      }
+    }
+
+    state.setError(null == error ? null : toError(error));
+
+    try {
+      jobStore.finish(state, now());
+      XLOGGER.info("{} job {} has finished with status {}", job.type, job.id, state.getStatus());
+      job.completion.complete(getJob(job.id));
+    } catch (RuntimeException ex) {
+      XLOGGER.error("Could not save the state of job {}", job.id, ex);
+      job.completion.completeExceptionally(ex);
+    }
+  }
+
+  private void cancelLocally(UUID id) {
+    LocalJob job;
+    boolean queued;
+
+    synchronized (this) {
+      job = jobs.get(id);
+
+      if (null == job) {
+        return;
+      }
+
+      job.cancelRequested = true;
+      queued = queue.remove(job);
+
+      if (queued) {
+        jobs.remove(id);
+      }
+    }
+
+    if (queued) {
+      finish(job, Status.CANCELLED, null);
+    }
+  }
+
+  private synchronized int countQueued(JobType type) {
+    return (int) queue.stream().filter(job -> job.type == type).count();
+  }
+
+  private synchronized int countRunning(JobType type) {
+    return running.getOrDefault(type, 0);
+  }
+
+  private void record(String name, JobType type, Status status, long millis) {
+    if (null == registry) {
+      return;
+    }
+
+    Timer.Builder timer = Timer
+        .builder(METRIC_PREFIX + name)
+        .tag(TYPE_TAG, type.name());
+
+    if (null != status) {
+      timer.tag("status", status.name());
+    }
+
+    timer.register(registry).record(millis, TimeUnit.MILLISECONDS);
+  }
+
+  private Message toMessage(Exception ex) {
+    return ex instanceof BaseMessageException
+        ? ((BaseMessageException) ex).asMessage()
+        : new Message(JobMessageKeys.ERROR_FAILED, ex.getMessage());
+  }
+
+  private JobDto.Error toError(Message message) {
+    LocalizedMessage localized = messageService.localize(message);
+    return new JobDto.Error(localized.getMessageKey(), localized.asMessage());
+  }
+
+  private ZonedDateTime now() {
+    return ZonedDateTime.ofInstant(clock.instant(), ZoneOffset.UTC);
+  }
+
+  private static UUID getCurrentUserId() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    Object principal = null == authentication ? null : authentication.getPrincipal();
+
+    // service tokens have no user
+    return principal instanceof UUID ? (UUID) principal : null;
+  }
+
+  /**
+   * Job queued or running on this instance. It is the context of its task.
+   */
+  private final class LocalJob implements JobContext {
+    private final UUID id;
+    private final JobType type;
+    private final long queuedAt = clock.millis();
+    private final AtomicLong processed = new AtomicLong();
+    private final CompletableFuture<JobDto> completion = new CompletableFuture<>();
+    private Runnable work;
+    private volatile boolean cancelRequested;
+    private volatile Long total;
+    private volatile long savedAt;
+    private volatile String resultName;
+    private volatile String resultContentType;
+    private volatile ResultContent resultContent;
+
+    LocalJob(UUID id, JobType type) {
+      this.id = id;
+      this.type = type;
+    }
+
+    @Override
+    public void setTotal(long total) {
+      this.total = total;
+      saveProgress();
+    }
+
+    @Override
+    public void advance(long amount) {
+      processed.addAndGet(amount);
+      saveProgress();
+    }
+
+    @Override
+    public void checkCancelled() {
+      if (cancelRequested) {
+        throw new JobCancelledException();
+      }
+    }
+
+    @Override
+    public void setResult(String name, String contentType, ResultContent content) {
+      resultName = name;
+      resultContentType = contentType;
+      resultContent = content;
+    }
+
+    @Override
+    public void setJsonResult(String name, Object value) {
+      setResult(name, MediaType.APPLICATION_JSON_VALUE,
+          output -> objectMapper.writeValue(output, value));
+    }
+
+    private void saveProgress() {
+      long now = clock.millis();
+
+      // progress is saved at most once per interval, the final one when the job finishes
+      if (now - savedAt < progressInterval) {
+        return;
+      }
+
+      savedAt = now;
+
+      try {
+        jobStore.updateProgress(id, total, processed.get(), now());
+      } catch (RuntimeException ex) {
+        XLOGGER.warn("Could not save the progress of job {}: {}", id, ex.getMessage());
+      }
+    }
+  }
+
+}
@@ -0,0 +1,266 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.JobDto.Status;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps the state of jobs in the jobs table, so that any instance of the service can report it.
+ * Each change is committed in its own transaction, independently of the transaction of the
+ * caller or of the task, so it is visible at once and survives a rollback of the task.
+ */
+@Component
+public class JobStore {
+
+  private static final String ACTIVE = " status IN ('QUEUED', 'RUNNING')";
+
+  static final String INSERT_SQL = "INSERT INTO referencedata.jobs"
+      + " (id, type, status, createdbyid, createddate, heartbeatdate)"
+      + " VALUES (:id, :type, 'QUEUED', :createdById, :now, :now)";
+
+  static final String START_SQL = "UPDATE referencedata.jobs"
+      + " SET status = 'RUNNING', starteddate = :now, heartbeatdate = :now"
+      + " WHERE id = :id AND status = 'QUEUED' AND NOT cancelrequested";
+
+  static final String PROGRESS_SQL = "UPDATE referencedata.jobs"
+      + " SET total = :total, processed = :processed, heartbeatdate = :now"
+      + " WHERE id = :id AND" + ACTIVE;
+
+  static final String FINISH_SQL = "UPDATE referencedata.jobs"
+      + " SET status = :status, finisheddate = :now, total = :total, processed = :processed,"
+      + " errormessagekey = :errorMessageKey, errormessage = :errorMessage,"
+      + " resultname = :resultName, resultcontenttype = :resultContentType,"
+      + " resultsize = :resultSize"
+      + " WHERE id = :id AND" + ACTIVE;
+
+  static final String CANCEL_SQL = "UPDATE referencedata.jobs SET cancelrequested = TRUE"
+      + " WHERE id = :id AND" + ACTIVE;
+
+  static final String HEARTBEAT_SQL = "UPDATE referencedata.jobs SET heartbeatdate = :now"
+      + " WHERE id IN (:ids) AND" + ACTIVE
+      + " RETURNING id, cancelrequested";
+
+  static final String INTERRUPT_SQL = "UPDATE referencedata.jobs"
+      + " SET status = 'FAILED', finisheddate = :now,"
+      + " errormessagekey = :errorMessageKey, errormessage = :errorMessage"
+      + " WHERE" + ACTIVE + " AND heartbeatdate < :cutoff";
+
+  static final String DELETE_EXPIRED_SQL = "DELETE FROM referencedata.jobs"
+      + " WHERE finisheddate < :cutoff"
+      + " RETURNING id";
+
+  static final String SELECT_SQL = "SELECT id, type, status, createdbyid, createddate,"
+      + " starteddate, finisheddate, total, processed, cancelrequested,"
+      + " errormessagekey, errormessage, resultname, resultcontenttype, resultsize"
+      + " FROM referencedata.jobs"
+      + " WHERE id = :id";
+
+  @Autowired
+  private NamedParameterJdbcTemplate template;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  private TransactionTemplate newTransaction;
+
+  /**
+   * Prepares the template of transactions separate from the one of the caller.
+   */
+  @PostConstruct
+  public void init() {
+    newTransaction = new TransactionTemplate(transactionManager);
+    newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Saves a new queued job.
+   */
+  public void insert(UUID id, JobType type, UUID createdById, ZonedDateTime now) {
+    update(INSERT_SQL, new MapSqlParameterSource()
+        .addValue("id", id)
+        .addValue("type", type.name())
+        .addValue("createdById", createdById)
+        .addValue("now", toTimestamp(now)));
+  }
+
+  /**
+   * Marks the job as running.
+   *
+   * @return false if the job can't be started, because it has been cancelled or interrupted.
+   */
+  public boolean start(UUID id, ZonedDateTime now) {
+    return update(START_SQL, new MapSqlParameterSource()
+        .addValue("id", id)
+        .addValue("now", toTimestamp(now))) > 0;
+  }
+
+  /**
+   * Saves the progress of a running job.
+   */
+  public void updateProgress(UUID id, Long total, long processed, ZonedDateTime now) {
+    update(PROGRESS_SQL, new MapSqlParameterSource()
+        .addValue("id", id)
+        .addValue("total", total)
+        .addValue("processed", processed)
+        .addValue("now", toTimestamp(now)));
+  }
+
+  /**
+   * Saves the final state of a job, unless it has already finished, e.g. because it has been
+   * considered interrupted.
+   */
+  public void finish(JobDto job, ZonedDateTime now) {
+    JobDto.Error error = job.getError();
+    JobDto.Result result = job.getResult();
+
+    update(FINISH_SQL, new MapSqlParameterSource()
+        .addValue("id", job.getId())
+        .addValue("status", job.getStatus().name())
+        .addValue("total", job.getTotal())
+        .addValue("processed", job.getProcessed())
+        .addValue("errorMessageKey", null == error ? null : error.getMessageKey())
+        .addValue("errorMessage", null == error ? null : error.getMessage())
+        .addValue("resultName", null == result ? null : result.getName())
+        .addValue("resultContentType", null == result ? null : result.getContentType())
+        .addValue("resultSize", null == result ? null : result.getSize())
+        .addValue("now", toTimestamp(now)));
+  }
+
+  /**
+   * Marks that the job should be cancelled by the instance running it.
+   */
+  public void requestCancel(UUID id) {
+    update(CANCEL_SQL, new MapSqlParameterSource("id", id));
+  }
+
+  /**
+   * Records that the given jobs are still queued or running on this instance.
+   *
+   * @return IDs of those jobs which should be cancelled.
+   */
+  public List<UUID> heartbeat(Collection<UUID> ids, ZonedDateTime now) {
+    MapSqlParameterSource params = new MapSqlParameterSource()
+        .addValue("ids", ids)
+        .addValue("now", toTimestamp(now));
+
+    return newTransaction.execute(status -> template.query(HEARTBEAT_SQL, params,
+        (rs, rowNum) -> rs.getBoolean("cancelrequested") ? rs.getObject("id", UUID.class) : null))
+        .stream()
+        .filter(id -> null != id)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Marks jobs whose instance has stopped sending heartbeats as failed.
+   *
+   * @return number of interrupted jobs.
+   */
+  public int interrupt(ZonedDateTime cutoff, JobDto.Error error, ZonedDateTime now) {
+    return update(INTERRUPT_SQL, new MapSqlParameterSource()
+        .addValue("cutoff", toTimestamp(cutoff))
+        .addValue("errorMessageKey", error.getMessageKey())
+        .addValue("errorMessage", error.getMessage())
+        .addValue("now", toTimestamp(now)));
+  }
+
+  /**
+   * Removes jobs which finished before the given date, with their results stored in the
+   * database.
+   *
+   * @return IDs of removed jobs.
+   */
+  public List<UUID> deleteFinishedBefore(ZonedDateTime cutoff) {
+    MapSqlParameterSource params = new MapSqlParameterSource("cutoff", toTimestamp(cutoff));
+
+    return newTransaction.execute(status -> template.query(DELETE_EXPIRED_SQL, params,
+        (rs, rowNum) -> rs.getObject("id", UUID.class)));
+  }
+
+  /**
+   * Finds the job with the given ID. Progress and estimated finish date are not set.
+   */
+  public Optional<JobDto> find(UUID id) {
+    List<JobDto> jobs = template.query(SELECT_SQL, new MapSqlParameterSource("id", id),
+        (rs, rowNum) -> toDto(rs));
+
+    return jobs.stream().findFirst();
+  }
+
+  private int update(String sql, MapSqlParameterSource params) {
+    return newTransaction.execute(status -> template.update(sql, params));
+  }
+
+  private static JobDto toDto(ResultSet rs) throws SQLException {
+    JobDto job = new JobDto();
+    job.setId(rs.getObject("id", UUID.class));
+    job.setType(JobType.valueOf(rs.getString("type")));
+    job.setStatus(Status.valueOf(rs.getString("status")));
+    job.setCreatedById(rs.getObject("createdbyid", UUID.class));
+    job.setCreatedDate(toDate(rs.getTimestamp("createddate")));
+    job.setStartedDate(toDate(rs.getTimestamp("starteddate")));
+    job.setFinishedDate(toDate(rs.getTimestamp("finisheddate")));
+    job.setProcessed(rs.getLong("processed"));
+    job.setCancelRequested(rs.getBoolean("cancelrequested"));
+
+    Number total = (Number) rs.getObject("total");
+    job.setTotal(null == total ? null : total.longValue());
+
+    String errorMessage = rs.getString("errormessage");
+    if (null != errorMessage) {
+      job.setError(new JobDto.Error(rs.getString("errormessagekey"), errorMessage));
+    }
+
+    String resultName = rs.getString("resultname");
+    if (null != resultName) {
+      job.setResult(new JobDto.Result(resultName, rs.getString("resultcontenttype"),
+          rs.getLong("resultsize")));
+    }
+
+    return job;
+  }
+
+  private static Timestamp toTimestamp(ZonedDateTime date) {
+    return Timestamp.from(date.toInstant());
+  }
+
+  private static ZonedDateTime toDate(Timestamp timestamp) {
+    return null == timestamp
+        ? null
+        : ZonedDateTime.ofInstant(timestamp.toInstant(), ZoneOffset.UTC);
+  }
+
+}
@@ -46,4 +46,8 @@ public final class LocalizedMessage {
   public String asMessage() {
     return message;
   }
+
+  public String getMessageKey() {
+    return messageKey;
+  }
 }
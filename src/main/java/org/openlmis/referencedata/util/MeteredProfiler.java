@@ -0,0 +1,81 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import org.slf4j.profiler.Profiler;
+import org.slf4j.profiler.TimeInstrument;
+
+/**
+ * A {@link Profiler} that additionally records the elapsed time of each stage (and of the whole
+ * run) with {@link ProfilerMetrics}. Whether a run is recorded is decided once, when the profiler
+ * is created; runs that are not sampled behave exactly like the plain {@link Profiler}.
+ */
+public class MeteredProfiler extends Profiler {
+
+  private final boolean sampled;
+  private final long startTime;
+
+  private String stageName;
+  private long stageStartTime;
+  private boolean stopped;
+
+  /**
+   * Creates a new profiler with the given name.
+   */
+  public MeteredProfiler(String name) {
+    super(name);
+    this.sampled = ProfilerMetrics.sample();
+    this.startTime = sampled ? System.nanoTime() : 0;
+  }
+
+  @Override
+  public void start(String name) {
+    if (sampled && !stopped) {
+      long now = System.nanoTime();
+      recordStage(now);
+      stageName = name;
+      stageStartTime = now;
+    }
+
+    super.start(name);
+  }
+
+  @Override
+  public TimeInstrument stop() {
+    if (sampled && !stopped) {
+      long now = System.nanoTime();
+      recordStage(now);
+      ProfilerMetrics.record(getName(), ProfilerMetrics.TOTAL_STAGE, now - startTime);
+      stopped = true;
+    }
+
+    return super.stop();
+  }
+
+  @Override
+  public void log() {
+    if (ProfilerMetrics.isLogEnabled()) {
+      super.log();
+    }
+  }
+
+  private void recordStage(long now) {
+    if (null != stageName) {
+      ProfilerMetrics.record(getName(), stageName, now - stageStartTime);
+    }
+  }
+
+}
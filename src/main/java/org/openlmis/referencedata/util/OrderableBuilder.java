@@ -22,6 +22,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.joda.money.Money;
 import org.openlmis.referencedata.domain.Orderable;
@@ -62,6 +64,37 @@ public class OrderableBuilder {
    * @return new instance of Orderable.
    */
   public Orderable newOrderable(Orderable.Importer importer, Orderable persistedOrderable) {
+    return newOrderable(importer, persistedOrderable,
+        id -> programRepository.findById(id).orElse(null),
+        id -> userRepository.findById(id)
+            .orElseThrow(() -> new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND)),
+        this::findLatestOrderables,
+        authenticationHelper::getCurrentUser);
+  }
+
+  /**
+   * Creates new instance based on data from {@link Orderable.Importer}. Referenced programs,
+   * price change authors and children are taken from the given maps instead of being retrieved
+   * one by one, so callers building many orderables can load them with a few queries.
+   *
+   * @param importer instance of {@link Orderable.Importer}
+   * @param persistedOrderable the latest version of the orderable or null for a new one
+   * @param programs referenced programs by their ids
+   * @param users price change authors by their ids
+   * @param orderables latest versions of child orderables by their ids
+   * @param currentUser supplies the author of price changes made by this update
+   * @return new instance of Orderable.
+   */
+  public Orderable newOrderable(Orderable.Importer importer, Orderable persistedOrderable,
+      Map<UUID, Program> programs, Map<UUID, User> users, Map<UUID, Orderable> orderables,
+      Supplier<User> currentUser) {
+    return newOrderable(importer, persistedOrderable, programs::get, users::get,
+        ids -> orderables, currentUser);
+  }
+
+  private Orderable newOrderable(Orderable.Importer importer, Orderable persistedOrderable,
+      Function<UUID, Program> programFinder, Function<UUID, User> userFinder,
+      Function<List<UUID>, Map<UUID, Orderable>> orderablesFinder, Supplier<User> currentUser) {
     Orderable orderable = (persistedOrderable == null) ? Orderable.newInstance(importer)
         : Orderable.updateFrom(persistedOrderable, importer);
 
@@ -69,7 +102,7 @@ public class OrderableBuilder {
       Map<UUID, Program> programs = importer
           .getPrograms()
           .stream()
-          .map(item -> programRepository.findById(item.getProgramId()).orElse(null))
+          .map(item -> programFinder.apply(item.getProgramId()))
           .collect(Collectors.toMap(Program::getId, program -> program, (id1, id2) -> id1));
 
       List<ProgramOrderable> programOrderables = importer
@@ -82,7 +115,8 @@ public class OrderableBuilder {
             programOrderable.setProgram(program);
             programOrderable.setProduct(orderable);
 
-            setPriceChanges(persistedOrderable, item, programOrderable, program);
+            setPriceChanges(persistedOrderable, item, programOrderable, program, userFinder,
+                currentUser);
             return programOrderable;
           })
           .collect(Collectors.toList());
@@ -91,15 +125,16 @@ public class OrderableBuilder {
     }
 
     if (!isEmpty(importer.getChildren())) {
-      setChildren(importer, orderable);
+      setChildren(importer, orderable, orderablesFinder);
     }
 
     return orderable;
   }
 
   private void setPriceChanges(Orderable persistedOrderable, ProgramOrderableDto item,
-      ProgramOrderable programOrderable, Program program) {
-    List<PriceChange> priceChanges = getPreviousPriceChanges(item, programOrderable);
+      ProgramOrderable programOrderable, Program program, Function<UUID, User> userFinder,
+      Supplier<User> currentUser) {
+    List<PriceChange> priceChanges = getPreviousPriceChanges(item, programOrderable, userFinder);
 
     if (persistedOrderable != null) {
       boolean priceHasChanged = true;
@@ -111,7 +146,7 @@ public class OrderableBuilder {
       }
 
       if (priceHasChanged) {
-        addPriceChange(programOrderable, newPrice, priceChanges);
+        addPriceChange(programOrderable, newPrice, priceChanges, currentUser.get());
       }
     }
 
@@ -119,11 +154,10 @@ public class OrderableBuilder {
   }
 
   private List<PriceChange> getPreviousPriceChanges(ProgramOrderableDto item,
-      ProgramOrderable programOrderable) {
+      ProgramOrderable programOrderable, Function<UUID, User> userFinder) {
     return item.getPriceChanges().stream()
         .map(priceChange -> {
-          User author = userRepository.findById(priceChange.getAuthor().getId())
-              .orElseThrow(() -> new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND));
+          User author = userFinder.apply(priceChange.getAuthor().getId());
           PriceChange priceChangeItem = PriceChange.newInstance(priceChange, author);
           priceChangeItem.setProgramOrderable(programOrderable);
           return priceChangeItem;
@@ -132,9 +166,9 @@ public class OrderableBuilder {
   }
 
   private void addPriceChange(ProgramOrderable programOrderable, Money newPrice,
-      List<PriceChange> priceChanges) {
+      List<PriceChange> priceChanges, User author) {
     PriceChange priceChange = new PriceChange();
-    priceChange.setAuthor(authenticationHelper.getCurrentUser());
+    priceChange.setAuthor(author);
     priceChange.setPrice(newPrice);
     priceChange.setOccurredDate(ZonedDateTime.now());
     priceChange.setProgramOrderable(programOrderable);
@@ -142,17 +176,14 @@ public class OrderableBuilder {
     priceChanges.add(priceChange);
   }
 
-  private void setChildren(Orderable.Importer importer, Orderable orderable) {
+  private void setChildren(Orderable.Importer importer, Orderable orderable,
+      Function<List<UUID>, Map<UUID, Orderable>> orderablesFinder) {
     List<UUID> uuids = importer.getChildren()
         .stream()
         .map(item -> item.getOrderable().getId())
         .collect(Collectors.toList());
 
-    Map<UUID, Orderable> childrenOrderables = orderableRepository
-        .findAllLatestByIds(uuids, null)
-        .getContent()
-        .stream()
-        .collect(Collectors.toMap(Orderable::getId, o -> o));
+    Map<UUID, Orderable> childrenOrderables = orderablesFinder.apply(uuids);
 
     Set<OrderableChild> children = importer.getChildren().stream().map(
         item -> {
@@ -162,4 +193,12 @@ public class OrderableBuilder {
     orderable.setChildren(children);
   }
 
+  private Map<UUID, Orderable> findLatestOrderables(List<UUID> ids) {
+    return orderableRepository
+        .findAllLatestByIds(ids, null)
+        .getContent()
+        .stream()
+        .collect(Collectors.toMap(Orderable::getId, o -> o));
+  }
+
 }
@@ -15,16 +15,22 @@
 
 package org.openlmis.referencedata.util;
 
-import com.google.common.collect.Lists;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 public class Pagination {
 
@@ -38,6 +44,8 @@ public class Pagination {
    */
   public static final int NO_PAGINATION = Integer.MAX_VALUE;
 
+  private static final int DEFAULT_CAPACITY = 16;
+
   private Pagination() {
     throw new UnsupportedOperationException();
   }
@@ -65,10 +73,15 @@ public class Pagination {
   }
 
   /**
-   * Convenience method for getPage(List originalList, Pageable pageable).
+   * Convenience method for getPage(List originalList, Pageable pageable). The collection is not
+   * copied: a list is sliced with a view, any other collection is iterated up to the page.
    */
   public static <T> Page<T> getPage(Collection<T> data, Pageable pageable) {
-    return getPage(Lists.newArrayList(data), pageable);
+    if (data instanceof List) {
+      return getPage((List<T>) data, pageable);
+    }
+
+    return getPage(data, pageable, Function.identity());
   }
 
   /**
@@ -86,31 +99,111 @@ public class Pagination {
    * @param pageable     An object used to encapsulate the pagination related values: page and size.
    */
   public static <T> Page<T> getPage(List<T> originalList, Pageable pageable) {
+    Pageable page = orUnpaged(pageable);
+    int size = originalList.size();
+
+    int fromIndex = (int) Math.min(getOffset(page), size);
+    int toIndex = (int) Math.min(fromIndex + getLimit(page), size);
+
+    if (fromIndex >= toIndex) {
+      // If the fromIndex is out of bounds, return an empty list.
+      fromIndex = toIndex = 0;
+    }
+
+    List<T> subList = originalList.subList(fromIndex, toIndex);
 
-    int pageSize = getPageSize(pageable);
-    int pageNumber = getPageNumber(pageable);
+    return new PageImpl<>(subList, page, size);
+  }
+
+  /**
+   * Returns the Page for a subset of the specified data, determined by the pageable passed in.
+   * The data is not copied: only elements on the page are converted by the mapper and stored, and
+   * the remaining ones are just counted. Lists with random access are sliced directly, and for
+   * other collections the iteration stops at the end of the page.
+   *
+   * @param data     values, some or all of which should be included in a page.
+   * @param pageable the requested page, null for all values.
+   * @param mapper   function converting values on the page, e.g. to DTOs.
+   */
+  public static <T, R> Page<R> getPage(Iterable<T> data, Pageable pageable,
+      Function<? super T, ? extends R> mapper) {
+    Pageable page = orUnpaged(pageable);
+    long offset = getOffset(page);
+    long limit = getLimit(page);
 
-    int fromIndex = pageNumber * pageSize;
-    int toIndex = fromIndex + pageSize;
+    if (data instanceof List && data instanceof RandomAccess) {
+      List<T> list = (List<T>) data;
+      int fromIndex = (int) Math.min(offset, list.size());
+      int toIndex = (int) Math.min(fromIndex + limit, list.size());
 
-    //Validate toIndex.
-    //Note that toIndex is exclusive, which is why we don't want originalList.size() - 1.
-    int maxPossibleToIndex = originalList.size();
-    if (toIndex > maxPossibleToIndex) {
-      toIndex = maxPossibleToIndex;
+      return new PageImpl<>(map(list.subList(fromIndex, toIndex), mapper), page, list.size());
     }
 
-    //Validate fromIndex
-    int maxPossibleFromIndex = originalList.size() - 1;
-    if (fromIndex > maxPossibleFromIndex) {
-      // If the fronIndex is out of bounds, set it and toIndex to the same value.
-      // This will cause us to return an empty list.
-      fromIndex = toIndex = 0;
+    boolean collection = data instanceof Collection;
+    long total = collection ? ((Collection<T>) data).size() : -1;
+    List<R> content = new ArrayList<>(collection
+        ? (int) Math.max(0, Math.min(limit, total - offset))
+        : (int) Math.min(limit, DEFAULT_CAPACITY));
+
+    long index = 0;
+    Iterator<T> iterator = data.iterator();
+
+    for (; iterator.hasNext() && index < offset + limit; ++index) {
+      T item = iterator.next();
+
+      if (index >= offset) {
+        content.add(mapper.apply(item));
+      }
     }
 
-    List<T> subList = originalList.subList(fromIndex, toIndex);
+    if (!collection) {
+      for (; iterator.hasNext(); ++index) {
+        iterator.next();
+      }
 
-    return new PageImpl<>(subList, pageable, originalList.size());
+      total = index;
+    }
+
+    return new PageImpl<>(content, page, total);
+  }
+
+  /**
+   * Returns the Page for a subset of the specified stream. See
+   * {@link #getPage(Iterable, Pageable, Function)}. The stream is consumed to count all elements;
+   * use {@link #getSlice(Stream, Pageable, Function)} if the total is not needed.
+   */
+  public static <T, R> Page<R> getPage(Stream<T> data, Pageable pageable,
+      Function<? super T, ? extends R> mapper) {
+    return getPage((Iterable<T>) data::iterator, pageable, mapper);
+  }
+
+  /**
+   * Returns the Slice for a subset of the specified stream, determined by the pageable passed in.
+   * Unlike a page, a slice has no total, so the stream is only read up to one element past the
+   * slice (to know if there is a next one), and only elements on the slice are converted.
+   *
+   * @param data     values, some or all of which should be included in a slice.
+   * @param pageable the requested slice, null for all values.
+   * @param mapper   function converting values on the slice, e.g. to DTOs.
+   */
+  public static <T, R> Slice<R> getSlice(Stream<T> data, Pageable pageable,
+      Function<? super T, ? extends R> mapper) {
+    Pageable page = orUnpaged(pageable);
+
+    if (page.isUnpaged()) {
+      return new SliceImpl<>(data.map(mapper).collect(Collectors.toList()), page, false);
+    }
+
+    int pageSize = page.getPageSize();
+    List<T> items = data
+        .skip(page.getOffset())
+        .limit(pageSize + 1L)
+        .collect(Collectors.toCollection(() -> new ArrayList<>(pageSize + 1)));
+
+    boolean hasNext = items.size() > pageSize;
+    List<T> visible = hasNext ? items.subList(0, pageSize) : items;
+
+    return new SliceImpl<>(map(visible, mapper), page, hasNext);
   }
 
 
@@ -150,4 +243,25 @@ public class Pagination {
   public static <T> Page<T> getEmptyPage(Pageable pageable) {
     return Pagination.getPage(Collections.emptyList(), pageable, 0);
   }
+
+  private static Pageable orUnpaged(Pageable pageable) {
+    return null == pageable ? Pageable.unpaged() : pageable;
+  }
+
+  private static long getOffset(Pageable pageable) {
+    return pageable.isPaged() ? pageable.getOffset() : 0;
+  }
+
+  private static long getLimit(Pageable pageable) {
+    return pageable.isPaged() ? pageable.getPageSize() : NO_PAGINATION;
+  }
+
+  private static <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> mapper) {
+    List<R> result = new ArrayList<>(items.size());
+    for (T item : items) {
+      result.add(mapper.apply(item));
+    }
+
+    return result;
+  }
 }
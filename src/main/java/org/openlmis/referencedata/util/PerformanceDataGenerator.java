@@ -0,0 +1,579 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.openlmis.referencedata.domain.Dispensable;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+
+/**
+ * Generates a country-scale, synthetic reference data set for performance testing. At scale 1.0
+ * it produces about 20k facilities in a 5-level geographic zone hierarchy, a supervisory node
+ * for every zone with requisition groups at the lowest level, 30k orderables with multiple
+ * versions, 500k facility type approved product rows, 100k users with role assignments and
+ * 2M ideal stock amounts.
+ *
+ * <p>The data is fully determined by the seed and the scale: identifiers are derived from the
+ * seed, and all other values come from a seeded {@link Random}. Each table is written to its own
+ * CSV file, with a header row listing the columns, so that it can be loaded with the PostgreSQL
+ * {@code COPY ... FROM ... WITH (FORMAT csv, HEADER true)} command. All codes and names start
+ * with {@value #PREFIX}, so the data set can be loaded next to the demo data.
+ */
+public class PerformanceDataGenerator {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      PerformanceDataGenerator.class);
+
+  static final String PREFIX = "PERF";
+  static final String FILE_PREFIX = "referencedata.";
+  static final String FILE_SUFFIX = ".csv";
+  static final String SAMPLES_FILE = "samples.csv";
+
+  /**
+   * Tables written by the generator, in an order that satisfies their foreign keys.
+   */
+  public static final List<String> TABLES = Collections.unmodifiableList(Arrays.asList(
+      "geographic_levels", "geographic_zones", "facility_operators", "facility_types",
+      "facilities", "programs", "supported_programs", "processing_schedules",
+      "processing_periods", "commodity_types", "orderable_display_categories", "dispensables",
+      "dispensable_attributes", "orderables", "program_orderables",
+      "facility_type_approved_products", "supervisory_nodes", "requisition_groups",
+      "requisition_group_members", "requisition_group_program_schedules", "supply_lines",
+      "users", "roles", "role_rights", "role_assignments", "ideal_stock_amounts"));
+
+  static final int FACILITIES = 20_000;
+  static final int ORDERABLES = 30_000;
+  static final int USERS = 100_000;
+  static final int PROGRAMS = 5;
+  static final int COMMODITY_TYPES = 25;
+  static final int DISPLAY_CATEGORIES = 10;
+  static final int MONTHLY_PERIODS = 24;
+  static final int QUARTERLY_PERIODS = 8;
+  static final int IDEAL_STOCK_AMOUNT_PERIODS = 4;
+  static final int MAX_ORDERABLE_VERSIONS = 3;
+  static final int MAX_APPROVED_PRODUCT_VERSIONS = 6;
+  static final int SAMPLES = 1_000;
+
+  // facilities per zone at each level below the country: province, district, zone, ward
+  private static final int[] FACILITIES_PER_ZONE = { 2_000, 200, 20, 4 };
+  private static final String[] LEVELS = { "Country", "Province", "District", "Zone", "Ward" };
+  private static final String[] FACILITY_TYPES = { "warehouse", "hospital", "health_center" };
+  private static final String[] DISPENSING_UNITS = { "each", "tablet", "vial" };
+  private static final LocalDate FIRST_PERIOD_START = LocalDate.of(2025, 1, 1);
+
+  // stable ids of rights created by the database migrations
+  private static final String[][] SUPERVISION_ROLE_RIGHTS = {
+      { "9ade922b-3523-4582-bef4-a47701f7df14", "e101d2b8-6a0f-4af6-a5de-a9576b4ebc50",
+          "31cce55f-284b-4922-81bb-d8a9edc4c623" },
+      { "feb4c0b8-f6d2-4289-b29d-811c1d0b2863", "e101d2b8-6a0f-4af6-a5de-a9576b4ebc50" },
+      { "bffa2de2-dc2a-47dd-b126-6501748ac3fc", "e101d2b8-6a0f-4af6-a5de-a9576b4ebc50" },
+      { "7b41c10e-5489-47a9-8a68-69ae74b8a4cf", "6fb013fe-d878-43e9-bff0-fa5431e62c34",
+          "31cce55f-284b-4922-81bb-d8a9edc4c623" } };
+  private static final String[] SUPERVISION_ROLES = {
+      "Storeroom Manager", "Program Supervisor", "Approver", "Stock Manager" };
+  private static final String[] ADMIN_ROLE_RIGHTS = {
+      "e96017ff-af8c-4313-a070-caa70465c949", "3687ea98-8a1e-4347-984c-3fd97d072066",
+      "fe3750eb-bbfc-47eb-a24e-8161ba231019", "ebad51c3-f7c3-4fab-97e1-839973b045d4" };
+
+  private final long seed;
+  private final Random random;
+
+  private final int facilities;
+  private final int orderables;
+  private final int users;
+  private final int[] zones;
+
+  /**
+   * Creates a new generator.
+   *
+   * @param seed  the seed the whole data set is derived from.
+   * @param scale the size of the data set, where 1.0 means the country-scale data set.
+   */
+  public PerformanceDataGenerator(long seed, double scale) {
+    if (scale <= 0) {
+      throw new IllegalArgumentException("The scale must be positive: " + scale);
+    }
+
+    this.seed = seed;
+    this.random = new Random(seed);
+    this.facilities = scaled(FACILITIES, scale);
+    this.orderables = scaled(ORDERABLES, scale);
+    this.users = scaled(USERS, scale);
+
+    this.zones = new int[LEVELS.length];
+    this.zones[0] = 1;
+    for (int level = 1; level < LEVELS.length; ++level) {
+      int perZone = FACILITIES_PER_ZONE[level - 1];
+      zones[level] = Math.max(zones[level - 1], (facilities + perZone - 1) / perZone);
+    }
+  }
+
+  /**
+   * Generates data with the seed and scale passed as arguments into the given directory.
+   * Usage: {@code PerformanceDataGenerator <directory> [seed] [scale]}.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      throw new IllegalArgumentException(
+          "Usage: PerformanceDataGenerator <directory> [seed] [scale]");
+    }
+
+    long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+    double scale = args.length > 2 ? Double.parseDouble(args[2]) : 1.0;
+
+    new PerformanceDataGenerator(seed, scale).generate(Paths.get(args[0]));
+  }
+
+  /**
+   * Returns the file the given table is written to.
+   */
+  public static Path getFile(Path directory, String table) {
+    return directory.resolve(FILE_PREFIX + table + FILE_SUFFIX);
+  }
+
+  /**
+   * Checks whether the given directory contains files for all tables.
+   */
+  public static boolean exists(Path directory) {
+    return TABLES
+        .stream()
+        .allMatch(table -> Files.isRegularFile(getFile(directory, table)));
+  }
+
+  /**
+   * Writes all tables, and a file with sample ids for the performance tests, into the given
+   * directory. Existing files are overwritten.
+   */
+  public void generate(Path directory) throws IOException {
+    XLOGGER.entry(directory);
+    Files.createDirectories(directory);
+
+    writeZones(directory);
+    writeFacilities(directory);
+    writePrograms(directory);
+    writeSchedules(directory);
+    writeProducts(directory);
+    writeSupervisoryNodes(directory);
+    writeUsers(directory);
+    writeIdealStockAmounts(directory);
+    writeSamples(directory);
+
+    XLOGGER.exit();
+  }
+
+  private void writeZones(Path directory) throws IOException {
+    try (Table levels = new Table(directory, "geographic_levels",
+        "id", "code", "name", "levelnumber");
+        Table zoneTable = new Table(directory, "geographic_zones",
+            "id", "code", "name", "catchmentpopulation", "levelid", "parentid")) {
+      for (int level = 0; level < LEVELS.length; ++level) {
+        levels.row(id("level", level), code(LEVELS[level]), LEVELS[level], level + 1);
+
+        for (int zone = 0; zone < zones[level]; ++zone) {
+          zoneTable.row(zoneId(level, zone), code(LEVELS[level], level, zone),
+              name(LEVELS[level], zone), 1_000 + random.nextInt(100_000), id("level", level),
+              level == 0 ? null : zoneId(level - 1, getParent(level, zone)));
+        }
+      }
+    }
+  }
+
+  private void writeFacilities(Path directory) throws IOException {
+    try (Table operators = new Table(directory, "facility_operators",
+        "id", "code", "name", "displayorder");
+        Table types = new Table(directory, "facility_types",
+            "id", "code", "name", "active", "displayorder");
+        Table facilityTable = new Table(directory, "facilities",
+            "id", "code", "name", "active", "enabled", "openlmisaccessible",
+            "geographiczoneid", "operatedbyid", "typeid");
+        Table supportedPrograms = new Table(directory, "supported_programs",
+            "facilityid", "programid", "active", "startdate", "locallyfulfilled")) {
+      operators.row(id("operator", 0), code("moh"), name("Ministry of Health", 0), 1);
+
+      for (int type = 0; type < FACILITY_TYPES.length; ++type) {
+        types.row(id("facilityType", type), code(FACILITY_TYPES[type]),
+            name(FACILITY_TYPES[type], type), true, type + 1);
+      }
+
+      int wards = zones[LEVELS.length - 1];
+      for (int facility = 0; facility < facilities; ++facility) {
+        int type = facility % 50 == 0 ? 0 : (facility % 10 == 0 ? 1 : 2);
+        int ward = (int) ((long) facility * wards / facilities);
+
+        facilityTable.row(facilityId(facility), code("F", facility), name("Facility", facility),
+            true, true, true, zoneId(LEVELS.length - 1, ward), id("operator", 0),
+            id("facilityType", type));
+
+        for (int program = 0; program < PROGRAMS; ++program) {
+          if (program == 0 || random.nextBoolean()) {
+            supportedPrograms.row(facilityId(facility), programId(program), true,
+                FIRST_PERIOD_START, false);
+          }
+        }
+      }
+    }
+  }
+
+  private void writePrograms(Path directory) throws IOException {
+    try (Table programs = new Table(directory, "programs",
+        "id", "code", "name", "active", "periodsskippable", "skipauthorization",
+        "shownonfullsupplytab", "enabledatephysicalstockcountcompleted")) {
+      for (int program = 0; program < PROGRAMS; ++program) {
+        programs.row(programId(program), code("P", program), name("Program", program), true,
+            false, false, true, false);
+      }
+    }
+  }
+
+  private void writeSchedules(Path directory) throws IOException {
+    try (Table schedules = new Table(directory, "processing_schedules", "id", "code", "name");
+        Table periods = new Table(directory, "processing_periods",
+            "id", "name", "startdate", "enddate", "processingscheduleid")) {
+      schedules.row(id("schedule", 0), code("monthly"), name("Monthly", 0));
+      schedules.row(id("schedule", 1), code("quarterly"), name("Quarterly", 1));
+
+      for (int period = 0; period < MONTHLY_PERIODS; ++period) {
+        LocalDate start = FIRST_PERIOD_START.plusMonths(period);
+        periods.row(periodId(period), name("Month", period), start,
+            start.plusMonths(1).minusDays(1), id("schedule", 0));
+      }
+
+      for (int period = 0; period < QUARTERLY_PERIODS; ++period) {
+        LocalDate start = FIRST_PERIOD_START.plusMonths(3L * period);
+        periods.row(id("quarter", period), name("Quarter", period), start,
+            start.plusMonths(3).minusDays(1), id("schedule", 1));
+      }
+    }
+  }
+
+  private void writeProducts(Path directory) throws IOException {
+    try (Table commodityTypes = new Table(directory, "commodity_types",
+        "id", "name", "classificationsystem", "classificationid");
+        Table categories = new Table(directory, "orderable_display_categories",
+            "id", "code", "displayname", "displayorder");
+        Table dispensables = new Table(directory, "dispensables", "id", "type");
+        Table dispensableAttributes = new Table(directory, "dispensable_attributes",
+            "dispensableid", "key", "value");
+        Table orderableTable = new Table(directory, "orderables",
+            "id", "versionnumber", "code", "fullproductname", "description", "dispensableid",
+            "netcontent", "packroundingthreshold", "roundtozero");
+        Table programOrderables = new Table(directory, "program_orderables",
+            "id", "programid", "orderableid", "orderableversionnumber",
+            "orderabledisplaycategoryid", "dosesperpatient", "active", "fullsupply",
+            "displayorder", "priceperpack");
+        Table approvedProducts = new Table(directory, "facility_type_approved_products",
+            "id", "versionnumber", "facilitytypeid", "programid", "orderableid",
+            "maxperiodsofstock", "minperiodsofstock", "emergencyorderpoint", "active")) {
+      for (int type = 0; type < COMMODITY_TYPES; ++type) {
+        commodityTypes.row(commodityTypeId(type), name("Commodity Type", type), PREFIX,
+            code("CT", type));
+      }
+
+      for (int category = 0; category < DISPLAY_CATEGORIES; ++category) {
+        categories.row(id("category", category), code("C", category),
+            name("Category", category), category + 1);
+      }
+
+      for (int unit = 0; unit < DISPENSING_UNITS.length; ++unit) {
+        dispensables.row(id("dispensable", unit), "default");
+        dispensableAttributes.row(id("dispensable", unit), Dispensable.KEY_DISPENSING_UNIT,
+            DISPENSING_UNITS[unit]);
+      }
+
+      for (int orderable = 0; orderable < orderables; ++orderable) {
+        List<Integer> programs = getOrderablePrograms(orderable);
+        int versions = 1 + random.nextInt(MAX_ORDERABLE_VERSIONS);
+
+        for (int version = 1; version <= versions; ++version) {
+          orderableTable.row(orderableId(orderable), version, code("O", orderable),
+              name("Orderable", orderable) + " v" + version, null,
+              id("dispensable", orderable % DISPENSING_UNITS.length),
+              1 + random.nextInt(100), random.nextInt(10), false);
+
+          for (int program : programs) {
+            programOrderables.row(id("programOrderable", orderable, version, program),
+                programId(program), orderableId(orderable), version,
+                id("category", orderable % DISPLAY_CATEGORIES), 1, true, random.nextInt(5) > 0,
+                orderable, random.nextInt(10_000) / 100.0);
+          }
+        }
+
+        for (int program : programs) {
+          for (int type = 0; type < FACILITY_TYPES.length; ++type) {
+            int approvedVersions = 1 + random.nextInt(MAX_APPROVED_PRODUCT_VERSIONS);
+            int maxPeriodsOfStock = 1 + random.nextInt(6);
+
+            // only the latest version of an approved product can be active
+            for (int version = 1; version <= approvedVersions; ++version) {
+              approvedProducts.row(id("approvedProduct", orderable, program, type), version,
+                  id("facilityType", type), programId(program), orderableId(orderable),
+                  maxPeriodsOfStock, 1, 1, version == approvedVersions);
+            }
+          }
+        }
+      }
+    }
+  }
+
+  private void writeSupervisoryNodes(Path directory) throws IOException {
+    int lowest = LEVELS.length - 1;
+
+    try (Table nodes = new Table(directory, "supervisory_nodes",
+        "id", "code", "name", "facilityid", "parentid");
+        Table groups = new Table(directory, "requisition_groups",
+            "id", "code", "name", "supervisorynodeid");
+        Table members = new Table(directory, "requisition_group_members",
+            "requisitiongroupid", "facilityid");
+        Table groupSchedules = new Table(directory, "requisition_group_program_schedules",
+            "id", "requisitiongroupid", "programid", "processingscheduleid", "directdelivery");
+        Table supplyLines = new Table(directory, "supply_lines",
+            "id", "supervisorynodeid", "programid", "supplyingfacilityid", "description")) {
+      for (int level = 0; level < LEVELS.length; ++level) {
+        for (int zone = 0; zone < zones[level]; ++zone) {
+          nodes.row(nodeId(level, zone), code("SN", level, zone),
+              name("Supervisory Node " + level, zone), facilityId(getFirstFacility(level, zone)),
+              level == 0 ? null : nodeId(level - 1, getParent(level, zone)));
+        }
+      }
+
+      for (int level = 0; level < 2; ++level) {
+        for (int zone = 0; zone < zones[level]; ++zone) {
+          for (int program = 0; program < PROGRAMS; ++program) {
+            supplyLines.row(id("supplyLine", level, zone, program), nodeId(level, zone),
+                programId(program), facilityId(getFirstFacility(level, zone)), null);
+          }
+        }
+      }
+
+      for (int ward = 0; ward < zones[lowest]; ++ward) {
+        UUID group = id("requisitionGroup", ward);
+        groups.row(group, code("RG", ward), name("Requisition Group", ward), nodeId(lowest, ward));
+
+        for (int program = 0; program < PROGRAMS; ++program) {
+          groupSchedules.row(id("requisitionGroupSchedule", ward, program), group,
+              programId(program), id("schedule", 0), true);
+        }
+
+        int last = getFirstFacility(lowest, ward + 1);
+        for (int facility = getFirstFacility(lowest, ward); facility < last; ++facility) {
+          members.row(group, facilityId(facility));
+        }
+      }
+    }
+  }
+
+  private void writeUsers(Path directory) throws IOException {
+    try (Table roles = new Table(directory, "roles", "id", "name", "description");
+        Table roleRights = new Table(directory, "role_rights", "roleid", "rightid");
+        Table userTable = new Table(directory, "users",
+            "id", "username", "firstname", "lastname", "active", "homefacilityid", "timezone");
+        Table roleAssignments = new Table(directory, "role_assignments",
+            "id", "type", "userid", "roleid", "programid", "supervisorynodeid")) {
+      for (int role = 0; role < SUPERVISION_ROLES.length; ++role) {
+        roles.row(id("role", role), name(SUPERVISION_ROLES[role], role), null);
+
+        for (String right : SUPERVISION_ROLE_RIGHTS[role]) {
+          roleRights.row(id("role", role), right);
+        }
+      }
+
+      UUID adminRole = id("role", SUPERVISION_ROLES.length);
+      roles.row(adminRole, name("Administrator", SUPERVISION_ROLES.length), null);
+      for (String right : ADMIN_ROLE_RIGHTS) {
+        roleRights.row(adminRole, right);
+      }
+
+      for (int user = 0; user < users; ++user) {
+        int homeFacility = random.nextInt(facilities);
+        userTable.row(userId(user), String.format("perf.user%06d", user), "User",
+            String.format("%06d", user), true, facilityId(homeFacility), "UTC");
+
+        // every user works with one or two programs at the home facility
+        int program = user % PROGRAMS;
+        int programs = random.nextBoolean() ? 1 : 2;
+        for (int index = 0; index < programs; ++index) {
+          roleAssignments.row(id("roleAssignment", user, index), "supervision", userId(user),
+              id("role", random.nextInt(SUPERVISION_ROLES.length)),
+              programId((program + index) % PROGRAMS), null);
+        }
+
+        // some supervise facilities through a supervisory node, and a few are administrators
+        if (random.nextInt(10) == 0) {
+          int level = 1 + random.nextInt(LEVELS.length - 1);
+          roleAssignments.row(id("roleAssignment", user, programs), "supervision",
+              userId(user), id("role", 1 + random.nextInt(SUPERVISION_ROLES.length - 1)),
+              programId(program), nodeId(level, random.nextInt(zones[level])));
+        }
+
+        if (random.nextInt(100) == 0) {
+          roleAssignments.row(id("roleAssignment", user, programs + 1), "direct",
+              userId(user), adminRole, null, null);
+        }
+      }
+    }
+  }
+
+  private void writeIdealStockAmounts(Path directory) throws IOException {
+    try (Table amounts = new Table(directory, "ideal_stock_amounts",
+        "id", "facilityid", "commoditytypeid", "processingperiodid", "amount")) {
+      for (int facility = 0; facility < facilities; ++facility) {
+        for (int type = 0; type < COMMODITY_TYPES; ++type) {
+          for (int index = 0; index < IDEAL_STOCK_AMOUNT_PERIODS; ++index) {
+            amounts.row(new UUID(random.nextLong(), random.nextLong()), facilityId(facility),
+                commodityTypeId(type), periodId(MONTHLY_PERIODS - 1 - index),
+                random.nextInt(1_000));
+          }
+        }
+      }
+    }
+  }
+
+  private void writeSamples(Path directory) throws IOException {
+    int lowest = LEVELS.length - 1;
+
+    try (CSVPrinter printer = CSVFormat.DEFAULT
+        .withRecordSeparator('\n')
+        .withHeader("facilityId", "facilityTypeId", "programId", "userId", "orderableId",
+            "supervisoryNodeId")
+        .print(Files.newBufferedWriter(directory.resolve(SAMPLES_FILE), UTF_8))) {
+      for (int sample = 0; sample < SAMPLES; ++sample) {
+        int facility = random.nextInt(facilities);
+        printer.printRecord(facilityId(facility),
+            id("facilityType", facility % 50 == 0 ? 0 : (facility % 10 == 0 ? 1 : 2)),
+            programId(0), userId(random.nextInt(users)), orderableId(random.nextInt(orderables)),
+            nodeId(lowest - 1, random.nextInt(zones[lowest - 1])));
+      }
+    }
+  }
+
+  private List<Integer> getOrderablePrograms(int orderable) {
+    List<Integer> programs = new ArrayList<>(2);
+    programs.add(orderable % PROGRAMS);
+
+    if (random.nextBoolean()) {
+      programs.add((orderable % PROGRAMS + 1 + random.nextInt(PROGRAMS - 1)) % PROGRAMS);
+    }
+
+    return programs;
+  }
+
+  private int getParent(int level, int zone) {
+    return (int) ((long) zone * zones[level - 1] / zones[level]);
+  }
+
+  // the first facility of the ward the given zone starts with, or the facility count past the
+  // last zone
+  private int getFirstFacility(int level, int zone) {
+    int wards = zones[LEVELS.length - 1];
+    int ward = (int) ((long) zone * wards / zones[level]);
+    int facility = (int) (((long) ward * facilities + wards - 1) / wards);
+    return Math.min(facility, zone < zones[level] ? facilities - 1 : facilities);
+  }
+
+  private UUID zoneId(int level, int zone) {
+    return id("zone", level, zone);
+  }
+
+  private UUID facilityId(int facility) {
+    return id("facility", facility);
+  }
+
+  private UUID programId(int program) {
+    return id("program", program);
+  }
+
+  private UUID periodId(int period) {
+    return id("period", period);
+  }
+
+  private UUID commodityTypeId(int type) {
+    return id("commodityType", type);
+  }
+
+  private UUID orderableId(int orderable) {
+    return id("orderable", orderable);
+  }
+
+  private UUID nodeId(int level, int zone) {
+    return id("supervisoryNode", level, zone);
+  }
+
+  private UUID userId(int user) {
+    return id("user", user);
+  }
+
+  private UUID id(String type, int... indexes) {
+    StringBuilder name = new StringBuilder().append(seed).append('/').append(type);
+    for (int index : indexes) {
+      name.append('/').append(index);
+    }
+
+    return UUID.nameUUIDFromBytes(name.toString().getBytes(UTF_8));
+  }
+
+  private static String code(String type, int... indexes) {
+    StringBuilder code = new StringBuilder(PREFIX).append('-').append(type);
+    for (int index : indexes) {
+      code.append('-').append(index);
+    }
+
+    return code.toString();
+  }
+
+  private static String name(String type, int index) {
+    return PREFIX + ' ' + type + ' ' + index;
+  }
+
+  private static int scaled(int count, double scale) {
+    return (int) Math.max(1, Math.round(count * scale));
+  }
+
+  private static final class Table implements Closeable {
+    private final CSVPrinter printer;
+
+    Table(Path directory, String table, String... columns) throws IOException {
+      printer = CSVFormat.DEFAULT
+          .withRecordSeparator('\n')
+          .withHeader(columns)
+          .print(Files.newBufferedWriter(getFile(directory, table), UTF_8));
+    }
+
+    void row(Object... values) throws IOException {
+      printer.printRecord(values);
+    }
+
+    @Override
+    public void close() throws IOException {
+      printer.close();
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records {@link MeteredProfiler} stages as Micrometer timers. The timer is named
+ * {@value #TIMER_NAME} and tagged with the profiler and stage name. The whole profiler run is
+ * recorded with the {@value #TOTAL_STAGE} stage. Until {@link #configure} is called (or when
+ * metrics are disabled) profilers are never sampled and nothing is recorded.
+ */
+public final class ProfilerMetrics {
+
+  public static final String TIMER_NAME = "openlmis.profiler";
+  public static final String PROFILER_TAG = "profiler";
+  public static final String STAGE_TAG = "stage";
+  public static final String TOTAL_STAGE = "TOTAL";
+
+  private static final Duration MIN_EXPECTED_VALUE = Duration.ofMillis(1);
+  private static final Duration MAX_EXPECTED_VALUE = Duration.ofMinutes(1);
+
+  private static final Map<String, Map<String, Timer>> TIMERS = new ConcurrentHashMap<>();
+
+  private static volatile MeterRegistry registry;
+  private static volatile double sampleRate;
+  private static volatile boolean histogram;
+  private static volatile boolean logEnabled = true;
+
+  private ProfilerMetrics() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Sets the registry the timers are registered in.
+   *
+   * @param meterRegistry registry for the timers, null disables metrics
+   * @param rate          the fraction of profiler runs that should be recorded (0 - 1)
+   * @param percentileHistogram whether timers should publish histogram buckets
+   * @param log           whether profilers should still be written to the log
+   */
+  public static synchronized void configure(MeterRegistry meterRegistry, double rate,
+      boolean percentileHistogram, boolean log) {
+    TIMERS.clear();
+    registry = meterRegistry;
+    sampleRate = rate;
+    histogram = percentileHistogram;
+    logEnabled = log;
+  }
+
+  /**
+   * Decides whether a new profiler run should be recorded.
+   */
+  static boolean sample() {
+    if (null == registry || sampleRate <= 0) {
+      return false;
+    }
+
+    return sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+  }
+
+  static boolean isLogEnabled() {
+    return logEnabled;
+  }
+
+  static void record(String profilerName, String stageName, long nanos) {
+    MeterRegistry meterRegistry = registry;
+
+    if (null != meterRegistry) {
+      getTimer(meterRegistry, profilerName, stageName).record(nanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static Timer getTimer(MeterRegistry meterRegistry, String profilerName,
+      String stageName) {
+    // plain lookups first so that recording an already known stage does not allocate
+    Map<String, Timer> stages = TIMERS.get(profilerName);
+
+    if (null == stages) {
+      stages = TIMERS.computeIfAbsent(profilerName, key -> new ConcurrentHashMap<>());
+    }
+
+    Timer timer = stages.get(stageName);
+
+    if (null == timer) {
+      timer = stages.computeIfAbsent(stageName, key -> Timer
+          .builder(TIMER_NAME)
+          .tag(PROFILER_TAG, profilerName)
+          .tag(STAGE_TAG, stageName)
+          .publishPercentileHistogram(histogram)
+          .minimumExpectedValue(MIN_EXPECTED_VALUE)
+          .maximumExpectedValue(MAX_EXPECTED_VALUE)
+          .register(meterRegistry));
+    }
+
+    return timer;
+  }
+
+}
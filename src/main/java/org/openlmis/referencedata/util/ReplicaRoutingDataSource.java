@@ -0,0 +1,280 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * Routes connections between the primary database and its streaming replicas. Work is sent to a
+ * replica when the current request was marked with {@link #routeToReplica()}. Everything else,
+ * including read-only transactions outside of requests, goes to the primary: their sessions put
+ * what they read into the second-level cache, which must not get rows older than the primary's.
+ *
+ * <p>The replication lag of each replica is checked periodically. Replicas that are behind by
+ * more than the max lag, or that could not be checked, are skipped, and the primary is used when
+ * no replica is available. A request keeps using the replica it was first routed to, so it never
+ * reads data older than what it has already seen.
+ *
+ * <p>Connections are obtained lazily (see
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}), so transactions
+ * that never run a statement don't pin a request to a database.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(
+      ReplicaRoutingDataSource.class);
+
+  public static final String PRIMARY = "primary";
+
+  static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+
+  /**
+   * A replica that has replayed the WAL up to the position the primary had before the check is
+   * not behind at all. Otherwise the lag is the time since the last replayed transaction, which
+   * keeps growing when the replica is disconnected from the primary. It is null if the replica
+   * has not replayed any transaction yet.
+   */
+  static final String LAG_SQL = "SELECT CASE"
+      + " WHEN NOT pg_is_in_recovery() THEN 0"
+      + " WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0"
+      + " ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+  private static final ThreadLocal<Route> ROUTE = new ThreadLocal<>();
+
+  private final DataSource primary;
+  private final Map<String, DataSource> replicas;
+  private final Map<String, AtomicLong> replicationLags = new LinkedHashMap<>();
+  private final long maxLag;
+  private final long lagCheckInterval;
+  private final AtomicInteger next = new AtomicInteger();
+  private final Map<String, Counter> routedConnections = new HashMap<>();
+
+  private ScheduledExecutorService lagChecker;
+
+  /**
+   * Creates a new routing data source.
+   *
+   * @param primary          the primary database.
+   * @param replicas         replicas of the primary database by name.
+   * @param maxLag           max replication lag in milliseconds a replica can have to be used.
+   * @param lagCheckInterval interval in milliseconds between replication lag checks.
+   */
+  public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+      long maxLag, long lagCheckInterval) {
+    this.primary = primary;
+    this.replicas = new LinkedHashMap<>(replicas);
+    this.maxLag = maxLag;
+    this.lagCheckInterval = lagCheckInterval;
+
+    Map<Object, Object> targetDataSources = new HashMap<>(replicas);
+    targetDataSources.put(PRIMARY, primary);
+
+    // the lag is unknown until the first check, so replicas are not used before it
+    replicas.keySet().forEach(name -> replicationLags.put(name, new AtomicLong(Long.MAX_VALUE)));
+
+    setTargetDataSources(targetDataSources);
+    setDefaultTargetDataSource(primary);
+  }
+
+  /**
+   * Routes work of the current request to a replica.
+   */
+  public static void routeToReplica() {
+    ROUTE.set(new Route(true));
+  }
+
+  /**
+   * Routes work of the current request to the primary database.
+   */
+  public static void routeToPrimary() {
+    ROUTE.set(new Route(false));
+  }
+
+  /**
+   * Clears the route of the current request.
+   */
+  public static void clearRoute() {
+    ROUTE.remove();
+  }
+
+  /**
+   * Registers the number of connections routed to each database and the replication lag of each
+   * replica as metrics.
+   */
+  public void bindMetrics(MeterRegistry registry) {
+    List<String> names = new ArrayList<>(replicas.keySet());
+    names.add(PRIMARY);
+
+    for (String name : names) {
+      routedConnections.put(name, Counter
+          .builder("datasource.routing")
+          .description("Number of connections routed to the database")
+          .tag("pool", name)
+          .register(registry));
+    }
+
+    replicationLags.forEach((name, lag) -> TimeGauge
+        .builder("datasource.replica.lag", lag, TimeUnit.MILLISECONDS, AtomicLong::get)
+        .description("Replication lag of the replica")
+        .tag("pool", name)
+        .register(registry));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    super.afterPropertiesSet();
+
+    lagChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "replica-lag-checker");
+      thread.setDaemon(true);
+      return thread;
+    });
+    lagChecker.scheduleWithFixedDelay(this::checkReplicationLag, 0, lagCheckInterval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the replication lag checks and closes pools of all databases.
+   */
+  @Override
+  public void close() throws IOException {
+    if (null != lagChecker) {
+      lagChecker.shutdownNow();
+    }
+
+    for (DataSource dataSource : replicas.values()) {
+      closeDataSource(dataSource);
+    }
+
+    closeDataSource(primary);
+  }
+
+  /**
+   * Checks the replication lag of each replica.
+   */
+  public void checkReplicationLag() {
+    String primaryLsn;
+
+    try {
+      primaryLsn = new JdbcTemplate(primary).queryForObject(PRIMARY_LSN_SQL, String.class);
+    } catch (DataAccessException ex) {
+      XLOGGER.warn("Could not check WAL position of the primary: {}", ex.getMessage());
+      replicas.keySet().forEach(name -> updateReplicationLag(name, Long.MAX_VALUE));
+      return;
+    }
+
+    replicas.forEach((name, dataSource) -> {
+      try {
+        Long lag = new JdbcTemplate(dataSource)
+            .queryForObject(LAG_SQL, Long.class, primaryLsn);
+        updateReplicationLag(name, null == lag ? Long.MAX_VALUE : lag);
+      } catch (DataAccessException ex) {
+        XLOGGER.warn("Could not check replication lag of {}: {}", name, ex.getMessage());
+        updateReplicationLag(name, Long.MAX_VALUE);
+      }
+    });
+  }
+
+  void updateReplicationLag(String name, long lag) {
+    AtomicLong replicationLag = replicationLags.get(name);
+    long previous = replicationLag.getAndSet(lag);
+
+    if (previous <= maxLag && lag > maxLag) {
+      XLOGGER.warn("Replica {} is behind by {} ms, using the primary instead", name, lag);
+    } else if (previous > maxLag && lag <= maxLag) {
+      XLOGGER.info("Replica {} is available", name);
+    }
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    Route route = ROUTE.get();
+    String key;
+
+    if (null != route) {
+      key = route.replica ? selectReplica(route.pinned) : PRIMARY;
+      route.pinned = key;
+    } else {
+      key = PRIMARY;
+    }
+
+    Counter counter = routedConnections.get(key);
+
+    if (null != counter) {
+      counter.increment();
+    }
+
+    return key;
+  }
+
+  private String selectReplica(String pinned) {
+    if (null != pinned) {
+      // the primary is never behind, so falling back to it keeps reads monotonic
+      return isAvailable(pinned) ? pinned : PRIMARY;
+    }
+
+    List<String> available = replicas
+        .keySet()
+        .stream()
+        .filter(this::isAvailable)
+        .collect(Collectors.toList());
+
+    return available.isEmpty()
+        ? PRIMARY
+        : available.get(Math.floorMod(next.getAndIncrement(), available.size()));
+  }
+
+  private boolean isAvailable(String name) {
+    AtomicLong lag = replicationLags.get(name);
+    return null != lag && lag.get() <= maxLag;
+  }
+
+  private void closeDataSource(DataSource dataSource) throws IOException {
+    if (dataSource instanceof Closeable) {
+      ((Closeable) dataSource).close();
+    }
+  }
+
+  private static final class Route {
+    private final boolean replica;
+    private String pinned;
+
+    private Route(boolean replica) {
+      this.replica = replica;
+    }
+  }
+}
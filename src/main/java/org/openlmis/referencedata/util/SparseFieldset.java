@@ -0,0 +1,189 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.openlmis.referencedata.util.messagekeys.SparseFieldsetMessageKeys.ERROR_INVALID;
+import static org.openlmis.referencedata.util.messagekeys.SparseFieldsetMessageKeys.ERROR_REQUIRED;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Selection;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+
+/**
+ * Fields of a resource requested with the {@code fields} query parameter. Each field is mapped to
+ * an attribute path of the entity, so a search can select only the requested values instead of
+ * loading the entities, and the response contains only the requested fields. Nested fields (for
+ * example {@code geographicZone.name}) are returned as nested objects.
+ *
+ * <p>Attribute paths are resolved with implicit joins, so they may go through embeddables and
+ * mandatory to-one associations only (or end with the id of an optional one).
+ */
+@ToString
+@EqualsAndHashCode
+public final class SparseFieldset {
+
+  public static final String FIELDS = "fields";
+
+  private static final char SEPARATOR = ',';
+  private static final char PATH_SEPARATOR = '.';
+  private static final String MAPPING_SEPARATOR = "=";
+
+  private final Map<String, String> attributePaths;
+
+  private SparseFieldset(Map<String, String> attributePaths) {
+    this.attributePaths = Collections.unmodifiableMap(attributePaths);
+  }
+
+  /**
+   * Creates the map of fields available for a resource. Each mapping is either a field name that
+   * is the same as the attribute path, or {@code field=attribute.path}.
+   */
+  public static Map<String, String> availableFields(String... mappings) {
+    Map<String, String> available = new LinkedHashMap<>();
+
+    for (String mapping : mappings) {
+      String field = StringUtils.substringBefore(mapping, MAPPING_SEPARATOR);
+      String attributePath = mapping.contains(MAPPING_SEPARATOR)
+          ? StringUtils.substringAfter(mapping, MAPPING_SEPARATOR)
+          : mapping;
+
+      available.put(field, attributePath);
+    }
+
+    return Collections.unmodifiableMap(available);
+  }
+
+  /**
+   * Parses the comma separated list of fields.
+   *
+   * @param fields    the value of the fields parameter.
+   * @param available available fields of the resource mapped to entity attribute paths.
+   * @return the requested fields.
+   * @throws ValidationMessageException if no field is given or a field is not available.
+   */
+  public static SparseFieldset parse(String fields, Map<String, String> available) {
+    Map<String, String> attributePaths = new LinkedHashMap<>();
+
+    for (String field : StringUtils.split(StringUtils.defaultString(fields), SEPARATOR)) {
+      String name = field.trim();
+
+      if (name.isEmpty()) {
+        continue;
+      }
+
+      String attributePath = available.get(name);
+
+      if (null == attributePath) {
+        throw new ValidationMessageException(ERROR_INVALID, name,
+            String.join(", ", available.keySet()));
+      }
+
+      attributePaths.put(name, attributePath);
+    }
+
+    if (attributePaths.isEmpty()) {
+      throw new ValidationMessageException(ERROR_REQUIRED);
+    }
+
+    return new SparseFieldset(attributePaths);
+  }
+
+  public List<String> getFields() {
+    return new ArrayList<>(attributePaths.keySet());
+  }
+
+  /**
+   * Returns the HQL select list of the requested attributes of the given alias.
+   */
+  public String getSelectList(String alias) {
+    return attributePaths
+        .values()
+        .stream()
+        .map(path -> alias + PATH_SEPARATOR + path)
+        .collect(Collectors.joining(", "));
+  }
+
+  /**
+   * Returns the criteria selections of the requested attributes of the given root.
+   */
+  public List<Selection<?>> getSelections(Path<?> root) {
+    List<Selection<?>> selections = new ArrayList<>(attributePaths.size());
+
+    for (String attributePath : attributePaths.values()) {
+      Path<?> path = root;
+
+      for (String attribute : StringUtils.split(attributePath, PATH_SEPARATOR)) {
+        path = path.get(attribute);
+      }
+
+      selections.add(path);
+    }
+
+    return selections;
+  }
+
+  /**
+   * Converts the rows selected with {@link #getSelectList(String)} or
+   * {@link #getSelections(Path)} into maps of the requested fields.
+   */
+  public List<Map<String, Object>> toMaps(List<?> rows) {
+    return rows
+        .stream()
+        .map(this::toMap)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Converts the row selected with {@link #getSelectList(String)} or
+   * {@link #getSelections(Path)} into a map of the requested fields. A query with a single
+   * selection returns the value itself instead of an array.
+   */
+  public Map<String, Object> toMap(Object row) {
+    Object[] values = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+    Map<String, Object> map = new LinkedHashMap<>();
+
+    int index = 0;
+    for (String field : attributePaths.keySet()) {
+      put(map, field, values[index++]);
+    }
+
+    return map;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void put(Map<String, Object> map, String field, Object value) {
+    int separator = field.indexOf(PATH_SEPARATOR);
+
+    if (separator < 0) {
+      map.put(field, value);
+      return;
+    }
+
+    Map<String, Object> nested = (Map<String, Object>) map
+        .computeIfAbsent(field.substring(0, separator), key -> new LinkedHashMap<>());
+
+    put(nested, field.substring(separator + 1), value);
+  }
+}
@@ -24,6 +24,7 @@ public abstract class UserMessageKeys extends MessageKeys {
   private static final String WAREHOUSE_ID = "warehouseId";
   private static final String PROGRAM_ID = "programId";
   private static final String SUPERVISORY_NODE_ID = "supervisoryNodeId";
+  private static final String IMPORT = "import";
 
   public static final String ERROR_NULL = join(ERROR, NULL);
   public static final String ERROR_ROLE_ID_NULL = join(ERROR, ROLE, ID, NULL);
@@ -51,4 +52,8 @@ public abstract class UserMessageKeys extends MessageKeys {
       join(ERROR, RIGHT_SEARCH, PROGRAM_ID, REQUIRED);
   public static final String SUPERVISORY_NODE_ID_REQUIRED =
       join(ERROR, RIGHT_SEARCH, SUPERVISORY_NODE_ID, REQUIRED);
+
+  public static final String ERROR_IMPORT_ID_NOT_ALLOWED = join(ERROR, IMPORT, ID, NOT_ALLOWED);
+  public static final String ERROR_IMPORT_REFERENCE_NOT_FOUND =
+      join(ERROR, IMPORT, "reference", NOT_FOUND);
 }
@@ -79,6 +79,19 @@ public class OrderableValidator implements BaseValidator {
    */
   @Override
   public void validate(Object target, Errors errors) {
+    validateFields(target, errors);
+    validateProductCode((OrderableDto) target, errors);
+  }
+
+  /**
+   * Validates the {@code target} object like {@link #validate(Object, Errors)} but does not
+   * check whether the product code is unique. Batch operations use it to check the codes of all
+   * orderables with a single query instead.
+   *
+   * @param target the object that is to be validated (never {@code null})
+   * @param errors contextual state about the validation process (never {@code null})
+   */
+  public void validateFields(Object target, Errors errors) {
     verifyArguments(target, errors, ERROR_NULL);
 
     rejectIfEmptyOrWhitespace(errors, PRODUCT_CODE,ERROR_PRODUCT_CODE_REQUIRED);
@@ -99,8 +112,6 @@ public class OrderableValidator implements BaseValidator {
     }
     validateTemperature(dto, errors);
     validateVolumeMeasurement(dto, errors);
-    validateProductCode(dto, errors);
-
   }
 
   private void validateTemperature(OrderableDto dto, Errors errors) {
@@ -25,6 +25,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import javax.annotation.Resource;
 import org.apache.commons.lang3.StringUtils;
 import org.javers.core.Javers;
@@ -85,6 +86,12 @@ public abstract class BaseController {
     return Pagination.getPage(originalList, pageable);
   }
 
+  protected <T, R> Page<R> toPage(Iterable<T> data, Pageable pageable,
+      Function<? super T, ? extends R> mapper, Profiler profiler) {
+    profiler.start("CREATE_PAGE");
+    return Pagination.getPage(data, pageable, mapper);
+  }
+
   protected <T> Page<T> toPage(List<T> originalList, Pageable pageable, long totalElements,
                                Profiler profiler) {
     profiler.start("CREATE_PAGE");
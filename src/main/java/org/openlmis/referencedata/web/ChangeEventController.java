@@ -0,0 +1,60 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import java.util.Set;
+import java.util.UUID;
+import org.openlmis.referencedata.service.ChangeEventBroadcaster;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@Controller
+public class ChangeEventController extends BaseController {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ChangeEventController.class);
+
+  public static final String RESOURCE_PATH = "/events";
+
+  @Autowired
+  private ChangeEventBroadcaster changeEventBroadcaster;
+
+  /**
+   * Subscribes to server-sent events about changes of orderables, facility type approved
+   * products, facilities and right assignments.
+   *
+   * @param types       event types to receive; all types by default.
+   * @param ids         ids of resources to receive events of; all resources by default.
+   * @param lastEventId id of the last received event, sent by clients when they reconnect.
+   * @return the stream of events.
+   */
+  @GetMapping(value = RESOURCE_PATH, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @ResponseBody
+  public SseEmitter subscribe(
+      @RequestParam(value = "types", required = false) Set<String> types,
+      @RequestParam(value = "ids", required = false) Set<UUID> ids,
+      @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    XLOGGER.debug("Subscribing to change events of types {} and ids {}", types, ids);
+    return changeEventBroadcaster.subscribe(types, ids, lastEventId);
+  }
+}
@@ -0,0 +1,69 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import java.util.Set;
+import org.openlmis.referencedata.dto.ChangeLogPageDto;
+import org.openlmis.referencedata.service.ChangeLogService;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class ChangeLogController extends BaseController {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ChangeLogController.class);
+
+  public static final String RESOURCE_PATH = "/changes";
+
+  @Autowired
+  private ChangeLogService changeLogService;
+
+  /**
+   * Returns changes of orderables, facilities, facility type approved products and programs
+   * made after the given cursor. Without the cursor, only the current position of the log is
+   * returned.
+   *
+   * @param since cursor returned by the previous request.
+   * @param types resource types to return changes of; all types by default.
+   * @param limit maximum number of changes to return.
+   * @return the changes and the cursor to pass with the next request.
+   */
+  @GetMapping(RESOURCE_PATH)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public ChangeLogPageDto getChanges(
+      @RequestParam(value = "since", required = false) String since,
+      @RequestParam(value = "types", required = false) Set<String> types,
+      @RequestParam(value = "limit", required = false) Integer limit) {
+    Profiler profiler = new MeteredProfiler("GET_CHANGES");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("GET_CHANGES_FROM_LOG");
+    ChangeLogPageDto page = changeLogService.getChanges(since, types, limit);
+
+    profiler.stop().log();
+    return page;
+  }
+}
@@ -179,7 +179,7 @@ public class CommodityTypeController extends BaseController {
 
     Iterable<CommodityType> result = repository.findAll();
 
-    return Pagination.getPage(CommodityTypeDto.newInstance(result), pageable);
+    return Pagination.getPage(result, pageable, CommodityTypeDto::newInstance);
   }
 
   /**
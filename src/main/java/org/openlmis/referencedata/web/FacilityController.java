@@ -29,9 +29,15 @@ import java.util.stream.Collectors;
 
 import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityOperator;
+import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.GeographicLevel;
+import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.domain.SupportedProgram;
 import org.openlmis.referencedata.dto.ApprovedProductDto;
 import org.openlmis.referencedata.dto.BasicFacilityDto;
 import org.openlmis.referencedata.dto.FacilityDto;
@@ -44,7 +50,9 @@ import org.openlmis.referencedata.repository.FacilityTypeApprovedProductReposito
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.service.FacilityBuilder;
 import org.openlmis.referencedata.service.FacilityService;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.validate.FacilityValidator;
 import org.slf4j.ext.XLogger;
@@ -81,6 +89,11 @@ public class FacilityController extends BaseController {
 
   public static final String RESOURCE_PATH = "/facilities";
 
+  private static final Map<String, String> AVAILABLE_FIELDS = SparseFieldset.availableFields(
+      "id", "code", "name", "description", "active", "enabled", "openLmisAccessible",
+      "goLiveDate", "goDownDate", "comment", "type.id", "type.code", "type.name",
+      "geographicZone.id", "geographicZone.code", "geographicZone.name");
+
   @Autowired
   private FacilityRepository facilityRepository;
 
@@ -97,7 +110,7 @@ public class FacilityController extends BaseController {
   private FacilityValidator facilityValidator;
 
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   @Autowired
   private FhirClient fhirClient;
@@ -116,7 +129,7 @@ public class FacilityController extends BaseController {
   @ResponseBody
   public FacilityDto createFacility(@RequestBody FacilityDto facilityDto,
       BindingResult bindingResult) {
-    Profiler profiler = new Profiler("CREATE_FACILITY");
+    Profiler profiler = new MeteredProfiler("CREATE_FACILITY");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
@@ -151,27 +164,26 @@ public class FacilityController extends BaseController {
    * @param active True if only active facilities should be returned.
    * @return Facilities.
    */
+  @ReadFromReplica
   @RequestMapping(value = RESOURCE_PATH + "/minimal", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<MinimalFacilityDto> getMinimalFacilities(
       @RequestParam(required = false) Boolean active,
       Pageable pageable) {
-    Profiler profiler = new Profiler("GET_MINIMAL_FACILITIES");
+    Profiler profiler = new MeteredProfiler("GET_MINIMAL_FACILITIES");
     profiler.setLogger(XLOGGER);
 
-    Page<Facility> facilities;
+    Page<MinimalFacilityDto> minimalFacilities;
 
     if (active != null) {
       profiler.start("FIND_BY_ACTIVE");
-      facilities = facilityRepository.findByActive(active, pageable);
+      minimalFacilities = facilityRepository.findMinimalByActive(active, pageable);
     } else {
       profiler.start("FIND_ALL");
-      facilities = facilityRepository.findAll(pageable);
+      minimalFacilities = facilityRepository.findAllMinimal(pageable);
     }
 
-    Page<MinimalFacilityDto> minimalFacilities = toMinimalDto(facilities, profiler, pageable);
-
     profiler.stop().log();
     return minimalFacilities;
   }
@@ -188,7 +200,7 @@ public class FacilityController extends BaseController {
   @ResponseBody
   public Page<FacilityDto> getFullRepresentationFacilities(
           @RequestParam MultiValueMap<String, Object> requestParams, Pageable pageable) {
-    Profiler profiler = new Profiler("GET_FACILITIES");
+    Profiler profiler = new MeteredProfiler("GET_FACILITIES");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_FACILITIES");
@@ -225,7 +237,7 @@ public class FacilityController extends BaseController {
           @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
                         boolean returnJson,
           Pageable page) {
-    Profiler profiler = new Profiler("GET_AUDIT_LOG");
+    Profiler profiler = new MeteredProfiler("GET_AUDIT_LOG");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
@@ -258,7 +270,7 @@ public class FacilityController extends BaseController {
       @PathVariable("id") UUID facilityId,
       BindingResult bindingResult) {
 
-    Profiler profiler = new Profiler("UPDATE_FACILITY");
+    Profiler profiler = new MeteredProfiler("UPDATE_FACILITY");
     profiler.setLogger(XLOGGER);
 
     if (null != facilityDto.getId() && !Objects.equals(facilityDto.getId(), facilityId)) {
@@ -281,7 +293,7 @@ public class FacilityController extends BaseController {
     fhirClient.synchronizeFacility(facilityToSave);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentRegenerationScheduler.requestRegeneration();
 
     XLOGGER.info("Saved facility with id: {}", facilityToSave.getId());
     FacilityDto dto = toDto(facilityToSave, profiler);
@@ -296,11 +308,13 @@ public class FacilityController extends BaseController {
    * @param facilityId UUID of facility which we want to get
    * @return Facility.
    */
+  @VersionedResource({Facility.class, SupportedProgram.class, FacilityType.class,
+      FacilityOperator.class, GeographicZone.class, GeographicLevel.class, Program.class})
   @RequestMapping(value = RESOURCE_PATH + "/{id}", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public FacilityDto getFacility(@PathVariable("id") UUID facilityId) {
-    Profiler profiler = new Profiler("GET_FACILITY");
+    Profiler profiler = new MeteredProfiler("GET_FACILITY");
     profiler.setLogger(XLOGGER);
 
     Facility facility = findFacility(facilityId, profiler);
@@ -332,7 +346,7 @@ public class FacilityController extends BaseController {
       @RequestParam(required = false, value = "orderableName") String orderableName,
       @PageableDefault(size = Integer.MAX_VALUE) Pageable pageable) {
 
-    Profiler profiler = new Profiler("GET_FACILITY_APPROVED_PRODUCTS");
+    Profiler profiler = new MeteredProfiler("GET_FACILITY_APPROVED_PRODUCTS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_APPROVED_PRODUCTS");
@@ -359,7 +373,7 @@ public class FacilityController extends BaseController {
   @ResponseBody
   public Page<FacilityDto> findFacilitiesByBoundary(@RequestBody Polygon boundary, 
       Pageable pageable) {
-    Profiler profiler = new Profiler("GET_FACILITIES_BY_BOUNDARY");
+    Profiler profiler = new MeteredProfiler("GET_FACILITIES_BY_BOUNDARY");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
@@ -367,8 +381,7 @@ public class FacilityController extends BaseController {
     profiler.start("DB_CALL");
     List<Facility> foundFacilities = facilityRepository.findByBoundary(boundary);
 
-    List<FacilityDto> facilityDtos = toDto(foundFacilities, profiler);
-    Page<FacilityDto> page = toPage(facilityDtos, pageable, profiler);
+    Page<FacilityDto> page = toPage(foundFacilities, pageable, FacilityDto::newInstance, profiler);
 
     profiler.stop().log();
     return page;
@@ -382,7 +395,7 @@ public class FacilityController extends BaseController {
   @RequestMapping(value = RESOURCE_PATH + "/{id}", method = RequestMethod.DELETE)
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteFacility(@PathVariable("id") UUID facilityId) {
-    Profiler profiler = new Profiler("DELETE_FACILITY");
+    Profiler profiler = new MeteredProfiler("DELETE_FACILITY");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
@@ -400,12 +413,15 @@ public class FacilityController extends BaseController {
    * @param requestParams request parameters (id, code, name, zone, recurse).
    * @return List of wanted Facilities matching query parameters.
    */
+  @VersionedResource({Facility.class, SupportedProgram.class, FacilityType.class,
+      FacilityOperator.class, GeographicZone.class, GeographicLevel.class, Program.class})
+  @ReadFromReplica
   @GetMapping(value = RESOURCE_PATH)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<BasicFacilityDto> getFacilities(
       @RequestParam MultiValueMap<String, Object> requestParams, Pageable pageable) {
-    Profiler profiler = new Profiler("GET_FACILITIES");
+    Profiler profiler = new MeteredProfiler("GET_FACILITIES");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_FACILITIES");
@@ -421,6 +437,36 @@ public class FacilityController extends BaseController {
     return dto;
   }
 
+  /**
+   * Retrieves only the requested fields of all facilities that are matching given request
+   * parameters. The facilities are not loaded, only the requested values are selected.
+   *
+   * @param requestParams request parameters (id, code, name, zone, recurse).
+   * @param fields comma separated list of fields that should be returned.
+   * @return Page of maps with the requested fields.
+   */
+  @VersionedResource({Facility.class, FacilityType.class, GeographicZone.class})
+  @ReadFromReplica
+  @GetMapping(value = RESOURCE_PATH, params = SparseFieldset.FIELDS)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Page<Map<String, Object>> getFacilityFields(
+      @RequestParam MultiValueMap<String, Object> requestParams,
+      @RequestParam(SparseFieldset.FIELDS) String fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("GET_FACILITY_FIELDS");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("PARSE_PARAMS");
+    SparseFieldset fieldset = SparseFieldset.parse(fields, AVAILABLE_FIELDS);
+    FacilitySearchParams params = new FacilitySearchParams(requestParams);
+
+    profiler.start("SERVICE_SEARCH");
+    Page<Map<String, Object>> page = facilityService.searchFacilities(params, fieldset, pageable);
+
+    profiler.stop().log();
+    return page;
+  }
+
   /**
    * Retrieves all Facilities with facilityCode similar to code parameter or facilityName similar to
    * name parameter.
@@ -435,7 +481,7 @@ public class FacilityController extends BaseController {
   public Page<BasicFacilityDto> searchFacilities(@RequestBody Map<String, Object> queryParams,
                                                  Pageable pageable) {
     XLOGGER.entry(queryParams);
-    Profiler profiler = new Profiler("SEARCH_FACILITIES");
+    Profiler profiler = new MeteredProfiler("SEARCH_FACILITIES");
     profiler.setLogger(XLOGGER);
 
     profiler.start("CONVERT_PARAMS");
@@ -470,14 +516,6 @@ public class FacilityController extends BaseController {
     return FacilityDto.newInstance(facility);
   }
 
-  private List<FacilityDto> toDto(List<Facility> facilities, Profiler profiler) {
-    profiler.start("EXPORT_FACILITIES_TO_DTO");
-    return facilities
-        .stream()
-        .map(FacilityDto::newInstance)
-        .collect(Collectors.toList());
-  }
-
   private Page<ApprovedProductDto> toDto(Page<FacilityTypeApprovedProduct> products,
       Pageable pageable, Profiler profiler) {
     profiler.start("EXPORT_PRODUCTS_TO_DTO");
@@ -510,18 +548,6 @@ public class FacilityController extends BaseController {
     return toPage(dtos, pageable, products.getTotalElements(), profiler);
   }
 
-  private Page<MinimalFacilityDto> toMinimalDto(Page<Facility> facilities, Profiler profiler,
-                                                Pageable pageable) {
-    profiler.start("EXPORT_FACILITIES_TO_MINIMAL_DTO");
-    List<MinimalFacilityDto> minimalFacilityDtos = facilities
-        .getContent()
-        .stream()
-        .map(MinimalFacilityDto::newInstance)
-        .collect(Collectors.toList());
-
-    return toPage(minimalFacilityDtos, pageable, profiler);
-  }
-
   private Page<BasicFacilityDto> toBasicDto(Page<Facility> facilities, Pageable pageable,
       Profiler profiler) {
     profiler.start("EXPORT_FACILITIES_TO_BASIC_DTO");
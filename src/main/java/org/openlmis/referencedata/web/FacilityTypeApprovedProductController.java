@@ -28,14 +28,22 @@ import java.util.UUID;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
+import org.openlmis.referencedata.domain.FacilityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableChild;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.ProgramOrderable;
 import org.openlmis.referencedata.dto.ApprovedProductDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
 import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.service.FacilityTypeApprovedProductBatchService;
 import org.openlmis.referencedata.service.FacilityTypeApprovedProductBuilder;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.UuidUtil;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeApprovedProductMessageKeys;
@@ -48,6 +56,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -80,6 +89,9 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @Autowired
   private FacilityTypeApprovedProductBuilder facilityTypeApprovedProductBuilder;
 
+  @Autowired
+  private FacilityTypeApprovedProductBatchService facilityTypeApprovedProductBatchService;
+
   /**
    * Allows creating new facilityTypeApprovedProduct.
    *
@@ -90,7 +102,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @ResponseStatus(HttpStatus.CREATED)
   public ApprovedProductDto createFacilityTypeApprovedProduct(
         @RequestBody ApprovedProductDto approvedProductDto) {
-    Profiler profiler = new Profiler("CREATE_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("CREATE_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(FACILITY_APPROVED_ORDERABLES_MANAGE, profiler);
@@ -127,7 +139,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
   public ApprovedProductDto updateFacilityTypeApprovedProduct(
         @RequestBody ApprovedProductDto approvedProductDto,
         @PathVariable("id") UUID facilityTypeApprovedProductId) {
-    Profiler profiler = new Profiler("UPDATE_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("UPDATE_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(FACILITY_APPROVED_ORDERABLES_MANAGE, profiler);
@@ -165,6 +177,31 @@ public class FacilityTypeApprovedProductController extends BaseController {
     return dto;
   }
 
+  /**
+   * Creates or updates many facilityTypeApprovedProducts at once. An item with an id gets a new
+   * version, an item without an id updates the active one of the same orderable, program and
+   * facility type or is created. Items which can't be saved don't stop the rest of the batch.
+   *
+   * @param approvedProductDtos facilityTypeApprovedProducts bound to the request body.
+   * @return the result of every item of the batch.
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  @PutMapping("/batch")
+  public List<BatchItemResultDto<ApprovedProductDto>> upsertFacilityTypeApprovedProducts(
+        @RequestBody List<ApprovedProductDto> approvedProductDtos) {
+    Profiler profiler = new MeteredProfiler("UPSERT_FACILITY_TYPE_APPROVED_PRODUCTS");
+    profiler.setLogger(XLOGGER);
+
+    checkAdminRight(FACILITY_APPROVED_ORDERABLES_MANAGE, profiler);
+
+    profiler.start("UPSERT_FTAPS");
+    List<BatchItemResultDto<ApprovedProductDto>> results = facilityTypeApprovedProductBatchService
+        .upsert(approvedProductDtos);
+
+    profiler.stop().log();
+    return results;
+  }
+
   /**
    * Get chosen facilityTypeApprovedProduct.
    *
@@ -173,10 +210,14 @@ public class FacilityTypeApprovedProductController extends BaseController {
    *                  version will be returned.
    * @return the FacilityTypeApprovedProduct.
    */
+  @VersionedResource({FacilityTypeApprovedProduct.class, FacilityType.class, Program.class,
+      Orderable.class, ProgramOrderable.class, OrderableChild.class,
+      OrderableDisplayCategory.class})
+  @ReadFromReplica
   @GetMapping("/{id}")
   public ApprovedProductDto getFacilityTypeApprovedProduct(@PathVariable("id") UUID id,
       @RequestParam(name = "versionNumber", required = false) Long versionNumber) {
-    Profiler profiler = new Profiler("GET_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("GET_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     FacilityTypeApprovedProduct facilityTypeApprovedProduct;
@@ -210,10 +251,14 @@ public class FacilityTypeApprovedProductController extends BaseController {
    *                    * program
    * @return a page of approved products matching the criteria
    */
+  @VersionedResource({FacilityTypeApprovedProduct.class, FacilityType.class, Program.class,
+      Orderable.class, ProgramOrderable.class, OrderableChild.class,
+      OrderableDisplayCategory.class})
+  @ReadFromReplica
   @GetMapping
   public Page<ApprovedProductDto> searchFacilityTypeApprovedProducts(
         @RequestParam MultiValueMap<String, Object> queryParams, Pageable pageable) {
-    Profiler profiler = new Profiler("GET_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("GET_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     profiler.start("PARSE_QUERY_PARAMETERS");
@@ -241,7 +286,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @PostMapping("/search")
   public Page<ApprovedProductDto> searchFacilityTypeApprovedProducts(
       @RequestBody FacilityTypeApprovedProductSearchParams body) {
-    Profiler profiler = new Profiler("SEARCH_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("SEARCH_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     profiler.start("SEARCH_FTAPS");
@@ -267,7 +312,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteFacilityTypeApprovedProduct(@PathVariable("id") UUID id,
       @RequestParam(name = "versionNumber", required = false) Long versionNumber) {
-    Profiler profiler = new Profiler("DELETE_FACILITY_TYPE_APPROVED_PRODUCT");
+    Profiler profiler = new MeteredProfiler("DELETE_FACILITY_TYPE_APPROVED_PRODUCT");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(FACILITY_APPROVED_ORDERABLES_MANAGE, profiler);
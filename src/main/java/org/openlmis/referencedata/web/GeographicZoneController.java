@@ -29,6 +29,7 @@ import org.openlmis.referencedata.fhir.FhirClient;
 import org.openlmis.referencedata.repository.GeographicZoneRepository;
 import org.openlmis.referencedata.service.GeographicZoneBuilder;
 import org.openlmis.referencedata.service.GeographicZoneService;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.GeographicZoneMessageKeys;
 import org.openlmis.referencedata.validate.GeographicZoneValidator;
 import org.slf4j.ext.XLogger;
@@ -84,7 +85,7 @@ public class GeographicZoneController extends BaseController {
   @ResponseBody
   public GeographicZoneDto createGeographicZone(@RequestBody GeographicZoneDto geographicZoneDto,
       BindingResult bindingResult) {
-    Profiler profiler = new Profiler("CREATE_GEO_ZONE");
+    Profiler profiler = new MeteredProfiler("CREATE_GEO_ZONE");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.GEOGRAPHIC_ZONES_MANAGE_RIGHT, profiler);
@@ -122,7 +123,7 @@ public class GeographicZoneController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<GeographicZoneSimpleDto> getAllGeographicZones(Pageable pageable) {
-    Profiler profiler = new Profiler("GET_ALL_GEO_ZONES");
+    Profiler profiler = new MeteredProfiler("GET_ALL_GEO_ZONES");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_ALL");
@@ -148,7 +149,7 @@ public class GeographicZoneController extends BaseController {
   public GeographicZoneDto updateGeographicZone(@PathVariable("id") UUID geographicZoneId,
       @RequestBody GeographicZoneDto geographicZoneDto,
       BindingResult bindingResult) {
-    Profiler profiler = new Profiler("UPDATE_GEO_ZONE");
+    Profiler profiler = new MeteredProfiler("UPDATE_GEO_ZONE");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.GEOGRAPHIC_ZONES_MANAGE_RIGHT, profiler);
@@ -185,7 +186,7 @@ public class GeographicZoneController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public GeographicZoneDto getGeographicZone(@PathVariable("id") UUID geographicZoneId) {
-    Profiler profiler = new Profiler("GET_GEO_ZONE");
+    Profiler profiler = new MeteredProfiler("GET_GEO_ZONE");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_ONE_BY_ID");
@@ -212,7 +213,7 @@ public class GeographicZoneController extends BaseController {
   @RequestMapping(value = RESOURCE_PATH + "/{id}", method = RequestMethod.DELETE)
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteGeographicZone(@PathVariable("id") UUID geographicZoneId) {
-    Profiler profiler = new Profiler("DELETE_GEO_ZONE");
+    Profiler profiler = new MeteredProfiler("DELETE_GEO_ZONE");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.GEOGRAPHIC_ZONES_MANAGE_RIGHT, profiler);
@@ -242,7 +243,7 @@ public class GeographicZoneController extends BaseController {
   @ResponseBody
   public Iterable<GeographicZoneSimpleDto> findGeographicZonesByLocation(
       @RequestBody Point location) {
-    Profiler profiler = new Profiler("FIND_GEO_ZONES_BY_LOCATION");
+    Profiler profiler = new MeteredProfiler("FIND_GEO_ZONES_BY_LOCATION");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.GEOGRAPHIC_ZONES_MANAGE_RIGHT, profiler);
@@ -268,7 +269,7 @@ public class GeographicZoneController extends BaseController {
   @ResponseBody
   public Page<GeographicZoneSimpleDto> search(@RequestBody Map<String, Object> queryParams,
       Pageable pageable) {
-    Profiler profiler = new Profiler("SEARCH_GEO_ZONES");
+    Profiler profiler = new MeteredProfiler("SEARCH_GEO_ZONES");
     profiler.setLogger(XLOGGER);
 
     profiler.start("SEARCH_BY_PARAMS");
@@ -302,7 +303,7 @@ public class GeographicZoneController extends BaseController {
       @RequestParam(name = "returnJSON", required = false, defaultValue = "true")
           boolean returnJson,
       Pageable page) {
-    Profiler profiler = new Profiler("GET_AUDIT_LOG_OF_GEO_ZONE");
+    Profiler profiler = new MeteredProfiler("GET_AUDIT_LOG_OF_GEO_ZONE");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.GEOGRAPHIC_ZONES_MANAGE_RIGHT, profiler);
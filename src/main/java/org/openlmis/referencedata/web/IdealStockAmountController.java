@@ -17,23 +17,30 @@ package org.openlmis.referencedata.web;
 
 import static org.openlmis.referencedata.util.messagekeys.IdealStockAmountMessageKeys.ERROR_FORMAT_NOT_ALLOWED;
 
+import com.google.common.collect.Iterables;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import javax.servlet.http.HttpServletResponse;
 import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.domain.JobType;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
 import org.openlmis.referencedata.dto.IdealStockAmountDto;
+import org.openlmis.referencedata.dto.JobDto;
 import org.openlmis.referencedata.dto.UploadResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.i18n.MessageService;
 import org.openlmis.referencedata.service.IdealStockAmountSearchParams;
 import org.openlmis.referencedata.service.IdealStockAmountService;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
 import org.openlmis.referencedata.util.IdealStockAmountDtoBuilder;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.MessageKeys;
 import org.openlmis.referencedata.validate.CsvHeaderValidator;
@@ -42,6 +49,7 @@ import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.parser.CsvParser;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountProcessor;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountWriter;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.profiler.Profiler;
@@ -70,6 +78,9 @@ public class IdealStockAmountController extends BaseController {
   private static final String DISPOSITION_BASE = "attachment; filename=";
   private static final String FORMAT = "format";
   private static final String CSV = "csv";
+  private static final String ASYNC = "async=true";
+  private static final String CSV_RESULT_NAME = "ideal_stock_amounts.csv";
+  private static final String UPLOAD_RESULT_NAME = "ideal_stock_amounts_upload.json";
 
   @Autowired
   private IdealStockAmountService service;
@@ -95,6 +106,9 @@ public class IdealStockAmountController extends BaseController {
   @Autowired
   private IdealStockAmountDtoBuilder isaDtoBuilder;
 
+  @Autowired
+  private JobService jobService;
+
   /**
    * Returns all matching ideal stock amounts. If no params provided, returns all amounts.
    *
@@ -109,7 +123,7 @@ public class IdealStockAmountController extends BaseController {
   @ResponseBody
   public Page<IdealStockAmountDto> getIsas(IdealStockAmountSearchParams requestParams,
                                            Pageable pageable) {
-    Profiler profiler = new Profiler("GET_ISAS");
+    Profiler profiler = new MeteredProfiler("GET_ISAS");
     profiler.setLogger(LOGGER);
 
     profiler.start("SEARCH_ISAS");
@@ -131,7 +145,7 @@ public class IdealStockAmountController extends BaseController {
   public void download(@RequestParam(FORMAT) String format,
                        HttpServletResponse response) throws IOException {
 
-    Profiler profiler = new Profiler("DOWNLOAD_IDEAL_STOCK_AMOUNTS");
+    Profiler profiler = new MeteredProfiler("DOWNLOAD_IDEAL_STOCK_AMOUNTS");
     profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_FORMAT");
@@ -149,12 +163,12 @@ public class IdealStockAmountController extends BaseController {
 
     response.setContentType("text/csv");
     response.addHeader(HttpHeaders.CONTENT_DISPOSITION,
-        DISPOSITION_BASE + "ideal_stock_amounts.csv");
+        DISPOSITION_BASE + CSV_RESULT_NAME);
 
     profiler.start("PARSE_IDEAL_STOCK_AMOUNTS_TO_CSV");
     try {
       csvFormatter.process(
-          response.getOutputStream(), new ModelClass(IdealStockAmountCsvModel.class), items);
+          response.getOutputStream(), new ModelClass<>(IdealStockAmountCsvModel.class), items);
     } catch (IOException ex) {
       throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
     } finally {
@@ -162,6 +176,31 @@ public class IdealStockAmountController extends BaseController {
     }
   }
 
+  /**
+   * Submits a job preparing the csv file with all Ideal Stock Amounts. The file is available as
+   * the result of the returned job.
+   */
+  @GetMapping(value = RESOURCE_PATH, params = {FORMAT, ASYNC})
+  @ResponseBody
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public JobDto submitDownload(@RequestParam(FORMAT) String format) {
+    Profiler profiler = new MeteredProfiler("SUBMIT_DOWNLOAD_IDEAL_STOCK_AMOUNTS");
+    profiler.setLogger(LOGGER);
+
+    checkAdminRight(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE, profiler);
+    checkFormat(format, profiler);
+
+    profiler.start("SUBMIT_JOB");
+    JobDto job = jobService.submitInTransaction(JobType.IDEAL_STOCK_AMOUNT_DOWNLOAD, context -> {
+      List<IdealStockAmountCsvModel> items = toCsvDto(service.search());
+      context.setResult(CSV_RESULT_NAME, "text/csv", output -> csvFormatter.process(
+          output, new ModelClass<>(IdealStockAmountCsvModel.class), items));
+    });
+
+    profiler.stop().log();
+    return job;
+  }
+
   /**
    * Uploads csv file and converts to domain object.
    *
@@ -173,20 +212,18 @@ public class IdealStockAmountController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   public UploadResultDto upload(@RequestParam(FORMAT) String format,
                                 @RequestPart("file") MultipartFile file) {
-    Profiler profiler = new Profiler("UPLOAD_IDEAL_STOCK_AMOUNTS");
+    Profiler profiler = new MeteredProfiler("UPLOAD_IDEAL_STOCK_AMOUNTS");
     profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE);
 
-    profiler.start("CHECK_FORMAT");
-    if (!CSV.equals(format)) {
-      throw new NotFoundException(new Message(ERROR_FORMAT_NOT_ALLOWED, format, CSV));
-    }
+    checkFormat(format, profiler);
 
     profiler.start("VALIDATE_FILE");
     validateCsvFile(file);
-    ModelClass modelClass = new ModelClass(IdealStockAmountCsvModel.class);
+    ModelClass<IdealStockAmountCsvModel> modelClass =
+        new ModelClass<>(IdealStockAmountCsvModel.class);
 
     profiler.start("PARSE_FILE");
     try {
@@ -202,6 +239,66 @@ public class IdealStockAmountController extends BaseController {
     }
   }
 
+  /**
+   * Submits a job uploading the csv file. The file is read before the job is queued, and the job
+   * saves all records in one transaction. Its result is the number of uploaded records.
+   *
+   * @param file File in ".csv" format to upload.
+   * @return the queued job.
+   */
+  @PostMapping(value = RESOURCE_PATH, params = {FORMAT, ASYNC})
+  @ResponseBody
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  public JobDto submitUpload(@RequestParam(FORMAT) String format,
+                             @RequestPart("file") MultipartFile file) {
+    Profiler profiler = new MeteredProfiler("SUBMIT_UPLOAD_IDEAL_STOCK_AMOUNTS");
+    profiler.setLogger(LOGGER);
+
+    checkAdminRight(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE, profiler);
+    checkFormat(format, profiler);
+
+    profiler.start("VALIDATE_FILE");
+    validateCsvFile(file);
+
+    profiler.start("READ_FILE");
+    byte[] content;
+    try {
+      content = file.getBytes();
+    } catch (IOException ex) {
+      throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    }
+
+    profiler.start("SUBMIT_JOB");
+    JobDto job = jobService.submitInTransaction(JobType.IDEAL_STOCK_AMOUNT_UPLOAD,
+        context -> context.setJsonResult(UPLOAD_RESULT_NAME, upload(content, context)));
+
+    profiler.stop().log();
+    return job;
+  }
+
+  private UploadResultDto upload(byte[] content, JobContext context) {
+    RecordWriter<IdealStockAmount> writer = entities -> {
+      context.checkCancelled();
+      idealStockAmountWriter.write(entities);
+      context.advance(Iterables.size(entities));
+    };
+
+    try {
+      return new UploadResultDto(csvParser.parse(new ByteArrayInputStream(content),
+          new ModelClass<>(IdealStockAmountCsvModel.class), csvHeaderValidator,
+          idealStockAmountProcessor, writer));
+    } catch (IOException ex) {
+      throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    }
+  }
+
+  private void checkFormat(String format, Profiler profiler) {
+    profiler.start("CHECK_FORMAT");
+    if (!CSV.equals(format)) {
+      throw new NotFoundException(new Message(ERROR_FORMAT_NOT_ALLOWED, format, CSV));
+    }
+  }
+
   private IdealStockAmountCsvModel toCsvDto(IdealStockAmount isa) {
     IdealStockAmountCsvModel dto = new IdealStockAmountCsvModel();
     isa.export(dto);
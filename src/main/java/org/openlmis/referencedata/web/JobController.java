@@ -0,0 +1,131 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.web;
+
+import java.io.IOException;
+import java.util.UUID;
+import javax.servlet.http.HttpServletResponse;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.exception.NotFoundException;
+import org.openlmis.referencedata.service.job.JobService;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.JobMessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * State, cancellation and results of jobs, which run long operations like imports and exports
+ * submitted with the {@code async} parameter. A job is visible to users with the right needed
+ * for its type.
+ */
+@RestController
+public class JobController extends BaseController {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(JobController.class);
+
+  public static final String RESOURCE_PATH = "/jobs";
+
+  private static final String DISPOSITION_BASE = "attachment; filename=";
+
+  @Autowired
+  private JobService jobService;
+
+  /**
+   * Returns the state of a job: its status, progress, estimated finish date and, once it has
+   * finished, the error or description of the result.
+   *
+   * @param id the ID of the job.
+   * @return the job.
+   */
+  @GetMapping(RESOURCE_PATH + "/{id}")
+  public JobDto getJob(@PathVariable("id") UUID id) {
+    Profiler profiler = new MeteredProfiler("GET_JOB");
+    profiler.setLogger(XLOGGER);
+
+    JobDto job = findJob(id, profiler);
+
+    profiler.stop().log();
+    return job;
+  }
+
+  /**
+   * Cancels a job. A queued job is cancelled at once, a running one as soon as it notices. Work
+   * done in one transaction, like a data import, is rolled back.
+   *
+   * @param id the ID of the job.
+   * @return the job.
+   */
+  @PostMapping(RESOURCE_PATH + "/{id}/cancel")
+  public JobDto cancelJob(@PathVariable("id") UUID id) {
+    Profiler profiler = new MeteredProfiler("CANCEL_JOB");
+    profiler.setLogger(XLOGGER);
+
+    findJob(id, profiler);
+
+    profiler.start("CANCEL_JOB");
+    JobDto job = jobService.cancel(id);
+
+    profiler.stop().log();
+    return job;
+  }
+
+  /**
+   * Downloads the result of a job, e.g. the exported file or the results of an import.
+   *
+   * @param id the ID of the job.
+   */
+  @GetMapping(RESOURCE_PATH + "/{id}/result")
+  public void getJobResult(@PathVariable("id") UUID id, HttpServletResponse response)
+      throws IOException {
+    Profiler profiler = new MeteredProfiler("GET_JOB_RESULT");
+    profiler.setLogger(XLOGGER);
+
+    JobDto.Result result = findJob(id, profiler).getResult();
+
+    if (null == result) {
+      throw new NotFoundException(new Message(JobMessageKeys.ERROR_RESULT_NOT_FOUND, id));
+    }
+
+    profiler.start("WRITE_RESULT");
+    response.setContentType(result.getContentType());
+    response.setContentLengthLong(result.getSize());
+    response.addHeader(HttpHeaders.CONTENT_DISPOSITION, DISPOSITION_BASE + result.getName());
+
+    try {
+      jobService.writeResult(id, response.getOutputStream());
+    } finally {
+      profiler.stop().log();
+    }
+  }
+
+  private JobDto findJob(UUID id, Profiler profiler) {
+    profiler.start("FIND_JOB");
+    JobDto job = jobService.getJob(id);
+
+    checkAdminRight(job.getType().getRightName(), profiler);
+    return job;
+  }
+
+}
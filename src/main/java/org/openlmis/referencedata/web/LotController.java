@@ -32,6 +32,7 @@ import org.openlmis.referencedata.repository.TradeItemRepository;
 import org.openlmis.referencedata.service.LotSearchParams;
 import org.openlmis.referencedata.service.LotService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.LotMessageKeys;
 import org.slf4j.ext.XLogger;
@@ -166,7 +167,7 @@ public class LotController extends BaseController {
   @ResponseBody
   public Page<LotDto> getLots(LotSearchParams requestParams, Pageable pageable) {
     XLOGGER.entry(requestParams, pageable);
-    Profiler profiler = new Profiler("LOTS_SEARCH");
+    Profiler profiler = new MeteredProfiler("LOTS_SEARCH");
     profiler.setLogger(XLOGGER);
 
     profiler.start("LOT_SERVICE_SEARCH");
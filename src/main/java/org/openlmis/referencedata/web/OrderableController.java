@@ -19,12 +19,18 @@ import static org.openlmis.referencedata.domain.RightName.ORDERABLES_MANAGE;
 
 import java.time.ZonedDateTime;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableChild;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.ProgramOrderable;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
 import org.openlmis.referencedata.dto.OrderableDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
@@ -33,9 +39,12 @@ import org.openlmis.referencedata.extension.point.ExtensionPointId;
 import org.openlmis.referencedata.extension.point.OrderableCreatePostProcessor;
 import org.openlmis.referencedata.extension.point.OrderableUpdatePostProcessor;
 import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.service.OrderableBatchService;
 import org.openlmis.referencedata.service.OrderableService;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.OrderableBuilder;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.UuidUtil;
 import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
 import org.openlmis.referencedata.validate.OrderableValidator;
@@ -72,12 +81,20 @@ public class OrderableController extends BaseController {
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableController.class);
   public static final String RESOURCE_PATH = "/orderables";
 
+  private static final Map<String, String> AVAILABLE_FIELDS = SparseFieldset.availableFields(
+      "id=identity.id", "productCode=productCode.code", "fullProductName", "description",
+      "netContent", "packRoundingThreshold", "roundToZero",
+      "meta.versionNumber=identity.versionNumber", "meta.lastUpdated=lastUpdated");
+
   @Autowired
   private OrderableRepository repository;
 
   @Autowired
   private OrderableService orderableService;
 
+  @Autowired
+  private OrderableBatchService orderableBatchService;
+
   @Autowired
   private OrderableBuilder orderableBuilder;
 
@@ -98,7 +115,7 @@ public class OrderableController extends BaseController {
       @RequestBody OrderableDto orderableDto,
       BindingResult bindingResult) {
 
-    Profiler profiler = new Profiler("ORDERABLES_CREATE_PUT");
+    Profiler profiler = new MeteredProfiler("ORDERABLES_CREATE_PUT");
     profiler.setLogger(XLOGGER);
 
     rightService.checkAdminRight(ORDERABLES_MANAGE);
@@ -168,6 +185,30 @@ public class OrderableController extends BaseController {
             .body(OrderableDto.newInstance(savedOrderable));
   }
 
+  /**
+   * Creates or updates many orderables at once. An orderable with an id gets a new version, an
+   * orderable without an id updates the one with the same product code or is created. Items
+   * which can't be saved don't stop the rest of the batch.
+   *
+   * @param orderableDtos the orderables to create or update.
+   * @return the result of every item of the batch.
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  @PutMapping(RESOURCE_PATH + "/batch")
+  public List<BatchItemResultDto<OrderableDto>> upsertBatch(
+      @RequestBody List<OrderableDto> orderableDtos) {
+    Profiler profiler = new MeteredProfiler("ORDERABLES_BATCH_PUT");
+    profiler.setLogger(XLOGGER);
+
+    checkAdminRight(ORDERABLES_MANAGE, profiler);
+
+    profiler.start("UPSERT_ORDERABLES");
+    List<BatchItemResultDto<OrderableDto>> results = orderableBatchService.upsert(orderableDtos);
+
+    profiler.stop().log();
+    return results;
+  }
+
   /**
    * Finds orderables matching all of the provided parameters. If no params provided, returns all.
    * If provided invalid param, throws {@link ValidationMessageException}. If provided request
@@ -177,13 +218,16 @@ public class OrderableController extends BaseController {
    * @param pageable object used to encapsulate the pagination related values: page and size.
    * @return a page of orderables
    */
+  @VersionedResource({Orderable.class, ProgramOrderable.class, OrderableChild.class,
+      OrderableDisplayCategory.class})
+  @ReadFromReplica
   @GetMapping(RESOURCE_PATH)
   public ResponseEntity<Page<OrderableDto>> findAll(
       @RequestParam MultiValueMap<String, Object> queryParams,
       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedDate,
       Pageable pageable) {
     XLOGGER.entry(queryParams, pageable);
-    Profiler profiler = new Profiler("ORDERABLES_SEARCH");
+    Profiler profiler = new MeteredProfiler("ORDERABLES_SEARCH");
     profiler.setLogger(XLOGGER);
 
     QueryOrderableSearchParams searchParams = new QueryOrderableSearchParams(queryParams);
@@ -222,6 +266,35 @@ public class OrderableController extends BaseController {
     }
   }
 
+  /**
+   * Finds only the requested fields of the latest versions of orderables matching all of the
+   * provided parameters. The orderables are not loaded, only the requested values are selected.
+   *
+   * @param queryParams request parameters (code, name, program, ids).
+   * @param fields comma separated list of fields that should be returned.
+   * @param pageable object used to encapsulate the pagination related values: page and size.
+   * @return a page of maps with the requested fields
+   */
+  @VersionedResource(Orderable.class)
+  @ReadFromReplica
+  @GetMapping(value = RESOURCE_PATH, params = SparseFieldset.FIELDS)
+  public Page<Map<String, Object>> findAllFields(
+      @RequestParam MultiValueMap<String, Object> queryParams,
+      @RequestParam(SparseFieldset.FIELDS) String fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("ORDERABLES_SEARCH_FIELDS");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("PARSE_PARAMS");
+    SparseFieldset fieldset = SparseFieldset.parse(fields, AVAILABLE_FIELDS);
+    QueryOrderableSearchParams searchParams = new QueryOrderableSearchParams(queryParams);
+
+    profiler.start("SEARCH_ORDERABLES");
+    Page<Map<String, Object>> page = repository.search(searchParams, fieldset, pageable);
+
+    profiler.stop().log();
+    return page;
+  }
+
   /**
    * Search orderables by search criteria.
    *
@@ -233,7 +306,7 @@ public class OrderableController extends BaseController {
       @RequestBody OrderableSearchParams body,
       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false)
           String ifModifiedDate) {
-    Profiler profiler = new Profiler("ORDERABLES_SEARCH_POST");
+    Profiler profiler = new MeteredProfiler("ORDERABLES_SEARCH_POST");
     profiler.setLogger(XLOGGER);
 
     Pageable pageable = body.getPageable();
@@ -278,13 +351,15 @@ public class OrderableController extends BaseController {
    * @param productId id of the chosen product
    * @return chosen product
    */
+  @VersionedResource({Orderable.class, ProgramOrderable.class, OrderableChild.class,
+      OrderableDisplayCategory.class})
   @GetMapping(RESOURCE_PATH + "/{id}")
   public ResponseEntity<OrderableDto> getChosenOrderable(
       @PathVariable("id") UUID productId,
       @RequestParam(required = false, value = "versionNumber") Long versionNumber,
       @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false)
           String ifModifiedDate) {
-    Profiler profiler = new Profiler("GET_ORDERABLE");
+    Profiler profiler = new MeteredProfiler("GET_ORDERABLE");
     profiler.setLogger(XLOGGER);
 
     Orderable orderable;
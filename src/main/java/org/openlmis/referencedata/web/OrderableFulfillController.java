@@ -17,36 +17,28 @@ package org.openlmis.referencedata.web;
 
 import static org.openlmis.referencedata.web.OrderableFulfillController.RESOURCE_PATH;
 
-import com.google.common.collect.Maps;
-import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
-import org.openlmis.referencedata.domain.CommodityType;
 import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
-import org.openlmis.referencedata.domain.Orderable;
-import org.openlmis.referencedata.domain.TradeItem;
-import org.openlmis.referencedata.repository.CommodityTypeRepository;
 import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
-import org.openlmis.referencedata.repository.OrderableRepository;
-import org.openlmis.referencedata.repository.TradeItemRepository;
-import org.openlmis.referencedata.util.EntityCollection;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -60,16 +52,7 @@ public class OrderableFulfillController extends BaseController {
   public static final String RESOURCE_PATH = API_PATH + "/orderableFulfills";
 
   @Autowired
-  private OrderableRepository orderableRepository;
-
-  @Autowired
-  private OrderableFulfillFactory orderableFulfillFactory;
-
-  @Autowired
-  private TradeItemRepository tradeItemRepository;
-
-  @Autowired
-  private CommodityTypeRepository commodityTypeRepository;
+  private OrderableFulfillIndex orderableFulfillIndex;
 
   @Autowired
   private FacilityTypeApprovedProductRepository ftapRepository;
@@ -78,13 +61,15 @@ public class OrderableFulfillController extends BaseController {
       Pagination.NO_PAGINATION);
 
   /**
-   * Gets orderable fulfills.
+   * Gets orderable fulfills. Responses for requests that don't use facility and program params
+   * contain the ETag header with version of the orderable fulfill index. If it matches the value
+   * from the If-None-Match request header, the 304 status is returned without a body.
    */
   @GetMapping
-  @ResponseStatus(HttpStatus.OK)
-  public Map<UUID, OrderableFulfill> getOrderableFulfills(
-      @RequestParam MultiValueMap<String, Object> requestParams) {
-    Profiler profiler = new Profiler("GET_ORDERABLE_FULFILLS");
+  public ResponseEntity<Map<UUID, OrderableFulfill>> getOrderableFulfills(
+      @RequestParam MultiValueMap<String, Object> requestParams,
+      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+    Profiler profiler = new MeteredProfiler("GET_ORDERABLE_FULFILLS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("VALIDATE_PARAMS");
@@ -92,35 +77,33 @@ public class OrderableFulfillController extends BaseController {
 
     Set<UUID> ids = getOrderableIds(searchParams, profiler);
 
-    profiler.start("FIND_ALL_TRADE_ITEMS_AND_COMMODITY_TYPES");
-    EntityCollection<TradeItem> tradeItems = new EntityCollection<>(tradeItemRepository.findAll());
-    EntityCollection<CommodityType> commodityTypes
-        = new EntityCollection<>(commodityTypeRepository.findAll());
+    profiler.start("GET_ORDERABLE_FULFILL_INDEX");
+    OrderableFulfillIndex.Snapshot snapshot = orderableFulfillIndex.getSnapshot();
 
-    profiler.start("GET_ORDERABLES");
-    List<Orderable> orderables = getOrderables(ids);
+    if (searchParams.isSearchByFacilityIdAndProgramId()) {
+      profiler.start("GET_ORDERABLE_FULFILLS_BY_IDS");
+      Map<UUID, OrderableFulfill> map = snapshot.get(ids);
 
-    profiler.start("CONVERT_TO_ORDERABLE_FULFILLS");
-    Map<UUID, OrderableFulfill> map = Maps.newHashMap();
-    orderables.forEach(orderable -> addEntry(map, orderable, tradeItems, commodityTypes));
+      profiler.stop().log();
+      return ResponseEntity.ok(map);
+    }
 
-    profiler.stop().log();
-    return map;
-  }
+    String etag = "\"" + snapshot.getVersion() + "\"";
 
-  private List<Orderable> getOrderables(Set<UUID> ids) {
-    Page<Orderable> pageWithAllOrderables = ids.isEmpty()
-        ? orderableRepository.findAllLatest(noPaginationRequest)
-        : orderableRepository.findAllLatestByIds(ids, noPaginationRequest);
-    return pageWithAllOrderables.getContent();
-  }
+    if (etag.equals(ifNoneMatch)) {
+      profiler.stop().log();
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+          .eTag(etag)
+          .build();
+    }
+
+    profiler.start("GET_ORDERABLE_FULFILLS");
+    Map<UUID, OrderableFulfill> map = ids.isEmpty() ? snapshot.getAll() : snapshot.get(ids);
 
-  private void addEntry(Map<UUID, OrderableFulfill> map, Orderable orderable,
-                        EntityCollection<TradeItem> tradeItems,
-                        EntityCollection<CommodityType> commodityTypes) {
-    Optional
-        .ofNullable(orderableFulfillFactory.createFor(orderable, tradeItems, commodityTypes))
-        .ifPresent(resource -> map.put(orderable.getId(), resource));
+    profiler.stop().log();
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .body(map);
   }
 
   private Set<UUID> getOrderableIds(OrderableFulfillSearchParams queryMap, Profiler profiler) {
@@ -12,27 +12,29 @@
  * the GNU Affero General Public License along with this program. If not, see
  * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
  */
-
 package org.openlmis.referencedata.web;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
-import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import org.openlmis.referencedata.domain.BaseEntity;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.domain.CommodityType;
 import org.openlmis.referencedata.domain.Dispensable;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.TradeItem;
-import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.domain.TradeItemClassification;
 import org.openlmis.referencedata.util.EntityCollection;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.UuidUtil;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -40,76 +42,109 @@ public class OrderableFulfillFactory {
 
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableFulfillFactory.class);
 
-  @Autowired
-  private OrderableRepository orderableRepository;
-
   /**
-   * Create new instance of {@link OrderableFulfill} for the given orderable.
+   * Create new instances of {@link OrderableFulfill} for the given orderables. Trade items and
+   * commodity types are matched by their classification and related orderables are grouped by
+   * identifiers up front, so no additional queries are executed. Orderables without trade item
+   * or commodity type identifier are not included in the result.
+   *
+   * @param orderables all latest orderables that can take part in fulfillment.
+   * @param tradeItems all trade items.
+   * @param commodityTypes all commodity types.
+   * @return map of orderable ID to its {@link OrderableFulfill}.
    */
-  public OrderableFulfill createFor(Orderable orderable, EntityCollection<TradeItem> tradeItems,
-                                    EntityCollection<CommodityType> commodityTypes) {
-    Profiler profiler = new Profiler("CREATE_ORDERABLE_FULFILL");
+  public Map<UUID, OrderableFulfill> createFor(Collection<Orderable> orderables,
+      EntityCollection<TradeItem> tradeItems, EntityCollection<CommodityType> commodityTypes) {
+    Profiler profiler = new MeteredProfiler("CREATE_ORDERABLE_FULFILLS");
     profiler.setLogger(XLOGGER);
-    profiler.start("GET_IDENTIFIERS");
-    String tradeItemId = orderable.getTradeItemIdentifier();
-    String commodityTypeId = orderable.getCommodityTypeIdentifier();
-
-    OrderableFulfill result = null;
-    if (isNotBlank(tradeItemId)) {
-      result = createForTradeItem(tradeItems, commodityTypes, tradeItemId, orderable, profiler);
-    } else if (isNotBlank(commodityTypeId)) {
-      result = createForCommodityType(tradeItems, commodityTypes, commodityTypeId, orderable,
-          profiler);
+
+    profiler.start("GROUP_ORDERABLES_BY_IDENTIFIERS");
+    Map<String, List<Orderable>> tradeItemOrderables = Maps.newHashMap();
+    Map<String, List<Orderable>> commodityTypeOrderables = Maps.newHashMap();
+    for (Orderable orderable : orderables) {
+      if (isNotBlank(orderable.getTradeItemIdentifier())) {
+        addToGroup(tradeItemOrderables, orderable.getTradeItemIdentifier(), orderable);
+      }
+      if (isNotBlank(orderable.getCommodityTypeIdentifier())) {
+        addToGroup(commodityTypeOrderables, orderable.getCommodityTypeIdentifier(), orderable);
+      }
+    }
+
+    profiler.start("GROUP_BY_CLASSIFICATIONS");
+    Map<Pair<String, String>, List<TradeItem>> tradeItemsByClassification = Maps.newHashMap();
+    tradeItems.values().forEach(tradeItem -> tradeItem.getClassifications()
+        .forEach(classification -> addToGroup(tradeItemsByClassification,
+            classificationKey(classification), tradeItem)));
+
+    Map<Pair<String, String>, List<CommodityType>> commodityTypesByClassification =
+        Maps.newHashMap();
+    commodityTypes.values().forEach(commodityType -> addToGroup(commodityTypesByClassification,
+        classificationKey(commodityType), commodityType));
+
+    profiler.start("CREATE_ORDERABLE_FULFILLS");
+    Map<UUID, OrderableFulfill> result = Maps.newHashMapWithExpectedSize(orderables.size());
+    for (Orderable orderable : orderables) {
+      String tradeItemId = orderable.getTradeItemIdentifier();
+      String commodityTypeId = orderable.getCommodityTypeIdentifier();
+
+      if (isNotBlank(tradeItemId)) {
+        TradeItem tradeItem = tradeItems.getById(UuidUtil.fromString(tradeItemId).orElse(null));
+        result.put(orderable.getId(), createForTradeItem(orderable, tradeItem,
+            commodityTypesByClassification, commodityTypeOrderables));
+      } else if (isNotBlank(commodityTypeId)) {
+        CommodityType commodityType = commodityTypes
+            .getById(UuidUtil.fromString(commodityTypeId).orElse(null));
+        result.put(orderable.getId(), createForCommodityType(orderable, commodityType,
+            tradeItemsByClassification, tradeItemOrderables));
+      }
     }
 
     profiler.stop().log();
     return result;
   }
 
-  private OrderableFulfill createForTradeItem(EntityCollection<TradeItem> tradeItems,
-      EntityCollection<CommodityType> commodityTypes, String id,
-      Orderable tradeItemOrderable, Profiler profiler) {
-    profiler.start("FETCH_TRADE_ITEM");
-    TradeItem tradeItem = tradeItems.getById(UUID.fromString(id));
-
-    profiler.start("CREATE_ORDERABLE_FULFILL_FOR_TRADE_ITEM");
+  private OrderableFulfill createForTradeItem(Orderable tradeItemOrderable, TradeItem tradeItem,
+      Map<Pair<String, String>, List<CommodityType>> commodityTypesByClassification,
+      Map<String, List<Orderable>> commodityTypeOrderables) {
     List<UUID> canBeFulfilledByMe = Lists.newArrayList();
-    commodityTypes.values().forEach(
-        commodityType -> {
-          if (tradeItem.canFulfill(commodityType)) {
-            addToListIfDispensableMatches(canBeFulfilledByMe, COMMODITY_TYPE, commodityType,
-                tradeItemOrderable.getDispensable());
-          }
-        }
-    );
+
+    if (null != tradeItem) {
+      tradeItem.getClassifications().forEach(classification -> commodityTypesByClassification
+          .getOrDefault(classificationKey(classification), Collections.emptyList())
+          .forEach(commodityType -> addToListIfDispensableMatches(canBeFulfilledByMe,
+              commodityTypeOrderables.get(commodityType.getId().toString()),
+              tradeItemOrderable.getDispensable())));
+    }
 
     return OrderableFulfill.ofTradeItem(canBeFulfilledByMe);
   }
 
-  private OrderableFulfill createForCommodityType(EntityCollection<TradeItem> tradeItems,
-      EntityCollection<CommodityType> commodityTypes, String id,
-      Orderable commodityTypeOrderable, Profiler profiler) {
-    profiler.start("FETCH_COMMODITY_TYPE");
-    CommodityType commodityType = commodityTypes.getById(UUID.fromString(id));
-
-    profiler.start("CREATE_ORDERABLE_FULFILL_FOR_COMMODITY_TYPE");
+  private OrderableFulfill createForCommodityType(Orderable commodityTypeOrderable,
+      CommodityType commodityType,
+      Map<Pair<String, String>, List<TradeItem>> tradeItemsByClassification,
+      Map<String, List<Orderable>> tradeItemOrderables) {
     List<UUID> canFulfillForMe = Lists.newArrayList();
-    tradeItems.values().forEach(
-        tradeItem -> {
-          if (tradeItem.canFulfill(commodityType)) {
-            addToListIfDispensableMatches(canFulfillForMe, TRADE_ITEM, tradeItem,
-                commodityTypeOrderable.getDispensable());
-          }
-        }
-    );
+
+    if (null != commodityType) {
+      tradeItemsByClassification
+          .getOrDefault(classificationKey(commodityType), Collections.emptyList())
+          .forEach(tradeItem -> addToListIfDispensableMatches(canFulfillForMe,
+              tradeItemOrderables.get(tradeItem.getId().toString()),
+              commodityTypeOrderable.getDispensable()));
+    }
 
     return OrderableFulfill.ofCommodityType(canFulfillForMe);
   }
 
-  private void addToListIfDispensableMatches(List<UUID> list, String key, BaseEntity entity,
+  private <K, V> void addToGroup(Map<K, List<V>> groups, K key, V value) {
+    groups.computeIfAbsent(key, ignored -> Lists.newArrayList()).add(value);
+  }
+
+  private void addToListIfDispensableMatches(List<UUID> list, List<Orderable> orderables,
                                              Dispensable dispensableToMatch) {
-    List<Orderable> orderables = orderableRepository
-        .findAllLatestByIdentifier(key, entity.getId().toString());
+    if (null == orderables) {
+      return;
+    }
 
     orderables.forEach(
         item -> {
@@ -120,4 +155,13 @@ public class OrderableFulfillFactory {
     );
   }
 
+  private Pair<String, String> classificationKey(TradeItemClassification classification) {
+    return Pair.of(classification.getClassificationSystem(),
+        classification.getClassificationId());
+  }
+
+  private Pair<String, String> classificationKey(CommodityType commodityType) {
+    return Pair.of(commodityType.getClassificationSystem(), commodityType.getClassificationId());
+  }
+
 }
@@ -0,0 +1,240 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openlmis.referencedata.domain.CommodityType;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.TradeItem;
+import org.openlmis.referencedata.repository.CommodityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.CacheInvalidationBus;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
+import org.openlmis.referencedata.util.EntityCollection;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.Pagination;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps {@link OrderableFulfill} entries of all latest orderables in memory, so they don't have
+ * to be recalculated on every request. The index is marked as stale after a commit changing
+ * orderables, trade items or commodity types (see {@link OrderableFulfillIndexListener}) and it
+ * is rebuilt lazily on the next access. Changes made by other instances of the service are
+ * announced by {@link CacheInvalidationBus}; the configured max age of the snapshot is a fallback
+ * in case the bus is disabled.
+ */
+@Component
+public class OrderableFulfillIndex {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableFulfillIndex.class);
+
+  @Autowired
+  private OrderableRepository orderableRepository;
+
+  @Autowired
+  private TradeItemRepository tradeItemRepository;
+
+  @Autowired
+  private CommodityTypeRepository commodityTypeRepository;
+
+  @Autowired
+  private OrderableFulfillFactory orderableFulfillFactory;
+
+  @Autowired
+  private Clock clock;
+
+  @Value("${orderableFulfills.index.maxAge}")
+  private long maxAgeInSeconds;
+
+  private final AtomicLong modifications = new AtomicLong();
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * Returns current snapshot of the index. If the index is stale, it is rebuilt first.
+   */
+  public Snapshot getSnapshot() {
+    Snapshot current = snapshot;
+
+    if (isStale(current)) {
+      synchronized (this) {
+        current = snapshot;
+
+        if (isStale(current)) {
+          current = rebuild(current);
+          snapshot = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  /**
+   * Marks the index as stale, so it will be rebuilt on the next access. It is executed after
+   * commit of a transaction that changed data used by the index or immediately if there is no
+   * active transaction.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void invalidate(OrderableFulfillIndexListener.SourceChangedEvent event) {
+    XLOGGER.debug("Orderable fulfill index invalidated by change of {}", event.getSource());
+    modifications.incrementAndGet();
+  }
+
+  /**
+   * Marks the index as stale if another instance of the service changed data used by the index.
+   */
+  @EventListener
+  public void invalidate(EntitiesChangedEvent event) {
+    if (event.isRemote() && (event.affects(Orderable.class) || event.affects(TradeItem.class)
+        || event.affects(CommodityType.class))) {
+      XLOGGER.debug("Orderable fulfill index invalidated by change on another instance");
+      modifications.incrementAndGet();
+    }
+  }
+
+  private boolean isStale(Snapshot current) {
+    return null == current
+        || current.modification != modifications.get()
+        || Duration.between(current.createdDate, Instant.now(clock)).getSeconds()
+            >= maxAgeInSeconds;
+  }
+
+  private Snapshot rebuild(Snapshot previous) {
+    Profiler profiler = new MeteredProfiler("REBUILD_ORDERABLE_FULFILL_INDEX");
+    profiler.setLogger(XLOGGER);
+
+    long modification = modifications.get();
+
+    profiler.start("FIND_ALL_TRADE_ITEMS_AND_COMMODITY_TYPES");
+    EntityCollection<TradeItem> tradeItems = new EntityCollection<>(tradeItemRepository.findAll());
+    EntityCollection<CommodityType> commodityTypes
+        = new EntityCollection<>(commodityTypeRepository.findAll());
+
+    profiler.start("FIND_ALL_LATEST_ORDERABLES");
+    PageRequest noPagination = PageRequest
+        .of(Pagination.DEFAULT_PAGE_NUMBER, Pagination.NO_PAGINATION);
+    List<Orderable> orderables = orderableRepository.findAllLatest(noPagination).getContent();
+
+    profiler.start("CREATE_ORDERABLE_FULFILLS");
+    Map<UUID, OrderableFulfill> fulfills = orderableFulfillFactory
+        .createFor(orderables, tradeItems, commodityTypes);
+
+    profiler.start("CREATE_SNAPSHOT");
+    long version = null != previous && previous.fulfills.equals(fulfills)
+        ? previous.version
+        : calculateVersion(fulfills);
+
+    profiler.stop().log();
+    return new Snapshot(Collections.unmodifiableMap(fulfills), version, modification,
+        Instant.now(clock));
+  }
+
+  /**
+   * Calculates the version from the content of the index, so all instances of the service that
+   * serve the same data return the same version. Entries are hashed in order of orderable IDs, so
+   * the result does not depend on the iteration order of the given map.
+   */
+  static long calculateVersion(Map<UUID, OrderableFulfill> fulfills) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+
+    for (Map.Entry<UUID, OrderableFulfill> entry : new TreeMap<>(fulfills).entrySet()) {
+      putId(hasher, entry.getKey());
+      putIds(hasher, entry.getValue().getCanFulfillForMe());
+      putIds(hasher, entry.getValue().getCanBeFulfilledByMe());
+    }
+
+    return hasher.hash().asLong();
+  }
+
+  private static void putIds(Hasher hasher, List<UUID> ids) {
+    hasher.putInt(ids.size());
+    ids.forEach(id -> putId(hasher, id));
+  }
+
+  private static void putId(Hasher hasher, UUID id) {
+    hasher
+        .putLong(id.getMostSignificantBits())
+        .putLong(id.getLeastSignificantBits());
+  }
+
+  @AllArgsConstructor(access = AccessLevel.PRIVATE)
+  public static final class Snapshot {
+    private final Map<UUID, OrderableFulfill> fulfills;
+
+    /**
+     * Version of the index content. It is derived from the content, so it changes only when the
+     * content has changed and it is the same on every instance of the service. It can be used as
+     * an entity tag by clients.
+     */
+    @Getter
+    private final long version;
+
+    private final long modification;
+    private final Instant createdDate;
+
+    /**
+     * Gets {@link OrderableFulfill} entries for all latest orderables.
+     */
+    public Map<UUID, OrderableFulfill> getAll() {
+      return fulfills;
+    }
+
+    /**
+     * Gets {@link OrderableFulfill} entries for the given orderable IDs. IDs without an entry
+     * are skipped.
+     */
+    public Map<UUID, OrderableFulfill> get(Set<UUID> ids) {
+      Map<UUID, OrderableFulfill> result = Maps.newHashMapWithExpectedSize(ids.size());
+
+      for (UUID id : ids) {
+        OrderableFulfill fulfill = fulfills.get(id);
+
+        if (null != fulfill) {
+          result.put(id, fulfill);
+        }
+      }
+
+      return result;
+    }
+  }
+
+}
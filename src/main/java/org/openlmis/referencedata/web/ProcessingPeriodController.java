@@ -20,6 +20,9 @@ import static java.util.stream.Collectors.toList;
 import java.util.List;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.ProcessingPeriod;
+import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.openlmis.referencedata.domain.RequisitionGroup;
+import org.openlmis.referencedata.domain.RequisitionGroupProgramSchedule;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.ProcessingPeriodDto;
 import org.openlmis.referencedata.dto.ResultDto;
@@ -29,6 +32,7 @@ import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.service.ProcessingPeriodSearchParams;
 import org.openlmis.referencedata.service.ProcessingPeriodService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.ProcessingPeriodMessageKeys;
 import org.openlmis.referencedata.validate.ProcessingPeriodValidator;
 import org.slf4j.Logger;
@@ -103,6 +107,9 @@ public class ProcessingPeriodController extends BaseController {
    *
    * @return the ProcessingPeriods.
    */
+  @VersionedResource({ProcessingPeriod.class, ProcessingSchedule.class, RequisitionGroup.class,
+      RequisitionGroupProgramSchedule.class})
+  @ReadFromReplica
   @RequestMapping(value = RESOURCE_PATH, method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
@@ -110,7 +117,7 @@ public class ProcessingPeriodController extends BaseController {
       @RequestParam MultiValueMap<String, Object> requestParams,
       @SortDefault(sort = "startDate") Pageable pageable) {
 
-    Profiler profiler = new Profiler("SEARCH_PROCESSING_PERIODS");
+    Profiler profiler = new MeteredProfiler("SEARCH_PROCESSING_PERIODS");
     profiler.setLogger(LOGGER);
 
     ProcessingPeriodSearchParams params = new ProcessingPeriodSearchParams(requestParams);
@@ -163,11 +170,12 @@ public class ProcessingPeriodController extends BaseController {
    * @param periodId UUID of the ProcessingPeriodDto which we want to get
    * @return the ProcessingPeriod.
    */
+  @VersionedResource({ProcessingPeriod.class, ProcessingSchedule.class})
   @RequestMapping(value = RESOURCE_PATH + "/{id}", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public ProcessingPeriodDto getProcessingPeriod(@PathVariable("id") UUID periodId) {
-    Profiler profiler = new Profiler("GET_PERIOD_BY_ID");
+    Profiler profiler = new MeteredProfiler("GET_PERIOD_BY_ID");
     profiler.setLogger(LOGGER);
 
     profiler.start("FIND_PERIOD_IN_DB");
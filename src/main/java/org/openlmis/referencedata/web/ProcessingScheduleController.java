@@ -30,6 +30,7 @@ import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
@@ -117,7 +118,7 @@ public class ProcessingScheduleController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<ProcessingScheduleDto> getAll(Pageable pageable) {
-    Profiler profiler = new Profiler("GET_ALL_PROCESSING_SCHEDULES");
+    Profiler profiler = new MeteredProfiler("GET_ALL_PROCESSING_SCHEDULES");
     profiler.setLogger(LOGGER);
 
     profiler.start("GET_SCHEDULES");
@@ -142,7 +143,7 @@ public class ProcessingScheduleController extends BaseController {
   @ResponseBody
   public List<ProcessingScheduleDto> search(
       @RequestParam("programId") UUID programId, @RequestParam("facilityId") UUID facilityId) {
-    Profiler profiler = new Profiler("SEARCH_FOR_SCHEDULES");
+    Profiler profiler = new MeteredProfiler("SEARCH_FOR_SCHEDULES");
     profiler.setLogger(LOGGER);
 
     profiler.start("FIND_PROGRAM_IN_DB");
@@ -20,6 +20,7 @@ import static org.apache.commons.lang3.BooleanUtils.isNotTrue;
 import static org.openlmis.referencedata.web.ProgramController.RESOURCE_PATH;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import org.openlmis.referencedata.AvailableFeatures;
@@ -32,6 +33,8 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.repository.custom.impl.ProgramRedisRepository;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.validate.ProgramValidator;
 import org.slf4j.ext.XLogger;
@@ -64,6 +67,10 @@ public class ProgramController extends BaseController {
 
   public static final String RESOURCE_PATH = API_PATH + "/programs";
 
+  private static final Map<String, String> AVAILABLE_FIELDS = SparseFieldset.availableFields(
+      "id", "code=code.code", "name", "description", "active", "periodsSkippable",
+      "skipAuthorization", "showNonFullSupplyTab", "enableDatePhysicalStockCountCompleted");
+
   @Autowired
   private ProgramRepository programRepository;
 
@@ -104,11 +111,12 @@ public class ProgramController extends BaseController {
    *
    * @return the Programs.
    */
+  @VersionedResource(Program.class)
   @GetMapping
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Iterable<Program> search(@RequestParam MultiValueMap<String, Object> queryParams) {
-    Profiler profiler = new Profiler("SEARCH_FOR_PROGRAMS");
+    Profiler profiler = new MeteredProfiler("SEARCH_FOR_PROGRAMS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("CONVERT_TO_PARAMS");
@@ -133,17 +141,48 @@ public class ProgramController extends BaseController {
     return programs;
   }
 
+  /**
+   * Get only the requested fields of all programs. The programs are not loaded, only the
+   * requested values are selected.
+   *
+   * @param queryParams request parameters (id, name).
+   * @param fields comma separated list of fields that should be returned.
+   * @return the maps with the requested fields.
+   */
+  @VersionedResource(Program.class)
+  @GetMapping(params = SparseFieldset.FIELDS)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<Map<String, Object>> searchFields(
+      @RequestParam MultiValueMap<String, Object> queryParams,
+      @RequestParam(SparseFieldset.FIELDS) String fields) {
+    Profiler profiler = new MeteredProfiler("SEARCH_FOR_PROGRAM_FIELDS");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("CONVERT_TO_PARAMS");
+    SparseFieldset fieldset = SparseFieldset.parse(fields, AVAILABLE_FIELDS);
+    ProgramSearchParams params = new ProgramSearchParams(queryParams);
+
+    profiler.start("REPOSITORY_SEARCH");
+    List<Map<String, Object>> programs = programRepository
+        .search(params.getIds(), params.getName(), fieldset);
+
+    profiler.stop().log();
+    return programs;
+  }
+
   /**
    * Get chosen program.
    *
    * @param programId the UUID of program which we want to get.
    * @return the Program.
    */
+  @VersionedResource(Program.class)
   @RequestMapping(value = "/{id}", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Program getChosenProgram(@PathVariable("id") UUID programId) {
-    Profiler profiler = new Profiler("GET_PROGRAM_BY_ID");
+    Profiler profiler = new MeteredProfiler("GET_PROGRAM_BY_ID");
     profiler.setLogger(XLOGGER);
 
     Program program;
@@ -248,7 +287,7 @@ public class ProgramController extends BaseController {
       @RequestParam("name") String programName) {
 
     XLOGGER.entry(programName);
-    Profiler profiler = new Profiler("SEARCH_FOR_PROGRAMS");
+    Profiler profiler = new MeteredProfiler("SEARCH_FOR_PROGRAMS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("REPOSITORY_SEARCH");
@@ -114,6 +114,7 @@ public class QueryOrderableSearchParams implements OrderableRepositoryCustom.Sea
   /**
    * Gets and collection of {@link UUID} for "ids" key from params.
    */
+  @Override
   public Set<UUID> getIds() {
     if (!queryParams.containsKey(ID)) {
       return Collections.emptySet();
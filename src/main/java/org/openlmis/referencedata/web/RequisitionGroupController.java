@@ -30,7 +30,8 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.RequisitionGroupRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.service.RequisitionGroupService;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.RequisitionGroupMessageKeys;
 import org.openlmis.referencedata.validate.RequisitionGroupValidator;
@@ -78,7 +79,7 @@ public class RequisitionGroupController extends BaseController {
   private RequisitionGroupService requisitionGroupService;
 
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   @Autowired
   private SupervisoryNodeRepository supervisoryNodeRepository;
@@ -95,7 +96,7 @@ public class RequisitionGroupController extends BaseController {
   public RequisitionGroupDto createRequisitionGroup(
       @RequestBody RequisitionGroupDto requisitionGroupDto, BindingResult bindingResult) {
 
-    Profiler profiler = new Profiler("CREATE_NEW_REQUISITION_GROUP");
+    Profiler profiler = new MeteredProfiler("CREATE_NEW_REQUISITION_GROUP");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(REQUISITION_GROUPS_MANAGE, profiler);
@@ -112,7 +113,7 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupRepository.saveAndFlush(requisitionGroup);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentRegenerationScheduler.requestRegeneration();
 
       LOGGER.info("Created new requisitionGroup with id: {}", requisitionGroup.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
@@ -176,7 +177,7 @@ public class RequisitionGroupController extends BaseController {
       @PathVariable("id") UUID requisitionGroupId,
       BindingResult bindingResult) {
 
-    Profiler profiler = new Profiler("UPDATE_REQUISITION_GROUP");
+    Profiler profiler = new MeteredProfiler("UPDATE_REQUISITION_GROUP");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(REQUISITION_GROUPS_MANAGE, profiler);
@@ -208,7 +209,7 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupToUpdate = requisitionGroupRepository.saveAndFlush(requisitionGroupToUpdate);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentRegenerationScheduler.requestRegeneration();
 
       LOGGER.info("Saved requisitionGroup with id: {}", requisitionGroupToUpdate.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
@@ -231,7 +232,7 @@ public class RequisitionGroupController extends BaseController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteRequisitionGroup(@PathVariable("id") UUID requisitionGroupId) {
 
-    Profiler profiler = new Profiler("DELETE_REQUISITION_GROUP");
+    Profiler profiler = new MeteredProfiler("DELETE_REQUISITION_GROUP");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(REQUISITION_GROUPS_MANAGE, profiler);
@@ -248,7 +249,7 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupRepository.flush();
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentRegenerationScheduler.requestRegeneration();
 
       profiler.stop().log();
     }
@@ -0,0 +1,132 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static java.util.Arrays.asList;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_INVALID_PARAMS;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_LIMIT_INVALID;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_QUERY_REQUIRED;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_TYPE_INVALID;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.Message;
+import org.springframework.util.MultiValueMap;
+
+@EqualsAndHashCode
+@ToString
+public final class ResourceSearchParams {
+
+  static final int DEFAULT_LIMIT = 20;
+  static final int MAX_LIMIT = 100;
+
+  private static final String QUERY = "query";
+  private static final String TYPE = "type";
+  private static final String LIMIT = "limit";
+
+  private static final List<String> ALL_PARAMETERS = asList(QUERY, TYPE, LIMIT);
+
+  private SearchParams queryParams;
+
+  /**
+   * Wraps map of query params into an object.
+   */
+  public ResourceSearchParams(MultiValueMap<String, Object> queryMap) {
+    queryParams = new SearchParams(queryMap);
+    validate();
+  }
+
+  /**
+   * Gets trimmed {@link String} for "query" key from params.
+   */
+  public String getQuery() {
+    return StringUtils.trim(queryParams.getFirst(QUERY));
+  }
+
+  /**
+   * Gets {@link Set} of {@link SearchResourceType} for "type" key from params. Users are searched
+   * only when requested explicitly.
+   *
+   * @return requested types or facilities, orderables and geographic zones if there is no "type"
+   *         param.
+   */
+  public Set<SearchResourceType> getTypes() {
+    if (!queryParams.containsKey(TYPE)) {
+      return EnumSet.of(SearchResourceType.FACILITY, SearchResourceType.ORDERABLE,
+          SearchResourceType.GEOGRAPHIC_ZONE);
+    }
+
+    Set<SearchResourceType> types = EnumSet.noneOf(SearchResourceType.class);
+    for (String type : queryParams.getStrings(TYPE)) {
+      types.add(parseType(type));
+    }
+    return types;
+  }
+
+  /**
+   * Gets maximum number of results for "limit" key from params.
+   *
+   * @return limit from params or {@link #DEFAULT_LIMIT} if there is no "limit" param.
+   */
+  public int getLimit() {
+    if (!queryParams.containsKey(LIMIT)) {
+      return DEFAULT_LIMIT;
+    }
+
+    try {
+      int limit = Integer.parseInt(queryParams.getFirst(LIMIT));
+      if (limit > 0 && limit <= MAX_LIMIT) {
+        return limit;
+      }
+    } catch (NumberFormatException exp) {
+      // handled below
+    }
+
+    throw new ValidationMessageException(new Message(ERROR_LIMIT_INVALID, MAX_LIMIT));
+  }
+
+  /**
+   * Checks if query params are valid. Throws exception if any provided param is not on supported
+   * list, the query is blank or the type or limit is invalid.
+   */
+  public void validate() {
+    if (!ALL_PARAMETERS.containsAll(queryParams.keySet())) {
+      throw new ValidationMessageException(new Message(ERROR_INVALID_PARAMS));
+    }
+
+    if (StringUtils.isBlank(getQuery())) {
+      throw new ValidationMessageException(new Message(ERROR_QUERY_REQUIRED));
+    }
+
+    getTypes();
+    getLimit();
+  }
+
+  private SearchResourceType parseType(String type) {
+    try {
+      return SearchResourceType.valueOf(StringUtils.trim(type).toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException | NullPointerException exp) {
+      throw new ValidationMessageException(exp, new Message(ERROR_TYPE_INVALID, type));
+    }
+  }
+}
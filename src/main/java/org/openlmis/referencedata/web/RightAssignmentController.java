@@ -0,0 +1,54 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatus;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class RightAssignmentController extends BaseController {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RightAssignmentController.class);
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  /**
+   * Get the state of right assignment regeneration.
+   *
+   * @return whether a regeneration is running or pending, how long the last one took and how
+   *         long the right assignments have been stale.
+   */
+  @RequestMapping(value = "/rightAssignments/regeneration", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public RightAssignmentRegenerationStatus getRegenerationStatus() {
+    rightService.checkAdminRight(RightName.RIGHTS_VIEW);
+
+    LOGGER.debug("Getting right assignment regeneration status");
+    return rightAssignmentRegenerationScheduler.getStatus();
+  }
+}
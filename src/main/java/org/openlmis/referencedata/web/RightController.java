@@ -33,6 +33,7 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -209,7 +210,7 @@ public class RightController extends BaseController {
           @RequestParam(value = "name", required = false) String name,
           @RequestParam(value = "type", required = false) String type) {
 
-    Profiler profiler = new Profiler("SEARCH_FOR_RIGHTS");
+    Profiler profiler = new MeteredProfiler("SEARCH_FOR_RIGHTS");
     profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN_RIGHT");
@@ -0,0 +1,138 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.dto.RoleDto;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RoleUserCountService;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps all roles together with the number of users assigned to them in memory. The snapshot is
+ * tagged with the ETag built from versions of roles and role assignments, which are shared by
+ * all instances of the service, and it is rebuilt on the first access after the ETag changed.
+ */
+@Component
+public class RoleCache {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(RoleCache.class);
+
+  @Autowired
+  private RoleRepository roleRepository;
+
+  @Autowired
+  private RoleUserCountService roleUserCountService;
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
+
+  private volatile Snapshot snapshot;
+
+  /**
+   * Returns current snapshot of roles. If roles or role assignments were changed since the
+   * snapshot was created, it is rebuilt first.
+   */
+  public Snapshot getSnapshot() {
+    // read before the data, so the snapshot is never tagged with a newer ETag than its content
+    String eTag = resourceVersionService.getETag(Role.class, RoleAssignment.class);
+    Snapshot current = snapshot;
+
+    if (null == current || !Objects.equals(current.eTag, eTag)) {
+      synchronized (this) {
+        current = snapshot;
+
+        if (null == current || !Objects.equals(current.eTag, eTag)) {
+          current = rebuild(eTag);
+          snapshot = current;
+        }
+      }
+    }
+
+    return current;
+  }
+
+  private Snapshot rebuild(String eTag) {
+    Profiler profiler = new MeteredProfiler("REBUILD_ROLE_CACHE");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("FIND_ALL_ROLES");
+    List<Role> roles = roleRepository.findAll();
+
+    profiler.start("GET_USER_COUNTS");
+    Map<UUID, Long> userCounts = roleUserCountService.getUserCounts();
+
+    profiler.start("TO_DTO");
+    List<RoleDto> dtos = new ArrayList<>(roles.size());
+    for (Role role : roles) {
+      RoleDto dto = new RoleDto();
+      role.export(dto);
+      dto.setCount(userCounts.getOrDefault(role.getId(), 0L));
+      dtos.add(dto);
+    }
+
+    profiler.stop().log();
+    return new Snapshot(Collections.unmodifiableList(dtos), eTag);
+  }
+
+  @AllArgsConstructor(access = AccessLevel.PACKAGE)
+  public static final class Snapshot {
+    private final List<RoleDto> roles;
+
+    /**
+     * ETag of roles and role assignments the snapshot was built from.
+     */
+    @Getter
+    private final String eTag;
+
+    /**
+     * Gets roles that have at least one of the given rights, or all roles if no right IDs are
+     * given. The returned DTOs are shared and must not be modified.
+     */
+    public List<RoleDto> search(Set<UUID> rightIds) {
+      if (rightIds.isEmpty()) {
+        return roles;
+      }
+
+      List<RoleDto> result = new ArrayList<>();
+      for (RoleDto role : roles) {
+        if (role.getRights().stream().anyMatch(right -> rightIds.contains(right.getId()))) {
+          result.add(role);
+        }
+      }
+
+      return result;
+    }
+  }
+
+}
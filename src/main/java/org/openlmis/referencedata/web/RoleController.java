@@ -15,26 +15,22 @@
 
 package org.openlmis.referencedata.web;
 
-import static java.util.stream.Collectors.toMap;
-import static java.util.stream.Collectors.toSet;
-
 import com.google.common.collect.Sets;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.domain.Right;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
 import org.openlmis.referencedata.dto.RightDto;
 import org.openlmis.referencedata.dto.RoleDto;
 import org.openlmis.referencedata.exception.NotFoundException;
-import org.openlmis.referencedata.repository.CountResource;
 import org.openlmis.referencedata.repository.RightRepository;
-import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.RoleMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,38 +61,39 @@ public class RoleController extends BaseController {
   private RoleRepository roleRepository;
 
   @Autowired
-  private RoleAssignmentRepository roleAssignmentRepository;
+  private RoleCache roleCache;
+
+  @Autowired
+  private ResourceVersionService resourceVersionService;
 
   @Autowired
   private RightRepository rightRepository;
   
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   /**
-   * Get all roles in the system.
+   * Get all roles in the system. Roles with the number of users assigned to them are served from
+   * a cached snapshot, which is only rebuilt after roles or role assignments change.
    *
    * @return all roles in the system.
    */
   @RequestMapping(value = "/roles", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
+  @VersionedResource({Role.class, RoleAssignment.class})
   public Set<RoleDto> getAllRoles(@RequestParam MultiValueMap<String, Object> queryParams) {
-    Profiler profiler = new Profiler("GET_ALL_ROLES");
+    Profiler profiler = new MeteredProfiler("GET_ALL_ROLES");
     profiler.setLogger(LOGGER);
 
     profiler.start("CONVERT_TO_PARAMS");
     RoleSearchParams params = new RoleSearchParams(queryParams);
 
-    profiler.start("GET_ALL_ROLES_REPOSITORY");
-    Set<Role> roles = Sets.newHashSet(roleRepository.search(params));
-
-    profiler.start("COUNT_ASSIGNED_USERS_TO_ROLES");
-    List<CountResource> usersCount = roleAssignmentRepository.countUsersAssignedToRoles();
+    profiler.start("GET_ROLE_CACHE_SNAPSHOT");
+    RoleCache.Snapshot snapshot = roleCache.getSnapshot();
 
-    profiler.start("TO_DTO");
-    Set<RoleDto> dtos = exportToDto(roles, usersCount.stream()
-        .collect(toMap(CountResource::getId, CountResource::getCount)));
+    profiler.start("SEARCH_ROLES");
+    Set<RoleDto> dtos = Sets.newHashSet(snapshot.search(params.getRightIds()));
 
     profiler.stop().log();
     return dtos;
@@ -189,7 +186,7 @@ public class RoleController extends BaseController {
   public RoleDto updateRole(@PathVariable("roleId") UUID roleId,
                             @RequestBody RoleDto roleDto) {
 
-    Profiler profiler = new Profiler("UPDATE_ROLE");
+    Profiler profiler = new MeteredProfiler("UPDATE_ROLE");
     profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
@@ -207,8 +204,11 @@ public class RoleController extends BaseController {
     profiler.start("SAVE_ROLE");
     roleRepository.saveAndFlush(roleToSave);
 
+    // changes of rights only are not reported by the entity listener
+    resourceVersionService.markChanged(ResourceVersionService.getResourceType(Role.class));
+
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentRegenerationScheduler.requestRegeneration();
     
     LOGGER.info("Saved role with id: {}", roleToSave.getId());
 
@@ -244,12 +244,6 @@ public class RoleController extends BaseController {
     return roleDto;
   }
 
-  private Set<RoleDto> exportToDto(Set<Role> roles, Map<UUID, Long> usersCount) {
-    Set<RoleDto> dtos = roles.stream().map(this::exportToDto).collect(toSet());
-    dtos.forEach(role -> role.setCount(usersCount.getOrDefault(role.getId(), 0L)));
-    return dtos;
-  }
-
   private void populateRights(RoleDto roleDto) {
     Set<Right.Importer> rightDtos = roleDto.getRights();
     for (Right.Importer rightDto : rightDtos) {
@@ -0,0 +1,82 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.openlmis.referencedata.web.SearchController.RESOURCE_PATH;
+
+import java.util.List;
+import java.util.Set;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.dto.SearchResultDto;
+import org.openlmis.referencedata.service.SearchService;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+@RequestMapping(RESOURCE_PATH)
+public class SearchController extends BaseController {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(SearchController.class);
+
+  public static final String RESOURCE_PATH = API_PATH + "/search";
+
+  @Autowired
+  private SearchService searchService;
+
+  /**
+   * Finds facilities, orderables, geographic zones and users whose code or name matches the given
+   * query. Matching is tolerant to typos and results are ordered from the best match. Searching
+   * for users requires the USERS_MANAGE right.
+   *
+   * @param queryParams request parameters (query, type, limit).
+   * @return list of matching resources.
+   */
+  @GetMapping
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<SearchResultDto> search(@RequestParam MultiValueMap<String, Object> queryParams) {
+    Profiler profiler = new MeteredProfiler("SEARCH_RESOURCES");
+    profiler.setLogger(XLOGGER);
+
+    profiler.start("CONVERT_TO_PARAMS");
+    ResourceSearchParams params = new ResourceSearchParams(queryParams);
+    Set<SearchResourceType> types = params.getTypes();
+
+    if (types.contains(SearchResourceType.USER)) {
+      checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
+    }
+
+    profiler.start("SEARCH");
+    List<SearchResultDto> results = searchService
+        .search(params.getQuery(), types, params.getLimit());
+
+    profiler.stop().log();
+    return results;
+  }
+
+}
@@ -33,6 +33,7 @@ import lombok.ToString;
 import org.apache.commons.collections4.MapUtils;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.UuidUtil;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
@@ -59,6 +60,7 @@ public final class SearchParams {
       params.remove(SIZE);
       params.remove(SORT);
       params.remove(ACCESS_TOKEN);
+      params.remove(SparseFieldset.FIELDS);
     } else {
       params = new LinkedMultiValueMap<>();
     }
@@ -28,6 +28,7 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ServiceAccountRepository;
 import org.openlmis.referencedata.service.AuthenticationHelper;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.ServiceAccountMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,7 +65,7 @@ public class ServiceAccountController extends BaseController {
   @ResponseStatus(HttpStatus.CREATED)
   @ResponseBody
   public ServiceAccountDto createServiceAccount(@RequestBody ServiceAccountCreationBody body) {
-    Profiler profiler = new Profiler("CREATE_SERVICE_ACCOUNT");
+    Profiler profiler = new MeteredProfiler("CREATE_SERVICE_ACCOUNT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, false, profiler);
@@ -92,7 +93,7 @@ public class ServiceAccountController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public ServiceAccountDto getServiceAccount(@PathVariable(TOKEN) UUID token) {
-    Profiler profiler = new Profiler("GET_SERVICE_ACCOUNT");
+    Profiler profiler = new MeteredProfiler("GET_SERVICE_ACCOUNT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, profiler);
@@ -115,7 +116,7 @@ public class ServiceAccountController extends BaseController {
   @ResponseBody
   public ServiceAccountDto updateServiceAccount(@PathVariable(TOKEN) UUID token,
                                                 @RequestBody ServiceAccountDto body) {
-    Profiler profiler = new Profiler("GET_SERVICE_ACCOUNT");
+    Profiler profiler = new MeteredProfiler("GET_SERVICE_ACCOUNT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, profiler);
@@ -145,7 +146,7 @@ public class ServiceAccountController extends BaseController {
   @RequestMapping(value = "/serviceAccounts/{token}", method = RequestMethod.DELETE)
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteServiceAccount(@PathVariable(TOKEN) UUID token) {
-    Profiler profiler = new Profiler("DELETE_SERVICE_ACCOUNT");
+    Profiler profiler = new MeteredProfiler("DELETE_SERVICE_ACCOUNT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, false, profiler);
@@ -19,19 +19,23 @@ import static java.util.stream.Collectors.toSet;
 import static org.openlmis.referencedata.domain.RightName.SUPERVISORY_NODES_MANAGE;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.openlmis.referencedata.AvailableFeatures;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RequisitionGroup;
+import org.openlmis.referencedata.domain.RequisitionGroupProgramSchedule;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.dto.FacilityDto;
 import org.openlmis.referencedata.dto.SupervisoryNodeDto;
 import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.dto.UserObjectReferenceDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProgramRepository;
@@ -40,10 +44,12 @@ import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.custom.impl.SupervisoryNodeDtoRedisRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.openlmis.referencedata.service.SupervisoryNodeBuilder;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RequisitionGroupMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
@@ -78,6 +84,10 @@ public class SupervisoryNodeController extends BaseController {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SupervisoryNodeController.class);
   public static final String RESOURCE_PATH = "/supervisoryNodes";
+  private static final String USERS_PATH = API_PATH + "/users";
+
+  private static final Map<String, String> AVAILABLE_FIELDS = SparseFieldset.availableFields(
+      "id", "code", "name", "description", "facility.id", "parentNode.id", "partnerNodeOf.id");
 
   @Autowired
   private SupervisoryNodeRepository supervisoryNodeRepository;
@@ -95,7 +105,7 @@ public class SupervisoryNodeController extends BaseController {
   private UserRepository userRepository;
 
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   @Autowired
   private SupervisoryNodeValidator validator;
@@ -148,13 +158,14 @@ public class SupervisoryNodeController extends BaseController {
    * @param supervisoryNodeId UUID of the supervisoryNode whose we want to get.
    * @return the SupervisoryNode.
    */
+  @VersionedResource({SupervisoryNode.class, RequisitionGroup.class})
   @RequestMapping(value = RESOURCE_PATH + "/{id}", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public SupervisoryNodeDto getSupervisoryNode(
       @PathVariable("id") UUID supervisoryNodeId) {
 
-    Profiler profiler = new Profiler("GET_SUPERVISORY_NODE");
+    Profiler profiler = new MeteredProfiler("GET_SUPERVISORY_NODE");
     profiler.setLogger(LOGGER);
 
     SupervisoryNodeDto supervisoryNodeDto;
@@ -195,7 +206,7 @@ public class SupervisoryNodeController extends BaseController {
       @PathVariable("id") UUID supervisoryNodeId,
       BindingResult bindingResult) {
 
-    Profiler profiler = new Profiler("UPDATE_SUPERVISORY_NODE");
+    Profiler profiler = new MeteredProfiler("UPDATE_SUPERVISORY_NODE");
     profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
@@ -228,7 +239,7 @@ public class SupervisoryNodeController extends BaseController {
     }
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentRegenerationScheduler.requestRegeneration();
 
     LOGGER.info("Updated supervisoryNode with id: {}", supervisoryNodeId);
     profiler.start("EXPORT_SUPERVISORY_NODE_TO_DTO");
@@ -272,30 +283,11 @@ public class SupervisoryNodeController extends BaseController {
       @RequestParam("rightId") UUID rightId,
       @RequestParam("programId") UUID programId) {
 
-    Profiler profiler = new Profiler("GET_SUPERVISING_USERS");
+    Profiler profiler = new MeteredProfiler("GET_SUPERVISING_USERS");
     profiler.setLogger(LOGGER);
 
-    profiler.start("CHECK_ADMIN_RIGHT");
-    rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
-
-    profiler.start("CHECK_IF_SUPERVISORY_NODE_EXISTS");
-    if (!supervisoryNodeRepository.existsById(supervisoryNodeId)) {
-      profiler.stop().log();
-      throw new NotFoundException(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND);
-    }
-
-    profiler.start("CHECK_IF_RIGHT_EXISTS");
-    if (!rightRepository.existsById(rightId)) {
-      profiler.stop().log();
-      throw new ValidationMessageException(RightMessageKeys.ERROR_NOT_FOUND);
-    }
+    checkSupervisingUsersParams(supervisoryNodeId, rightId, programId, profiler);
 
-    profiler.start("CHECK_IF_PROGRAM_EXISTS");
-    if (!programRepository.existsById(programId)) {
-      profiler.stop().log();
-      throw new ValidationMessageException(ProgramMessageKeys.ERROR_NOT_FOUND);
-    }
-    
     profiler.start("FIND_USERS_BY_SUPERVISION_RIGHT_IN_DB");
     Set<User> supervisingUsers = userRepository.findUsersBySupervisionRight(rightId,
         supervisoryNodeId, programId);
@@ -304,6 +296,41 @@ public class SupervisoryNodeController extends BaseController {
     return supervisingUsers.stream().map(this::exportToDto).collect(toSet());
   }
 
+  /**
+   * Find references to supervising users by right and program. Only user IDs are read from the
+   * supervising users index, so this is cheaper than returning full users.
+   *
+   * @param rightId UUID of right that user has.
+   * @param programId UUID of program.
+   * @return references to the found users.
+   */
+  @RequestMapping(value = RESOURCE_PATH + "/{id}/supervisingUsers/references",
+      method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Set<UserObjectReferenceDto> findSupervisingUserReferences(
+      @PathVariable("id") UUID supervisoryNodeId,
+      @RequestParam("rightId") UUID rightId,
+      @RequestParam("programId") UUID programId) {
+
+    Profiler profiler = new MeteredProfiler("GET_SUPERVISING_USER_REFERENCES");
+    profiler.setLogger(LOGGER);
+
+    checkSupervisingUsersParams(supervisoryNodeId, rightId, programId, profiler);
+
+    profiler.start("FIND_USER_IDS_BY_SUPERVISION_RIGHT_IN_DB");
+    List<UUID> userIds = userRepository.findSupervisingUserIds(rightId, supervisoryNodeId,
+        programId);
+
+    profiler.start("EXPORT_TO_REFERENCES");
+    Set<UserObjectReferenceDto> references = userIds.stream()
+        .map(userId -> new UserObjectReferenceDto(serviceUrl, USERS_PATH, userId))
+        .collect(toSet());
+
+    profiler.stop().log();
+    return references;
+  }
+
   /**
    * Find supervising facilities by program.
    */
@@ -329,14 +356,8 @@ public class SupervisoryNodeController extends BaseController {
     }
 
     Set<Facility> facilities = supervisoryNode.getAllSupervisedFacilities(program);
-    Page<Facility> facilityPage = Pagination.getPage(facilities, pageable);
-    List<FacilityDto> facilityDtos = facilityPage
-        .getContent()
-        .stream()
-        .map(FacilityDto::newInstance)
-        .collect(Collectors.toList());
 
-    return Pagination.getPage(facilityDtos, pageable, facilities.size());
+    return Pagination.getPage(facilities, pageable, FacilityDto::newInstance);
   }
 
   /**
@@ -347,12 +368,14 @@ public class SupervisoryNodeController extends BaseController {
    * @param pageable    object used to encapsulate the pagination related values: page and size.
    * @return List of wanted Supervisory Nodes matching query parameters.
    */
+  @VersionedResource({SupervisoryNode.class, RequisitionGroup.class,
+      RequisitionGroupProgramSchedule.class, Facility.class, GeographicZone.class})
   @GetMapping(RESOURCE_PATH)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<SupervisoryNodeDto> search(@RequestParam MultiValueMap<String, Object> queryParams,
       Pageable pageable) {
-    Profiler profiler = new Profiler("SEARCH_SUPERVISORY_NODES");
+    Profiler profiler = new MeteredProfiler("SEARCH_SUPERVISORY_NODES");
     profiler.setLogger(LOGGER);
 
     profiler.start("CONVERT_QUERY_PARAMS");
@@ -368,6 +391,37 @@ public class SupervisoryNodeController extends BaseController {
     return dtoPage;
   }
 
+  /**
+   * Retrieves only the requested fields of all Supervisory Nodes that are matching given query
+   * parameters. The supervisory nodes are not loaded, only the requested values are selected.
+   *
+   * @param queryParams request parameters (code, name, zoneId, programId, facilityId, id).
+   * @param fields      comma separated list of fields that should be returned.
+   * @param pageable    object used to encapsulate the pagination related values: page and size.
+   * @return Page of maps with the requested fields.
+   */
+  @VersionedResource({SupervisoryNode.class, RequisitionGroup.class,
+      RequisitionGroupProgramSchedule.class, Facility.class, GeographicZone.class})
+  @GetMapping(value = RESOURCE_PATH, params = SparseFieldset.FIELDS)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Page<Map<String, Object>> searchFields(
+      @RequestParam MultiValueMap<String, Object> queryParams,
+      @RequestParam(SparseFieldset.FIELDS) String fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("SEARCH_SUPERVISORY_NODE_FIELDS");
+    profiler.setLogger(LOGGER);
+
+    profiler.start("CONVERT_QUERY_PARAMS");
+    SparseFieldset fieldset = SparseFieldset.parse(fields, AVAILABLE_FIELDS);
+    SupervisoryNodeSearchParams params = new SupervisoryNodeSearchParams(queryParams);
+
+    profiler.start("GET_SUPERVISORY_NODE_FIELDS_FROM_DB");
+    Page<Map<String, Object>> page = supervisoryNodeRepository.search(params, fieldset, pageable);
+
+    profiler.stop().log();
+    return page;
+  }
+
   /**
    * Get the audit information related to stock supervisory node.
    *  @param author The author of the changes which should be returned.
@@ -488,4 +542,28 @@ public class SupervisoryNodeController extends BaseController {
     requisitionGroupRepository.saveAndFlush(requisitionGroup);
     return requisitionGroup;
   }
+
+  private void checkSupervisingUsersParams(UUID supervisoryNodeId, UUID rightId, UUID programId,
+      Profiler profiler) {
+    profiler.start("CHECK_ADMIN_RIGHT");
+    rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
+
+    profiler.start("CHECK_IF_SUPERVISORY_NODE_EXISTS");
+    if (!supervisoryNodeRepository.existsById(supervisoryNodeId)) {
+      profiler.stop().log();
+      throw new NotFoundException(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    profiler.start("CHECK_IF_RIGHT_EXISTS");
+    if (!rightRepository.existsById(rightId)) {
+      profiler.stop().log();
+      throw new ValidationMessageException(RightMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    profiler.start("CHECK_IF_PROGRAM_EXISTS");
+    if (!programRepository.existsById(programId)) {
+      profiler.stop().log();
+      throw new ValidationMessageException(ProgramMessageKeys.ERROR_NOT_FOUND);
+    }
+  }
 }
@@ -26,6 +26,7 @@ import org.openlmis.referencedata.dto.SupplyLineDto;
 import org.openlmis.referencedata.dto.SupplyLineObjectReferenceDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.SupplyLineRepository;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.SupplyLineMessageKeys;
 import org.slf4j.Logger;
@@ -94,7 +95,7 @@ public class SupplyLineController extends BaseController {
   public Page<SupplyLineObjectReferenceDto> search(
       @RequestParam MultiValueMap<String, Object> queryMap,
       Pageable pageable) {
-    Profiler profiler = new Profiler("SEARCH_SUPPLY_LINES");
+    Profiler profiler = new MeteredProfiler("SEARCH_SUPPLY_LINES");
     profiler.setLogger(LOGGER);
 
     profiler.start("CREATE_SEARCH_PARAMS_CLASS");
@@ -30,6 +30,7 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.SupplyPartnerRepository;
 import org.openlmis.referencedata.service.SupplyPartnerBuilder;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.SupplyPartnerMessageKeys;
 import org.slf4j.ext.XLogger;
@@ -82,7 +83,7 @@ public class SupplyPartnerController extends BaseController {
   public Page<SupplyPartnerDto> getSupplyPartners(
       @RequestParam MultiValueMap<String, Object> requestParams,
       Pageable pageable) {
-    Profiler profiler = new Profiler("GET_SUPPLY_PARTNERS");
+    Profiler profiler = new MeteredProfiler("GET_SUPPLY_PARTNERS");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SUPPLY_PARTNERS_MANAGE, profiler);
@@ -110,7 +111,7 @@ public class SupplyPartnerController extends BaseController {
   @PostMapping
   @ResponseStatus(HttpStatus.CREATED)
   public SupplyPartnerDto createSupplyPartner(@RequestBody SupplyPartnerDto supplyPartnerDto) {
-    Profiler profiler = new Profiler("CREATE_SUPPLY_PARTNER");
+    Profiler profiler = new MeteredProfiler("CREATE_SUPPLY_PARTNER");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SUPPLY_PARTNERS_MANAGE, profiler);
@@ -139,7 +140,7 @@ public class SupplyPartnerController extends BaseController {
    */
   @GetMapping(ID_URL)
   public SupplyPartnerDto getSupplyPartner(@PathVariable("id") UUID id) {
-    Profiler profiler = new Profiler("GET_SUPPLY_PARTNER");
+    Profiler profiler = new MeteredProfiler("GET_SUPPLY_PARTNER");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SUPPLY_PARTNERS_MANAGE, profiler);
@@ -162,7 +163,7 @@ public class SupplyPartnerController extends BaseController {
   @PutMapping(ID_URL)
   public SupplyPartnerDto updateSupplyPartner(@PathVariable("id") UUID id,
       @RequestBody SupplyPartnerDto supplyPartnerDto) {
-    Profiler profiler = new Profiler("UPDATE_SUPPLY_PARTNER");
+    Profiler profiler = new MeteredProfiler("UPDATE_SUPPLY_PARTNER");
     profiler.setLogger(XLOGGER);
 
     if (null != supplyPartnerDto.getId() && !Objects.equals(supplyPartnerDto.getId(), id)) {
@@ -205,7 +206,7 @@ public class SupplyPartnerController extends BaseController {
           boolean returnJson,
       Pageable pageable) {
 
-    Profiler profiler = new Profiler("GET_AUDIT_LOG");
+    Profiler profiler = new MeteredProfiler("GET_AUDIT_LOG");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SUPPLY_PARTNERS_MANAGE, profiler);
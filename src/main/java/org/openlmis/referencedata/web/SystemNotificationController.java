@@ -33,6 +33,7 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.SystemNotificationRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.SystemNotificationMessageKeys;
 import org.openlmis.referencedata.validate.SystemNotificationValidator;
@@ -90,7 +91,7 @@ public class SystemNotificationController extends BaseController {
   @GetMapping
   public Page<SystemNotificationDto> getSystemNotifications(
       @RequestParam MultiValueMap<String, Object> requestParams, Pageable pageable) {
-    Profiler profiler = new Profiler("GET_SYSTEM_NOTIFICATIONS");
+    Profiler profiler = new MeteredProfiler("GET_SYSTEM_NOTIFICATIONS");
     profiler.setLogger(XLOGGER);
 
     profiler.start("FIND_SYSTEM_NOTIFICATIONS");
@@ -116,7 +117,7 @@ public class SystemNotificationController extends BaseController {
    */
   @GetMapping(ID_URL)
   public SystemNotificationDto getSystemNotification(@PathVariable("id") UUID id) {
-    Profiler profiler = new Profiler("GET_SYSTEM_NOTIFICATION");
+    Profiler profiler = new MeteredProfiler("GET_SYSTEM_NOTIFICATION");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SYSTEM_NOTIFICATIONS_MANAGE, profiler);
@@ -139,7 +140,7 @@ public class SystemNotificationController extends BaseController {
   @ResponseStatus(HttpStatus.CREATED)
   public SystemNotificationDto createSystemNotification(
       @RequestBody SystemNotificationDto systemNotificationDto, BindingResult bindingResult) {
-    Profiler profiler = new Profiler("CREATE_SYSTEM_NOTIFICATION");
+    Profiler profiler = new MeteredProfiler("CREATE_SYSTEM_NOTIFICATION");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SYSTEM_NOTIFICATIONS_MANAGE, profiler);
@@ -165,7 +166,7 @@ public class SystemNotificationController extends BaseController {
   @PutMapping(ID_URL)
   public SystemNotificationDto updateSystemNotification(@PathVariable("id") UUID id,
       @RequestBody SystemNotificationDto systemNotificationDto, BindingResult bindingResult) {
-    Profiler profiler = new Profiler("UPDATE_SYSTEM_NOTIFICATION");
+    Profiler profiler = new MeteredProfiler("UPDATE_SYSTEM_NOTIFICATION");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SYSTEM_NOTIFICATIONS_MANAGE, profiler);
@@ -190,7 +191,7 @@ public class SystemNotificationController extends BaseController {
   @DeleteMapping(ID_URL)
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteSystemNotification(@PathVariable UUID id) {
-    Profiler profiler = new Profiler("DELETE_SYSTEM_NOTIFICATION");
+    Profiler profiler = new MeteredProfiler("DELETE_SYSTEM_NOTIFICATION");
     profiler.setLogger(XLOGGER);
 
     rightService.checkAdminRight(SYSTEM_NOTIFICATIONS_MANAGE);
@@ -224,7 +225,7 @@ public class SystemNotificationController extends BaseController {
           boolean returnJson,
       Pageable pageable) {
 
-    Profiler profiler = new Profiler("GET_AUDIT_LOG");
+    Profiler profiler = new MeteredProfiler("GET_AUDIT_LOG");
     profiler.setLogger(XLOGGER);
 
     checkAdminRight(RightName.SYSTEM_NOTIFICATIONS_MANAGE, profiler);
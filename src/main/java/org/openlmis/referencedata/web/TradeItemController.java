@@ -128,6 +128,6 @@ public class TradeItemController extends BaseController {
       }
     }
 
-    return Pagination.getPage(TradeItemDto.newInstance(result), pageable);
+    return Pagination.getPage(result, pageable, TradeItemDto::newInstance);
   }
 }
@@ -21,6 +21,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -34,10 +36,8 @@ import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.Right;
 import org.openlmis.referencedata.domain.RightName;
-import org.openlmis.referencedata.domain.Role;
 import org.openlmis.referencedata.domain.RoleAssignment;
 import org.openlmis.referencedata.domain.SupervisionRoleAssignment;
-import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.dto.DetailedRoleAssignmentDto;
 import org.openlmis.referencedata.dto.FacilityDto;
@@ -53,17 +53,17 @@ import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.repository.RightAssignmentRepository;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleAssignmentRepository;
-import org.openlmis.referencedata.repository.RoleRepository;
-import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.UserSearchParams;
+import org.openlmis.referencedata.service.UserRoleAssignmentService;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.SparseFieldset;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
-import org.openlmis.referencedata.util.messagekeys.RoleMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
 import org.openlmis.referencedata.validate.UserValidator;
 import org.slf4j.Logger;
@@ -103,20 +103,21 @@ public class UserController extends BaseController {
 
   private static final String PROFILER_TO_DTO = "TO_DTO";
 
+  private static final Map<String, String> AVAILABLE_FIELDS = SparseFieldset.availableFields(
+      "id", "username", "firstName", "lastName", "jobTitle", "timezone", "homeFacilityId",
+      "active");
+
   @Autowired
   private UserService userService;
 
   @Autowired
   private UserRepository userRepository;
 
-  @Autowired
-  private RoleRepository roleRepository;
-
   @Autowired
   private ProgramRepository programRepository;
 
   @Autowired
-  private SupervisoryNodeRepository supervisoryNodeRepository;
+  private UserRoleAssignmentService userRoleAssignmentService;
 
   @Autowired
   private FacilityRepository facilityRepository;
@@ -141,17 +142,13 @@ public class UserController extends BaseController {
    */
   public UserController(UserService userService,
                         UserRepository userRepository,
-                        RoleRepository roleRepository,
                         RightRepository rightRepository,
                         ProgramRepository programRepository,
-                        SupervisoryNodeRepository supervisoryNodeRepository,
                         FacilityRepository facilityRepository) {
     this.userService = userService;
     this.userRepository = userRepository;
-    this.roleRepository = roleRepository;
     this.rightRepository = rightRepository;
     this.programRepository = programRepository;
-    this.supervisoryNodeRepository = supervisoryNodeRepository;
     this.facilityRepository = facilityRepository;
   }
 
@@ -167,7 +164,7 @@ public class UserController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public UserDto saveUser(@RequestBody @Valid UserDto userDto, BindingResult bindingResult) {
-    Profiler profiler = new Profiler("CREATE_USER");
+    Profiler profiler = new MeteredProfiler("CREATE_USER");
     profiler.setLogger(LOGGER);
 
     UUID userId = userDto.getId();
@@ -180,35 +177,27 @@ public class UserController extends BaseController {
     }
 
     User user;
+    boolean homeFacilityChanged = false;
     profiler.start("USER_EXISTS_IN_DB_CHECK");
     if (userId != null && userRepository.existsById(userId)) {
       profiler.start("GET_USER_FROM_DB");
       user = userRepository.findById(userId).orElse(null);
       assert user != null;
+      UUID homeFacilityId = user.getHomeFacilityId();
       profiler.start("UPDATE_USER_FROM_DTO");
       user.updateFrom(userDto);
+      homeFacilityChanged = !Objects.equals(homeFacilityId, user.getHomeFacilityId());
     } else {
       profiler.start("CREATE_USER_FROM_DTO");
       user = User.newUser(userDto);
+      user = userRepository.saveAndFlush(user);
     }
 
     profiler.start("ASSIGN_ROLES_TO_USER");
     Set<RoleAssignmentDto> roleAssignmentDtos = userDto.getRoleAssignments();
     if (roleAssignmentDtos != null) {
-
-      boolean foundNullRoleId = roleAssignmentDtos.stream().anyMatch(
-          roleAssignmentDto -> roleAssignmentDto.getRoleId() == null);
-      if (foundNullRoleId) {
-        throw new ValidationMessageException(UserMessageKeys.ERROR_ROLE_ID_NULL);
-      }
-
-      // hibernate is first adding new assignments and then deleting duplicates
-      // which violates unique constraint on right_assignment table
-      // that is why we clear collections first and then use flush
-      user.clearRoleAssignments();
-      user = userRepository.saveAndFlush(user);
-
-      assignRolesToUser(roleAssignmentDtos, user);
+      userRoleAssignmentService.updateRoleAssignments(user, roleAssignmentDtos,
+          homeFacilityChanged);
     }
 
     profiler.start("SAVE_USER");
@@ -245,12 +234,14 @@ public class UserController extends BaseController {
    *
    * @return the Users.
    */
+  @VersionedResource(value = {User.class, RoleAssignment.class},
+      adminRight = RightName.USERS_MANAGE_RIGHT)
   @RequestMapping(value = "/users", method = RequestMethod.GET)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<UserDto> getUsers(UserSearchParams requestParams,
                                 Pageable pageable) {
-    Profiler profiler = new Profiler("GET_USERS");
+    Profiler profiler = new MeteredProfiler("GET_USERS");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
@@ -266,6 +257,39 @@ public class UserController extends BaseController {
     return userDtos;
   }
 
+  /**
+   * Returns only the requested fields of all matching users. The users are not loaded, only the
+   * requested values are selected.
+   *
+   * @param requestParams request parameters (id, username, firstName, lastName, homeFacilityId,
+   *                      active, extraData).
+   * @param fields comma separated list of fields that should be returned.
+   * @param pageable Pageable object that allows client to optionally add "page" (page number).
+   *                 "size" (page size) and "sort" (with values "property,asc/desc")
+   *                 query parameters to the request.
+   * @return Page of maps with the requested fields.
+   */
+  @VersionedResource(value = User.class, adminRight = RightName.USERS_MANAGE_RIGHT)
+  @RequestMapping(value = "/users", method = RequestMethod.GET, params = SparseFieldset.FIELDS)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Page<Map<String, Object>> getUserFields(UserSearchParams requestParams,
+      @RequestParam(SparseFieldset.FIELDS) String fields, Pageable pageable) {
+    Profiler profiler = new MeteredProfiler("GET_USER_FIELDS");
+    profiler.setLogger(LOGGER);
+
+    checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
+
+    profiler.start("PARSE_FIELDS");
+    SparseFieldset fieldset = SparseFieldset.parse(fields, AVAILABLE_FIELDS);
+
+    profiler.start("SEARCH_USERS");
+    Page<Map<String, Object>> result = userService.searchUsers(requestParams, fieldset, pageable);
+
+    profiler.stop().log();
+    return result;
+  }
+
   /**
    * Get chosen user and role.
    *
@@ -277,7 +301,7 @@ public class UserController extends BaseController {
   @ResponseBody
   public UserDto getUser(@PathVariable("userId") UUID userId) {
     XLOGGER.entry(userId);
-    Profiler profiler = new Profiler("GET_SINGLE_USER");
+    Profiler profiler = new MeteredProfiler("GET_SINGLE_USER");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -310,7 +334,7 @@ public class UserController extends BaseController {
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Set<DetailedRoleAssignmentDto> getUserRightsAndRoles(@PathVariable("userId") UUID userId) {
-    Profiler profiler = new Profiler("GET_USER_ROLE_ASSIGNMENTS");
+    Profiler profiler = new MeteredProfiler("GET_USER_ROLE_ASSIGNMENTS");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -341,7 +365,7 @@ public class UserController extends BaseController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   @ResponseBody
   public void deleteUser(@PathVariable("userId") UUID userId) {
-    Profiler profiler = new Profiler("DELETE_USER");
+    Profiler profiler = new MeteredProfiler("DELETE_USER");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -378,7 +402,7 @@ public class UserController extends BaseController {
   public Page<UserDto> searchUsers(
       @RequestBody UserSearchParams queryParams, Pageable pageable) {
 
-    Profiler profiler = new Profiler("POST_USER_SEARCH");
+    Profiler profiler = new MeteredProfiler("POST_USER_SEARCH");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
@@ -414,7 +438,7 @@ public class UserController extends BaseController {
                                                    required = false) UUID facilityId,
                                                @RequestParam(value = "warehouseId",
                                                    required = false) UUID warehouseId) {
-    Profiler profiler = new Profiler("GET_USER_HAS_RIGHT");
+    Profiler profiler = new MeteredProfiler("GET_USER_HAS_RIGHT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -482,7 +506,7 @@ public class UserController extends BaseController {
   @RequestMapping(value = "/users/{userId}/programs", method = RequestMethod.GET)
   public ResponseEntity<Set<ProgramDto>> getUserPrograms(@PathVariable(USER_ID) UUID userId) {
     XLOGGER.entry(userId);
-    Profiler profiler = new Profiler("GET_USER_PROGRAMS");
+    Profiler profiler = new MeteredProfiler("GET_USER_PROGRAMS");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -512,7 +536,7 @@ public class UserController extends BaseController {
   @RequestMapping(value = "/users/{userId}/supportedPrograms", method = RequestMethod.GET)
   public ResponseEntity<Set<ProgramDto>> getUserSupportedPrograms(
       @PathVariable(USER_ID) UUID userId) {
-    Profiler profiler = new Profiler("GET_USER_SUPPORTED_PROGRAMS");
+    Profiler profiler = new MeteredProfiler("GET_USER_SUPPORTED_PROGRAMS");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -544,7 +568,7 @@ public class UserController extends BaseController {
   public Set<FacilityDto> getUserFulfillmentFacilities(
       @PathVariable(USER_ID) UUID userId,
       @RequestParam(value = "rightId") UUID rightId) {
-    Profiler profiler = new Profiler("GET_USER_FULFILLMENT_FACILITIES");
+    Profiler profiler = new MeteredProfiler("GET_USER_FULFILLMENT_FACILITIES");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -585,7 +609,7 @@ public class UserController extends BaseController {
                                    @RequestParam(required = false) UUID programId,
                                    @RequestParam(required = false) UUID supervisoryNodeId,
                                    @RequestParam(required = false) UUID warehouseId) {
-    Profiler profiler = new Profiler("GET_USERS_BY_RIGHT");
+    Profiler profiler = new MeteredProfiler("GET_USERS_BY_RIGHT");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
@@ -623,7 +647,7 @@ public class UserController extends BaseController {
           boolean returnJson,
       Pageable page) {
 
-    Profiler profiler = new Profiler("GET_USER_AUDIT_LOG");
+    Profiler profiler = new MeteredProfiler("GET_USER_AUDIT_LOG");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, profiler);
@@ -647,10 +671,11 @@ public class UserController extends BaseController {
    * @param userId UUID of the user to retrieve.
    * @return a set of user permission strings.
    */
+  @ReadFromReplica
   @RequestMapping(value = "/users/{id}/permissionStrings", method = RequestMethod.GET)
   public ResponseEntity<Set<String>> getUserPermissionStrings(@PathVariable("id") UUID userId) {
     XLOGGER.entry(userId);
-    Profiler profiler = new Profiler("GET_USER_PERM_STRINGS");
+    Profiler profiler = new MeteredProfiler("GET_USER_PERM_STRINGS");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -678,7 +703,7 @@ public class UserController extends BaseController {
   public ResponseEntity<Set<NamedResource>> getUserFacilities(
       @PathVariable(USER_ID) UUID userId) {
     XLOGGER.entry(userId);
-    Profiler profiler = new Profiler("GET_USER_FACILITIES");
+    Profiler profiler = new MeteredProfiler("GET_USER_FACILITIES");
     profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId, profiler);
@@ -717,51 +742,9 @@ public class UserController extends BaseController {
     return (null != identifiable) ? Optional.of(identifiable) : Optional.empty();
   }
 
-  private void assignRolesToUser(Set<RoleAssignmentDto> roleAssignmentDtos, User user) {
-    LOGGER.debug("Assigning roles to user and saving");
-    for (RoleAssignmentDto roleAssignmentDto : roleAssignmentDtos) {
-      RoleAssignment roleAssignment;
-
-      Role role = roleRepository.findById(roleAssignmentDto.getRoleId())
-          .orElseThrow(() -> new ValidationMessageException(RoleMessageKeys.ERROR_NOT_FOUND));
-
-      if (role.getRights().isEmpty()) {
-        throw new ValidationMessageException(new Message(
-            UserMessageKeys.ERROR_ASSIGNED_ROLE_RIGHTS_EMPTY, role.getName()));
-      }
-
-      UUID programId = roleAssignmentDto.getProgramId();
-      UUID warehouseId = roleAssignmentDto.getWarehouseId();
-      if (programId != null) {
-
-        Program program = programRepository.findById(programId).orElse(null);
-        UUID supervisoryNodeId = roleAssignmentDto.getSupervisoryNodeId();
-        if (supervisoryNodeId != null) {
-
-          SupervisoryNode supervisoryNode = supervisoryNodeRepository.findById(
-              supervisoryNodeId).orElse(null);
-          roleAssignment = new SupervisionRoleAssignment(role, user, program, supervisoryNode);
-
-        } else {
-          roleAssignment = new SupervisionRoleAssignment(role, user, program);
-        }
-
-      } else if (warehouseId != null) {
-
-        Facility warehouse = facilityRepository.findById(warehouseId).orElse(null);
-        roleAssignment = new FulfillmentRoleAssignment(role, user, warehouse);
-
-      } else {
-        roleAssignment = new DirectRoleAssignment(role, user);
-      }
-
-      user.assignRoles(roleAssignment);
-    }
-  }
-
   private Set<DetailedRoleAssignmentDto> exportRoleAssignmentsToDtos(
       Set<RoleAssignment> roleAssignments) {
-    Profiler profiler = new Profiler("EXPORT_USER_ROLE_ASSIGNMENTS_TO_DTO");
+    Profiler profiler = new MeteredProfiler("EXPORT_USER_ROLE_ASSIGNMENTS_TO_DTO");
     profiler.setLogger(LOGGER);
 
     Set<DetailedRoleAssignmentDto> assignmentDtos = new HashSet<>();
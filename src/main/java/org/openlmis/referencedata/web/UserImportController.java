@@ -0,0 +1,127 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.openlmis.referencedata.domain.RightName.USERS_MANAGE_RIGHT;
+
+import java.io.IOException;
+import java.util.List;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.UserImportService;
+import org.openlmis.referencedata.util.MeteredProfiler;
+import org.openlmis.referencedata.util.messagekeys.MessageKeys;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.slf4j.profiler.Profiler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Bulk user import. Small imports are saved synchronously and answered with the result of every
+ * user. With the {@code async} parameter the import is queued as a job, which can be polled for
+ * progress and results through {@link JobController}.
+ */
+@RestController
+public class UserImportController extends BaseController {
+
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(UserImportController.class);
+
+  public static final String RESOURCE_PATH = "/users/import";
+
+  private static final String ASYNC = "async";
+
+  @Autowired
+  private UserImportService userImportService;
+
+  /**
+   * Creates many users with their role assignments at once. Users which can't be saved don't
+   * stop the rest of the batch.
+   *
+   * @param users the users to create.
+   * @param async true to queue the import as a job.
+   * @return the result of every user, or the queued job.
+   */
+  @PostMapping(value = RESOURCE_PATH, consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> importUsers(@RequestBody List<UserDto> users,
+      @RequestParam(value = ASYNC, defaultValue = "false") boolean async) {
+    Profiler profiler = new MeteredProfiler("IMPORT_USERS");
+    profiler.setLogger(XLOGGER);
+
+    checkAdminRight(USERS_MANAGE_RIGHT, profiler);
+
+    try {
+      if (async) {
+        profiler.start("SUBMIT_JOB");
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(userImportService.submit(users));
+      }
+
+      profiler.start("IMPORT_USERS");
+      return ResponseEntity.ok(userImportService.importUsers(users));
+    } finally {
+      profiler.stop().log();
+    }
+  }
+
+  /**
+   * Creates users described by a CSV file. Rows with the same username describe one user and
+   * each row can assign one role. There is one result for every user, with the index of its
+   * first row.
+   *
+   * @param file the CSV file to upload.
+   * @param async true to queue the import as a job.
+   * @return the result of every user, or the queued job.
+   */
+  @PostMapping(value = RESOURCE_PATH, consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public ResponseEntity<?> importUsers(@RequestPart("file") MultipartFile file,
+      @RequestParam(value = ASYNC, defaultValue = "false") boolean async) {
+    Profiler profiler = new MeteredProfiler("IMPORT_USERS_CSV");
+    profiler.setLogger(XLOGGER);
+
+    checkAdminRight(USERS_MANAGE_RIGHT, profiler);
+
+    profiler.start("VALIDATE_FILE");
+    validateCsvFile(file);
+
+    try {
+      if (async) {
+        profiler.start("SUBMIT_JOB");
+        JobDto job = userImportService.submit(file.getInputStream());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+      }
+
+      profiler.start("IMPORT_USERS");
+      List<BatchItemResultDto<UserDto>> results =
+          userImportService.importUsers(file.getInputStream());
+      return ResponseEntity.ok(results);
+    } catch (IOException ex) {
+      throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    } finally {
+      profiler.stop().log();
+    }
+  }
+
+}
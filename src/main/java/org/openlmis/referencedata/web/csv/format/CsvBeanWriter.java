@@ -23,6 +23,7 @@ import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.List;
 import lombok.Getter;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.model.ModelField;
 import org.openlmis.referencedata.web.csv.processor.CsvCellProcessors;
@@ -49,7 +50,7 @@ class CsvBeanWriter<T extends Object> {
 
   CsvBeanWriter(ModelClass<T> modelClass,
                 OutputStream outputStream) throws IOException {
-    Profiler profiler = new Profiler("CREATE_CSV_WRITER");
+    Profiler profiler = new MeteredProfiler("CREATE_CSV_WRITER");
     profiler.setLogger(LOGGER);
 
     profiler.start("MODEL_CLASS");
@@ -65,7 +66,7 @@ class CsvBeanWriter<T extends Object> {
   }
 
   void writeWithCellProcessors(List<? extends Object> dtos) throws IOException {
-    Profiler profiler = new Profiler("CSV_WRITE_CELLS");
+    Profiler profiler = new MeteredProfiler("CSV_WRITE_CELLS");
     profiler.setLogger(LOGGER);
 
     profiler.start("WRITE_HEADERS");
@@ -83,7 +84,7 @@ class CsvBeanWriter<T extends Object> {
   }
 
   private void configureDozerBeanWriter(OutputStream outputStream) throws IOException {
-    Profiler profiler = new Profiler("CONFIGURE_DOZER_WRITER");
+    Profiler profiler = new MeteredProfiler("CONFIGURE_DOZER_WRITER");
     profiler.setLogger(LOGGER);
 
     profiler.start("CSV_PREFERENCE");
@@ -23,6 +23,7 @@ import java.util.List;
 import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,7 +52,7 @@ public class CsvFormatter {
                                          ModelClass<T> modelClass,
                                          List<T> dtos) throws IOException {
 
-    Profiler profiler = new Profiler("CSV_PROCESS");
+    Profiler profiler = new MeteredProfiler("CSV_PROCESS");
     profiler.setLogger(LOGGER);
 
     profiler.start("CREATE_CSV_WRITER");
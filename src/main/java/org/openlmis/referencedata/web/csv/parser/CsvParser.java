@@ -26,6 +26,7 @@ import org.openlmis.referencedata.domain.BaseEntity;
 import org.openlmis.referencedata.dto.BaseDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.validate.CsvHeaderValidator;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
@@ -64,7 +65,7 @@ public class CsvParser {
                                                              RecordProcessor<D, E> processor,
                                                              RecordWriter<E> writer)
       throws IOException {
-    Profiler profiler = new Profiler("PARSE_CSV_FILE");
+    Profiler profiler = new MeteredProfiler("PARSE_CSV_FILE");
     profiler.setLogger(LOGGER);
 
     profiler.start("NEW_CSV_READER");
@@ -90,6 +91,38 @@ public class CsvParser {
     return csvBeanReader.getRowNumber() - 1;
   }
 
+  /**
+   * Reads all records from input stream into the corresponding model, for processing that needs
+   * the whole file at once, e.g. because many rows describe one resource.
+   *
+   * @return the records, in the order of rows in the file
+   */
+  public <D extends BaseDto> List<D> read(InputStream inputStream, ModelClass<D> modelClass,
+                                          CsvHeaderValidator headerValidator) throws IOException {
+    Profiler profiler = new MeteredProfiler("READ_CSV_FILE");
+    profiler.setLogger(LOGGER);
+
+    profiler.start("NEW_CSV_READER");
+    CsvBeanReader<D> csvBeanReader = new CsvBeanReader<>(
+        modelClass, inputStream, headerValidator
+    );
+
+    profiler.start("READ_CSV");
+    List<D> records = Lists.newArrayList();
+    while (true) {
+      List<D> imported = doRead(csvBeanReader);
+
+      if (imported.isEmpty()) {
+        break;
+      }
+
+      records.addAll(imported);
+    }
+
+    profiler.stop().log();
+    return records;
+  }
+
   private <D extends BaseDto> List<D> doRead(CsvBeanReader<D> csvBeanReader) throws IOException {
     try {
       List<D> list = Lists.newArrayList();
@@ -114,7 +147,7 @@ public class CsvParser {
   private <D extends BaseDto, E extends BaseEntity> void doWrite(RecordProcessor<D, E> processor,
                                                                  RecordWriter<E> writer,
                                                                  List<D> imported) {
-    Profiler profiler = new Profiler("WRITE_CSV_CHUNK");
+    Profiler profiler = new MeteredProfiler("WRITE_CSV_CHUNK");
     profiler.setLogger(LOGGER);
 
     profiler.start("PROCESS");
@@ -38,6 +38,7 @@ import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.MeteredProfiler;
 import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -72,7 +73,7 @@ public class IdealStockAmountProcessor
 
   @Override
   public List<IdealStockAmount> process(List<IdealStockAmountCsvModel> records) {
-    Profiler profiler = new Profiler("PROCESS_DTO_CHUNK");
+    Profiler profiler = new MeteredProfiler("PROCESS_DTO_CHUNK");
     profiler.setLogger(LOGGER);
 
     profiler.start("SEARCH_EXISTING_ISA");
@@ -36,8 +36,8 @@ import org.springframework.web.bind.annotation.ResponseBody;
 public class DataExportController extends BaseController {
 
   public static final String RESOURCE_PATH = BaseController.API_PATH + "/exportData";
-  public static final String ZIP_MEDIA_TYPE = "application/zip";
-  private static final String RESPONSE_FILE_NAME = "OLMIS_configuration_data.zip";
+  public static final String ZIP_MEDIA_TYPE = DataExportService.ZIP_MEDIA_TYPE;
+  private static final String RESPONSE_FILE_NAME = DataExportService.RESULT_NAME;
 
   @Autowired
   private DataExportService dataExportService;
@@ -49,13 +49,21 @@ public class DataExportController extends BaseController {
    *
    * @param requestParams Required parameters: format (output format for files) and date
    *                      (names of requested files).
+   * @param async         if true, the export runs as a job and the job is returned; the archive
+   *                      is then available as its result.
    * @return Zip archive bytes containing formatted files
    */
   @GetMapping
   @ResponseBody
-  public ResponseEntity<byte[]> exportData(@RequestParam Map<String, String> requestParams) {
+  public ResponseEntity<?> exportData(@RequestParam Map<String, String> requestParams,
+      @RequestParam(value = "async", defaultValue = "false") boolean async) {
     rightService.checkAdminRight(RightName.DATA_EXPORT);
 
+    if (async) {
+      return ResponseEntity.accepted()
+          .body(dataExportService.submit(new DataExportParams(requestParams)));
+    }
+
     return ResponseEntity.ok()
             .contentType(MediaType.valueOf(ZIP_MEDIA_TYPE))
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment;filename=" + RESPONSE_FILE_NAME)
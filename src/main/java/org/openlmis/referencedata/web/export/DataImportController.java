@@ -28,6 +28,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.multipart.MultipartFile;
@@ -44,12 +45,20 @@ public class DataImportController extends BaseController {
   /**
    * Imports the data from a ZIP with CSV files.
    *
-   * @param file ZIP archive being imported.
+   * @param file  ZIP archive being imported.
+   * @param async if true, the import runs as a job and the job is returned; the imported
+   *              resources are then available as its result.
    */
   @PostMapping
   @ResponseStatus(HttpStatus.OK)
-  public ResponseEntity<List<BaseDto>> importData(@RequestPart("file") MultipartFile file) {
+  public ResponseEntity<?> importData(@RequestPart("file") MultipartFile file,
+      @RequestParam(value = "async", defaultValue = "false") boolean async) {
     rightService.checkAdminRight(RightName.DATA_IMPORT);
+
+    if (async) {
+      return ResponseEntity.accepted().body(dataImportService.submit(file));
+    }
+
     List<BaseDto> importedData = dataImportService.importData(file);
     return ResponseEntity.ok().body(importedData);
   }
@@ -0,0 +1,4 @@
+CREATE TABLE resource_versions (
+    resourceType VARCHAR(255) PRIMARY KEY,
+    version BIGINT NOT NULL
+);
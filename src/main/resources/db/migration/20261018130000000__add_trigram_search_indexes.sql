@@ -0,0 +1,18 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm WITH SCHEMA public;
+
+-- expressions match the ones used by the existing search queries and by the /search endpoint
+CREATE INDEX facilities_code_trgm_idx ON facilities USING GIN (UPPER(code) public.gin_trgm_ops);
+CREATE INDEX facilities_name_trgm_idx ON facilities USING GIN (UPPER(name) public.gin_trgm_ops);
+
+CREATE INDEX orderables_code_trgm_idx ON orderables USING GIN (LOWER(code) public.gin_trgm_ops);
+CREATE INDEX orderables_fullproductname_trgm_idx
+    ON orderables USING GIN (LOWER(fullproductname) public.gin_trgm_ops);
+
+CREATE INDEX geographic_zones_code_trgm_idx
+    ON geographic_zones USING GIN (UPPER(code) public.gin_trgm_ops);
+CREATE INDEX geographic_zones_name_trgm_idx
+    ON geographic_zones USING GIN (UPPER(name) public.gin_trgm_ops);
+
+CREATE INDEX users_username_trgm_idx ON users USING GIN (UPPER(username) public.gin_trgm_ops);
+CREATE INDEX users_firstname_trgm_idx ON users USING GIN (UPPER(firstname) public.gin_trgm_ops);
+CREATE INDEX users_lastname_trgm_idx ON users USING GIN (UPPER(lastname) public.gin_trgm_ops);
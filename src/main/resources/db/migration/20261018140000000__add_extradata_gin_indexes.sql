@@ -0,0 +1,6 @@
+-- jsonb_path_ops indexes support the @> containment operator used by the extraData searches
+CREATE INDEX facilities_extradata_idx ON facilities USING GIN (extradata jsonb_path_ops);
+CREATE INDEX supervisory_nodes_extradata_idx
+    ON supervisory_nodes USING GIN (extradata jsonb_path_ops);
+CREATE INDEX users_extradata_idx ON users USING GIN (extradata jsonb_path_ops);
+CREATE INDEX orderables_extradata_idx ON orderables USING GIN (extradata jsonb_path_ops);
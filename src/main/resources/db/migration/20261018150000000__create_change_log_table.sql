@@ -0,0 +1,22 @@
+CREATE TABLE change_log (
+    id BIGSERIAL PRIMARY KEY,
+    transactionId BIGINT NOT NULL DEFAULT txid_current(),
+    resourceType VARCHAR(255) NOT NULL,
+    resourceId UUID NOT NULL,
+    versionNumber BIGINT,
+    operation VARCHAR(6) NOT NULL,
+    occurredDate TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+CREATE INDEX change_log_cursor_idx ON change_log (transactionId, id);
+CREATE INDEX change_log_resource_idx ON change_log (resourceType, resourceId);
+CREATE INDEX change_log_occurreddate_idx ON change_log (occurredDate);
+
+-- cursors that point before this position refer to entries removed by the retention policy
+CREATE TABLE change_log_horizon (
+    singleton BOOLEAN PRIMARY KEY DEFAULT TRUE CHECK (singleton),
+    transactionId BIGINT NOT NULL,
+    entryId BIGINT NOT NULL
+);
+
+INSERT INTO change_log_horizon (singleton, transactionId, entryId) VALUES (TRUE, 0, 0);
@@ -0,0 +1,102 @@
+-- (supervisory node, program, right) -> user index, derived from supervision role assignments.
+-- The primary key covers every column, so lookups are answered by an index-only scan.
+CREATE TABLE supervising_users (
+    supervisoryNodeId UUID NOT NULL,
+    programId UUID NOT NULL,
+    rightId UUID NOT NULL,
+    userId UUID NOT NULL,
+    PRIMARY KEY (supervisoryNodeId, programId, rightId, userId)
+);
+
+CREATE INDEX supervising_users_userid_idx ON supervising_users (userId);
+
+INSERT INTO supervising_users (supervisoryNodeId, programId, rightId, userId)
+SELECT DISTINCT ra.supervisorynodeid, ra.programid, rr.rightid, ra.userid
+FROM role_assignments ra
+  JOIN role_rights rr ON rr.roleid = ra.roleid
+WHERE ra.supervisorynodeid IS NOT NULL
+  AND ra.programid IS NOT NULL;
+
+-- The triggers below keep the index in sync when user role assignments or role rights are saved.
+-- The whole table is also rebuilt together with the right assignments.
+CREATE OR REPLACE FUNCTION sync_supervising_users_from_role_assignment() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP IN ('DELETE', 'UPDATE') AND OLD.supervisorynodeid IS NOT NULL
+      AND OLD.programid IS NOT NULL THEN
+    DELETE FROM referencedata.supervising_users su
+    USING referencedata.role_rights rr
+    WHERE rr.roleid = OLD.roleid
+      AND su.rightid = rr.rightid
+      AND su.supervisorynodeid = OLD.supervisorynodeid
+      AND su.programid = OLD.programid
+      AND su.userid = OLD.userid
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra
+          JOIN referencedata.role_rights rr2 ON rr2.roleid = ra.roleid
+        WHERE ra.userid = OLD.userid
+          AND ra.supervisorynodeid = OLD.supervisorynodeid
+          AND ra.programid = OLD.programid
+          AND rr2.rightid = su.rightid);
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.supervisorynodeid IS NOT NULL
+      AND NEW.programid IS NOT NULL THEN
+    INSERT INTO referencedata.supervising_users (supervisoryNodeId, programId, rightId, userId)
+    SELECT NEW.supervisorynodeid, NEW.programid, rr.rightid, NEW.userid
+    FROM referencedata.role_rights rr
+    WHERE rr.roleid = NEW.roleid
+    ON CONFLICT DO NOTHING;
+  END IF;
+
+  RETURN NULL;
+
+END $$;
+
+CREATE TRIGGER sync_supervising_users_from_role_assignment
+    AFTER INSERT OR UPDATE OR DELETE ON role_assignments
+    FOR EACH ROW
+    EXECUTE PROCEDURE sync_supervising_users_from_role_assignment();
+
+CREATE OR REPLACE FUNCTION sync_supervising_users_from_role_right() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP IN ('DELETE', 'UPDATE') THEN
+    DELETE FROM referencedata.supervising_users su
+    USING referencedata.role_assignments ra
+    WHERE ra.roleid = OLD.roleid
+      AND su.rightid = OLD.rightid
+      AND su.supervisorynodeid = ra.supervisorynodeid
+      AND su.programid = ra.programid
+      AND su.userid = ra.userid
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra2
+          JOIN referencedata.role_rights rr ON rr.roleid = ra2.roleid
+        WHERE ra2.userid = su.userid
+          AND ra2.supervisorynodeid = su.supervisorynodeid
+          AND ra2.programid = su.programid
+          AND rr.rightid = su.rightid);
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO referencedata.supervising_users (supervisoryNodeId, programId, rightId, userId)
+    SELECT ra.supervisorynodeid, ra.programid, NEW.rightid, ra.userid
+    FROM referencedata.role_assignments ra
+    WHERE ra.roleid = NEW.roleid
+      AND ra.supervisorynodeid IS NOT NULL
+      AND ra.programid IS NOT NULL
+    ON CONFLICT DO NOTHING;
+  END IF;
+
+  RETURN NULL;
+
+END $$;
+
+CREATE TRIGGER sync_supervising_users_from_role_right
+    AFTER INSERT OR UPDATE OR DELETE ON role_rights
+    FOR EACH ROW
+    EXECUTE PROCEDURE sync_supervising_users_from_role_right();
@@ -0,0 +1,57 @@
+-- Number of distinct users assigned to each role, so roles can be listed without aggregating
+-- all role assignments. Rows of deleted roles are removed by the periodic reconciliation.
+CREATE TABLE role_user_counts (
+    roleId UUID PRIMARY KEY,
+    userCount BIGINT NOT NULL
+);
+
+INSERT INTO role_user_counts (roleId, userCount)
+SELECT r.id, COUNT(DISTINCT ra.userid)
+FROM roles r
+  LEFT JOIN role_assignments ra ON ra.roleid = r.id
+GROUP BY r.id;
+
+-- A user is counted once per role, so the counter only changes when the first assignment of
+-- the role to the user is added or the last one is removed.
+CREATE OR REPLACE FUNCTION count_role_users() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+
+  IF TG_OP = 'UPDATE' AND OLD.roleid IS NOT DISTINCT FROM NEW.roleid
+      AND OLD.userid IS NOT DISTINCT FROM NEW.userid THEN
+    RETURN NULL;
+  END IF;
+
+  IF TG_OP IN ('DELETE', 'UPDATE') AND OLD.roleid IS NOT NULL AND OLD.userid IS NOT NULL
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra
+        WHERE ra.userid = OLD.userid
+          AND ra.roleid = OLD.roleid) THEN
+    UPDATE referencedata.role_user_counts
+    SET userCount = userCount - 1
+    WHERE roleId = OLD.roleid
+      AND userCount > 0;
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.roleid IS NOT NULL AND NEW.userid IS NOT NULL
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra
+        WHERE ra.userid = NEW.userid
+          AND ra.roleid = NEW.roleid
+          AND ra.id <> NEW.id) THEN
+    INSERT INTO referencedata.role_user_counts (roleId, userCount)
+    VALUES (NEW.roleid, 1)
+    ON CONFLICT (roleId) DO UPDATE
+    SET userCount = referencedata.role_user_counts.userCount + 1;
+  END IF;
+
+  RETURN NULL;
+
+END $$;
+
+CREATE TRIGGER count_role_users
+    AFTER INSERT OR UPDATE OR DELETE ON role_assignments
+    FOR EACH ROW
+    EXECUTE PROCEDURE count_role_users();
@@ -0,0 +1,28 @@
+CREATE TABLE jobs (
+    id UUID PRIMARY KEY,
+    type VARCHAR(255) NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    createdById UUID,
+    createdDate TIMESTAMP WITH TIME ZONE NOT NULL,
+    startedDate TIMESTAMP WITH TIME ZONE,
+    finishedDate TIMESTAMP WITH TIME ZONE,
+    -- updated regularly by the instance running the job, see jobs.timeout
+    heartbeatDate TIMESTAMP WITH TIME ZONE NOT NULL,
+    total BIGINT,
+    processed BIGINT NOT NULL DEFAULT 0,
+    cancelRequested BOOLEAN NOT NULL DEFAULT FALSE,
+    errorMessageKey VARCHAR(255),
+    errorMessage TEXT,
+    resultName VARCHAR(255),
+    resultContentType VARCHAR(255),
+    resultSize BIGINT
+);
+
+CREATE INDEX jobs_status_idx ON jobs (status);
+CREATE INDEX jobs_finisheddate_idx ON jobs (finishedDate);
+
+-- results of jobs stored in the database; with file storage, they are kept in a directory
+CREATE TABLE job_results (
+    jobId UUID PRIMARY KEY REFERENCES jobs (id) ON DELETE CASCADE,
+    content BYTEA NOT NULL
+);
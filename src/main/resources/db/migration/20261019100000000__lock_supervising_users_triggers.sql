@@ -0,0 +1,81 @@
+-- Supervising users are rebuilt by deleting all rows and inserting them again while holding
+-- an exclusive advisory lock (RightAssignmentService.LOCK_KEY, 0x52494748). A trigger that
+-- changed the table during a rebuild could miss the re-inserted rows and leave stale ones
+-- behind, so the triggers take the same lock in shared mode: they wait for a running rebuild
+-- to commit, and a rebuild waits for transactions that changed role assignments or role rights.
+
+CREATE OR REPLACE FUNCTION sync_supervising_users_from_role_assignment() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+
+  PERFORM pg_advisory_xact_lock_shared(1380534088);
+
+  IF TG_OP IN ('DELETE', 'UPDATE') AND OLD.supervisorynodeid IS NOT NULL
+      AND OLD.programid IS NOT NULL THEN
+    DELETE FROM referencedata.supervising_users su
+    USING referencedata.role_rights rr
+    WHERE rr.roleid = OLD.roleid
+      AND su.rightid = rr.rightid
+      AND su.supervisorynodeid = OLD.supervisorynodeid
+      AND su.programid = OLD.programid
+      AND su.userid = OLD.userid
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra
+          JOIN referencedata.role_rights rr2 ON rr2.roleid = ra.roleid
+        WHERE ra.userid = OLD.userid
+          AND ra.supervisorynodeid = OLD.supervisorynodeid
+          AND ra.programid = OLD.programid
+          AND rr2.rightid = su.rightid);
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') AND NEW.supervisorynodeid IS NOT NULL
+      AND NEW.programid IS NOT NULL THEN
+    INSERT INTO referencedata.supervising_users (supervisoryNodeId, programId, rightId, userId)
+    SELECT NEW.supervisorynodeid, NEW.programid, rr.rightid, NEW.userid
+    FROM referencedata.role_rights rr
+    WHERE rr.roleid = NEW.roleid
+    ON CONFLICT DO NOTHING;
+  END IF;
+
+  RETURN NULL;
+
+END $$;
+
+CREATE OR REPLACE FUNCTION sync_supervising_users_from_role_right() RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+
+  PERFORM pg_advisory_xact_lock_shared(1380534088);
+
+  IF TG_OP IN ('DELETE', 'UPDATE') THEN
+    DELETE FROM referencedata.supervising_users su
+    USING referencedata.role_assignments ra
+    WHERE ra.roleid = OLD.roleid
+      AND su.rightid = OLD.rightid
+      AND su.supervisorynodeid = ra.supervisorynodeid
+      AND su.programid = ra.programid
+      AND su.userid = ra.userid
+      AND NOT EXISTS (
+        SELECT 1
+        FROM referencedata.role_assignments ra2
+          JOIN referencedata.role_rights rr ON rr.roleid = ra2.roleid
+        WHERE ra2.userid = su.userid
+          AND ra2.supervisorynodeid = su.supervisorynodeid
+          AND ra2.programid = su.programid
+          AND rr.rightid = su.rightid);
+  END IF;
+
+  IF TG_OP IN ('INSERT', 'UPDATE') THEN
+    INSERT INTO referencedata.supervising_users (supervisoryNodeId, programId, rightId, userId)
+    SELECT ra.supervisorynodeid, ra.programid, NEW.rightid, ra.userid
+    FROM referencedata.role_assignments ra
+    WHERE ra.roleid = NEW.roleid
+      AND ra.supervisorynodeid IS NOT NULL
+      AND ra.programid IS NOT NULL
+    ON CONFLICT DO NOTHING;
+  END IF;
+
+  RETURN NULL;
+
+END $$;
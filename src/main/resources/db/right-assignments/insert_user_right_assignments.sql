@@ -0,0 +1,91 @@
+-- This SQL inserts right assignments of the given users in one statement. It applies the same
+-- rules as get_right_assignments.sql and get_all_supervised_facilities_from_node.sql, but only
+-- for role assignments of the users with IDs given in the :userIds parameter, and it expands
+-- supervisory nodes into supervised facilities in the database instead of one node at a time.
+--
+-- The CTE supervised_nodes pairs every supervisory node used in those role assignments with
+-- itself and all of its descendants. The CTE granted_facilities turns each role assignment into
+-- facility and program pairs: the home facility of the user if it supports the program, all
+-- facilities supervised by the node that support the program, the warehouse, or no facility.
+--
+-- IDs are generated from random values, so the statement doesn't depend on the schema of the
+-- uuid-ossp extension.
+--
+-- Input: user IDs
+-- Output: none, right assignments are inserted
+WITH RECURSIVE user_role_assignments AS
+(
+  SELECT ra.userid
+    , ra.roleid
+    , ra.programid
+    , ra.supervisorynodeid
+    , ra.warehouseid
+    , u.homefacilityid
+  FROM referencedata.role_assignments ra
+    INNER JOIN referencedata.users u ON u.id = ra.userid
+  WHERE ra.userid IN (:userIds)
+), supervised_nodes AS
+(
+  SELECT DISTINCT ura.supervisorynodeid AS rootid
+    , ura.supervisorynodeid AS id
+  FROM user_role_assignments ura
+  WHERE ura.supervisorynodeid IS NOT NULL
+  UNION
+  SELECT supervised_nodes.rootid
+    , sn.id
+  FROM supervised_nodes
+    INNER JOIN referencedata.supervisory_nodes sn ON sn.parentid = supervised_nodes.id
+), granted_facilities AS
+(
+  SELECT ura.userid
+    , ura.roleid
+    , ura.homefacilityid AS facilityid
+    , ura.programid
+  FROM user_role_assignments ura
+    INNER JOIN referencedata.supported_programs sp ON sp.facilityid = ura.homefacilityid
+      AND sp.programid = ura.programid
+      AND sp.active = TRUE
+  WHERE ura.programid IS NOT NULL
+    AND ura.supervisorynodeid IS NULL
+  UNION
+  SELECT ura.userid
+    , ura.roleid
+    , rgm.facilityid
+    , ura.programid
+  FROM user_role_assignments ura
+    INNER JOIN supervised_nodes ON supervised_nodes.rootid = ura.supervisorynodeid
+    INNER JOIN referencedata.requisition_groups rg
+      ON rg.supervisorynodeid = supervised_nodes.id
+    INNER JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id
+    INNER JOIN referencedata.requisition_group_program_schedules rgps
+      ON rgps.requisitiongroupid = rg.id
+      AND rgps.programid = ura.programid
+    INNER JOIN referencedata.supported_programs sp ON sp.facilityid = rgm.facilityid
+      AND sp.programid = rgps.programid
+      AND sp.active = TRUE
+  WHERE ura.programid IS NOT NULL
+    AND ura.supervisorynodeid IS NOT NULL
+  UNION
+  SELECT ura.userid
+    , ura.roleid
+    , ura.warehouseid AS facilityid
+    , NULL AS programid
+  FROM user_role_assignments ura
+  WHERE ura.programid IS NULL
+)
+INSERT INTO referencedata.right_assignments (id, userid, rightname, facilityid, programid)
+SELECT md5(random()::text || clock_timestamp()::text || granted.rightname)::uuid
+  , granted.userid
+  , granted.rightname
+  , granted.facilityid
+  , granted.programid
+FROM (
+  SELECT DISTINCT gf.userid
+    , ri.name AS rightname
+    , gf.facilityid
+    , gf.programid
+  FROM granted_facilities gf
+    INNER JOIN referencedata.role_rights rr ON rr.roleid = gf.roleid
+    INNER JOIN referencedata.rights ri ON ri.id = rr.rightid
+) granted
+;
@@ -52,6 +52,11 @@ public class RoleAssignmentTest {
     public boolean hasRight(RightQuery rightQuery) {
       return false;
     }
+
+    @Override
+    void addRightAssignments() {
+      // no rights are granted by the stub
+    }
   }
 
   @Test
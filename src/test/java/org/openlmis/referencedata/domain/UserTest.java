@@ -24,6 +24,7 @@ import static org.mockito.Mockito.when;
 
 import java.util.Collections;
 import java.util.Set;
+import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.referencedata.dto.UserDto;
@@ -221,6 +222,40 @@ public class UserTest {
     assertEquals(user.getRoleAssignments().size(), 0);
   }
 
+  @Test
+  public void shouldKeepGrantedRightAssignmentsWhenRecalculating() {
+    RoleAssignment kept = new DirectRoleAssignment(
+        Role.newRole("role1", Right.newRight("adminRight1", RightType.GENERAL_ADMIN)), user);
+    RoleAssignment removed = new DirectRoleAssignment(
+        Role.newRole("role2", Right.newRight("adminRight2", RightType.GENERAL_ADMIN)), user);
+    user.assignRoles(kept, removed);
+    RightAssignment granted = user.getRightAssignments().stream()
+        .filter(assignment -> "adminRight1".equals(assignment.getRightName()))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+
+    user.removeRoleAssignments(Collections.singleton(removed));
+    user.recalculateRightAssignments();
+
+    assertThat(user.getRoleAssignments()).containsExactly(kept);
+    assertThat(user.getRightAssignments()).hasSize(1);
+    assertThat(user.getRightAssignments().iterator().next()).isSameAs(granted);
+  }
+
+  @Test
+  public void shouldRecalculateHomeFacilityRightAssignments() {
+    program.setId(UUID.randomUUID());
+    UUID newHomeFacilityId = UUID.randomUUID();
+    user.assignRoles(new SupervisionRoleAssignment(
+        Role.newRole(roleName, Right.newRight(RIGHT_NAME, RightType.SUPERVISION)), user, program));
+
+    user.setHomeFacilityId(newHomeFacilityId);
+    user.recalculateRightAssignments();
+
+    assertThat(user.getRightAssignments())
+        .containsExactly(new RightAssignment(user, RIGHT_NAME, newHomeFacilityId, program.getId()));
+  }
+
   private SupervisoryNode getSupervisoryHierarchy() {
     Facility facility = new FacilityDataBuilder().build();
 
@@ -0,0 +1,102 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.dto.ChangeLogEntryDto.Operation;
+import org.openlmis.referencedata.interceptor.ChangeLogEventListener.Entry;
+import org.openlmis.referencedata.service.ChangeLogService;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramOrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.SupportedProgramDataBuilder;
+
+public class ChangeLogEventListenerTest {
+
+  @Test
+  public void shouldCreateUpsertEntryWithVersionOfOrderable() {
+    Orderable orderable = new OrderableDataBuilder().withVersionNumber(3L).build();
+
+    Entry entry = ChangeLogEventListener.toEntry(orderable, false);
+
+    assertThat(entry.resourceType).isEqualTo(ChangeLogService.ORDERABLES);
+    assertThat(entry.resourceId).isEqualTo(orderable.getId());
+    assertThat(entry.versionNumber).isEqualTo(3L);
+    assertThat(entry.operation).isEqualTo(Operation.UPSERT);
+  }
+
+  @Test
+  public void shouldCreateDeleteEntryOfRemovedProgram() {
+    Program program = new ProgramDataBuilder().build();
+
+    Entry entry = ChangeLogEventListener.toEntry(program, true);
+
+    assertThat(entry.resourceType).isEqualTo(ChangeLogService.PROGRAMS);
+    assertThat(entry.resourceId).isEqualTo(program.getId());
+    assertThat(entry.versionNumber).isNull();
+    assertThat(entry.operation).isEqualTo(Operation.DELETE);
+  }
+
+  @Test
+  public void shouldCreateDeleteEntryOfInactiveApprovedProduct() {
+    FacilityTypeApprovedProduct approvedProduct = new FacilityTypeApprovedProductsDataBuilder()
+        .withActive(false)
+        .build();
+
+    Entry entry = ChangeLogEventListener.toEntry(approvedProduct, false);
+
+    assertThat(entry.resourceType).isEqualTo(ChangeLogService.APPROVED_PRODUCTS);
+    assertThat(entry.operation).isEqualTo(Operation.DELETE);
+  }
+
+  @Test
+  public void shouldRecordChangeOfProgramOrderableAsUpsertOfOrderable() {
+    Orderable orderable = new OrderableDataBuilder().build();
+
+    Entry entry = ChangeLogEventListener.toEntry(new ProgramOrderableDataBuilder()
+        .withProduct(orderable).build(), true);
+
+    assertThat(entry.resourceType).isEqualTo(ChangeLogService.ORDERABLES);
+    assertThat(entry.resourceId).isEqualTo(orderable.getId());
+    assertThat(entry.operation).isEqualTo(Operation.UPSERT);
+  }
+
+  @Test
+  public void shouldRecordChangeOfSupportedProgramAsUpsertOfFacility() {
+    Facility facility = new FacilityDataBuilder().build();
+
+    Entry entry = ChangeLogEventListener.toEntry(new SupportedProgramDataBuilder()
+        .withFacility(facility).build(), true);
+
+    assertThat(entry.resourceType).isEqualTo(ChangeLogService.FACILITIES);
+    assertThat(entry.resourceId).isEqualTo(facility.getId());
+    assertThat(entry.operation).isEqualTo(Operation.UPSERT);
+  }
+
+  @Test
+  public void shouldIgnoreUntrackedEntities() {
+    assertThat(ChangeLogEventListener.toEntry(new Object(), false)).isNull();
+  }
+
+}
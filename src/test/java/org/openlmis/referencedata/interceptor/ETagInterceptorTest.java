@@ -0,0 +1,161 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.web.VersionedResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ETagInterceptorTest {
+
+  private static final String ETAG = "\"1.2\"";
+
+  @Mock
+  private ResourceVersionService resourceVersionService;
+
+  @Mock
+  private RightService rightService;
+
+  @InjectMocks
+  private ETagInterceptor interceptor;
+
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  @Before
+  public void setUp() {
+    request = new MockHttpServletRequest("GET", "/api/programs");
+    response = new MockHttpServletResponse();
+  }
+
+  @Test
+  public void shouldAddETagIfResourceWasChanged() throws Exception {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1.1\"");
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isTrue();
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfETagMatches() throws Exception {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isFalse();
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void shouldVaryETagWithRepresentation() throws Exception {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+    request.addHeader(HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isTrue();
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1.2-cbor\"");
+    assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+  }
+
+  @Test
+  public void shouldReturnNotModifiedIfETagOfRepresentationMatches() throws Exception {
+    given(resourceVersionService.getETag(Program.class)).willReturn(ETAG);
+    request.addHeader(HttpHeaders.ACCEPT, "application/x-jackson-smile");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1.2-smile\"");
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isFalse();
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.NOT_MODIFIED.value());
+  }
+
+  @Test
+  public void shouldCheckAdminRightBeforeReturningNotModified() throws Exception {
+    given(resourceVersionService.getETag(Facility.class)).willReturn(ETAG);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getFacilities"))).isFalse();
+    verify(rightService).checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT);
+  }
+
+  @Test
+  public void shouldCallHandlerIfVersionsAreNotUpToDate() throws Exception {
+    given(resourceVersionService.getETag(Program.class)).willReturn(null);
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isTrue();
+    assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+  }
+
+  @Test
+  public void shouldIgnoreNotVersionedEndpoints() throws Exception {
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getOther"))).isTrue();
+    assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+    verifyZeroInteractions(resourceVersionService, rightService);
+  }
+
+  @Test
+  public void shouldIgnoreOtherMethodsThanGet() throws Exception {
+    request.setMethod("PUT");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+
+    assertThat(interceptor.preHandle(request, response, handler("getPrograms"))).isTrue();
+    verifyZeroInteractions(resourceVersionService, rightService);
+  }
+
+  private HandlerMethod handler(String name) throws NoSuchMethodException {
+    return new HandlerMethod(new DummyController(), name);
+  }
+
+  static class DummyController {
+
+    @VersionedResource(Program.class)
+    public void getPrograms() {
+    }
+
+    @VersionedResource(value = Facility.class, adminRight = RightName.FACILITIES_MANAGE_RIGHT)
+    public void getFacilities() {
+    }
+
+    public void getOther() {
+    }
+  }
+
+}
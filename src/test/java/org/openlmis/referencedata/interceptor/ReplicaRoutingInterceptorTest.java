@@ -0,0 +1,191 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.interceptor.ReplicaRoutingInterceptor.RECENT_WRITER_KEY;
+
+import java.util.concurrent.TimeUnit;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.util.ReplicaRoutingDataSource;
+import org.openlmis.referencedata.web.ReadFromReplica;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.method.HandlerMethod;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplicaRoutingInterceptorTest {
+
+  private static final long WINDOW = 10000L;
+
+  @Mock
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Mock
+  private ValueOperations<String, Object> valueOperations;
+
+  @Mock
+  private EntityManagerFactory entityManagerFactory;
+
+  @Mock
+  private EntityManager entityManager;
+
+  @Mock
+  private Session session;
+
+  @InjectMocks
+  private ReplicaRoutingInterceptor interceptor;
+
+  private MockHttpServletResponse response;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(interceptor, "replicaUrls", "jdbc:postgresql://replica/open_lmis");
+    ReflectionTestUtils.setField(interceptor, "readYourWritesWindow", WINDOW);
+    interceptor.init();
+    lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    response = new MockHttpServletResponse();
+    authenticate("admin");
+  }
+
+  @After
+  public void tearDown() {
+    SecurityContextHolder.clearContext();
+    TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+    ReplicaRoutingDataSource.clearRoute();
+  }
+
+  @Test
+  public void shouldUseReplicaForAnnotatedGetEndpoints() throws Exception {
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isTrue();
+  }
+
+  @Test
+  public void shouldNotUseReplicaForOtherEndpoints() throws Exception {
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOther"))).isFalse();
+    assertThat(interceptor.canUseReplica(request("PUT"), handler("getOrderables"))).isFalse();
+  }
+
+  @Test
+  public void shouldNotUseReplicaForClientThatRecentlyMadeChanges() throws Exception {
+    MockHttpServletRequest update = request("PUT");
+    interceptor.preHandle(update, response, handler("getOther"));
+    interceptor.afterCompletion(update, response, handler("getOther"), null);
+
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isFalse();
+    verify(valueOperations, times(2))
+        .set(RECENT_WRITER_KEY + "admin", Boolean.TRUE, WINDOW, TimeUnit.MILLISECONDS);
+
+    authenticate("other");
+
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isTrue();
+  }
+
+  @Test
+  public void shouldNotUseReplicaForClientThatMadeChangesOnAnotherInstance() throws Exception {
+    when(redisTemplate.hasKey(RECENT_WRITER_KEY + "admin")).thenReturn(true);
+
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isFalse();
+  }
+
+  @Test
+  public void shouldNotUseReplicaIfRecentWritersCanNotBeChecked() throws Exception {
+    when(redisTemplate.hasKey(RECENT_WRITER_KEY + "admin"))
+        .thenThrow(new RedisConnectionFailureException("connection refused"));
+
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isFalse();
+  }
+
+  @Test
+  public void shouldNotTrackWritersWithoutReplicas() throws Exception {
+    ReflectionTestUtils.setField(interceptor, "replicaUrls", "");
+    MockHttpServletRequest update = request("PUT");
+    interceptor.preHandle(update, response, handler("getOther"));
+
+    assertThat(interceptor.canUseReplica(request("GET"), handler("getOrderables"))).isFalse();
+    verifyZeroInteractions(redisTemplate);
+  }
+
+  @Test
+  public void shouldOnlyReadCachesInRequestsRoutedToReplica() throws Exception {
+    bindEntityManager();
+    when(entityManager.unwrap(Session.class)).thenReturn(session);
+
+    interceptor.preHandle(request("GET"), response, handler("getOrderables"));
+
+    verify(session).setCacheMode(CacheMode.GET);
+  }
+
+  @Test
+  public void shouldNotChangeCacheModeInRequestsRoutedToPrimary() throws Exception {
+    bindEntityManager();
+
+    interceptor.preHandle(request("GET"), response, handler("getOther"));
+
+    verifyZeroInteractions(entityManager);
+  }
+
+  private void bindEntityManager() {
+    TransactionSynchronizationManager.bindResource(entityManagerFactory,
+        new EntityManagerHolder(entityManager));
+  }
+
+  private void authenticate(String name) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(name, ""));
+  }
+
+  private MockHttpServletRequest request(String method) {
+    return new MockHttpServletRequest(method, "/api/orderables");
+  }
+
+  private HandlerMethod handler(String name) throws NoSuchMethodException {
+    return new HandlerMethod(new DummyController(), name);
+  }
+
+  static class DummyController {
+
+    @ReadFromReplica
+    public void getOrderables() {
+    }
+
+    public void getOther() {
+    }
+  }
+
+}
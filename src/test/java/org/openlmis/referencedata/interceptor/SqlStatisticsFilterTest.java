@@ -0,0 +1,155 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.openlmis.referencedata.interceptor.SqlStatisticsFilter.REPEATED_STATEMENTS_HEADER;
+import static org.openlmis.referencedata.interceptor.SqlStatisticsFilter.REPEATED_STATEMENTS_METRIC;
+import static org.openlmis.referencedata.interceptor.SqlStatisticsFilter.STATEMENTS_HEADER;
+import static org.openlmis.referencedata.interceptor.SqlStatisticsFilter.STATEMENTS_METRIC;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SqlStatisticsFilterTest {
+
+  private static final String URI_PATTERN = "/api/users/{id}/roleAssignments";
+  private static final String STATEMENT = "select * from roles where id = ?";
+
+  @Mock
+  private ObjectProvider<MeterRegistry> meterRegistryProvider;
+
+  @InjectMocks
+  private SqlStatisticsFilter filter;
+
+  private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private SqlStatementInspector inspector = new SqlStatementInspector();
+
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+
+  private FilterChain chain = (req, res) -> {
+    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, URI_PATTERN);
+    for (int i = 0; i < 3; ++i) {
+      inspector.inspect(STATEMENT);
+    }
+    res.getWriter().write("{}");
+  };
+
+  @Before
+  public void setUp() {
+    given(meterRegistryProvider.getIfAvailable()).willReturn(meterRegistry);
+
+    ReflectionTestUtils.setField(filter, "enabled", true);
+    ReflectionTestUtils.setField(filter, "headersEnabled", false);
+    ReflectionTestUtils.setField(filter, "repeatedStatementThreshold", 3);
+
+    request = new MockHttpServletRequest("PUT", "/api/users/1/roleAssignments");
+    response = new MockHttpServletResponse();
+  }
+
+  @Test
+  public void shouldRecordStatementMetricsForUriPattern() throws Exception {
+    filter.doFilter(request, response, chain);
+
+    assertThat(meterRegistry.get(STATEMENTS_METRIC)
+        .tag("method", "PUT")
+        .tag("uri", URI_PATTERN)
+        .summary()
+        .totalAmount())
+        .isEqualTo(3);
+    assertThat(meterRegistry.get(REPEATED_STATEMENTS_METRIC).counter().count()).isEqualTo(1);
+    assertThat(SqlStatistics.current()).isNull();
+  }
+
+  @Test
+  public void shouldNotAddHeadersIfNotInDebugMode() throws Exception {
+    filter.doFilter(request, response, chain);
+
+    assertThat(response.getHeader(STATEMENTS_HEADER)).isNull();
+    assertThat(response.getContentAsString()).isEqualTo("{}");
+  }
+
+  @Test
+  public void shouldAddHeadersInDebugMode() throws Exception {
+    ReflectionTestUtils.setField(filter, "headersEnabled", true);
+
+    filter.doFilter(request, response, chain);
+
+    assertThat(response.getHeader(STATEMENTS_HEADER)).isEqualTo("3");
+    assertThat(response.getHeader(REPEATED_STATEMENTS_HEADER)).isEqualTo("1");
+    assertThat(response.getContentAsString()).isEqualTo("{}");
+  }
+
+  @Test
+  public void shouldWriteAsyncResponseDirectly() throws Exception {
+    ReflectionTestUtils.setField(filter, "headersEnabled", true);
+    request.setAsyncSupported(true);
+    AtomicReference<ServletResponse> asyncResponse = new AtomicReference<>();
+
+    filter.doFilter(request, response, (req, res) -> {
+      req.startAsync();
+      asyncResponse.set(res);
+    });
+    asyncResponse.get().getWriter().write("{}");
+
+    assertThat(response.getHeader(STATEMENTS_HEADER)).isNull();
+    assertThat(response.getContentAsString()).isEqualTo("{}");
+  }
+
+  @Test
+  public void shouldWriteEventStreamDirectly() throws Exception {
+    ReflectionTestUtils.setField(filter, "headersEnabled", true);
+
+    filter.doFilter(request, response, (req, res) -> {
+      res.setContentType(MediaType.TEXT_EVENT_STREAM_VALUE);
+      res.getOutputStream().write("data:{}\n\n".getBytes(StandardCharsets.UTF_8));
+      res.flushBuffer();
+
+      assertThat(response.getContentAsString()).isEqualTo("data:{}\n\n");
+      assertThat(response.isCommitted()).isTrue();
+    });
+
+    assertThat(response.getHeader(STATEMENTS_HEADER)).isNull();
+  }
+
+  @Test
+  public void shouldNotCollectStatisticsIfDisabled() throws Exception {
+    ReflectionTestUtils.setField(filter, "enabled", false);
+
+    filter.doFilter(request, response, chain);
+
+    assertThat(meterRegistry.getMeters()).isEmpty();
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.interceptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SqlStatisticsTest {
+
+  private SqlStatementInspector inspector = new SqlStatementInspector();
+
+  @After
+  public void tearDown() {
+    SqlStatistics.clear();
+  }
+
+  @Test
+  public void shouldCountStatementsOnlyIfStarted() {
+    inspector.inspect("select 1");
+    assertThat(SqlStatistics.current()).isNull();
+
+    SqlStatistics statistics = SqlStatistics.start();
+    inspector.inspect("select 1");
+    inspector.inspect("select 2");
+
+    assertThat(statistics.getStatementCount()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldReturnSameSqlFromInspector() {
+    SqlStatistics.start();
+
+    assertThat(inspector.inspect("select * from facilities where id = ?"))
+        .isEqualTo("select * from facilities where id = ?");
+  }
+
+  @Test
+  public void shouldCollapseLiteralsAndParameterListsInShape() {
+    assertThat(SqlStatistics.toShape(
+        "select f.id  from facilities f\n where f.code = 'A''B' and f.id in (?, ?,?) limit 10"))
+        .isEqualTo("select f.id from facilities f where f.code = ? and f.id in (?) limit ?");
+  }
+
+  @Test
+  public void shouldNotCollapseDigitsInIdentifiers() {
+    assertThat(SqlStatistics.toShape("select facility0_.id from facilities facility0_"))
+        .isEqualTo("select facility0_.id from facilities facility0_");
+  }
+
+  @Test
+  public void shouldReturnStatementsRepeatedAtLeastThresholdTimes() {
+    SqlStatistics statistics = SqlStatistics.start();
+
+    for (int i = 0; i < 5; ++i) {
+      inspector.inspect("select * from roles where id = ?");
+    }
+    inspector.inspect("select * from users where id in (?, ?)");
+    inspector.inspect("select * from users where id in (?, ?, ?)");
+
+    assertThat(statistics.getRepeatedStatements(5))
+        .containsOnlyKeys("select * from roles where id = ?")
+        .containsValue(5);
+    assertThat(statistics.getRepeatedStatements(2))
+        .hasSize(2)
+        .containsEntry("select * from users where id in (?)", 2);
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.repository.custom.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.SupplyLine;
+import org.openlmis.referencedata.testbuilder.SupplyLineDataBuilder;
+import org.springframework.data.domain.PageRequest;
+
+@SuppressWarnings("unchecked")
+public class IdPageLoaderTest {
+
+  private static final String FETCH_QUERY = "SELECT sl FROM SupplyLine AS sl";
+
+  private EntityManager entityManager = mock(EntityManager.class);
+  private TypedQuery<UUID> idQuery = mock(TypedQuery.class);
+  private TypedQuery<SupplyLine> fetchQuery = mock(TypedQuery.class);
+
+  private SupplyLine first = new SupplyLineDataBuilder().build();
+  private SupplyLine second = new SupplyLineDataBuilder().build();
+
+  @Before
+  public void setUp() {
+    when(idQuery.setFirstResult(anyInt())).thenReturn(idQuery);
+    when(idQuery.setMaxResults(anyInt())).thenReturn(idQuery);
+    when(entityManager.createQuery(FETCH_QUERY, SupplyLine.class)).thenReturn(fetchQuery);
+    when(fetchQuery.setParameter(eq(IdPageLoader.IDS), any())).thenReturn(fetchQuery);
+  }
+
+  @Test
+  public void shouldPageIdsAndReturnEntitiesInTheirOrder() {
+    when(idQuery.getResultList())
+        .thenReturn(Lists.newArrayList(second.getId(), first.getId()));
+    // a fetch join over a collection returns the root once per collection element
+    when(fetchQuery.getResultList())
+        .thenReturn(Lists.newArrayList(first, second, first));
+
+    List<SupplyLine> result = IdPageLoader.load(entityManager, idQuery,
+        PageRequest.of(2, 10), FETCH_QUERY, SupplyLine.class);
+
+    assertThat(result).containsExactly(second, first);
+    verify(idQuery).setFirstResult(20);
+    verify(idQuery).setMaxResults(10);
+  }
+
+  @Test
+  public void shouldNotPageIdsIfPageableIsNotGiven() {
+    when(idQuery.getResultList()).thenReturn(Lists.newArrayList(first.getId()));
+    when(fetchQuery.getResultList()).thenReturn(Lists.newArrayList(first));
+
+    List<SupplyLine> result = IdPageLoader.load(entityManager, idQuery,
+        null, FETCH_QUERY, SupplyLine.class);
+
+    assertThat(result).containsExactly(first);
+    verify(idQuery, never()).setFirstResult(anyInt());
+    verify(idQuery, never()).setMaxResults(anyInt());
+  }
+
+  @Test
+  public void shouldNotFetchEntitiesIfThereAreNoIds() {
+    when(idQuery.getResultList()).thenReturn(Lists.newArrayList());
+
+    List<SupplyLine> result = IdPageLoader.load(entityManager, idQuery,
+        PageRequest.of(0, 10), FETCH_QUERY, SupplyLine.class);
+
+    assertThat(result).isEmpty();
+    verify(entityManager, never()).createQuery(anyString(), eq(SupplyLine.class));
+  }
+
+  @Test
+  public void shouldFetchEntitiesInPartitions() {
+    List<UUID> ids = IntStream
+        .range(0, IdentitiesSearchableRepository.MAX_IDENTITIES_SIZE + 1)
+        .mapToObj(idx -> UUID.randomUUID())
+        .collect(Collectors.toList());
+    when(idQuery.getResultList()).thenReturn(ids);
+    when(fetchQuery.getResultList()).thenReturn(Lists.newArrayList());
+
+    IdPageLoader.load(entityManager, idQuery, null, FETCH_QUERY, SupplyLine.class);
+
+    verify(fetchQuery, times(2)).setParameter(eq(IdPageLoader.IDS), any(Collection.class));
+    verify(fetchQuery).setParameter(IdPageLoader.IDS,
+        ids.subList(0, IdentitiesSearchableRepository.MAX_IDENTITIES_SIZE));
+    verify(fetchQuery).setParameter(IdPageLoader.IDS,
+        ids.subList(IdentitiesSearchableRepository.MAX_IDENTITIES_SIZE, ids.size()));
+  }
+}
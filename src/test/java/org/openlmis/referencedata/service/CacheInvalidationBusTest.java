@@ -0,0 +1,199 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.VersionIdentity;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CacheInvalidationBusTest {
+
+  private static final String CHANNEL = "channel";
+  private static final String OTHER_NODE = "other-node";
+  private static final String PROGRAM = Program.class.getName();
+  private static final String ORDERABLE = Orderable.class.getName();
+
+  @Mock
+  private RedisTemplate<String, Object> redisTemplate;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Spy
+  private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks
+  private CacheInvalidationBus cacheInvalidationBus;
+
+  @Captor
+  private ArgumentCaptor<CacheInvalidationMessage> messageCaptor;
+
+  @Captor
+  private ArgumentCaptor<EntitiesChangedEvent> eventCaptor;
+
+  private UUID programId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(cacheInvalidationBus, "enabled", true);
+    ReflectionTestUtils.setField(cacheInvalidationBus, "channel", CHANNEL);
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldPublishChangeRightAwayWithoutTransaction() {
+    cacheInvalidationBus.markChanged(PROGRAM, programId);
+
+    verify(redisTemplate).convertAndSend(eq(CHANNEL), messageCaptor.capture());
+    assertThat(messageCaptor.getValue().getSequence()).isEqualTo(1);
+    assertThat(messageCaptor.getValue().getChanges())
+        .isEqualTo(ImmutableMap.of(PROGRAM, Collections.singleton(programId)));
+
+    verify(eventPublisher).publishEvent(eventCaptor.capture());
+    assertThat(eventCaptor.getValue().isRemote()).isFalse();
+    assertThat(eventCaptor.getValue().getIds(Program.class)).containsExactly(programId);
+  }
+
+  @Test
+  public void shouldPublishAllChangesOfTransactionInOneMessageAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+    UUID otherProgramId = UUID.randomUUID();
+
+    cacheInvalidationBus.markChanged(PROGRAM, programId);
+    UUID orderableId = UUID.randomUUID();
+    cacheInvalidationBus.markChanged(ORDERABLE, new VersionIdentity(orderableId, 1L));
+    cacheInvalidationBus.markChanged(PROGRAM, otherProgramId);
+
+    verify(redisTemplate, never()).convertAndSend(anyString(), any());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCommit());
+
+    verify(redisTemplate).convertAndSend(eq(CHANNEL), messageCaptor.capture());
+    assertThat(messageCaptor.getValue().getChanges()).isEqualTo(ImmutableMap.of(
+        ORDERABLE, Collections.singleton(orderableId),
+        PROGRAM, Sets.newHashSet(programId, otherProgramId)));
+  }
+
+  @Test
+  public void shouldNotPublishChangesIfTransactionIsNotCommitted() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    cacheInvalidationBus.markChanged(PROGRAM, programId);
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCompletion(STATUS_ROLLED_BACK));
+
+    verifyZeroInteractions(redisTemplate, eventPublisher);
+  }
+
+  @Test
+  public void shouldNotSendMessagesIfDisabled() {
+    ReflectionTestUtils.setField(cacheInvalidationBus, "enabled", false);
+
+    cacheInvalidationBus.markChanged(PROGRAM, programId);
+
+    verifyZeroInteractions(redisTemplate);
+    verify(eventPublisher).publishEvent(any(EntitiesChangedEvent.class));
+  }
+
+  @Test
+  public void shouldAnnounceMessageOfOtherNodeAsRemoteChange() throws Exception {
+    receive(OTHER_NODE, 1, ImmutableMap.of(PROGRAM, Collections.singleton(programId)));
+
+    verify(eventPublisher).publishEvent(eventCaptor.capture());
+    EntitiesChangedEvent event = eventCaptor.getValue();
+    assertThat(event.isRemote()).isTrue();
+    assertThat(event.isEvictAll()).isFalse();
+    assertThat(event.affects(Program.class)).isTrue();
+    assertThat(event.affects(Orderable.class)).isFalse();
+    assertThat(event.getIds(Program.class)).containsExactly(programId);
+  }
+
+  @Test
+  public void shouldSkipOwnMessages() throws Exception {
+    cacheInvalidationBus.markChanged(PROGRAM, programId);
+    verify(redisTemplate).convertAndSend(eq(CHANNEL), messageCaptor.capture());
+
+    cacheInvalidationBus.onMessage(new DefaultMessage(CHANNEL.getBytes(),
+        objectMapper.writeValueAsBytes(messageCaptor.getValue())), null);
+
+    verify(eventPublisher).publishEvent(any(EntitiesChangedEvent.class));
+  }
+
+  @Test
+  public void shouldEvictAllIfMessageWasLost() throws Exception {
+    Map<String, Set<UUID>> changes = ImmutableMap.of(PROGRAM, Collections.singleton(programId));
+
+    receive(OTHER_NODE, 1, changes);
+    receive(OTHER_NODE, 2, changes);
+    receive(OTHER_NODE, 4, changes);
+
+    verify(eventPublisher, times(3)).publishEvent(eventCaptor.capture());
+    assertThat(eventCaptor.getAllValues())
+        .extracting(EntitiesChangedEvent::isEvictAll)
+        .containsExactly(false, false, true);
+    assertThat(eventCaptor.getValue().affects(Orderable.class)).isTrue();
+  }
+
+  private void receive(String node, long sequence, Map<String, Set<UUID>> changes)
+      throws Exception {
+    CacheInvalidationMessage message = new CacheInvalidationMessage(node, sequence, changes);
+    cacheInvalidationBus.onMessage(new DefaultMessage(CHANNEL.getBytes(),
+        objectMapper.writeValueAsBytes(message)), null);
+  }
+
+}
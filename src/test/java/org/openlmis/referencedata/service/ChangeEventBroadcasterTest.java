@@ -0,0 +1,261 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.ChangeEventDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler.RightAssignmentsRegeneratedEvent;
+import org.openlmis.referencedata.util.messagekeys.ChangeEventMessageKeys;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeEventBroadcasterTest {
+
+  private static final Pattern EVENT_ID = Pattern.compile("id:(\\S+)");
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  @Mock
+  private ThreadPoolTaskScheduler changeEventTaskScheduler;
+
+  @Spy
+  @InjectMocks
+  private ChangeEventBroadcaster broadcaster;
+
+  private UUID orderableId = UUID.randomUUID();
+  private UUID otherOrderableId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(broadcaster, "replayBufferSize", 2);
+    ReflectionTestUtils.setField(broadcaster, "subscriberQueueSize", 2);
+
+    doAnswer(invocation -> {
+      ((Runnable) invocation.getArgument(0)).run();
+      return null;
+    }).when(changeEventTaskScheduler).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void shouldSendEventsMatchingTypesAndIdsOfSubscriber() throws IOException {
+    SseEmitter emitter = mockEmitter();
+    broadcaster.subscribe(Collections.singleton(ChangeEventBroadcaster.ORDERABLE_VERSIONED),
+        Collections.singleton(orderableId), null);
+
+    broadcaster.onEntitiesChanged(changed(false));
+
+    List<SseEventBuilder> events = sentEvents(emitter, 1);
+    ChangeEventDto data = getData(events.get(0));
+    assertThat(data.getType()).isEqualTo(ChangeEventBroadcaster.ORDERABLE_VERSIONED);
+    assertThat(data.getIds()).containsOnly(orderableId);
+  }
+
+  @Test
+  public void shouldSendAllEventsToSubscriberWithoutFilters() throws IOException {
+    SseEmitter emitter = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+
+    broadcaster.onEntitiesChanged(changed(false));
+    broadcaster.onRightAssignmentsRegenerated(new RightAssignmentsRegeneratedEvent(this));
+
+    List<SseEventBuilder> events = sentEvents(emitter, 3);
+    assertThat(getData(events.get(0)).getIds()).containsOnly(orderableId, otherOrderableId);
+    assertThat(getData(events.get(1)).getType())
+        .isEqualTo(ChangeEventBroadcaster.FACILITY_UPDATED);
+    assertThat(getData(events.get(2)).getType())
+        .isEqualTo(ChangeEventBroadcaster.RIGHT_ASSIGNMENTS_REGENERATED);
+  }
+
+  @Test
+  public void shouldReplayEventsMissedSinceLastEventId() throws IOException {
+    SseEmitter first = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+    broadcaster.onEntitiesChanged(changed(false));
+    broadcaster.onRightAssignmentsRegenerated(new RightAssignmentsRegeneratedEvent(this));
+    String lastEventId = getId(sentEvents(first, 3).get(0));
+
+    SseEmitter second = mockEmitter();
+    broadcaster.subscribe(null, null, lastEventId);
+
+    List<SseEventBuilder> replayed = sentEvents(second, 2);
+    assertThat(getData(replayed.get(0)).getType())
+        .isEqualTo(ChangeEventBroadcaster.FACILITY_UPDATED);
+    assertThat(getData(replayed.get(1)).getType())
+        .isEqualTo(ChangeEventBroadcaster.RIGHT_ASSIGNMENTS_REGENERATED);
+  }
+
+  @Test
+  public void shouldSendResyncIfMissedEventsAreNoLongerBuffered() throws IOException {
+    SseEmitter first = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+    broadcaster.onEntitiesChanged(changed(false));
+    broadcaster.onEntitiesChanged(changed(false));
+    String lastEventId = getId(sentEvents(first, 4).get(0));
+
+    SseEmitter second = mockEmitter();
+    broadcaster.subscribe(null, null, lastEventId);
+
+    List<SseEventBuilder> events = sentEvents(second, 1);
+    assertThat(getData(events.get(0)).getType()).isEqualTo(ChangeEventBroadcaster.RESYNC);
+  }
+
+  @Test
+  public void shouldSendResyncForEventIdOfAnotherInstance() throws IOException {
+    SseEmitter emitter = mockEmitter();
+
+    broadcaster.subscribe(null, null, "other-1");
+
+    List<SseEventBuilder> events = sentEvents(emitter, 1);
+    assertThat(getData(events.get(0)).getType()).isEqualTo(ChangeEventBroadcaster.RESYNC);
+  }
+
+  @Test
+  public void shouldSendResyncToAllSubscribersIfChangesWereLost() throws IOException {
+    SseEmitter emitter = mockEmitter();
+    broadcaster.subscribe(Collections.singleton(ChangeEventBroadcaster.FACILITY_UPDATED),
+        null, null);
+
+    broadcaster.onEntitiesChanged(changed(true));
+
+    List<SseEventBuilder> events = sentEvents(emitter, 1);
+    assertThat(getData(events.get(0)).getType()).isEqualTo(ChangeEventBroadcaster.RESYNC);
+  }
+
+  @Test
+  public void shouldDisconnectSubscriberThatDoesNotKeepUp() throws IOException {
+    doAnswer(invocation -> null).when(changeEventTaskScheduler).execute(any(Runnable.class));
+    SseEmitter emitter = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+
+    broadcaster.onEntitiesChanged(changed(false));
+    broadcaster.onRightAssignmentsRegenerated(new RightAssignmentsRegeneratedEvent(this));
+
+    verify(emitter).complete();
+    verify(emitter, never()).send(any(SseEventBuilder.class));
+  }
+
+  @Test
+  public void shouldDisconnectSubscriberIfSendingFails() throws IOException {
+    SseEmitter emitter = mockEmitter();
+    doAnswer(invocation -> {
+      throw new IOException("Broken pipe");
+    }).when(emitter).send(any(SseEventBuilder.class));
+    broadcaster.subscribe(null, null, null);
+
+    broadcaster.onEntitiesChanged(changed(false));
+    broadcaster.onRightAssignmentsRegenerated(new RightAssignmentsRegeneratedEvent(this));
+
+    verify(emitter).send(any(SseEventBuilder.class));
+    verify(emitter).complete();
+  }
+
+  @Test
+  public void shouldBuildHeartbeatForEachSubscriber() throws IOException {
+    SseEmitter first = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+    SseEmitter second = mockEmitter();
+    broadcaster.subscribe(null, null, null);
+
+    ReflectionTestUtils.invokeMethod(broadcaster, "sendHeartbeats");
+
+    SseEventBuilder heartbeat = sentEvents(first, 1).get(0);
+    assertThat(sentEvents(second, 1).get(0)).isNotSameAs(heartbeat);
+    assertThat(heartbeat.build()).hasSize(1);
+  }
+
+  @Test
+  public void shouldRejectUnknownEventType() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ChangeEventMessageKeys.ERROR_TYPE_INVALID);
+
+    broadcaster.subscribe(Collections.singleton("programChanged"), null, null);
+  }
+
+  private SseEmitter mockEmitter() {
+    SseEmitter emitter = mock(SseEmitter.class);
+    doReturn(emitter).when(broadcaster).createEmitter();
+    return emitter;
+  }
+
+  private EntitiesChangedEvent changed(boolean evictAll) {
+    return new EntitiesChangedEvent(this, ImmutableMap.of(
+        Orderable.class.getName(), Sets.newHashSet(orderableId, otherOrderableId),
+        Facility.class.getName(), Collections.singleton(facilityId)), false, evictAll);
+  }
+
+  private List<SseEventBuilder> sentEvents(SseEmitter emitter, int count) throws IOException {
+    ArgumentCaptor<SseEventBuilder> captor = ArgumentCaptor.forClass(SseEventBuilder.class);
+    verify(emitter, times(count)).send(captor.capture());
+    return new ArrayList<>(captor.getAllValues());
+  }
+
+  private ChangeEventDto getData(SseEventBuilder event) {
+    Set<DataWithMediaType> parts = event.build();
+
+    return parts
+        .stream()
+        .map(DataWithMediaType::getData)
+        .filter(ChangeEventDto.class::isInstance)
+        .map(ChangeEventDto.class::cast)
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+
+  private String getId(SseEventBuilder event) {
+    Matcher matcher = EVENT_ID.matcher(event.build().iterator().next().getData().toString());
+    assertThat(matcher.find()).isTrue();
+    return matcher.group(1);
+  }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.ChangeLogEntryDto.Operation;
+import org.openlmis.referencedata.dto.ChangeLogPageDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.messagekeys.ChangeLogMessageKeys;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ChangeLogServiceTest {
+
+  private static final long XMIN = 100L;
+  private static final int MAX_LIMIT = 2;
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  @Mock
+  private NamedParameterJdbcTemplate template;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private ChangeLogService changeLogService;
+
+  @Captor
+  private ArgumentCaptor<SqlParameterSource> paramsCaptor;
+
+  private List<ResultSet> rows = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(changeLogService, "maxLimit", MAX_LIMIT);
+    ReflectionTestUtils.setField(changeLogService, "retentionDays", 30);
+    ReflectionTestUtils.setField(changeLogService, "clock",
+        Clock.fixed(Instant.parse("2026-10-01T00:00:00Z"), ZoneOffset.UTC));
+
+    when(template.queryForObject(eq(ChangeLogService.XMIN_SQL), any(SqlParameterSource.class),
+        eq(Long.class))).thenReturn(XMIN);
+  }
+
+  @Test
+  public void shouldReturnOnlyCurrentCursorWithoutSince() {
+    ChangeLogPageDto page = changeLogService.getChanges(null, null, null);
+
+    assertThat(page.getChanges()).isEmpty();
+    assertThat(page.getCursor()).isEqualTo(XMIN + ".0");
+    assertThat(page.isHasMore()).isFalse();
+    verify(template, never()).query(eq(ChangeLogService.SELECT_SQL),
+        any(SqlParameterSource.class), any(RowMapper.class));
+  }
+
+  @Test
+  public void shouldRejectInvalidCursor() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ChangeLogMessageKeys.ERROR_CURSOR_INVALID);
+
+    changeLogService.getChanges("12", null, null);
+  }
+
+  @Test
+  public void shouldRejectUnknownType() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ChangeLogMessageKeys.ERROR_TYPE_INVALID);
+
+    changeLogService.getChanges("1.1", Collections.singleton("users"), null);
+  }
+
+  @Test
+  public void shouldRejectCursorBeforeHorizon() {
+    mockHorizon(50, 7);
+
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ChangeLogMessageKeys.ERROR_CURSOR_EXPIRED);
+
+    changeLogService.getChanges("50.6", null, null);
+  }
+
+  @Test
+  public void shouldReturnChangesAndMoveCursorToHeadWhenThereAreNoMore() throws SQLException {
+    mockHorizon(0, 0);
+    UUID id = UUID.randomUUID();
+    rows.add(mockRow(60, 3, ChangeLogService.ORDERABLES, id, 2L, Operation.UPSERT));
+
+    ChangeLogPageDto page = changeLogService
+        .getChanges("50.7", Collections.singleton(ChangeLogService.ORDERABLES), null);
+
+    assertThat(page.getChanges()).hasSize(1);
+    assertThat(page.getChanges().get(0).getId()).isEqualTo(id);
+    assertThat(page.getChanges().get(0).getType()).isEqualTo(ChangeLogService.ORDERABLES);
+    assertThat(page.getChanges().get(0).getVersionNumber()).isEqualTo(2L);
+    assertThat(page.getChanges().get(0).getOperation()).isEqualTo(Operation.UPSERT);
+    assertThat(page.getCursor()).isEqualTo(XMIN + ".0");
+    assertThat(page.isHasMore()).isFalse();
+
+    MapSqlParameterSource params = (MapSqlParameterSource) paramsCaptor.getValue();
+    assertThat(params.getValue("transactionId")).isEqualTo(50L);
+    assertThat(params.getValue("entryId")).isEqualTo(7L);
+    assertThat(params.getValue("xmin")).isEqualTo(XMIN);
+    assertThat(params.getValue("types"))
+        .isEqualTo(Collections.singleton(ChangeLogService.ORDERABLES));
+    assertThat(params.getValue("limit")).isEqualTo(MAX_LIMIT + 1);
+  }
+
+  @Test
+  public void shouldReturnCursorOfLastEntryWhenThereAreMore() throws SQLException {
+    mockHorizon(0, 0);
+    rows.add(mockRow(60, 3, ChangeLogService.FACILITIES, UUID.randomUUID(), null,
+        Operation.UPSERT));
+    rows.add(mockRow(61, 4, ChangeLogService.PROGRAMS, UUID.randomUUID(), null,
+        Operation.DELETE));
+
+    ChangeLogPageDto page = changeLogService.getChanges("0.0", null, 1);
+
+    assertThat(page.getChanges()).hasSize(1);
+    assertThat(page.getChanges().get(0).getVersionNumber()).isNull();
+    assertThat(page.getCursor()).isEqualTo("60.3");
+    assertThat(page.isHasMore()).isTrue();
+    assertThat(((MapSqlParameterSource) paramsCaptor.getValue()).getValue("types"))
+        .isEqualTo(ChangeLogService.RESOURCE_TYPES);
+  }
+
+  @Test
+  public void shouldKeepCursorThatIsAheadOfHead() {
+    mockHorizon(0, 0);
+
+    ChangeLogPageDto page = changeLogService.getChanges(XMIN + ".5", null, null);
+
+    assertThat(page.getCursor()).isEqualTo(XMIN + ".5");
+  }
+
+  @Test
+  public void shouldCompactAndPurgeExpiredEntries() {
+    when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+    when(template.queryForObject(eq(ChangeLogService.LOCK_SQL), any(SqlParameterSource.class),
+        eq(Boolean.class))).thenReturn(true);
+    MapSqlParameterSource expired = new MapSqlParameterSource()
+        .addValue("transactionId", 40L)
+        .addValue("entryId", 9L);
+    when(template.query(eq(ChangeLogService.EXPIRED_SQL), paramsCaptor.capture(),
+        any(RowMapper.class))).thenReturn(Collections.singletonList(expired));
+
+    changeLogService.maintain();
+
+    verify(template).update(eq(ChangeLogService.COMPACT_SQL), any(SqlParameterSource.class));
+    verify(template).update(ChangeLogService.UPDATE_HORIZON_SQL, expired);
+    verify(template).update(ChangeLogService.PURGE_SQL, expired);
+    assertThat(((MapSqlParameterSource) paramsCaptor.getValue()).getValue("cutoff"))
+        .isEqualTo(Timestamp.from(Instant.parse("2026-09-01T00:00:00Z")));
+  }
+
+  @Test
+  public void shouldNotMaintainLogWhenAnotherNodeHoldsTheLock() {
+    when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+    when(template.queryForObject(eq(ChangeLogService.LOCK_SQL), any(SqlParameterSource.class),
+        eq(Boolean.class))).thenReturn(false);
+
+    changeLogService.maintain();
+
+    verify(template, never()).update(eq(ChangeLogService.COMPACT_SQL),
+        any(SqlParameterSource.class));
+    verify(template, never()).update(eq(ChangeLogService.PURGE_SQL),
+        any(SqlParameterSource.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockHorizon(long transactionId, long entryId) {
+    when(template.queryForObject(eq(ChangeLogService.HORIZON_SQL), any(SqlParameterSource.class),
+        any(RowMapper.class))).thenAnswer(invocation -> {
+          ResultSet rs = mock(ResultSet.class);
+          when(rs.getLong("transactionid")).thenReturn(transactionId);
+          when(rs.getLong("entryid")).thenReturn(entryId);
+          return ((RowMapper<Object>) invocation.getArgument(2)).mapRow(rs, 0);
+        });
+    when(template.query(eq(ChangeLogService.SELECT_SQL), paramsCaptor.capture(),
+        any(RowMapper.class))).thenAnswer(invocation -> {
+          RowMapper<Object> mapper = invocation.getArgument(2);
+          List<Object> result = new ArrayList<>();
+
+          for (int i = 0; i < rows.size(); i++) {
+            result.add(mapper.mapRow(rows.get(i), i));
+          }
+
+          return result;
+        });
+  }
+
+  private ResultSet mockRow(long transactionId, long entryId, String type, UUID id,
+      Long versionNumber, Operation operation) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getLong("transactionid")).thenReturn(transactionId);
+    when(rs.getLong("id")).thenReturn(entryId);
+    when(rs.getString("resourcetype")).thenReturn(type);
+    when(rs.getObject("resourceid", UUID.class)).thenReturn(id);
+    when(rs.getObject("versionnumber")).thenReturn(versionNumber);
+    when(rs.getString("operation")).thenReturn(operation.name());
+    when(rs.getTimestamp("occurreddate"))
+        .thenReturn(Timestamp.from(Instant.parse("2026-10-01T00:00:00Z")));
+    return rs;
+  }
+
+}
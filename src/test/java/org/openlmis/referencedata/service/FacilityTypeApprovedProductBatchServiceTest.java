@@ -0,0 +1,192 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.FacilityType;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.dto.ApprovedProductDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto.Status;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
+import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
+import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FacilityTypeApprovedProductBatchServiceTest {
+
+  @Mock
+  private FacilityTypeApprovedProductRepository repository;
+
+  @Mock
+  private ProgramRepository programRepository;
+
+  @Mock
+  private FacilityTypeRepository facilityTypeRepository;
+
+  @Mock
+  private OrderableRepository orderableRepository;
+
+  @Spy
+  private FacilityTypeApprovedProductBuilder facilityTypeApprovedProductBuilder;
+
+  @Mock
+  private MessageService messageService;
+
+  @Mock
+  private MessageSource messageSource;
+
+  @Mock
+  private BatchWriter batchWriter;
+
+  @InjectMocks
+  private FacilityTypeApprovedProductBatchService service;
+
+  private Orderable orderable = new OrderableDataBuilder().build();
+  private Program program = new ProgramDataBuilder().build();
+  private FacilityType facilityType = new FacilityTypeDataBuilder().build();
+  private FacilityTypeApprovedProduct existing = new FacilityTypeApprovedProductsDataBuilder()
+      .withOrderableId(orderable.getId())
+      .withProgram(program)
+      .withFacilityType(facilityType)
+      .withVersionNumber(3L)
+      .build();
+
+  private ApprovedProductDto dto = new ApprovedProductDto();
+
+  @Before
+  public void setUp() {
+    existing.export(dto);
+    dto.setOrderable(orderable);
+    dto.setId(null);
+
+    when(repository.lockActiveByOrderableIdsAndFacilityTypeIds(
+        Collections.singleton(orderable.getId()), Collections.singleton(facilityType.getId())))
+        .thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldCreateApprovedProduct() {
+    mockReferences(true);
+
+    List<BatchItemResultDto<ApprovedProductDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.CREATED);
+    assertThat(results.get(0).getResource().getId()).isNotEqualTo(existing.getId());
+    assertThat(results.get(0).getResource().getVersionNumber()).isEqualTo(1L);
+    assertThat(results.get(0).getResource().getOrderableId()).isEqualTo(orderable.getId());
+
+    verify(batchWriter).lock(FacilityTypeApprovedProductBatchService.LOCK_NAMESPACE,
+        Collections.singletonList(facilityType.getId() + "/" + orderable.getId() + "/"
+            + program.getId()));
+    verify(repository, never()).deactivatePreviousVersions(anyCollection());
+  }
+
+  @Test
+  public void shouldCreateNewVersionOfActiveApprovedProduct() {
+    mockReferences(true);
+    when(repository.lockActiveByOrderableIdsAndFacilityTypeIds(
+        Collections.singleton(orderable.getId()), Collections.singleton(facilityType.getId())))
+        .thenReturn(Collections.singletonList(existing));
+
+    List<BatchItemResultDto<ApprovedProductDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.UPDATED);
+    assertThat(results.get(0).getResource().getId()).isEqualTo(existing.getId());
+    assertThat(results.get(0).getResource().getVersionNumber()).isEqualTo(4L);
+
+    verify(repository).deactivatePreviousVersions(Collections.singleton(existing.getId()));
+  }
+
+  @Test
+  public void shouldFailItemIfFacilityTypeDoesNotExist() {
+    mockMessages();
+    mockReferences(false);
+
+    List<BatchItemResultDto<ApprovedProductDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertFailed(results.get(0), FacilityTypeMessageKeys.ERROR_NOT_FOUND);
+    verify(batchWriter).persist(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldFailItemsForTheSameApprovedProduct() {
+    mockMessages();
+    mockReferences(true);
+
+    List<BatchItemResultDto<ApprovedProductDto>> results = service
+        .upsert(Arrays.asList(dto, new ApprovedProductDto(dto)));
+
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.CREATED);
+    assertFailed(results.get(1), BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+  }
+
+  private void mockReferences(boolean facilityTypeExists) {
+    when(programRepository.findAllById(Collections.singleton(program.getId())))
+        .thenReturn(Collections.singletonList(program));
+    when(facilityTypeRepository.findAllById(Collections.singleton(facilityType.getId())))
+        .thenReturn(facilityTypeExists
+            ? Collections.singletonList(facilityType)
+            : Collections.emptyList());
+    when(orderableRepository.findAllLatestByIds(Collections.singleton(orderable.getId()), null))
+        .thenReturn(new PageImpl<>(Collections.singletonList(orderable)));
+  }
+
+  private void mockMessages() {
+    when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(messageService.localize(any(Message.class)))
+        .thenAnswer(invocation -> ((Message) invocation.getArgument(0))
+            .localMessage(messageSource, Locale.ENGLISH));
+  }
+
+  private void assertFailed(BatchItemResultDto<ApprovedProductDto> result, String key) {
+    assertThat(result.getStatus()).isEqualTo(Status.FAILED);
+    assertThat(result.getError().asMessage()).isEqualTo(key);
+  }
+
+}
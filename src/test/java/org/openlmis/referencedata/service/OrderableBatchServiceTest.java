@@ -0,0 +1,278 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto.Status;
+import org.openlmis.referencedata.dto.OrderableDto;
+import org.openlmis.referencedata.dto.ProgramOrderableDto;
+import org.openlmis.referencedata.extension.ExtensionManager;
+import org.openlmis.referencedata.extension.point.ExtensionPointId;
+import org.openlmis.referencedata.extension.point.OrderableCreatePostProcessor;
+import org.openlmis.referencedata.extension.point.OrderableUpdatePostProcessor;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.OrderableBuilder;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
+import org.openlmis.referencedata.validate.OrderableValidator;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.validation.Errors;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrderableBatchServiceTest {
+
+  @Mock
+  private OrderableRepository orderableRepository;
+
+  @Mock
+  private ProgramRepository programRepository;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private OrderableValidator validator;
+
+  @Mock
+  private OrderableBuilder orderableBuilder;
+
+  @Mock
+  private AuthenticationHelper authenticationHelper;
+
+  @Mock
+  private ExtensionManager extensionManager;
+
+  @Mock
+  private MessageService messageService;
+
+  @Mock
+  private MessageSource messageSource;
+
+  @Mock
+  private BatchWriter batchWriter;
+
+  @Mock
+  private OrderableCreatePostProcessor createPostProcessor;
+
+  @Mock
+  private OrderableUpdatePostProcessor updatePostProcessor;
+
+  @InjectMocks
+  private OrderableBatchService service;
+
+  private Orderable existing = new OrderableDataBuilder().build();
+  private Orderable created = new OrderableDataBuilder().build();
+
+  @Before
+  public void setUp() {
+    when(extensionManager.getExtension(ExtensionPointId.ORDERABLE_CREATE_POST_POINT_ID,
+        OrderableCreatePostProcessor.class)).thenReturn(createPostProcessor);
+    when(extensionManager.getExtension(ExtensionPointId.ORDERABLE_UPDATE_POST_POINT_ID,
+        OrderableUpdatePostProcessor.class)).thenReturn(updatePostProcessor);
+  }
+
+  @Test
+  public void shouldCreateOrderableIfProductCodeDoesNotExist() {
+    OrderableDto dto = newDto(created);
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.emptyList());
+    when(orderableBuilder.newOrderable(eq(dto), isNull(), anyMap(), anyMap(), anyMap(), any()))
+        .thenReturn(created);
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertThat(results).hasSize(1);
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.CREATED);
+    assertThat(results.get(0).getResource().getId()).isEqualTo(created.getId());
+
+    verify(batchWriter).lock(OrderableBatchService.LOCK_NAMESPACE,
+        Collections.singletonList(dto.getProductCode().toLowerCase()));
+    verify(orderableRepository, never()).lockLatestByIds(any());
+    verify(batchWriter).persist(Collections.singletonList(created));
+    verify(createPostProcessor).process(created);
+  }
+
+  @Test
+  public void shouldCreateNewVersionOfOrderableWithSameProductCode() {
+    OrderableDto dto = newDto(existing);
+    Orderable updated = Orderable.updateFrom(existing, dto);
+
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.singletonList(ImmutableMap.of(
+            "id", existing.getId().toString(),
+            "code", dto.getProductCode().toLowerCase())));
+    when(orderableRepository.findAllLatestByIds(Collections.singleton(existing.getId()), null))
+        .thenReturn(new PageImpl<>(Collections.singletonList(existing)));
+    when(orderableBuilder.newOrderable(eq(dto), eq(existing), anyMap(), anyMap(), anyMap(),
+        any())).thenReturn(updated);
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.UPDATED);
+    assertThat(results.get(0).getResource().getId()).isEqualTo(existing.getId());
+    assertThat(results.get(0).getResource().getMeta().getVersionNumber())
+        .isEqualTo(existing.getVersionNumber() + 1);
+
+    verify(orderableRepository).lockLatestByIds(Collections.singleton(existing.getId()));
+    verify(batchWriter).persist(Collections.singletonList(updated));
+    verify(updatePostProcessor).process(updated);
+  }
+
+  @Test
+  public void shouldFailItemsWithTheSameProductCode() {
+    mockMessages();
+    OrderableDto dto = newDto(created);
+    OrderableDto duplicate = newDto(created);
+    duplicate.setProductCode(dto.getProductCode().toUpperCase());
+
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.emptyList());
+    when(orderableBuilder.newOrderable(eq(dto), isNull(), anyMap(), anyMap(), anyMap(), any()))
+        .thenReturn(created);
+
+    List<BatchItemResultDto<OrderableDto>> results = service
+        .upsert(Arrays.asList(dto, duplicate));
+
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.CREATED);
+    assertFailed(results.get(1), 1, BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+  }
+
+  @Test
+  public void shouldFailItemIfOrderableWithGivenIdDoesNotExist() {
+    mockMessages();
+    OrderableDto dto = newDto(existing);
+    dto.setId(existing.getId());
+
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.emptyList());
+    when(orderableRepository.findAllLatestByIds(Collections.singleton(existing.getId()), null))
+        .thenReturn(new PageImpl<>(Collections.emptyList()));
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertFailed(results.get(0), 0, OrderableMessageKeys.ERROR_NOT_FOUND);
+    verify(batchWriter).persist(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldFailItemIfProductCodeBelongsToAnotherOrderable() {
+    mockMessages();
+    OrderableDto dto = newDto(created);
+    dto.setId(existing.getId());
+    UUID owner = UUID.randomUUID();
+
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.singletonList(ImmutableMap.of(
+            "id", owner.toString(),
+            "code", dto.getProductCode().toLowerCase())));
+    when(orderableRepository.findAllLatestByIds(Sets.newHashSet(existing.getId()), null))
+        .thenReturn(new PageImpl<>(Collections.singletonList(existing)));
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertFailed(results.get(0), 0, OrderableMessageKeys.ERROR_PRODUCT_CODE_MUST_BE_UNIQUE);
+  }
+
+  @Test
+  public void shouldFailItemIfProgramDoesNotExist() {
+    mockMessages();
+    OrderableDto dto = newDto(created);
+    ProgramOrderableDto program = new ProgramOrderableDto();
+    program.setProgramId(UUID.randomUUID());
+    dto.setPrograms(Collections.singleton(program));
+
+    when(orderableRepository.findLatestIdsByProductCodes(any()))
+        .thenReturn(Collections.emptyList());
+    when(programRepository.findAllById(Collections.singleton(program.getProgramId())))
+        .thenReturn(Collections.emptyList());
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertFailed(results.get(0), 0, ProgramMessageKeys.ERROR_NOT_FOUND);
+    verify(batchWriter).persist(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldFailItemIfValidationFails() {
+    mockMessages();
+    OrderableDto dto = newDto(created);
+
+    doAnswer(invocation -> {
+      ((Errors) invocation.getArgument(1))
+          .rejectValue("productCode", OrderableMessageKeys.ERROR_PRODUCT_CODE_REQUIRED);
+      return null;
+    }).when(validator).validateFields(eq(dto), any(Errors.class));
+
+    List<BatchItemResultDto<OrderableDto>> results = service.upsert(Arrays.asList(dto));
+
+    assertFailed(results.get(0), 0, OrderableMessageKeys.ERROR_PRODUCT_CODE_REQUIRED);
+    verify(orderableRepository, never()).findLatestIdsByProductCodes(any());
+  }
+
+  private OrderableDto newDto(Orderable orderable) {
+    OrderableDto dto = OrderableDto.newInstance(orderable);
+    dto.setId(null);
+    return dto;
+  }
+
+  private void mockMessages() {
+    when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(messageService.localize(any(Message.class)))
+        .thenAnswer(invocation -> ((Message) invocation.getArgument(0))
+            .localMessage(messageSource, Locale.ENGLISH));
+  }
+
+  private void assertFailed(BatchItemResultDto<OrderableDto> result, int index, String key) {
+    assertThat(result.getIndex()).isEqualTo(index);
+    assertThat(result.getStatus()).isEqualTo(Status.FAILED);
+    assertThat(result.getResource()).isNull();
+    assertThat(result.getError().asMessage()).isEqualTo(key);
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.openlmis.referencedata.service.ResourceVersionService.GLOBAL_RESOURCE_TYPE;
+import static org.openlmis.referencedata.service.ResourceVersionService.INCREMENT_SQL;
+import static org.openlmis.referencedata.service.ResourceVersionService.RESOURCE_TYPE;
+import static org.openlmis.referencedata.service.ResourceVersionService.VERSION;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_ROLLED_BACK;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.domain.SupervisionRoleAssignment;
+import org.openlmis.referencedata.domain.TradeItem;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ResourceVersionServiceTest {
+
+  @Mock
+  private JdbcTemplate template;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @InjectMocks
+  private ResourceVersionService resourceVersionService;
+
+  @Captor
+  private ArgumentCaptor<List<Object[]>> argsCaptor;
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldUseAnnotatedClassAsResourceType() {
+    assertThat(ResourceVersionService.getResourceType(Facility.class))
+        .isEqualTo("Facility");
+    assertThat(ResourceVersionService.getResourceType(SupervisionRoleAssignment.class))
+        .isEqualTo(RoleAssignment.class.getSimpleName());
+  }
+
+  @Test
+  public void shouldCheckIfTypeIsVersioned() {
+    assertThat(ResourceVersionService.isVersioned(Facility.class)).isTrue();
+    assertThat(ResourceVersionService.isVersioned(SupervisionRoleAssignment.class)).isTrue();
+    assertThat(ResourceVersionService.isVersioned(TradeItem.class)).isFalse();
+  }
+
+  @Test
+  public void shouldBuildETagFromVersions() {
+    given(template.queryForList(anyString(), eq(GLOBAL_RESOURCE_TYPE), eq("Facility"),
+        eq("Program")))
+        .willReturn(Lists.newArrayList(
+            ImmutableMap.of(RESOURCE_TYPE, GLOBAL_RESOURCE_TYPE, VERSION, 3L),
+            ImmutableMap.of(RESOURCE_TYPE, "Facility", VERSION, 15L)));
+
+    assertThat(resourceVersionService.getETag(Facility.class, Program.class))
+        .isEqualTo("\"3.15.0\"");
+  }
+
+  @Test
+  public void shouldIncrementVersionRightAwayWithoutTransaction() {
+    resourceVersionService.markChanged("Facility");
+
+    verify(template).batchUpdate(eq(INCREMENT_SQL), argsCaptor.capture());
+    assertThat(getResourceTypes()).containsExactly("Facility");
+  }
+
+  @Test
+  public void shouldIncrementEachVersionOnceAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    resourceVersionService.markChanged("Program");
+    resourceVersionService.markChanged("Facility");
+    resourceVersionService.markChanged("Program");
+
+    verify(template, never()).batchUpdate(anyString(), anyList());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCommit());
+
+    verify(template).batchUpdate(eq(INCREMENT_SQL), argsCaptor.capture());
+    assertThat(getResourceTypes()).containsExactly("Facility", "Program");
+  }
+
+  @Test
+  public void shouldRetryFailedIncrementBeforeBuildingETag() {
+    failIncrementAfterCommit("Facility");
+
+    assertThat(resourceVersionService.getETag(Facility.class)).isEqualTo("\"0.0\"");
+    assertThat(resourceVersionService.getETag(Facility.class)).isEqualTo("\"0.0\"");
+
+    verify(template, times(2)).batchUpdate(eq(INCREMENT_SQL), argsCaptor.capture());
+    assertThat(getResourceTypes()).containsExactly("Facility");
+  }
+
+  @Test
+  public void shouldNotBuildETagIfFailedIncrementCanNotBeRetried() {
+    failIncrementAfterCommit("Facility");
+    given(template.batchUpdate(eq(INCREMENT_SQL), anyList()))
+        .willThrow(new QueryTimeoutException("timeout"));
+
+    assertThat(resourceVersionService.getETag(Facility.class)).isNull();
+    verify(template, never()).queryForList(anyString(), any(Object[].class));
+  }
+
+  @Test
+  public void shouldNotIncrementVersionIfTransactionIsNotCommitted() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    resourceVersionService.markChanged("Facility");
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCompletion(STATUS_ROLLED_BACK));
+
+    verify(template, never()).batchUpdate(anyString(), anyList());
+  }
+
+  @Test
+  public void shouldIncrementGlobalVersionOnStartup() {
+    resourceVersionService.onApplicationReady();
+
+    verify(template).batchUpdate(eq(INCREMENT_SQL), argsCaptor.capture());
+    assertThat(getResourceTypes()).containsExactly(GLOBAL_RESOURCE_TYPE);
+  }
+
+  private void failIncrementAfterCommit(String resourceType) {
+    TransactionSynchronizationManager.initSynchronization();
+    resourceVersionService.markChanged(resourceType);
+
+    given(template.batchUpdate(eq(INCREMENT_SQL), anyList()))
+        .willThrow(new QueryTimeoutException("timeout"))
+        .willReturn(new int[]{1});
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(sync -> sync.afterCommit());
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  private List<Object> getResourceTypes() {
+    return argsCaptor.getValue()
+        .stream()
+        .map(args -> args[0])
+        .collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,295 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatus;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler.RightAssignmentsRegeneratedEvent;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
+import org.openlmis.referencedata.service.job.JobTask;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RightAssignmentRegenerationSchedulerTest {
+
+  private static final long QUIET_PERIOD = 2000;
+  private static final long MAX_DELAY = 5000;
+  private static final long RETRY_DELAY = 10000;
+
+  @Mock
+  private RightAssignmentService rightAssignmentService;
+
+  @Mock
+  private TaskScheduler rightAssignmentTaskScheduler;
+
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+
+  @Mock
+  private JobService jobService;
+
+  @InjectMocks
+  private RightAssignmentRegenerationScheduler scheduler;
+
+  @Captor
+  private ArgumentCaptor<Date> startTimeCaptor;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(scheduler, "quietPeriod", QUIET_PERIOD);
+    ReflectionTestUtils.setField(scheduler, "maxDelay", MAX_DELAY);
+    ReflectionTestUtils.setField(scheduler, "maxRetries", 2);
+    ReflectionTestUtils.setField(scheduler, "retryDelay", RETRY_DELAY);
+    setTime(0);
+
+    lenient().when(jobService.run(eq(JobType.RIGHT_ASSIGNMENT_REGENERATION), any(JobTask.class)))
+        .thenAnswer(invocation -> {
+          JobDto job = new JobDto();
+          job.setType(JobType.RIGHT_ASSIGNMENT_REGENERATION);
+
+          try {
+            ((JobTask) invocation.getArguments()[1]).run(JobContext.NONE);
+            job.setStatus(JobDto.Status.COMPLETED);
+          } catch (RuntimeException ex) {
+            job.setStatus(JobDto.Status.FAILED);
+          }
+
+          return CompletableFuture.completedFuture(job);
+        });
+  }
+
+  @Test
+  public void shouldCoalesceRequestsMadeBeforeRegenerationStarts() {
+    CompletableFuture<Void> first = scheduler.requestRegeneration();
+    CompletableFuture<Void> second = scheduler.requestRegeneration();
+
+    verify(rightAssignmentTaskScheduler).schedule(any(Runnable.class), startTimeCaptor.capture());
+    assertThat(startTimeCaptor.getValue().getTime()).isEqualTo(QUIET_PERIOD);
+    assertThat(second).isSameAs(first);
+    assertThat(scheduler.getStatus().isPending()).isTrue();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+
+    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(eventPublisher).publishEvent(any(RightAssignmentsRegeneratedEvent.class));
+    assertThat(first).isCompleted();
+
+    RightAssignmentRegenerationStatus status = scheduler.getStatus();
+    assertThat(status.isPending()).isFalse();
+    assertThat(status.isRunning()).isFalse();
+    assertThat(status.isLastFailed()).isFalse();
+    assertThat(status.getStaleness()).isZero();
+  }
+
+  @Test
+  public void shouldPostponeRegenerationUntilNoRequestWasMadeForQuietPeriod() {
+    scheduler.requestRegeneration();
+    setTime(1500);
+    scheduler.requestRegeneration();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+
+    verify(rightAssignmentService, never()).regenerateRightAssignments();
+    verify(rightAssignmentTaskScheduler, times(2))
+        .schedule(any(Runnable.class), startTimeCaptor.capture());
+    assertThat(startTimeCaptor.getValue().getTime()).isEqualTo(1500 + QUIET_PERIOD);
+    assertThat(scheduler.getStatus().getStaleness()).isEqualTo(QUIET_PERIOD);
+
+    setTime(1500 + QUIET_PERIOD);
+    scheduler.run();
+
+    verify(rightAssignmentService).regenerateRightAssignments();
+  }
+
+  @Test
+  public void shouldNotPostponeRegenerationLongerThanMaxDelay() {
+    for (long time = 0; time < MAX_DELAY; time += 1000) {
+      setTime(time);
+      scheduler.requestRegeneration();
+    }
+
+    setTime(MAX_DELAY);
+    scheduler.run();
+
+    verify(rightAssignmentService).regenerateRightAssignments();
+  }
+
+  @Test
+  public void shouldRunAgainForRequestsMadeDuringRegeneration() {
+    CompletableFuture<Void> first = scheduler.requestRegeneration();
+    AtomicReference<CompletableFuture<Void>> second = new AtomicReference<>();
+    doAnswer(invocation -> {
+      second.set(scheduler.requestRegeneration());
+      return null;
+    }).when(rightAssignmentService).regenerateRightAssignments();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+
+    assertThat(first).isCompleted();
+    assertThat(second.get()).isNotSameAs(first).isNotDone();
+    assertThat(scheduler.getStatus().isPending()).isTrue();
+    verify(rightAssignmentTaskScheduler, times(2)).schedule(any(Runnable.class), any(Date.class));
+  }
+
+  @Test
+  public void shouldKeepAssignmentsStaleIfRegenerationFails() {
+    ReflectionTestUtils.setField(scheduler, "maxRetries", 0);
+    IllegalStateException exception = new IllegalStateException();
+    doThrow(exception).when(rightAssignmentService).regenerateRightAssignments();
+    CompletableFuture<Void> result = scheduler.requestRegeneration();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+
+    assertThat(result).isCompletedExceptionally();
+    verifyZeroInteractions(eventPublisher);
+
+    RightAssignmentRegenerationStatus status = scheduler.getStatus();
+    assertThat(status.isLastFailed()).isTrue();
+    assertThat(status.isPending()).isFalse();
+    assertThat(status.getStaleness()).isEqualTo(QUIET_PERIOD);
+  }
+
+  @Test
+  public void shouldRetryFailedRegenerationWithBackoff() {
+    doThrow(new IllegalStateException()).when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.requestRegeneration();
+
+    long time = QUIET_PERIOD;
+    for (long delay = RETRY_DELAY; delay <= 2 * RETRY_DELAY; delay *= 2) {
+      setTime(time);
+      scheduler.run();
+      assertThat(scheduler.getStatus().isPending()).isTrue();
+
+      scheduler.run();
+      verify(rightAssignmentTaskScheduler, atLeastOnce())
+          .schedule(any(Runnable.class), startTimeCaptor.capture());
+      assertThat(startTimeCaptor.getValue().getTime()).isEqualTo(time + delay);
+
+      time += delay;
+    }
+
+    setTime(time);
+    scheduler.run();
+
+    verify(rightAssignmentService, times(3)).regenerateRightAssignments();
+    assertThat(scheduler.getStatus().isPending()).isFalse();
+    assertThat(scheduler.getStatus().getStaleness()).isEqualTo(time);
+  }
+
+  @Test
+  public void shouldStopRetryingAfterSuccessfulRegeneration() {
+    doThrow(new IllegalStateException()).doNothing().when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.requestRegeneration();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+    setTime(QUIET_PERIOD + RETRY_DELAY);
+    scheduler.run();
+
+    verify(rightAssignmentService, times(2)).regenerateRightAssignments();
+    assertThat(scheduler.getStatus().isPending()).isFalse();
+    assertThat(scheduler.getStatus().isLastFailed()).isFalse();
+    assertThat(scheduler.getStatus().getStaleness()).isZero();
+  }
+
+  @Test
+  public void shouldNotWaitForRegenerationJobToFinish() {
+    CompletableFuture<JobDto> job = new CompletableFuture<>();
+    when(jobService.run(eq(JobType.RIGHT_ASSIGNMENT_REGENERATION), any(JobTask.class)))
+        .thenReturn(job);
+    CompletableFuture<Void> result = scheduler.requestRegeneration();
+
+    setTime(QUIET_PERIOD);
+    scheduler.run();
+
+    assertThat(result).isNotDone();
+    assertThat(scheduler.getStatus().isRunning()).isTrue();
+
+    JobDto completed = new JobDto();
+    completed.setStatus(JobDto.Status.COMPLETED);
+    setTime(QUIET_PERIOD + 1000);
+    job.complete(completed);
+
+    assertThat(result).isCompleted();
+    assertThat(scheduler.getStatus().isRunning()).isFalse();
+    assertThat(scheduler.getStatus().getLastDuration()).isEqualTo(1000L);
+    verify(eventPublisher).publishEvent(any(RightAssignmentsRegeneratedEvent.class));
+  }
+
+  @Test
+  public void shouldRequestRegenerationAfterTransactionCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    try {
+      CompletableFuture<Void> result = scheduler.requestRegeneration();
+
+      verifyZeroInteractions(rightAssignmentTaskScheduler);
+
+      TransactionSynchronizationManager.getSynchronizations()
+          .forEach(TransactionSynchronization::afterCommit);
+      setTime(QUIET_PERIOD);
+      scheduler.run();
+
+      assertThat(result).isCompleted();
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  private void setTime(long millis) {
+    ReflectionTestUtils.setField(scheduler, "clock",
+        Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+  }
+}
@@ -18,8 +18,12 @@ package org.openlmis.referencedata.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
@@ -33,12 +37,17 @@ import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatcher;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RightAssignmentServiceTest {
@@ -48,6 +57,9 @@ public class RightAssignmentServiceTest {
   @Mock
   private JdbcTemplate jdbcTemplate;
 
+  @Mock
+  private NamedParameterJdbcTemplate namedTemplate;
+
   @InjectMocks
   private RightAssignmentService rightAssignmentService;
 
@@ -120,4 +132,63 @@ public class RightAssignmentServiceTest {
       assertTrue(facilityIds.contains(current.getFacilityId()));
     }
   }
+
+  @Test
+  public void regenerateRightAssignmentsShouldRebuildSupervisingUsersUnderLock()
+      throws IOException {
+    // given
+    ReflectionTestUtils.setField(rightAssignmentService, "rightAssignmentsResource",
+        mockResource());
+    ReflectionTestUtils.setField(rightAssignmentService, "supervisedFacilitiesResource",
+        mockResource());
+
+    // when
+    rightAssignmentService.regenerateRightAssignments();
+
+    // then
+    InOrder inOrder = inOrder(jdbcTemplate);
+    inOrder.verify(jdbcTemplate).execute(RightAssignmentService.LOCK_SQL);
+    inOrder.verify(jdbcTemplate).update(RightAssignmentService.DELETE_SQL);
+    inOrder.verify(jdbcTemplate).update(RightAssignmentService.DELETE_SUPERVISING_USERS_SQL);
+    inOrder.verify(jdbcTemplate).update(RightAssignmentService.INSERT_SUPERVISING_USERS_SQL);
+  }
+
+  @Test
+  public void regenerateRightAssignmentsShouldReplaceRightAssignmentsOfGivenUsersUnderLock()
+      throws IOException {
+    // given
+    ReflectionTestUtils.setField(rightAssignmentService, "userRightAssignmentsResource",
+        mockResource());
+    List<UUID> userIds = Collections.singletonList(userId);
+
+    // when
+    rightAssignmentService.regenerateRightAssignments(userIds);
+
+    // then
+    InOrder inOrder = inOrder(jdbcTemplate, namedTemplate);
+    inOrder.verify(jdbcTemplate).execute(RightAssignmentService.LOCK_SQL);
+    inOrder.verify(namedTemplate).update(eq(RightAssignmentService.DELETE_USERS_SQL),
+        argThat(hasUserIds(userIds)));
+    inOrder.verify(namedTemplate).update(eq("some data"), argThat(hasUserIds(userIds)));
+  }
+
+  @Test
+  public void regenerateRightAssignmentsShouldDoNothingWithoutUsers() {
+    // when
+    rightAssignmentService.regenerateRightAssignments(Collections.emptyList());
+
+    // then
+    verifyZeroInteractions(jdbcTemplate, namedTemplate);
+  }
+
+  private ArgumentMatcher<SqlParameterSource> hasUserIds(List<UUID> userIds) {
+    return params -> userIds.equals(params.getValue("userIds"));
+  }
+
+  private Resource mockResource() throws IOException {
+    Resource resource = mock(Resource.class);
+    when(resource.getDescription()).thenReturn("description");
+    when(resource.getInputStream()).thenReturn(IOUtils.toInputStream("some data"));
+    return resource;
+  }
 }
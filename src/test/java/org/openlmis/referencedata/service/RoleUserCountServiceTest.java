@@ -0,0 +1,122 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RoleUserCountServiceTest {
+
+  @Mock
+  private NamedParameterJdbcTemplate template;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private ResourceVersionService resourceVersionService;
+
+  @InjectMocks
+  private RoleUserCountService roleUserCountService;
+
+  @Before
+  public void setUp() {
+    when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+  }
+
+  @Test
+  public void shouldReturnUserCounts() {
+    UUID roleId = UUID.randomUUID();
+    doAnswer(invocation -> {
+      ResultSet rs = mock(ResultSet.class);
+      when(rs.getObject("roleid", UUID.class)).thenReturn(roleId);
+      when(rs.getLong("usercount")).thenReturn(7L);
+      ((RowCallbackHandler) invocation.getArgument(2)).processRow(rs);
+      return null;
+    }).when(template).query(eq(RoleUserCountService.SELECT_SQL),
+        any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+    Map<UUID, Long> counts = roleUserCountService.getUserCounts();
+
+    assertThat(counts).containsOnly(entry(roleId, 7L));
+  }
+
+  @Test
+  public void shouldReconcileCountsAndMarkRoleAssignmentsChanged() {
+    mockLock(true);
+    when(template.update(eq(RoleUserCountService.RECONCILE_SQL), any(SqlParameterSource.class)))
+        .thenReturn(2);
+
+    roleUserCountService.reconcile();
+
+    verify(template).update(eq(RoleUserCountService.DELETE_ORPHANS_SQL),
+        any(SqlParameterSource.class));
+    verify(resourceVersionService)
+        .markChanged(ResourceVersionService.getResourceType(RoleAssignment.class));
+  }
+
+  @Test
+  public void shouldNotMarkRoleAssignmentsChangedWhenCountsAreCorrect() {
+    mockLock(true);
+
+    roleUserCountService.reconcile();
+
+    verify(template).update(eq(RoleUserCountService.RECONCILE_SQL),
+        any(SqlParameterSource.class));
+    verify(resourceVersionService, never()).markChanged(anyString());
+  }
+
+  @Test
+  public void shouldNotReconcileCountsWhenAnotherNodeHoldsTheLock() {
+    mockLock(false);
+
+    roleUserCountService.reconcile();
+
+    verify(template, never()).update(eq(RoleUserCountService.RECONCILE_SQL),
+        any(SqlParameterSource.class));
+  }
+
+  private void mockLock(boolean acquired) {
+    when(template.queryForObject(eq(RoleUserCountService.LOCK_SQL), any(SqlParameterSource.class),
+        eq(Boolean.class))).thenReturn(acquired);
+  }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.dto.SearchResultDto;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SearchServiceTest {
+
+  @Mock
+  private NamedParameterJdbcTemplate template;
+
+  @InjectMocks
+  private SearchService searchService;
+
+  @Captor
+  private ArgumentCaptor<String> sqlCaptor;
+
+  @Captor
+  private ArgumentCaptor<Map<String, Object>> paramsCaptor;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldSearchAllTypesInSingleQuery() {
+    when(template.query(anyString(), anyMap(), any(RowMapper.class)))
+        .thenReturn(Collections.emptyList());
+
+    List<SearchResultDto> results = searchService.search("Balaka%",
+        EnumSet.of(SearchResourceType.USER, SearchResourceType.FACILITY), 5);
+
+    verify(template).query(sqlCaptor.capture(), paramsCaptor.capture(), any(RowMapper.class));
+    assertThat(results).isEmpty();
+    assertThat(sqlCaptor.getValue())
+        .startsWith("SELECT * FROM ((SELECT 'FACILITY' AS type")
+        .contains(" UNION ALL (SELECT 'USER' AS type")
+        .doesNotContain("'ORDERABLE'")
+        .endsWith("ORDER BY score DESC, name LIMIT :limit");
+    assertThat(paramsCaptor.getValue())
+        .containsEntry("upperQuery", "BALAKA%")
+        .containsEntry("upperPrefix", "BALAKA\\%%")
+        .containsEntry("upperContains", "%BALAKA\\%%")
+        .containsEntry("lowerQuery", "balaka%")
+        .containsEntry(SearchService.LIMIT, 5);
+  }
+
+  @Test
+  public void shouldEscapeLikeWildcards() {
+    assertThat(SearchService.escapeLike("a_b%c\\d")).isEqualTo("a\\_b\\%c\\\\d");
+  }
+
+  @Test
+  public void shouldMatchOnlyLatestOrderableVersions() {
+    assertThat(SearchService.QUERIES.get(SearchResourceType.ORDERABLE))
+        .contains("o.versionnumber = (SELECT MAX(l.versionnumber)")
+        .contains("LOWER(o.code) OPERATOR(public.%) :lowerQuery");
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Collections;
+import java.util.Set;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.service.CacheInvalidationBus.EntitiesChangedEvent;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SecondLevelCacheEvictorTest {
+
+  private static final String ROLE = Role.class.getName();
+  private static final String RIGHTS = ROLE + ".rights";
+
+  @Mock
+  private EntityManagerFactory entityManagerFactory;
+
+  @Mock
+  private SessionFactoryImplementor sessionFactory;
+
+  @Mock
+  private SessionFactoryOptions sessionFactoryOptions;
+
+  @Mock
+  private CacheImplementor cache;
+
+  @Mock
+  private TimestampsCache timestampsCache;
+
+  @Mock
+  private MetamodelImplementor metamodel;
+
+  @Mock
+  private EntityPersister rolePersister;
+
+  @Mock
+  private CollectionPersister rightsPersister;
+
+  @Mock
+  private SessionImplementor session;
+
+  @InjectMocks
+  private SecondLevelCacheEvictor evictor;
+
+  @Captor
+  private ArgumentCaptor<String[]> spacesCaptor;
+
+  @Test
+  public void shouldIgnoreLocalChanges() {
+    evictor.evict(new EntitiesChangedEvent(this, changesOf(ROLE), false, false));
+
+    verifyZeroInteractions(entityManagerFactory, cache);
+  }
+
+  @Test
+  public void shouldEvictEntityAndCollectionRegionsAndQueriesOfRemoteChanges() {
+    mockSessionFactory();
+    given(sessionFactory.getSessionFactoryOptions()).willReturn(sessionFactoryOptions);
+    given(sessionFactory.openSession()).willReturn(session);
+    given(sessionFactoryOptions.isQueryCacheEnabled()).willReturn(true);
+    given(cache.getTimestampsCache()).willReturn(timestampsCache);
+    mockRolePersisters();
+
+    evictor.evict(new EntitiesChangedEvent(this, changesOf(ROLE), true, false));
+
+    verify(cache).evictEntityData(ROLE);
+    verify(cache).evictCollectionData(RIGHTS);
+    verify(timestampsCache).invalidate(spacesCaptor.capture(), eq(session));
+    assertThat(spacesCaptor.getValue())
+        .containsExactlyInAnyOrder("referencedata.roles", "referencedata.role_rights");
+    verify(cache, never()).evictAllRegions();
+  }
+
+  @Test
+  public void shouldSkipUnknownEntities() {
+    mockSessionFactory();
+    given(sessionFactory.getMetamodel()).willReturn(metamodel);
+    given(metamodel.entityPersisters()).willReturn(Collections.emptyMap());
+
+    evictor.evict(new EntitiesChangedEvent(this, changesOf("Unknown"), true, false));
+
+    verify(cache, never()).evictEntityData(anyString());
+    verify(sessionFactory, never()).openSession();
+  }
+
+  @Test
+  public void shouldEvictAllRegionsIfMessageWasLost() {
+    mockSessionFactory();
+    evictor.evict(new EntitiesChangedEvent(this, Collections.emptyMap(), true, true));
+
+    verify(cache).evictAllRegions();
+    verify(cache, never()).evictEntityData(anyString());
+  }
+
+  private void mockSessionFactory() {
+    given(entityManagerFactory.unwrap(SessionFactoryImplementor.class)).willReturn(sessionFactory);
+    given(sessionFactory.getCache()).willReturn(cache);
+  }
+
+  private void mockRolePersisters() {
+    given(sessionFactory.getMetamodel()).willReturn(metamodel);
+    given(metamodel.entityPersisters()).willReturn(ImmutableMap.of(ROLE, rolePersister));
+    given(metamodel.collectionPersisters()).willReturn(ImmutableMap.of(RIGHTS, rightsPersister));
+    given(rolePersister.getEntityName()).willReturn(ROLE);
+    given(rolePersister.canWriteToCache()).willReturn(true);
+    given(rolePersister.getPropertySpaces()).willReturn(new String[]{"referencedata.roles"});
+    given(rightsPersister.getOwnerEntityPersister()).willReturn(rolePersister);
+    given(rightsPersister.getRole()).willReturn(RIGHTS);
+    given(rightsPersister.hasCache()).willReturn(true);
+    given(rightsPersister.getCollectionSpaces())
+        .willReturn(new String[]{"referencedata.role_rights"});
+  }
+
+  private ImmutableMap<String, Set<UUID>> changesOf(String entityName) {
+    return ImmutableMap.of(entityName, Collections.singleton(UUID.randomUUID()));
+  }
+
+}
@@ -18,6 +18,8 @@ package org.openlmis.referencedata.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.util.Pagination.DEFAULT_PAGE_NUMBER;
 import static org.openlmis.referencedata.util.Pagination.NO_PAGINATION;
@@ -27,6 +29,7 @@ import com.google.common.collect.Sets;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.UUID;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -356,17 +359,10 @@ public class SupplyPartnerBuilderTest {
 
   @Test
   public void shouldThrowExceptionIfAnotherSupplyPartnerHandleOrderable() {
-    SupplyPartner existing = new SupplyPartnerDataBuilder()
-        .withAssociation(
-            new SupplyPartnerAssociationDataBuilder()
-                .withProgram(program)
-                .withSupervisoryNode(partnerNode)
-                .withFacility(facility)
-                .withOrderable(orderable)
-                .build())
-        .build();
-
-    when(supplyPartnerRepository.findAll()).thenReturn(Lists.newArrayList(existing));
+    when(supplyPartnerRepository.findAssociatedFacilityOrderablePairs(program.getId(),
+        partnerNode.getId(), Sets.newHashSet(facility.getId()),
+        Sets.newHashSet(orderable.getId()), null))
+        .thenReturn(Sets.newHashSet(Pair.of(facility.getId(), orderable.getId())));
 
     exception.expect(ValidationMessageException.class);
     exception.expectMessage(SupplyPartnerMessageKeys.ERROR_GLOBAL_UNIQUE);
@@ -378,6 +374,36 @@ public class SupplyPartnerBuilderTest {
     builder.build(importer);
   }
 
+  @Test
+  public void shouldThrowExceptionIfAssociationsOfSupplyPartnerRepeatCombo() {
+    importer.setId(supplyPartner.getId());
+    when(supplyPartnerRepository.findById(supplyPartner.getId()))
+        .thenReturn(Optional.of(supplyPartner));
+    importer.getAssociations().add(importer.getAssociations().get(0));
+
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(SupplyPartnerMessageKeys.ERROR_GLOBAL_UNIQUE);
+    exception.expectMessage(facility.getName());
+    exception.expectMessage(orderable.getFullProductName());
+
+    builder.build(importer);
+  }
+
+  @Test
+  public void shouldExcludeUpdatedSupplyPartnerWhenCheckingGlobalUniqueness() {
+    importer.setId(supplyPartner.getId());
+    when(supplyPartnerRepository.findById(supplyPartner.getId()))
+        .thenReturn(Optional.of(supplyPartner));
+
+    SupplyPartner built = builder.build(importer);
+
+    assertBuiltResource(built, supplyPartner.getId());
+    verify(supplyPartnerRepository).findAssociatedFacilityOrderablePairs(program.getId(),
+        partnerNode.getId(), Sets.newHashSet(facility.getId()),
+        Sets.newHashSet(orderable.getId()), supplyPartner.getId());
+    verify(supplyPartnerRepository, never()).findAll();
+  }
+
   private void assertBuiltResource(SupplyPartner built, UUID id) {
     assertThat(built)
         .hasFieldOrPropertyWithValue("id", id)
@@ -0,0 +1,245 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.Right;
+import org.openlmis.referencedata.domain.RightType;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto.Status;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.BatchMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.RoleAssignmentMessageKeys;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.springframework.context.MessageSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserBatchServiceTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private FacilityRepository facilityRepository;
+
+  @Mock
+  private RoleRepository roleRepository;
+
+  @Mock
+  private ProgramRepository programRepository;
+
+  @Mock
+  private SupervisoryNodeRepository supervisoryNodeRepository;
+
+  @Mock
+  private RightAssignmentService rightAssignmentService;
+
+  @Mock
+  private ResourceVersionService resourceVersionService;
+
+  @Mock
+  private MessageService messageService;
+
+  @Mock
+  private MessageSource messageSource;
+
+  @Mock
+  private BatchWriter batchWriter;
+
+  @InjectMocks
+  private UserRoleAssignmentService userRoleAssignmentService;
+
+  @InjectMocks
+  private UserBatchService service;
+
+  private Role adminRole;
+  private Facility homeFacility;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(service, "userRoleAssignmentService", userRoleAssignmentService);
+
+    adminRole = Role.newRole("admin", Right.newRight("adminRight", RightType.GENERAL_ADMIN));
+    adminRole.setId(UUID.randomUUID());
+    homeFacility = new FacilityDataBuilder().build();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldCreateUsersWithRoleAssignmentsAndGenerateRightsOnce() {
+    UserDto first = newDto("first");
+    first.setHomeFacilityId(homeFacility.getId());
+    first.setRoleAssignments(Collections.singleton(
+        new RoleAssignmentDto(adminRole.getId(), null, null, null)));
+    UserDto second = newDto("second");
+
+    when(userRepository.findExistingUsernames(Sets.newHashSet("first", "second")))
+        .thenReturn(Collections.emptySet());
+    when(facilityRepository.findAllById(Collections.singleton(homeFacility.getId())))
+        .thenReturn(Lists.newArrayList(homeFacility));
+    when(roleRepository.findAllById(Collections.singleton(adminRole.getId())))
+        .thenReturn(Lists.newArrayList(adminRole));
+    doAnswer(invocation -> {
+      ((List<User>) invocation.getArgument(0)).forEach(user -> user.setId(UUID.randomUUID()));
+      return null;
+    }).when(batchWriter).persist(anyList());
+
+    List<BatchItemResultDto<UserDto>> results = service.create(Arrays.asList(first, second));
+
+    assertThat(results).extracting(BatchItemResultDto::getStatus)
+        .containsExactly(Status.CREATED, Status.CREATED);
+    UserDto created = results.get(0).getResource();
+    assertThat(created.getId()).isNotNull();
+    assertThat(created.getUsername()).isEqualTo("first");
+    assertThat(created.getRoleAssignments()).hasSize(1);
+
+    verify(batchWriter).lock(UserBatchService.LOCK_NAMESPACE, Arrays.asList("first", "second"));
+
+    ArgumentCaptor<List<MapSqlParameterSource>> rows = ArgumentCaptor.forClass(List.class);
+    verify(batchWriter).insert(eq(UserBatchService.INSERT_ROLE_ASSIGNMENT_SQL), rows.capture());
+    assertThat(rows.getValue()).hasSize(1);
+    assertThat(rows.getValue().get(0).getValue("type")).isEqualTo("direct");
+    assertThat(rows.getValue().get(0).getValue("userId")).isEqualTo(created.getId());
+    verify(resourceVersionService).markChanged(
+        ResourceVersionService.getResourceType(RoleAssignment.class));
+
+    verify(rightAssignmentService).regenerateRightAssignments(Arrays.asList(
+        created.getId(), results.get(1).getResource().getId()));
+  }
+
+  @Test
+  public void shouldRejectUsersWithExistingOrDuplicatedUsernames() {
+    mockMessages();
+    when(userRepository.findExistingUsernames(Sets.newHashSet("existing", "duplicated")))
+        .thenReturn(Collections.singleton("existing"));
+
+    List<BatchItemResultDto<UserDto>> results = service.create(Arrays.asList(
+        newDto("Existing"), newDto("duplicated"), newDto("DUPLICATED")));
+
+    assertFailed(results.get(0), 0, UserMessageKeys.ERROR_USERNAME_DUPLICATED);
+    assertThat(results.get(1).getStatus()).isEqualTo(Status.CREATED);
+    assertFailed(results.get(2), 2, BatchMessageKeys.ERROR_ITEM_DUPLICATED);
+    verify(batchWriter, never()).insert(anyString(), anyList());
+  }
+
+  @Test
+  public void shouldRejectInvalidUsers() {
+    mockMessages();
+    UserDto withId = newDto("withId");
+    withId.setId(UUID.randomUUID());
+    UserDto withoutLastName = newDto("withoutLastName");
+    withoutLastName.setLastName(" ");
+    UserDto withoutRole = newDto("withoutRole");
+    withoutRole.setRoleAssignments(Collections.singleton(new RoleAssignmentDto()));
+
+    List<BatchItemResultDto<UserDto>> results = service.create(Arrays.asList(
+        null, withId, newDto("invalid-name"), withoutLastName, withoutRole));
+
+    assertFailed(results.get(0), 0, UserMessageKeys.ERROR_NULL);
+    assertFailed(results.get(1), 1, UserMessageKeys.ERROR_IMPORT_ID_NOT_ALLOWED);
+    assertFailed(results.get(2), 2, UserMessageKeys.ERROR_USERNAME_INVALID);
+    assertFailed(results.get(3), 3, UserMessageKeys.ERROR_LASTNAME_REQUIRED);
+    assertFailed(results.get(4), 4, UserMessageKeys.ERROR_ROLE_ID_NULL);
+    verify(userRepository, never()).findExistingUsernames(anyCollection());
+    verify(rightAssignmentService).regenerateRightAssignments(Collections.emptyList());
+  }
+
+  @Test
+  public void shouldRejectUsersWithInvalidReferences() {
+    mockMessages();
+    UserDto withoutHomeFacility = newDto("withoutHomeFacility");
+    withoutHomeFacility.setHomeFacilityId(UUID.randomUUID());
+    UserDto withWrongRoleType = newDto("withWrongRoleType");
+    withWrongRoleType.setRoleAssignments(Collections.singleton(
+        new RoleAssignmentDto(adminRole.getId(), UUID.randomUUID(), null, null)));
+
+    when(userRepository.findExistingUsernames(anyCollection()))
+        .thenReturn(Collections.emptySet());
+    when(facilityRepository.findAllById(any())).thenReturn(Collections.emptyList());
+    when(roleRepository.findAllById(Collections.singleton(adminRole.getId())))
+        .thenReturn(Lists.newArrayList(adminRole));
+
+    List<BatchItemResultDto<UserDto>> results = service.create(Arrays.asList(
+        withoutHomeFacility, withWrongRoleType));
+
+    assertFailed(results.get(0), 0, UserMessageKeys.ERROR_HOME_FACILITY_NON_EXISTENT);
+    assertFailed(results.get(1), 1, RoleAssignmentMessageKeys.ERROR_TYPE_NOT_ACCEPTABLE);
+    verify(batchWriter).persist(Collections.emptyList());
+  }
+
+  private UserDto newDto(String username) {
+    UserDto dto = new UserDto();
+    dto.setUsername(username);
+    dto.setFirstName("First");
+    dto.setLastName("Last");
+    return dto;
+  }
+
+  private void mockMessages() {
+    when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(messageService.localize(any(Message.class)))
+        .thenAnswer(invocation -> ((Message) invocation.getArgument(0))
+            .localMessage(messageSource, Locale.ENGLISH));
+  }
+
+  private void assertFailed(BatchItemResultDto<UserDto> result, int index, String key) {
+    assertThat(result.getIndex()).isEqualTo(index);
+    assertThat(result.getStatus()).isEqualTo(Status.FAILED);
+    assertThat(result.getResource()).isNull();
+    assertThat(result.getError().asMessage()).isEqualTo(key);
+  }
+
+}
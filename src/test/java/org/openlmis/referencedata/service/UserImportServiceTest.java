@@ -0,0 +1,292 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.Right;
+import org.openlmis.referencedata.domain.RightType;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.dto.BatchItemResultDto;
+import org.openlmis.referencedata.dto.BatchItemResultDto.Status;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.dto.UserCsvModel;
+import org.openlmis.referencedata.dto.UserDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
+import org.openlmis.referencedata.service.job.JobContext;
+import org.openlmis.referencedata.service.job.JobService;
+import org.openlmis.referencedata.service.job.JobTask;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
+import org.openlmis.referencedata.validate.CsvHeaderValidator;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.parser.CsvParser;
+import org.springframework.context.MessageSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserImportServiceTest {
+
+  @Mock
+  private UserBatchService userBatchService;
+
+  @Mock
+  private BatchWriter batchWriter;
+
+  @Mock
+  private CsvParser csvParser;
+
+  @Mock
+  private CsvHeaderValidator csvHeaderValidator;
+
+  @Mock
+  private RoleRepository roleRepository;
+
+  @Mock
+  private FacilityRepository facilityRepository;
+
+  @Mock
+  private ProgramRepository programRepository;
+
+  @Mock
+  private SupervisoryNodeRepository supervisoryNodeRepository;
+
+  @Mock
+  private MessageService messageService;
+
+  @Mock
+  private MessageSource messageSource;
+
+  @Mock
+  private JobService jobService;
+
+  @Mock
+  private JobContext jobContext;
+
+  @Captor
+  private ArgumentCaptor<JobTask> taskCaptor;
+
+  @Captor
+  private ArgumentCaptor<List<BatchItemResultDto<UserDto>>> resultsCaptor;
+
+  @InjectMocks
+  private UserImportService service;
+
+  private InputStream csv = new ByteArrayInputStream(new byte[0]);
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(service, "maxSize", 3);
+    ReflectionTestUtils.setField(service, "chunkSize", 2);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldBuildOneUserFromAllRowsWithTheSameUsername() throws IOException {
+    Role role = Role.newRole("admin", Right.newRight("adminRight", RightType.SUPERVISION));
+    role.setId(UUID.randomUUID());
+    Program program = new ProgramDataBuilder().withCode("PRG").build();
+    Facility facility = new FacilityDataBuilder().build();
+
+    when(csvParser.read(any(InputStream.class), any(ModelClass.class), any()))
+        .thenReturn(Arrays.asList(
+            newRow("jdoe", null, null, facility.getCode()),
+            newRow("JDOE", "admin", "prg", null),
+            newRow("other", "admin", null, null)));
+    when(roleRepository.findAllByNameIn(Collections.singleton("admin")))
+        .thenReturn(Lists.newArrayList(role));
+    when(facilityRepository.findAllByCodeIn(Collections.singleton(facility.getCode())))
+        .thenReturn(Lists.newArrayList(facility));
+    when(programRepository.findAllByLowerCaseCodeIn(Collections.singleton("prg")))
+        .thenReturn(Lists.newArrayList(program));
+    when(userBatchService.create(anyMap())).thenAnswer(invocation -> created(
+        (Map<Integer, UserDto>) invocation.getArgument(0)));
+
+    List<BatchItemResultDto<UserDto>> results = service.importUsers(csv);
+
+    ArgumentCaptor<Map<Integer, UserDto>> users = ArgumentCaptor.forClass(Map.class);
+    verify(userBatchService).create(users.capture());
+    assertThat(users.getValue()).containsOnlyKeys(0, 2);
+
+    UserDto user = users.getValue().get(0);
+    assertThat(user.getUsername()).isEqualTo("jdoe");
+    assertThat(user.getHomeFacilityId()).isEqualTo(facility.getId());
+    assertThat(user.getRoleAssignments()).containsOnly(
+        new RoleAssignmentDto(role.getId(), program.getId(), null, null));
+    assertThat(users.getValue().get(2).getRoleAssignments()).containsOnly(
+        new RoleAssignmentDto(role.getId(), null, null, null));
+
+    assertThat(results).extracting(BatchItemResultDto::getIndex).containsExactly(0, 2);
+    verify(batchWriter).checkSize(users.getValue().keySet());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldRejectUserWithUnknownReference() throws IOException {
+    mockMessages();
+    when(csvParser.read(any(InputStream.class), any(ModelClass.class), any()))
+        .thenReturn(Arrays.asList(
+            newRow("jdoe", null, null, null),
+            newRow("jdoe", "unknown", null, null)));
+    when(roleRepository.findAllByNameIn(Collections.singleton("unknown")))
+        .thenReturn(Collections.emptyList());
+
+    List<BatchItemResultDto<UserDto>> results = service.importUsers(csv);
+
+    assertThat(results).hasSize(1);
+    assertThat(results.get(0).getIndex()).isEqualTo(0);
+    assertThat(results.get(0).getStatus()).isEqualTo(Status.FAILED);
+    assertThat(results.get(0).getError().asMessage())
+        .isEqualTo(UserMessageKeys.ERROR_IMPORT_REFERENCE_NOT_FOUND);
+    verify(userBatchService, times(0)).create(anyMap());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldRunJobInChunks() {
+    when(userBatchService.create(anyMap())).thenAnswer(invocation -> created(
+        (Map<Integer, UserDto>) invocation.getArgument(0)));
+
+    JobDto queued = submit(newDto("first"), newDto("second"), newDto("third"));
+    taskCaptor.getValue().run(jobContext);
+
+    assertThat(queued.getStatus()).isEqualTo(JobDto.Status.QUEUED);
+    verify(jobContext).setTotal(3);
+    verify(jobContext).advance(2);
+    verify(jobContext).advance(1);
+    verify(jobContext, times(2)).checkCancelled();
+    verify(jobContext).setJsonResult(eq(UserImportService.RESULT_NAME), resultsCaptor.capture());
+    assertThat(resultsCaptor.getValue()).extracting(BatchItemResultDto::getIndex)
+        .containsExactly(0, 1, 2);
+    verify(userBatchService, times(2)).create(anyMap());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldKeepResultsOfFinishedChunksIfJobFails() {
+    IllegalStateException exception = new IllegalStateException("connection lost");
+    when(userBatchService.create(anyMap()))
+        .thenAnswer(invocation -> created((Map<Integer, UserDto>) invocation.getArgument(0)))
+        .thenThrow(exception);
+
+    submit(newDto("first"), newDto("second"), newDto("third"));
+
+    assertThatThrownBy(() -> taskCaptor.getValue().run(jobContext)).isSameAs(exception);
+    verify(jobContext).advance(2);
+    verify(jobContext).setJsonResult(eq(UserImportService.RESULT_NAME), resultsCaptor.capture());
+    assertThat(resultsCaptor.getValue()).hasSize(2);
+  }
+
+  @Test
+  public void shouldNotImportChunksAfterJobIsCancelled() {
+    doThrow(new IllegalStateException()).when(jobContext).checkCancelled();
+
+    submit(newDto("first"), newDto("second"), newDto("third"));
+
+    assertThatThrownBy(() -> taskCaptor.getValue().run(jobContext))
+        .isInstanceOf(IllegalStateException.class);
+    verifyZeroInteractions(userBatchService);
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldNotSubmitTooLargeJob() {
+    service.submit(Arrays.asList(newDto("a"), newDto("b"), newDto("c"), newDto("d")));
+  }
+
+  private JobDto submit(UserDto... users) {
+    JobDto job = new JobDto();
+    job.setType(JobType.USER_IMPORT);
+    job.setStatus(JobDto.Status.QUEUED);
+    when(jobService.submit(eq(JobType.USER_IMPORT), taskCaptor.capture())).thenReturn(job);
+
+    return service.submit(Arrays.asList(users));
+  }
+
+  private List<BatchItemResultDto<UserDto>> created(Map<Integer, UserDto> users) {
+    return users
+        .entrySet()
+        .stream()
+        .map(entry -> BatchItemResultDto.created(entry.getKey(), entry.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  private UserCsvModel newRow(String username, String role, String programCode,
+      String homeFacilityCode) {
+    UserCsvModel row = new UserCsvModel();
+    row.setUsername(username);
+    row.setFirstName("First");
+    row.setLastName("Last");
+    row.setRole(role);
+    row.setProgramCode(programCode);
+    row.setHomeFacilityCode(homeFacilityCode);
+    return row;
+  }
+
+  private UserDto newDto(String username) {
+    UserDto dto = new UserDto();
+    dto.setUsername(username);
+    return dto;
+  }
+
+  private void mockMessages() {
+    when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(messageService.localize(any(Message.class)))
+        .thenAnswer(invocation -> ((Message) invocation.getArgument(0))
+            .localMessage(messageSource, Locale.ENGLISH));
+  }
+
+}
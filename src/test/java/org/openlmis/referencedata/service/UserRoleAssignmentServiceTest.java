@@ -0,0 +1,189 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.DirectRoleAssignment;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FulfillmentRoleAssignment;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.Right;
+import org.openlmis.referencedata.domain.RightAssignment;
+import org.openlmis.referencedata.domain.RightType;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.domain.SupervisionRoleAssignment;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.dto.RoleAssignmentDto;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.repository.FacilityRepository;
+import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
+import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.testbuilder.UserDataBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserRoleAssignmentServiceTest {
+
+  @Mock
+  private RoleRepository roleRepository;
+
+  @Mock
+  private ProgramRepository programRepository;
+
+  @Mock
+  private SupervisoryNodeRepository supervisoryNodeRepository;
+
+  @Mock
+  private FacilityRepository facilityRepository;
+
+  @InjectMocks
+  private UserRoleAssignmentService service;
+
+  private User user;
+  private Role adminRole;
+  private Role supervisionRole;
+  private Role fulfillmentRole;
+  private Program program;
+  private Facility warehouse;
+
+  @Before
+  public void setUp() {
+    user = new UserDataBuilder().withHomeFacilityId(UUID.randomUUID()).build();
+
+    adminRole = Role.newRole("admin", Right.newRight("adminRight", RightType.GENERAL_ADMIN));
+    adminRole.setId(UUID.randomUUID());
+    supervisionRole = Role.newRole("supervision",
+        Right.newRight("supervisionRight", RightType.SUPERVISION));
+    supervisionRole.setId(UUID.randomUUID());
+    fulfillmentRole = Role.newRole("fulfillment",
+        Right.newRight("fulfillmentRight", RightType.ORDER_FULFILLMENT));
+    fulfillmentRole.setId(UUID.randomUUID());
+
+    program = new ProgramDataBuilder().build();
+    warehouse = new FacilityDataBuilder().build();
+  }
+
+  @Test
+  public void shouldKeepUnchangedAssignmentsAndApplyOnlyTheDifference() {
+    RoleAssignment kept = new DirectRoleAssignment(adminRole, user);
+    RoleAssignment removed = new SupervisionRoleAssignment(supervisionRole, user, program);
+    user.assignRoles(kept, removed);
+    RightAssignment keptRight = findRightAssignment("adminRight");
+
+    when(roleRepository.findAllById(Sets.newHashSet(adminRole.getId(), fulfillmentRole.getId())))
+        .thenReturn(Lists.newArrayList(adminRole, fulfillmentRole));
+    when(facilityRepository.findAllById(Collections.singleton(warehouse.getId())))
+        .thenReturn(Lists.newArrayList(warehouse));
+
+    service.updateRoleAssignments(user, Sets.newHashSet(
+        new RoleAssignmentDto(adminRole.getId(), null, null, null),
+        new RoleAssignmentDto(fulfillmentRole.getId(), null, null, warehouse.getId())), false);
+
+    assertThat(user.getRoleAssignments())
+        .hasSize(2)
+        .contains(kept, new FulfillmentRoleAssignment(fulfillmentRole, user, warehouse));
+    assertThat(user.getRoleAssignments().stream().filter(kept::equals).findFirst().get())
+        .isSameAs(kept);
+    assertThat(user.getRightAssignments()).containsOnly(
+        new RightAssignment(user, "adminRight"),
+        new RightAssignment(user, "fulfillmentRight", warehouse.getId()));
+    assertThat(findRightAssignment("adminRight")).isSameAs(keptRight);
+    verify(programRepository, never()).findAllById(any());
+    verify(supervisoryNodeRepository, never()).findAllById(any());
+  }
+
+  @Test
+  public void shouldNotChangeAnythingIfAssignmentsAreTheSame() {
+    RoleAssignment assignment = new SupervisionRoleAssignment(supervisionRole, user, program);
+    user.assignRoles(assignment);
+    RightAssignment rightAssignment = findRightAssignment("supervisionRight");
+
+    when(roleRepository.findAllById(Collections.singleton(supervisionRole.getId())))
+        .thenReturn(Lists.newArrayList(supervisionRole));
+
+    service.updateRoleAssignments(user, Collections.singleton(
+        new RoleAssignmentDto(supervisionRole.getId(), program.getId(), null, UUID.randomUUID())),
+        false);
+
+    assertThat(user.getRoleAssignments()).containsExactly(assignment);
+    assertThat(user.getRightAssignments()).containsExactly(rightAssignment);
+    verify(programRepository, never()).findAllById(any());
+    verify(facilityRepository, never()).findAllById(any());
+  }
+
+  @Test
+  public void shouldRecalculateRightAssignmentsIfHomeFacilityChanged() {
+    user.assignRoles(new SupervisionRoleAssignment(supervisionRole, user, program));
+    UUID homeFacilityId = UUID.randomUUID();
+    user.setHomeFacilityId(homeFacilityId);
+
+    when(roleRepository.findAllById(Collections.singleton(supervisionRole.getId())))
+        .thenReturn(Lists.newArrayList(supervisionRole));
+
+    service.updateRoleAssignments(user, Collections.singleton(
+        new RoleAssignmentDto(supervisionRole.getId(), program.getId(), null, null)), true);
+
+    assertThat(user.getRightAssignments()).containsExactly(
+        new RightAssignment(user, "supervisionRight", homeFacilityId, program.getId()));
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionIfRoleIdIsMissing() {
+    service.updateRoleAssignments(user, Collections.singleton(new RoleAssignmentDto()), false);
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionIfRoleDoesNotExist() {
+    service.updateRoleAssignments(user, Collections.singleton(
+        new RoleAssignmentDto(adminRole.getId(), null, null, null)), false);
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionIfRoleHasNoRights() {
+    Role role = Role.newRole("empty");
+    role.setId(UUID.randomUUID());
+    when(roleRepository.findAllById(Collections.singleton(role.getId())))
+        .thenReturn(Lists.newArrayList(role));
+
+    service.updateRoleAssignments(user, Collections.singleton(
+        new RoleAssignmentDto(role.getId(), null, null, null)), false);
+  }
+
+  private RightAssignment findRightAssignment(String rightName) {
+    return user.getRightAssignments().stream()
+        .filter(assignment -> rightName.equals(assignment.getRightName()))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+  }
+}
@@ -20,7 +20,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -30,7 +29,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -121,41 +119,21 @@ public class UserServiceTest {
   @Test
   public void searchUsersShouldUseExtraDataString() {
     when(userRepository
-        .searchUsers(any(UserSearchParams.class), any(List.class), any(Pageable.class)))
+        .searchUsers(any(UserSearchParams.class), any(String.class), any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), PageRequest.of(0, 2), 2));
 
     userSearch.setExtraData(extraData);
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(Arrays.asList(user, user2));
 
     Page<User> receivedUsers = userService.searchUsers(userSearch, pageable);
 
     assertEquals(2, receivedUsers.getContent().size());
-    verify(userRepository).findByExtraData(extraDataString);
-    verify(userRepository).searchUsers(userSearch, Arrays.asList(user, user2), pageable);
-  }
-
-  @Test
-  public void searchUsersShouldReturnEmptyPageIfExtraDataSearchReturnedNoResults() {
-    when(userRepository
-        .searchUsers(any(UserSearchParams.class), any(List.class), any(Pageable.class)))
-        .thenReturn(Pagination.getPage(Arrays.asList(user, user2), PageRequest.of(0, 2), 2));
-
-    userSearch.setExtraData(extraData);
-
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(Collections.emptyList());
-
-    Page<User> receivedUsers = userService.searchUsers(userSearch, pageable);
-
-    assertEquals(0, receivedUsers.getContent().size());
-    verify(userRepository).findByExtraData(extraDataString);
-    verify(userRepository, never())
-        .searchUsers(any(UserSearchParams.class), any(List.class), any(Pageable.class));
+    verify(userRepository).searchUsers(userSearch, extraDataString, pageable);
   }
 
   @Test
   public void searchUsersShouldNotSearchExtraDataIfParameterIsNullOrEmpty() {
     when(userRepository
-        .searchUsers(any(UserSearchParams.class), nullable(List.class), any(Pageable.class)))
+        .searchUsers(any(UserSearchParams.class), nullable(String.class), any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), PageRequest.of(0, 2), 2));
 
     Page<User> receivedUsers = userService.searchUsers(userSearch, pageable);
@@ -163,14 +141,13 @@ public class UserServiceTest {
     assertEquals(2, receivedUsers.getContent().size());
     assertTrue(receivedUsers.getContent().contains(user));
     assertTrue(receivedUsers.getContent().contains(user2));
-    verify(userRepository, never()).findByExtraData(any(String.class));
     verify(userRepository).searchUsers(userSearch, null, pageable);
   }
 
   @Test
   public void searchUsersShouldSearchByAllParameters() {
     when(userRepository
-        .searchUsers(any(UserSearchParams.class), any(List.class), any(Pageable.class)))
+        .searchUsers(any(UserSearchParams.class), any(String.class), any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), PageRequest.of(0, 2), 2));
 
     UserSearchParams searchParams = new UserSearchParamsDataBuilder()
@@ -182,15 +159,12 @@ public class UserServiceTest {
     when(facilityRepository.findById(searchParams.getHomeFacilityUuid()))
         .thenReturn(Optional.of(homeFacility));
 
-    List<User> foundUsers = Arrays.asList(user, user2);
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(foundUsers);
-
     Page<User> receivedUsers = userService.searchUsers(searchParams, pageable);
 
     assertEquals(2, receivedUsers.getContent().size());
     assertTrue(receivedUsers.getContent().contains(user));
     assertTrue(receivedUsers.getContent().contains(user2));
-    verify(userRepository).searchUsers(searchParams, foundUsers, pageable);
+    verify(userRepository).searchUsers(searchParams, extraDataString, pageable);
   }
 
   @Test
@@ -0,0 +1,286 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+
+package org.openlmis.referencedata.service.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.JobType;
+import org.openlmis.referencedata.dto.JobDto;
+import org.openlmis.referencedata.dto.JobDto.Status;
+import org.openlmis.referencedata.exception.NotFoundException;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.i18n.MessageService;
+import org.openlmis.referencedata.service.job.JobContext.ResultContent;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.messagekeys.JobMessageKeys;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.MessageSource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobServiceTest {
+
+  private static final Instant NOW = Instant.parse("2026-10-01T00:00:00Z");
+  private static final String RESULT_NAME = "result.csv";
+  private static final String ERROR_KEY = "referenceData.error.test";
+
+  @Mock
+  private JobStore jobStore;
+
+  @Mock
+  private JobResultStore jobResultStore;
+
+  @Mock
+  private MessageService messageService;
+
+  @Mock
+  private MessageSource messageSource;
+
+  @Mock
+  private ObjectProvider<MeterRegistry> meterRegistry;
+
+  @InjectMocks
+  private JobService jobService;
+
+  @Captor
+  private ArgumentCaptor<JobDto> jobCaptor;
+
+  private MeterRegistry registry = new SimpleMeterRegistry();
+  private Deque<Runnable> tasks = new ArrayDeque<>();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(jobService, "jobTaskExecutor", (TaskExecutor) tasks::add);
+    ReflectionTestUtils.setField(jobService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+    ReflectionTestUtils.setField(jobService, "workers", 3);
+    ReflectionTestUtils.setField(jobService, "queueCapacity", 10);
+    ReflectionTestUtils.setField(jobService, "concurrencyLimits", "DATA_IMPORT=1");
+    ReflectionTestUtils.setField(jobService, "timeout", 60000L);
+
+    when(meterRegistry.getIfAvailable()).thenReturn(registry);
+    lenient().when(jobStore.find(any(UUID.class)))
+        .thenAnswer(invocation -> Optional.of(newJob((UUID) invocation.getArgument(0))));
+    lenient().when(jobStore.start(any(UUID.class), any(ZonedDateTime.class))).thenReturn(true);
+
+    jobService.init();
+  }
+
+  @Test
+  public void shouldRunJobAndStoreItsResult() throws Exception {
+    JobDto queued = jobService.submit(JobType.DATA_EXPORT, context -> {
+      context.setTotal(2);
+      context.advance(2);
+      context.setResult(RESULT_NAME, "text/csv", output -> output.write(1));
+    });
+    when(jobResultStore.write(eq(queued.getId()), any(ResultContent.class))).thenReturn(1L);
+
+    verify(jobStore).insert(eq(queued.getId()), eq(JobType.DATA_EXPORT), isNull(),
+        any(ZonedDateTime.class));
+    assertThat(tasks).hasSize(1);
+
+    tasks.poll().run();
+
+    JobDto finished = getFinishedJob();
+    assertThat(finished.getStatus()).isEqualTo(Status.COMPLETED);
+    assertThat(finished.getTotal()).isEqualTo(2);
+    assertThat(finished.getProcessed()).isEqualTo(2);
+    assertThat(finished.getError()).isNull();
+    assertThat(finished.getResult().getName()).isEqualTo(RESULT_NAME);
+    assertThat(finished.getResult().getSize()).isEqualTo(1);
+    assertThat(registry.get("jobs.duration").tag("status", "COMPLETED").timer().count())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void shouldMarkJobAsFailedIfTaskThrowsException() {
+    mockMessages();
+
+    jobService.submit(JobType.DATA_EXPORT, context -> {
+      throw new ValidationMessageException(new Message(ERROR_KEY));
+    });
+    tasks.poll().run();
+
+    JobDto finished = getFinishedJob();
+    assertThat(finished.getStatus()).isEqualTo(Status.FAILED);
+    assertThat(finished.getError().getMessageKey()).isEqualTo(ERROR_KEY);
+  }
+
+  @Test
+  public void shouldLimitConcurrentJobsOfOneType() {
+    jobService.submit(JobType.DATA_IMPORT, context -> { });
+    jobService.submit(JobType.DATA_IMPORT, context -> { });
+    jobService.submit(JobType.DATA_EXPORT, context -> { });
+
+    assertThat(tasks).hasSize(2);
+    assertThat(getGauge("jobs.queued", JobType.DATA_IMPORT)).isEqualTo(1);
+    assertThat(getGauge("jobs.running", JobType.DATA_IMPORT)).isEqualTo(1);
+
+    tasks.poll().run();
+
+    assertThat(tasks).hasSize(2);
+    assertThat(getGauge("jobs.queued", JobType.DATA_IMPORT)).isZero();
+  }
+
+  @Test
+  public void shouldRejectJobIfQueueIsFull() {
+    ReflectionTestUtils.setField(jobService, "workers", 1);
+    ReflectionTestUtils.setField(jobService, "queueCapacity", 1);
+
+    jobService.submit(JobType.DATA_EXPORT, context -> { });
+    jobService.submit(JobType.DATA_EXPORT, context -> { });
+
+    assertThatThrownBy(() -> jobService.submit(JobType.DATA_EXPORT, context -> { }))
+        .isInstanceOf(ValidationMessageException.class)
+        .hasMessageContaining(JobMessageKeys.ERROR_QUEUE_FULL);
+    assertThat(registry.get("jobs.rejected").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldCancelQueuedJobAtOnce() {
+    ReflectionTestUtils.setField(jobService, "workers", 1);
+
+    jobService.submit(JobType.DATA_EXPORT, context -> { });
+    JobDto queued = jobService.submit(JobType.DATA_EXPORT, context -> { });
+
+    jobService.cancel(queued.getId());
+
+    verify(jobStore).requestCancel(queued.getId());
+    JobDto finished = getFinishedJob();
+    assertThat(finished.getId()).isEqualTo(queued.getId());
+    assertThat(finished.getStatus()).isEqualTo(Status.CANCELLED);
+
+    tasks.poll().run();
+
+    assertThat(tasks).isEmpty();
+  }
+
+  @Test
+  public void shouldStopRunningJobWhenItChecksCancellation() {
+    AtomicReference<UUID> id = new AtomicReference<>();
+    AtomicBoolean continued = new AtomicBoolean();
+    id.set(jobService.submit(JobType.DATA_EXPORT, context -> {
+      jobService.cancel(id.get());
+      context.checkCancelled();
+      continued.set(true);
+    }).getId());
+
+    tasks.poll().run();
+
+    assertThat(continued).isFalse();
+    assertThat(getFinishedJob().getStatus()).isEqualTo(Status.CANCELLED);
+  }
+
+  @Test
+  public void shouldCancelJobCancelledThroughAnotherInstanceDuringMaintenance() {
+    AtomicBoolean started = new AtomicBoolean();
+    JobDto job = jobService.submit(JobType.DATA_EXPORT, context -> started.set(true));
+    when(jobStore.heartbeat(anyCollection(), any(ZonedDateTime.class)))
+        .thenReturn(Collections.singletonList(job.getId()));
+    mockMessages();
+
+    jobService.maintain();
+    tasks.poll().run();
+
+    assertThat(started).isFalse();
+    assertThat(getFinishedJob().getStatus()).isEqualTo(Status.CANCELLED);
+    verify(jobStore).interrupt(eq(ZonedDateTime.ofInstant(NOW, ZoneOffset.UTC).minusMinutes(1)),
+        any(), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldEstimateFinishDateOfRunningJob() {
+    JobDto running = newJob(UUID.randomUUID());
+    running.setStatus(Status.RUNNING);
+    running.setStartedDate(ZonedDateTime.ofInstant(NOW, ZoneOffset.UTC).minusSeconds(10));
+    running.setTotal(4L);
+    running.setProcessed(1);
+    when(jobStore.find(running.getId())).thenReturn(Optional.of(running));
+
+    JobDto job = jobService.getJob(running.getId());
+
+    assertThat(job.getProgress()).isEqualTo(25.0);
+    assertThat(job.getEstimatedFinishDate())
+        .isEqualTo(ZonedDateTime.ofInstant(NOW, ZoneOffset.UTC).plusSeconds(30));
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void shouldThrowExceptionIfJobDoesNotExist() {
+    UUID id = UUID.randomUUID();
+    when(jobStore.find(id)).thenReturn(Optional.empty());
+
+    jobService.getJob(id);
+  }
+
+  private JobDto getFinishedJob() {
+    verify(jobStore).finish(jobCaptor.capture(), any(ZonedDateTime.class));
+    return jobCaptor.getValue();
+  }
+
+  private void mockMessages() {
+    when(messageSource.getMessage(anyString(), any(), any(Locale.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+    when(messageService.localize(any(Message.class)))
+        .thenAnswer(invocation -> ((Message) invocation.getArgument(0))
+            .localMessage(messageSource, Locale.ENGLISH));
+  }
+
+  private double getGauge(String name, JobType type) {
+    return registry.get(name).tag("type", type.name()).gauge().value();
+  }
+
+  private JobDto newJob(UUID id) {
+    JobDto job = new JobDto();
+    job.setId(id);
+    job.setType(JobType.DATA_EXPORT);
+    job.setStatus(Status.QUEUED);
+    job.setCreatedDate(ZonedDateTime.ofInstant(NOW, ZoneOffset.UTC));
+    return job;
+  }
+
+}
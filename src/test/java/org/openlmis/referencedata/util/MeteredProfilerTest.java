@@ -0,0 +1,110 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openlmis.referencedata.util.ProfilerMetrics.PROFILER_TAG;
+import static org.openlmis.referencedata.util.ProfilerMetrics.STAGE_TAG;
+import static org.openlmis.referencedata.util.ProfilerMetrics.TIMER_NAME;
+import static org.openlmis.referencedata.util.ProfilerMetrics.TOTAL_STAGE;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.profiler.Profiler;
+
+public class MeteredProfilerTest {
+
+  private static final String PROFILER_NAME = "TEST_PROFILER";
+
+  private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Before
+  public void setUp() {
+    ProfilerMetrics.configure(registry, 1, false, true);
+  }
+
+  @After
+  public void tearDown() {
+    ProfilerMetrics.configure(null, 0, false, true);
+  }
+
+  @Test
+  public void shouldRecordEachStageAndTotal() {
+    Profiler profiler = new MeteredProfiler(PROFILER_NAME);
+    profiler.start("FIRST");
+    profiler.start("SECOND");
+    profiler.stop();
+
+    assertThat(getTimer("FIRST").count()).isEqualTo(1);
+    assertThat(getTimer("SECOND").count()).isEqualTo(1);
+    assertThat(getTimer(TOTAL_STAGE).count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldReuseTimersForSubsequentRuns() {
+    for (int i = 0; i < 3; ++i) {
+      Profiler profiler = new MeteredProfiler(PROFILER_NAME);
+      profiler.start("FIRST");
+      profiler.stop();
+    }
+
+    assertThat(getTimer("FIRST").count()).isEqualTo(3);
+    assertThat(registry.find(TIMER_NAME).timers()).hasSize(2);
+  }
+
+  @Test
+  public void shouldRecordOnlyOnceIfStoppedTwice() {
+    Profiler profiler = new MeteredProfiler(PROFILER_NAME);
+    profiler.start("FIRST");
+    profiler.stop();
+    profiler.stop();
+
+    assertThat(getTimer(TOTAL_STAGE).count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldNotRecordIfSamplingIsOff() {
+    ProfilerMetrics.configure(registry, 0, false, true);
+
+    Profiler profiler = new MeteredProfiler(PROFILER_NAME);
+    profiler.start("FIRST");
+    profiler.stop();
+
+    assertThat(registry.getMeters()).isEmpty();
+  }
+
+  @Test
+  public void shouldNotRecordIfRegistryIsNotSet() {
+    ProfilerMetrics.configure(null, 1, false, true);
+
+    Profiler profiler = new MeteredProfiler(PROFILER_NAME);
+    profiler.start("FIRST");
+    profiler.stop();
+
+    assertThat(registry.getMeters()).isEmpty();
+  }
+
+  private Timer getTimer(String stage) {
+    return registry
+        .get(TIMER_NAME)
+        .tag(PROFILER_TAG, PROFILER_NAME)
+        .tag(STAGE_TAG, stage)
+        .timer();
+  }
+}
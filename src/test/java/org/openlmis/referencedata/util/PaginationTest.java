@@ -0,0 +1,142 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+
+public class PaginationTest {
+
+  private static final int SIZE = 95;
+
+  private final List<Integer> list = IntStream.range(0, SIZE).boxed()
+      .collect(Collectors.toList());
+  private final AtomicInteger conversions = new AtomicInteger();
+  private final Function<Integer, String> mapper = value -> {
+    conversions.incrementAndGet();
+    return String.valueOf(value);
+  };
+
+  @Test
+  public void shouldSliceList() {
+    Page<Integer> page = Pagination.getPage(list, PageRequest.of(1, 10));
+
+    assertThat(page.getContent()).containsExactly(10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void shouldReturnEmptyPageIfListIsTooShort() {
+    Page<Integer> page = Pagination.getPage(list, PageRequest.of(10, 10));
+
+    assertThat(page.getContent()).isEmpty();
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void shouldReturnAllElementsIfPageableIsNotGiven() {
+    Set<Integer> set = new LinkedHashSet<>(list);
+
+    assertThat(Pagination.getPage(set).getContent()).isEqualTo(list);
+    assertThat(Pagination.getPage(list, null).getContent()).isEqualTo(list);
+    assertThat(Pagination.getPage(set, null, mapper).getTotalElements()).isEqualTo(SIZE);
+  }
+
+  @Test
+  public void shouldConvertOnlyElementsOnPageOfList() {
+    Page<String> page = Pagination.getPage(list, PageRequest.of(9, 10), mapper);
+
+    assertThat(page.getContent()).containsExactly("90", "91", "92", "93", "94");
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+    assertThat(page.isLast()).isTrue();
+    assertThat(conversions.get()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldConvertOnlyElementsOnPageOfCollection() {
+    Page<String> page = Pagination.getPage(new LinkedList<>(list), PageRequest.of(2, 10), mapper);
+
+    assertThat(page.getContent()).containsExactly("20", "21", "22", "23", "24", "25", "26",
+        "27", "28", "29");
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+    assertThat(conversions.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldCountElementsOfIterable() {
+    Iterable<Integer> iterable = () -> list.iterator();
+
+    Page<String> page = Pagination.getPage(iterable, PageRequest.of(0, 10), mapper);
+
+    assertThat(page.getContent()).hasSize(10);
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+    assertThat(page.getTotalPages()).isEqualTo(10);
+    assertThat(conversions.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldPageStream() {
+    Page<String> page = Pagination.getPage(list.stream(), PageRequest.of(3, 20), mapper);
+
+    assertThat(page.getContent()).hasSize(20).startsWith("60");
+    assertThat(page.getTotalElements()).isEqualTo(SIZE);
+    assertThat(conversions.get()).isEqualTo(20);
+  }
+
+  @Test
+  public void shouldSliceStreamWithoutReadingPastNextElement() {
+    List<Integer> read = new ArrayList<>();
+    Stream<Integer> stream = list.stream().peek(read::add);
+
+    Slice<String> slice = Pagination.getSlice(stream, PageRequest.of(1, 10), mapper);
+
+    assertThat(slice.getContent()).containsExactly("10", "11", "12", "13", "14", "15", "16",
+        "17", "18", "19");
+    assertThat(slice.hasNext()).isTrue();
+    assertThat(read).hasSize(21);
+    assertThat(conversions.get()).isEqualTo(10);
+  }
+
+  @Test
+  public void shouldReturnLastSliceOfStream() {
+    Slice<String> slice = Pagination.getSlice(list.stream(), PageRequest.of(9, 10), mapper);
+
+    assertThat(slice.getContent()).containsExactly("90", "91", "92", "93", "94");
+    assertThat(slice.hasNext()).isFalse();
+  }
+
+  @Test
+  public void shouldReturnWholeStreamAsSliceIfPageableIsNotGiven() {
+    Slice<String> slice = Pagination.getSlice(list.stream(), null, mapper);
+
+    assertThat(slice.getContent()).hasSize(SIZE);
+    assertThat(slice.hasNext()).isFalse();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PerformanceDataGeneratorTest {
+
+  private static final long SEED = 42;
+  private static final double SCALE = 0.01;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldWriteAllTables() throws IOException {
+    Path directory = generate(SEED);
+
+    assertThat(PerformanceDataGenerator.exists(directory)).isTrue();
+    assertThat(read(directory, "facilities")).hasSize(200);
+    assertThat(read(directory, "users")).hasSize(1_000);
+    assertThat(read(directory, "ideal_stock_amounts")).hasSize(200
+        * PerformanceDataGenerator.COMMODITY_TYPES
+        * PerformanceDataGenerator.IDEAL_STOCK_AMOUNT_PERIODS);
+  }
+
+  @Test
+  public void shouldNotFindDataInEmptyDirectory() throws IOException {
+    assertThat(PerformanceDataGenerator.exists(folder.newFolder().toPath())).isFalse();
+  }
+
+  @Test
+  public void shouldGenerateSameDataForSameSeed() throws IOException {
+    Path first = generate(SEED);
+    Path second = generate(SEED);
+
+    for (String table : PerformanceDataGenerator.TABLES) {
+      assertThat(PerformanceDataGenerator.getFile(second, table))
+          .hasSameContentAs(PerformanceDataGenerator.getFile(first, table));
+    }
+  }
+
+  @Test
+  public void shouldGenerateDifferentDataForDifferentSeed() throws IOException {
+    Path first = generate(SEED);
+    Path second = generate(SEED + 1);
+
+    assertThat(getColumn(read(second, "facilities"), "id"))
+        .doesNotContainAnyElementsOf(getColumn(read(first, "facilities"), "id"));
+  }
+
+  @Test
+  public void shouldReferenceGeneratedRows() throws IOException {
+    Path directory = generate(SEED);
+
+    Set<String> zones = getColumn(read(directory, "geographic_zones"), "id");
+    Set<String> facilities = getColumn(read(directory, "facilities"), "id");
+    Set<String> orderables = getColumn(read(directory, "orderables"), "id");
+    Set<String> nodes = getColumn(read(directory, "supervisory_nodes"), "id");
+
+    assertThat(zones).containsAll(getColumn(read(directory, "facilities"), "geographiczoneid"));
+    assertThat(facilities)
+        .containsAll(getColumn(read(directory, "supervisory_nodes"), "facilityid"));
+    assertThat(orderables).containsAll(
+        getColumn(read(directory, "facility_type_approved_products"), "orderableid"));
+    assertThat(nodes).containsAll(getColumn(read(directory, "role_assignments"),
+        "supervisorynodeid").stream().filter(id -> !id.isEmpty()).collect(toSet()));
+    assertThat(facilities).containsAll(getColumn(read(directory, "users"), "homefacilityid"));
+  }
+
+  @Test
+  public void shouldPutEveryFacilityInOneRequisitionGroup() throws IOException {
+    Path directory = generate(SEED);
+
+    List<String> members = read(directory, "requisition_group_members")
+        .stream()
+        .map(record -> record.get("facilityid"))
+        .collect(toList());
+
+    assertThat(members)
+        .doesNotHaveDuplicates()
+        .containsExactlyInAnyOrderElementsOf(getColumn(read(directory, "facilities"), "id"));
+  }
+
+  @Test
+  public void shouldKeepOnlyLatestApprovedProductVersionActive() throws IOException {
+    Path directory = generate(SEED);
+
+    Map<String, List<CSVRecord>> versions = read(directory, "facility_type_approved_products")
+        .stream()
+        .collect(groupingBy(record -> record.get("id")));
+
+    versions.values().forEach(records -> {
+      CSVRecord latest = records.get(records.size() - 1);
+
+      assertThat(latest.get("versionnumber")).isEqualTo(String.valueOf(records.size()));
+      assertThat(records.stream().filter(record -> "true".equals(record.get("active"))))
+          .containsExactly(latest);
+    });
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNonPositiveScale() {
+    new PerformanceDataGenerator(SEED, 0);
+  }
+
+  private Path generate(long seed) throws IOException {
+    Path directory = folder.newFolder().toPath();
+    new PerformanceDataGenerator(seed, SCALE).generate(directory);
+    return directory;
+  }
+
+  private List<CSVRecord> read(Path directory, String table) throws IOException {
+    Path file = PerformanceDataGenerator.getFile(directory, table);
+
+    try (CSVParser parser = CSVFormat.DEFAULT
+        .withFirstRecordAsHeader()
+        .parse(Files.newBufferedReader(file, UTF_8))) {
+      return parser.getRecords();
+    }
+  }
+
+  private Set<String> getColumn(List<CSVRecord> records, String column) {
+    return records
+        .stream()
+        .map(record -> record.get(column))
+        .collect(toSet());
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.openlmis.referencedata.util.ReplicaRoutingDataSource.PRIMARY;
+
+import com.google.common.collect.ImmutableMap;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReplicaRoutingDataSourceTest {
+
+  private static final String FIRST = "replica-1";
+  private static final String SECOND = "replica-2";
+  private static final long MAX_LAG = 1000;
+
+  @Mock
+  private DataSource primary;
+
+  @Mock
+  private DataSource firstReplica;
+
+  @Mock
+  private DataSource secondReplica;
+
+  private ReplicaRoutingDataSource dataSource;
+
+  @Before
+  public void setUp() {
+    dataSource = new ReplicaRoutingDataSource(primary,
+        ImmutableMap.of(FIRST, firstReplica, SECOND, secondReplica), MAX_LAG, 1000);
+  }
+
+  @After
+  public void tearDown() {
+    ReplicaRoutingDataSource.clearRoute();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+  }
+
+  @Test
+  public void shouldRouteRequestsToReplicas() {
+    dataSource.updateReplicationLag(FIRST, 0);
+    dataSource.updateReplicationLag(SECOND, 0);
+
+    assertThat(routeRequestToReplica()).isEqualTo(FIRST);
+    assertThat(routeRequestToReplica()).isEqualTo(SECOND);
+    assertThat(routeRequestToReplica()).isEqualTo(FIRST);
+  }
+
+  @Test
+  public void shouldRouteOtherWorkToPrimary() {
+    dataSource.updateReplicationLag(FIRST, 0);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+  }
+
+  @Test
+  public void shouldRouteReadOnlyTransactionsOutsideOfRequestsToPrimary() {
+    dataSource.updateReplicationLag(FIRST, 0);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+  }
+
+  @Test
+  public void shouldNotUseReplicasBeforeTheirLagIsChecked() {
+    assertThat(routeRequestToReplica()).isEqualTo(PRIMARY);
+  }
+
+  @Test
+  public void shouldSkipReplicasBehindMaxLag() {
+    dataSource.updateReplicationLag(FIRST, MAX_LAG + 1);
+    dataSource.updateReplicationLag(SECOND, MAX_LAG);
+
+    assertThat(routeRequestToReplica()).isEqualTo(SECOND);
+    assertThat(routeRequestToReplica()).isEqualTo(SECOND);
+
+    dataSource.updateReplicationLag(SECOND, Long.MAX_VALUE);
+
+    assertThat(routeRequestToReplica()).isEqualTo(PRIMARY);
+  }
+
+  @Test
+  public void shouldKeepRequestOnTheSameReplica() {
+    dataSource.updateReplicationLag(FIRST, 0);
+    dataSource.updateReplicationLag(SECOND, 0);
+    ReplicaRoutingDataSource.routeToReplica();
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(FIRST);
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(FIRST);
+
+    dataSource.updateReplicationLag(FIRST, MAX_LAG + 1);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+
+    dataSource.updateReplicationLag(FIRST, 0);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+  }
+
+  @Test
+  public void shouldSkipReplicasIfPrimaryPositionCanNotBeChecked() throws Exception {
+    dataSource.updateReplicationLag(FIRST, 0);
+    given(primary.getConnection()).willThrow(new SQLException("connection refused"));
+
+    dataSource.checkReplicationLag();
+
+    assertThat(routeRequestToReplica()).isEqualTo(PRIMARY);
+    verifyZeroInteractions(firstReplica, secondReplica);
+  }
+
+  @Test
+  public void shouldRouteRequestToPrimaryEvenInReadOnlyTransactions() {
+    dataSource.updateReplicationLag(FIRST, 0);
+    ReplicaRoutingDataSource.routeToPrimary();
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(dataSource.determineCurrentLookupKey()).isEqualTo(PRIMARY);
+  }
+
+  private Object routeRequestToReplica() {
+    ReplicaRoutingDataSource.routeToReplica();
+    return dataSource.determineCurrentLookupKey();
+  }
+}
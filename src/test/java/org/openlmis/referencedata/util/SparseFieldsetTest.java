@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.assertj.core.api.Assertions.entry;
+import static org.openlmis.referencedata.util.messagekeys.SparseFieldsetMessageKeys.ERROR_INVALID;
+import static org.openlmis.referencedata.util.messagekeys.SparseFieldsetMessageKeys.ERROR_REQUIRED;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+
+public class SparseFieldsetTest {
+
+  private static final Map<String, String> AVAILABLE = SparseFieldset
+      .availableFields("id", "code=code.code", "zone.name=geographicZone.name", "zone.id");
+
+  @Test
+  public void shouldMapAvailableFieldsToAttributePaths() {
+    assertThat(AVAILABLE)
+        .containsEntry("id", "id")
+        .containsEntry("code", "code.code")
+        .containsEntry("zone.name", "geographicZone.name")
+        .containsEntry("zone.id", "zone.id");
+  }
+
+  @Test
+  public void shouldParseFieldsInRequestedOrder() {
+    SparseFieldset fields = SparseFieldset.parse(" zone.name, id ,,code", AVAILABLE);
+
+    assertThat(fields.getFields()).containsExactly("zone.name", "id", "code");
+    assertThat(fields.getSelectList("f")).isEqualTo("f.geographicZone.name, f.id, f.code.code");
+  }
+
+  @Test
+  public void shouldRejectUnknownField() {
+    Throwable thrown = catchThrowable(() -> SparseFieldset.parse("id,password", AVAILABLE));
+
+    assertThat(thrown)
+        .isInstanceOf(ValidationMessageException.class)
+        .hasMessageContaining(ERROR_INVALID);
+  }
+
+  @Test
+  public void shouldRejectEmptyFields() {
+    Throwable thrown = catchThrowable(() -> SparseFieldset.parse(" , ", AVAILABLE));
+
+    assertThat(thrown)
+        .isInstanceOf(ValidationMessageException.class)
+        .hasMessageContaining(ERROR_REQUIRED);
+  }
+
+  @Test
+  public void shouldConvertRowsToNestedMaps() {
+    SparseFieldset fields = SparseFieldset.parse("id,zone.name,zone.id", AVAILABLE);
+
+    Map<String, Object> map = fields.toMap(new Object[]{"id-1", "Zone", "zone-1"});
+
+    assertThat(map).containsOnlyKeys("id", "zone").containsEntry("id", "id-1");
+    assertThat(map.get("zone")).isEqualTo(ImmutableMap.of("name", "Zone", "id", "zone-1"));
+  }
+
+  @Test
+  public void shouldConvertSingleValueRows() {
+    SparseFieldset fields = SparseFieldset.parse("code", AVAILABLE);
+
+    List<Map<String, Object>> maps = fields.toMaps(Arrays.asList("C1", "C2"));
+
+    assertThat(maps).hasSize(2);
+    assertThat(maps.get(0)).containsOnly(entry("code", "C1"));
+    assertThat(maps.get(1)).containsOnly(entry("code", "C2"));
+  }
+}
@@ -15,39 +15,31 @@
 
 package org.openlmis.referencedata.web;
 
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
-import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
 import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
 
 import com.google.common.collect.Lists;
 import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
 import org.junit.Test;
-import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
-import org.mockito.Mock;
-import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.CommodityType;
+import org.openlmis.referencedata.domain.Dispensable;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.TradeItem;
-import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.testbuilder.CommodityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.testbuilder.TradeItemDataBuilder;
 import org.openlmis.referencedata.util.EntityCollection;
 
-@RunWith(MockitoJUnitRunner.class)
 public class OrderableFulfillFactoryTest {
 
-  @Mock
-  private OrderableRepository orderableRepository;
-
-  @InjectMocks
-  private OrderableFulfillFactory factory;
+  private OrderableFulfillFactory factory = new OrderableFulfillFactory();
 
   private CommodityType commodityType = new CommodityTypeDataBuilder().build();
   private TradeItem tradeItem = new TradeItemDataBuilder()
@@ -70,32 +62,61 @@ public class OrderableFulfillFactoryTest {
 
   @Test
   public void shouldCreateResourceForTradeItem() {
-    when(orderableRepository.findAllLatestByIdentifier(
-        COMMODITY_TYPE, commodityType.getId().toString()))
-        .thenReturn(Lists.newArrayList(commodityTypeOrderable));
-
-    OrderableFulfill response = factory.createFor(tradeItemOrderable, tradeItems, commodityTypes);
-    assertThat(response.getCanFulfillForMe(), hasSize(0));
-    assertThat(response.getCanBeFulfilledByMe(), hasSize(1));
-    assertThat(response.getCanBeFulfilledByMe(), hasItem(commodityTypeOrderable.getId()));
+    Map<UUID, OrderableFulfill> response = factory.createFor(
+        Lists.newArrayList(tradeItemOrderable, commodityTypeOrderable),
+        tradeItems, commodityTypes);
+
+    OrderableFulfill fulfill = response.get(tradeItemOrderable.getId());
+    assertThat(fulfill.getCanFulfillForMe(), hasSize(0));
+    assertThat(fulfill.getCanBeFulfilledByMe(), hasSize(1));
+    assertThat(fulfill.getCanBeFulfilledByMe(), hasItem(commodityTypeOrderable.getId()));
   }
 
   @Test
   public void shouldCreateResourceForCommodityType() {
-    when(orderableRepository.findAllLatestByIdentifier(TRADE_ITEM, tradeItem.getId().toString()))
-        .thenReturn(Lists.newArrayList(tradeItemOrderable));
+    Map<UUID, OrderableFulfill> response = factory.createFor(
+        Lists.newArrayList(tradeItemOrderable, commodityTypeOrderable),
+        tradeItems, commodityTypes);
 
-    OrderableFulfill response = factory.createFor(commodityTypeOrderable,
+    OrderableFulfill fulfill = response.get(commodityTypeOrderable.getId());
+    assertThat(fulfill.getCanFulfillForMe(), hasSize(1));
+    assertThat(fulfill.getCanFulfillForMe(), hasItem(tradeItemOrderable.getId()));
+    assertThat(fulfill.getCanBeFulfilledByMe(), hasSize(0));
+  }
+
+  @Test
+  public void shouldNotIncludeOrderablesWithDifferentDispensable() {
+    Orderable otherDispensableOrderable = new OrderableDataBuilder()
+        .withIdentifier(COMMODITY_TYPE, commodityType.getId())
+        .withDispensable(Dispensable.createNew("each"))
+        .build();
+
+    Map<UUID, OrderableFulfill> response = factory.createFor(
+        Lists.newArrayList(tradeItemOrderable, commodityTypeOrderable, otherDispensableOrderable),
         tradeItems, commodityTypes);
-    assertThat(response.getCanFulfillForMe(), hasSize(1));
-    assertThat(response.getCanFulfillForMe(), hasItem(tradeItemOrderable.getId()));
-    assertThat(response.getCanBeFulfilledByMe(), hasSize(0));
+
+    assertThat(response.get(tradeItemOrderable.getId()).getCanBeFulfilledByMe(),
+        contains(commodityTypeOrderable.getId()));
+    assertThat(response.get(otherDispensableOrderable.getId()).getCanFulfillForMe(), hasSize(0));
+  }
+
+  @Test
+  public void shouldCreateEmptyResourceIfTradeItemDoesNotExist() {
+    Map<UUID, OrderableFulfill> response = factory.createFor(
+        Lists.newArrayList(tradeItemOrderable, commodityTypeOrderable),
+        new EntityCollection<>(Collections.emptyList()), commodityTypes);
+
+    assertThat(response.get(tradeItemOrderable.getId()).getCanBeFulfilledByMe(), hasSize(0));
+    assertThat(response.get(commodityTypeOrderable.getId()).getCanFulfillForMe(), hasSize(0));
   }
 
   @Test
   public void shouldNotCreateResourceIfThereAreNoIdentifiers() {
-    OrderableFulfill response = factory.createFor(new OrderableDataBuilder().build(),
-        tradeItems, commodityTypes);
-    assertThat(response, is(nullValue()));
+    Orderable orderable = new OrderableDataBuilder().build();
+
+    Map<UUID, OrderableFulfill> response = factory.createFor(
+        Collections.singletonList(orderable), tradeItems, commodityTypes);
+
+    assertThat(response.containsKey(orderable.getId()), is(false));
   }
 }
@@ -0,0 +1,158 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.repository.CommodityTypeRepository;
+import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.OrderableFulfillIndexListener;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OrderableFulfillIndexTest {
+
+  private static final long MAX_AGE = 300;
+
+  @Mock
+  private OrderableRepository orderableRepository;
+
+  @Mock
+  private TradeItemRepository tradeItemRepository;
+
+  @Mock
+  private CommodityTypeRepository commodityTypeRepository;
+
+  @Mock
+  private OrderableFulfillFactory orderableFulfillFactory;
+
+  @Mock
+  private Clock clock;
+
+  @InjectMocks
+  private OrderableFulfillIndex index;
+
+  private UUID tradeItemOrderableId = UUID.randomUUID();
+  private UUID commodityTypeOrderableId = UUID.randomUUID();
+  private UUID otherOrderableId = UUID.randomUUID();
+
+  private Instant now = Instant.now();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(index, "maxAgeInSeconds", MAX_AGE);
+
+    when(clock.instant()).thenAnswer(invocation -> now);
+    when(orderableRepository.findAllLatest(any()))
+        .thenReturn(new PageImpl<>(Collections.emptyList()));
+    when(orderableFulfillFactory.createFor(any(), any(), any()))
+        .thenReturn(fulfills(otherOrderableId));
+  }
+
+  @Test
+  public void shouldBuildIndexOnlyOnce() {
+    OrderableFulfillIndex.Snapshot first = index.getSnapshot();
+    OrderableFulfillIndex.Snapshot second = index.getSnapshot();
+
+    assertThat(second, is(sameInstance(first)));
+    verify(orderableFulfillFactory).createFor(any(), any(), any());
+  }
+
+  @Test
+  public void shouldReturnEntriesForGivenIds() {
+    Map<UUID, OrderableFulfill> result = index.getSnapshot()
+        .get(Sets.newHashSet(tradeItemOrderableId, UUID.randomUUID()));
+
+    assertThat(result.size(), is(1));
+    assertThat(result, hasKey(tradeItemOrderableId));
+  }
+
+  @Test
+  public void shouldRebuildIndexAfterInvalidation() {
+    long version = index.getSnapshot().getVersion();
+    when(orderableFulfillFactory.createFor(any(), any(), any()))
+        .thenReturn(fulfills(UUID.randomUUID()));
+
+    index.invalidate(new OrderableFulfillIndexListener.SourceChangedEvent(this));
+
+    assertThat(index.getSnapshot().getVersion(), is(not(version)));
+    verify(orderableFulfillFactory, times(2)).createFor(any(), any(), any());
+  }
+
+  @Test
+  public void shouldKeepVersionIfContentHasNotChanged() {
+    OrderableFulfillIndex.Snapshot first = index.getSnapshot();
+
+    index.invalidate(new OrderableFulfillIndexListener.SourceChangedEvent(this));
+    OrderableFulfillIndex.Snapshot second = index.getSnapshot();
+
+    assertThat(second, is(not(sameInstance(first))));
+    assertThat(second.getVersion(), is(first.getVersion()));
+  }
+
+  @Test
+  public void shouldCalculateSameVersionForSameContent() {
+    Map<UUID, OrderableFulfill> fulfills = fulfills(otherOrderableId);
+    Map<UUID, OrderableFulfill> reordered = new LinkedHashMap<>();
+    reordered.put(commodityTypeOrderableId, fulfills.get(commodityTypeOrderableId));
+    reordered.put(tradeItemOrderableId, fulfills.get(tradeItemOrderableId));
+
+    assertThat(OrderableFulfillIndex.calculateVersion(reordered),
+        is(OrderableFulfillIndex.calculateVersion(fulfills)));
+    assertThat(index.getSnapshot().getVersion(),
+        is(OrderableFulfillIndex.calculateVersion(fulfills)));
+  }
+
+  @Test
+  public void shouldRebuildIndexIfItIsTooOld() {
+    OrderableFulfillIndex.Snapshot first = index.getSnapshot();
+    now = now.plusSeconds(MAX_AGE);
+
+    assertThat(index.getSnapshot(), is(not(sameInstance(first))));
+    verify(orderableFulfillFactory, times(2)).createFor(any(), any(), any());
+  }
+
+  private Map<UUID, OrderableFulfill> fulfills(UUID otherTradeItemOrderableId) {
+    return ImmutableMap.of(
+        tradeItemOrderableId, OrderableFulfill.ofTradeItem(commodityTypeOrderableId),
+        commodityTypeOrderableId,
+        OrderableFulfill.ofCommodityType(tradeItemOrderableId, otherTradeItemOrderableId));
+  }
+}
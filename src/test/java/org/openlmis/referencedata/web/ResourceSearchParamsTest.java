@@ -0,0 +1,161 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_INVALID_PARAMS;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_LIMIT_INVALID;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_QUERY_REQUIRED;
+import static org.openlmis.referencedata.util.messagekeys.SearchMessageKeys.ERROR_TYPE_INVALID;
+
+import nl.jqno.equalsverifier.EqualsVerifier;
+import nl.jqno.equalsverifier.Warning;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.openlmis.referencedata.ToStringTestUtils;
+import org.openlmis.referencedata.dto.SearchResourceType;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.springframework.util.LinkedMultiValueMap;
+
+public class ResourceSearchParamsTest {
+
+  @Rule
+  public ExpectedException exception = ExpectedException.none();
+
+  private static final String QUERY = "query";
+  private static final String TYPE = "type";
+  private static final String LIMIT = "limit";
+
+  private LinkedMultiValueMap<String, Object> queryMap;
+
+  @Before
+  public void setUp() {
+    queryMap = new LinkedMultiValueMap<>();
+    queryMap.add(QUERY, " Balaka ");
+  }
+
+  @Test
+  public void shouldGetTrimmedQueryFromParameters() {
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    assertThat(params.getQuery()).isEqualTo("Balaka");
+  }
+
+  @Test
+  public void shouldGetDefaultTypesWithoutUsersIfMapHasNoTypeProperty() {
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    assertThat(params.getTypes()).containsExactly(SearchResourceType.FACILITY,
+        SearchResourceType.ORDERABLE, SearchResourceType.GEOGRAPHIC_ZONE);
+  }
+
+  @Test
+  public void shouldGetTypesIgnoringCaseFromParameters() {
+    queryMap.add(TYPE, "user");
+    queryMap.add(TYPE, "Geographic_Zone");
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    assertThat(params.getTypes())
+        .containsExactly(SearchResourceType.GEOGRAPHIC_ZONE, SearchResourceType.USER);
+  }
+
+  @Test
+  public void shouldGetDefaultLimitIfMapHasNoLimitProperty() {
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    assertThat(params.getLimit()).isEqualTo(ResourceSearchParams.DEFAULT_LIMIT);
+  }
+
+  @Test
+  public void shouldGetLimitFromParameters() {
+    queryMap.add(LIMIT, "5");
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    assertThat(params.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfQueryIsBlank() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_QUERY_REQUIRED);
+
+    queryMap.set(QUERY, "  ");
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfQueryIsMissing() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_QUERY_REQUIRED);
+
+    queryMap.remove(QUERY);
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfTypeIsUnknown() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_TYPE_INVALID);
+
+    queryMap.add(TYPE, "supplyLine");
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfLimitIsTooLarge() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_LIMIT_INVALID);
+
+    queryMap.add(LIMIT, String.valueOf(ResourceSearchParams.MAX_LIMIT + 1));
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfLimitIsNotNumber() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_LIMIT_INVALID);
+
+    queryMap.add(LIMIT, "all");
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void shouldThrowExceptionIfThereIsUnknownParameterInParameters() {
+    exception.expect(ValidationMessageException.class);
+    exception.expectMessage(ERROR_INVALID_PARAMS);
+
+    queryMap.add("some-param", "some-value");
+    new ResourceSearchParams(queryMap);
+  }
+
+  @Test
+  public void equalsContract() {
+    EqualsVerifier
+        .forClass(ResourceSearchParams.class)
+        .suppress(Warning.NONFINAL_FIELDS)
+        .verify();
+  }
+
+  @Test
+  public void shouldImplementToString() {
+    ResourceSearchParams params = new ResourceSearchParams(queryMap);
+
+    ToStringTestUtils.verify(ResourceSearchParams.class, params, "DEFAULT_LIMIT", "MAX_LIMIT",
+        "QUERY", "TYPE", "LIMIT", "ALL_PARAMETERS");
+  }
+}
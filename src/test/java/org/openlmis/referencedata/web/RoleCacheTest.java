@@ -0,0 +1,114 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.ImmutableMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Right;
+import org.openlmis.referencedata.domain.Role;
+import org.openlmis.referencedata.domain.RoleAssignment;
+import org.openlmis.referencedata.dto.RoleDto;
+import org.openlmis.referencedata.repository.RoleRepository;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RoleUserCountService;
+import org.openlmis.referencedata.testbuilder.RightDataBuilder;
+import org.openlmis.referencedata.testbuilder.RoleDataBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RoleCacheTest {
+
+  private static final String ETAG = "\"1.2.3\"";
+
+  @Mock
+  private RoleRepository roleRepository;
+
+  @Mock
+  private RoleUserCountService roleUserCountService;
+
+  @Mock
+  private ResourceVersionService resourceVersionService;
+
+  @InjectMocks
+  private RoleCache cache;
+
+  private Right right1 = new RightDataBuilder().build();
+  private Right right2 = new RightDataBuilder().build();
+  private Role role1 = new RoleDataBuilder().withRights(right1).build();
+  private Role role2 = new RoleDataBuilder().withRights(right2).build();
+
+  @Before
+  public void setUp() {
+    when(resourceVersionService.getETag(Role.class, RoleAssignment.class)).thenReturn(ETAG);
+    when(roleRepository.findAll()).thenReturn(Arrays.asList(role1, role2));
+    when(roleUserCountService.getUserCounts())
+        .thenReturn(ImmutableMap.of(role1.getId(), 5L));
+  }
+
+  @Test
+  public void shouldExportRolesWithUserCounts() {
+    RoleCache.Snapshot snapshot = cache.getSnapshot();
+
+    List<RoleDto> roles = snapshot.search(Collections.emptySet());
+    assertThat(roles).extracting(RoleDto::getId).containsExactly(role1.getId(), role2.getId());
+    assertThat(roles).extracting(RoleDto::getCount).containsExactly(5L, 0L);
+    assertThat(snapshot.getETag()).isEqualTo(ETAG);
+  }
+
+  @Test
+  public void shouldReuseSnapshotWhileETagIsUnchanged() {
+    RoleCache.Snapshot first = cache.getSnapshot();
+    RoleCache.Snapshot second = cache.getSnapshot();
+
+    assertThat(second).isSameAs(first);
+    verify(roleRepository, times(1)).findAll();
+    verify(roleUserCountService, times(1)).getUserCounts();
+  }
+
+  @Test
+  public void shouldRebuildSnapshotWhenETagChanged() {
+    RoleCache.Snapshot first = cache.getSnapshot();
+    when(resourceVersionService.getETag(Role.class, RoleAssignment.class))
+        .thenReturn("\"1.2.4\"");
+
+    RoleCache.Snapshot second = cache.getSnapshot();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.getETag()).isEqualTo("\"1.2.4\"");
+    verify(roleRepository, times(2)).findAll();
+  }
+
+  @Test
+  public void shouldSearchRolesByRights() {
+    List<RoleDto> roles = cache.getSnapshot()
+        .search(Collections.singleton(right2.getId()));
+
+    assertThat(roles).extracting(RoleDto::getId).containsExactly(role2.getId());
+  }
+
+}
@@ -16,17 +16,14 @@
 package org.openlmis.referencedata.web;
 
 import static org.junit.Assert.assertEquals;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import com.google.common.collect.Sets;
 import java.util.Collections;
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -35,11 +32,10 @@ import org.openlmis.referencedata.domain.RightType;
 import org.openlmis.referencedata.domain.Role;
 import org.openlmis.referencedata.dto.RoleDto;
 import org.openlmis.referencedata.exception.NotFoundException;
-import org.openlmis.referencedata.repository.CountResource;
 import org.openlmis.referencedata.repository.RightRepository;
-import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.ResourceVersionService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.openlmis.referencedata.service.RightService;
 import org.openlmis.referencedata.testbuilder.RightDataBuilder;
 import org.openlmis.referencedata.testbuilder.RoleDataBuilder;
@@ -53,7 +49,10 @@ public class RoleControllerTest {
   private RoleRepository repository;
 
   @Mock
-  private RoleAssignmentRepository roleAssignmentRepository;
+  private RoleCache roleCache;
+
+  @Mock
+  private ResourceVersionService resourceVersionService;
 
   @Mock
   private RightRepository rightRepository;
@@ -62,7 +61,7 @@ public class RoleControllerTest {
   private RightService rightService;
   
   @Mock
-  private RightAssignmentService rightAssignmentService;
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   @InjectMocks
   private RoleController controller = new RoleController();
@@ -75,7 +74,6 @@ public class RoleControllerTest {
   private Right right3;
   private String role1Name;
   private Role role1;
-  private List<Role> roles;
   private RoleDto role1Dto;
 
   /**
@@ -91,7 +89,6 @@ public class RoleControllerTest {
 
     role1Name = "role1";
     role1 = new RoleDataBuilder().withName(role1Name).withRights(right1, right2).build();
-    roles = Collections.singletonList(role1);
 
     role1Dto = new RoleDto();
     role1.export(role1Dto);
@@ -106,22 +103,17 @@ public class RoleControllerTest {
   @Test
   public void shouldGetAllRoles() {
     //given
-    Set<RoleDto> expectedRoleDtos = Sets.newHashSet(role1Dto);
-    when(repository.search(any())).thenReturn(roles);
-
-    List<CountResource> usersCount = roles
-        .stream()
-        .map(role -> new CountResource(role.getId(), 1L))
-        .collect(Collectors.toList());
-    expectedRoleDtos.forEach(role -> role.setCount(1L));
-    when(roleAssignmentRepository.countUsersAssignedToRoles()).thenReturn(usersCount);
+    role1Dto.setCount(1L);
+    when(roleCache.getSnapshot())
+        .thenReturn(new RoleCache.Snapshot(Collections.singletonList(role1Dto), "\"1\""));
 
     //when
     MultiValueMap<String, Object> queryParams = new LinkedMultiValueMap<>();
     Set<RoleDto> roleDtos = controller.getAllRoles(queryParams);
 
     //then
-    assertEquals(expectedRoleDtos, roleDtos);
+    assertEquals(Sets.newHashSet(role1Dto), roleDtos);
+    assertEquals(Long.valueOf(1L), roleDtos.iterator().next().getCount());
   }
 
   @Test
@@ -181,7 +173,8 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).requestRegeneration();
+    verify(resourceVersionService).markChanged("Role");
   }
 
   @Test
@@ -198,7 +191,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).requestRegeneration();
   }
 
   @Test
@@ -218,7 +211,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).requestRegeneration();
   }
 
   @Test
@@ -238,7 +231,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).requestRegeneration();
   }
 
   @Test
@@ -255,7 +248,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).requestRegeneration();
   }
 
   @Test
@@ -58,6 +58,7 @@ import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.repository.UserSearchParams;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.UserRoleAssignmentService;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.testbuilder.SupportedProgramDataBuilder;
 import org.openlmis.referencedata.testbuilder.UserDataBuilder;
@@ -67,6 +68,7 @@ import org.openlmis.referencedata.validate.UserValidator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.validation.BindingResult;
 
 @SuppressWarnings({"PMD.UnusedPrivateField", "PMD.TooManyMethods"})
@@ -106,6 +108,9 @@ public class UserControllerTest {
   @Mock
   private UserService userService;
 
+  @InjectMocks
+  private UserRoleAssignmentService userRoleAssignmentService = new UserRoleAssignmentService();
+
   @InjectMocks
   private UserController controller = new UserController();
 
@@ -143,6 +148,8 @@ public class UserControllerTest {
    */
   public UserControllerTest() {
     initMocks(this);
+    ReflectionTestUtils.setField(controller, "userRoleAssignmentService",
+        userRoleAssignmentService);
 
     homeFacilityId = UUID.randomUUID();
     homeFacility = new Facility("C1");
@@ -308,7 +315,8 @@ public class UserControllerTest {
     preparePostOrPut();
 
 
-    when(roleRepository.findById(roleId)).thenReturn(Optional.of(adminRole1));
+    when(roleRepository.findAllById(Collections.singleton(roleId)))
+        .thenReturn(Lists.newArrayList(adminRole1));
     RoleAssignmentDto roleAssignmentDto = new RoleAssignmentDto();
     roleAssignmentDto.setRole(adminRole1);
     user1Dto.setRoleAssignments(Sets.newHashSet(roleAssignmentDto));
@@ -329,8 +337,10 @@ public class UserControllerTest {
     preparePostOrPut();
 
 
-    when(roleRepository.findById(roleId)).thenReturn(Optional.of(supervisionRole1));
-    when(programRepository.findById(programId)).thenReturn(Optional.of(program1));
+    when(roleRepository.findAllById(Collections.singleton(roleId)))
+        .thenReturn(Lists.newArrayList(supervisionRole1));
+    when(programRepository.findAllById(Collections.singleton(programId)))
+        .thenReturn(Lists.newArrayList(program1));
     RoleAssignmentDto roleAssignmentDto = new RoleAssignmentDto();
     roleAssignmentDto.setRole(supervisionRole1);
     roleAssignmentDto.setProgram(program1);
@@ -353,10 +363,12 @@ public class UserControllerTest {
     preparePostOrPut();
 
 
-    when(roleRepository.findById(roleId)).thenReturn(Optional.of(supervisionRole1));
-    when(programRepository.findById(programId)).thenReturn(Optional.of(program1));
-    when(supervisoryNodeRepository.findById(supervisoryNodeId))
-        .thenReturn(Optional.of(supervisoryNode1));
+    when(roleRepository.findAllById(Collections.singleton(roleId)))
+        .thenReturn(Lists.newArrayList(supervisionRole1));
+    when(programRepository.findAllById(Collections.singleton(programId)))
+        .thenReturn(Lists.newArrayList(program1));
+    when(supervisoryNodeRepository.findAllById(Collections.singleton(supervisoryNodeId)))
+        .thenReturn(Lists.newArrayList(supervisoryNode1));
     RoleAssignmentDto roleAssignmentDto = new RoleAssignmentDto();
     roleAssignmentDto.setRole(supervisionRole1);
     roleAssignmentDto.setProgram(program1);
@@ -379,8 +391,10 @@ public class UserControllerTest {
     preparePostOrPut();
 
 
-    when(roleRepository.findById(roleId)).thenReturn(Optional.of(fulfillmentRole1));
-    when(facilityRepository.findById(warehouseId)).thenReturn(Optional.of(warehouse1));
+    when(roleRepository.findAllById(Collections.singleton(roleId)))
+        .thenReturn(Lists.newArrayList(fulfillmentRole1));
+    when(facilityRepository.findAllById(Collections.singleton(warehouseId)))
+        .thenReturn(Lists.newArrayList(warehouse1));
     RoleAssignmentDto roleAssignmentDto = new RoleAssignmentDto();
     roleAssignmentDto.setRole(fulfillmentRole1);
     roleAssignmentDto.setWarehouse(warehouse1);
@@ -404,7 +418,8 @@ public class UserControllerTest {
     user1.assignRoles(new SupervisionRoleAssignment(supervisionRole1, user1, program1));
 
 
-    when(roleRepository.findById(roleId)).thenReturn(Optional.of(adminRole1));
+    when(roleRepository.findAllById(Collections.singleton(roleId)))
+        .thenReturn(Lists.newArrayList(adminRole1));
     RoleAssignmentDto roleAssignmentDto = new RoleAssignmentDto();
     roleAssignmentDto.setRole(adminRole1);
     user1Dto.setRoleAssignments(Sets.newHashSet(roleAssignmentDto));